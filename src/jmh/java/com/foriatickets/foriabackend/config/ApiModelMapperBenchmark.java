@@ -0,0 +1,135 @@
+package com.foriatickets.foriabackend.config;
+
+import com.foriatickets.foriabackend.entities.*;
+import org.modelmapper.ModelMapper;
+import org.openapitools.model.Event;
+import org.openapitools.model.Ticket;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand written conversions against the model mapper on the two mappings that run per row:
+ * a ticket for the ticket and attendee lists, and an event for the listing.
+ *
+ * @author Corbin Schwalm
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiModelMapperBenchmark {
+
+    /**
+     * Number of tiers on the event. Each fee is mapped once per event on top of them.
+     */
+    @Param({"3", "12"})
+    private int tierCount;
+
+    private ModelMapper modelMapper;
+
+    private EventEntity eventEntity;
+
+    private TicketEntity ticketEntity;
+
+    @Setup
+    public void setUp() {
+
+        modelMapper = new BeanConfig().modelMapper();
+
+        VenueEntity venueEntity = new VenueEntity()
+                .setId(UUID.randomUUID())
+                .setName("Benchmark Venue")
+                .setContactStreetAddress("12345 Maple Ln")
+                .setContactCity("Test City")
+                .setContactState("MO")
+                .setContactZip("55555")
+                .setContactCountry("USA");
+
+        eventEntity = new EventEntity()
+                .setId(UUID.randomUUID())
+                .setName("Benchmark Event")
+                .setTagLine("Benchmark")
+                .setDescription("Benchmark Event")
+                .setImageUrl("https://foriatickets.com/img.png")
+                .setVenueEntity(venueEntity)
+                .setEventStartTime(OffsetDateTime.now().plusDays(1L))
+                .setEventEndTime(OffsetDateTime.now().plusDays(2L));
+        eventEntity.setStatus(EventEntity.Status.LIVE);
+        eventEntity.setVisibility(EventEntity.Visibility.PUBLIC);
+        eventEntity.setType(EventEntity.Type.PRIMARY);
+
+        Set<TicketTypeConfigEntity> ticketTypeConfigEntities = new HashSet<>();
+        for (int i = 0; i < tierCount; i++) {
+
+            TicketTypeConfigEntity ticketTypeConfigEntity = new TicketTypeConfigEntity()
+                    .setId(UUID.randomUUID())
+                    .setName("Tier " + i)
+                    .setDescription("Benchmark tier.")
+                    .setEventEntity(eventEntity)
+                    .setAuthorizedAmount(100)
+                    .setPrice(new BigDecimal("25.00"))
+                    .setCurrency("USD");
+            ticketTypeConfigEntity.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+            ticketTypeConfigEntity.setType(TicketTypeConfigEntity.Type.PUBLIC);
+            ticketTypeConfigEntities.add(ticketTypeConfigEntity);
+        }
+
+        Set<TicketFeeConfigEntity> ticketFeeConfigEntities = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+
+            TicketFeeConfigEntity ticketFeeConfigEntity = new TicketFeeConfigEntity()
+                    .setId(UUID.randomUUID())
+                    .setName("Fee " + i)
+                    .setDescription("Benchmark fee.")
+                    .setEventEntity(eventEntity)
+                    .setMethod(i % 2 == 0 ? TicketFeeConfigEntity.FeeMethod.PERCENT : TicketFeeConfigEntity.FeeMethod.FLAT)
+                    .setType(i < 2 ? TicketFeeConfigEntity.FeeType.ISSUER : TicketFeeConfigEntity.FeeType.VENUE)
+                    .setAmount(new BigDecimal("1.25"))
+                    .setCurrency("USD");
+            ticketFeeConfigEntity.setStatus(TicketFeeConfigEntity.Status.ACTIVE);
+            ticketFeeConfigEntities.add(ticketFeeConfigEntity);
+        }
+
+        eventEntity.setTicketTypeConfigEntity(ticketTypeConfigEntities);
+        eventEntity.setTicketFeeConfig(ticketFeeConfigEntities);
+
+        UserEntity userEntity = new UserEntity().setId(UUID.randomUUID());
+        ticketEntity = new TicketEntity()
+                .setId(UUID.randomUUID())
+                .setEventEntity(eventEntity)
+                .setOwnerEntity(userEntity)
+                .setPurchaserEntity(userEntity)
+                .setTicketTypeConfigEntity(ticketTypeConfigEntities.iterator().next())
+                .setSecret(UUID.randomUUID().toString())
+                .setStatus(TicketEntity.Status.ACTIVE)
+                .setIssuedDate(OffsetDateTime.now());
+    }
+
+    @Benchmark
+    public Ticket ticketModelMapper() {
+        return modelMapper.map(ticketEntity, Ticket.class);
+    }
+
+    @Benchmark
+    public Ticket ticketHandWritten() {
+        return ApiModelMapper.toTicket(ticketEntity);
+    }
+
+    @Benchmark
+    public Event eventModelMapper() {
+        return modelMapper.map(eventEntity, Event.class);
+    }
+
+    @Benchmark
+    public Event eventHandWritten() {
+        return ApiModelMapper.toEvent(eventEntity);
+    }
+}
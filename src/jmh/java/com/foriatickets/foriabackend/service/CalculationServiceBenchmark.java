@@ -0,0 +1,156 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketFeeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeConfigRepository;
+import org.openapitools.model.OrderTotal;
+import org.openapitools.model.TicketLineItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures the fee engine on the paths that run for every listing tier, order total and checkout.
+ * Run through the benchmark profile so the GC profiler reports allocations per call next to throughput.
+ *
+ * @author Corbin Schwalm
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculationServiceBenchmark {
+
+    /**
+     * Number of fee configs on the event. Four is what a normal event carries. Sixteen covers events with
+     * a history of replaced fees that are still attached as inactive.
+     */
+    @Param({"4", "16"})
+    private int feeCount;
+
+    private CalculationService calculationService;
+
+    private CalculationServiceImpl calculationServiceImpl;
+
+    private Set<TicketFeeConfigEntity> feeSet;
+
+    private UUID eventId;
+
+    private List<TicketLineItem> orderConfig;
+
+    private BigDecimal ticketSubtotal;
+
+    @Setup
+    public void setUp() {
+
+        eventId = UUID.randomUUID();
+        feeSet = buildFeeSet(feeCount);
+
+        EventEntity eventEntity = new EventEntity()
+                .setId(eventId)
+                .setName("Benchmark Event")
+                .setTicketFeeConfig(feeSet);
+
+        //Stub only mocks do not record invocations, so memory stays flat over millions of calls.
+        EventRepository eventRepository = mock(EventRepository.class, withSettings().stubOnly());
+        TicketTypeConfigRepository ticketTypeConfigRepository = mock(TicketTypeConfigRepository.class, withSettings().stubOnly());
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+        when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntity));
+
+        orderConfig = new ArrayList<>();
+        orderConfig.add(addTier(ticketTypeConfigRepository, eventEntity, "General Admission", new BigDecimal("25.00"), 4));
+        orderConfig.add(addTier(ticketTypeConfigRepository, eventEntity, "VIP", new BigDecimal("79.99"), 2));
+        orderConfig.add(addTier(ticketTypeConfigRepository, eventEntity, "Guest List", BigDecimal.ZERO, 1));
+
+        ticketSubtotal = new BigDecimal("259.98");
+        calculationServiceImpl = new CalculationServiceImpl(eventRepository, ticketTypeConfigRepository, 1000, 60000L);
+        calculationService = calculationServiceImpl;
+    }
+
+    @Benchmark
+    public CalculationServiceImpl.PriceCalculationInfo calculateFees() {
+        return calculationService.calculateFees(6, ticketSubtotal, feeSet, true);
+    }
+
+    @Benchmark
+    public CalculationServiceImpl.PriceCalculationInfo calculateFeesSkipInactiveCheck() {
+        return calculationService.calculateFees(6, ticketSubtotal, feeSet, false);
+    }
+
+    @Benchmark
+    public CalculationServiceImpl.PriceCalculationInfo calculateEventFees() {
+        return calculationService.calculateEventFees(6, ticketSubtotal, eventId, feeSet);
+    }
+
+    @Benchmark
+    public CalculationServiceImpl.PriceCalculationInfo calculateFeesWithBigDecimal() {
+        return calculationServiceImpl.calculateFeesWithBigDecimal(6, ticketSubtotal, feeSet, true);
+    }
+
+    @Benchmark
+    public CalculationServiceImpl.PriceCalculationInfo calculateTotalPrice() {
+        return calculationService.calculateTotalPrice(eventId, orderConfig);
+    }
+
+    @Benchmark
+    public OrderTotal calculateOrderTotal() {
+        return calculationService.calculateOrderTotal(eventId, orderConfig);
+    }
+
+    private static TicketLineItem addTier(TicketTypeConfigRepository ticketTypeConfigRepository, EventEntity eventEntity,
+                                          String name, BigDecimal price, int amount) {
+
+        TicketTypeConfigEntity ticketTypeConfigEntity = new TicketTypeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setName(name)
+                .setEventEntity(eventEntity)
+                .setAuthorizedAmount(100)
+                .setPrice(price)
+                .setCurrency("USD");
+        ticketTypeConfigEntity.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+        when(ticketTypeConfigRepository.findById(ticketTypeConfigEntity.getId())).thenReturn(Optional.of(ticketTypeConfigEntity));
+
+        TicketLineItem ticketLineItem = new TicketLineItem();
+        ticketLineItem.setTicketTypeId(ticketTypeConfigEntity.getId());
+        ticketLineItem.setAmount(amount);
+        return ticketLineItem;
+    }
+
+    /**
+     * Builds the usual issuer percent, issuer flat, venue percent and venue flat fees. Anything past the
+     * first four is an inactive fee left behind from an earlier configuration.
+     */
+    private static Set<TicketFeeConfigEntity> buildFeeSet(int feeCount) {
+
+        final TicketFeeConfigEntity.FeeMethod[] methods = {TicketFeeConfigEntity.FeeMethod.PERCENT, TicketFeeConfigEntity.FeeMethod.FLAT};
+        final TicketFeeConfigEntity.FeeType[] types = {TicketFeeConfigEntity.FeeType.ISSUER, TicketFeeConfigEntity.FeeType.VENUE};
+
+        Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+        for (int i = 0; i < feeCount; i++) {
+
+            TicketFeeConfigEntity.FeeMethod method = methods[i % 2];
+            TicketFeeConfigEntity.FeeType type = types[(i / 2) % 2];
+
+            TicketFeeConfigEntity ticketFeeConfigEntity = new TicketFeeConfigEntity()
+                    .setId(UUID.randomUUID())
+                    .setName(type + " " + method + " " + i)
+                    .setDescription("Benchmark fee.")
+                    .setMethod(method)
+                    .setType(type)
+                    .setAmount(method == TicketFeeConfigEntity.FeeMethod.PERCENT ? new BigDecimal("0.050") : new BigDecimal("1.25"))
+                    .setCurrency("USD");
+            ticketFeeConfigEntity.setStatus(i < 4 ? TicketFeeConfigEntity.Status.ACTIVE : TicketFeeConfigEntity.Status.INACTIVE);
+            feeSet.add(ticketFeeConfigEntity);
+        }
+
+        return feeSet;
+    }
+}
@@ -0,0 +1,180 @@
+package com.foriatickets.foriabackend.config;
+
+import com.foriatickets.foriabackend.entities.*;
+import org.openapitools.model.*;
+import org.springframework.security.core.token.Sha512DigestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hand written entity to API model conversions for the read paths that map every ticket, event and tier.
+ * Produces the same models as the {@link BeanConfig} mappings without reflection.
+ * Writes from API models to entities still go through the model mapper.
+ *
+ * @author Corbin Schwalm
+ */
+public final class ApiModelMapper {
+
+    private ApiModelMapper() {
+    }
+
+    /**
+     * Maps a ticket along with its tier. Owner and purchaser are read by ID only so they are not loaded.
+     * The stored secret hash is used when present. Tickets that are not backfilled yet are hashed here.
+     *
+     * @param ticketEntity Ticket to map.
+     * @return Model with the secret hash.
+     */
+    public static Ticket toTicket(TicketEntity ticketEntity) {
+
+        if (ticketEntity == null) {
+            return null;
+        }
+
+        Ticket ticket = new Ticket();
+        ticket.setId(ticketEntity.getId());
+        ticket.setEventId(ticketEntity.getEventEntity() == null ? null : ticketEntity.getEventEntity().getId());
+        ticket.setOwnerId(ticketEntity.getOwnerEntity() == null ? null : ticketEntity.getOwnerEntity().getId());
+        ticket.setPurchaserId(ticketEntity.getPurchaserEntity() == null ? null : ticketEntity.getPurchaserEntity().getId());
+        ticket.setSecretHash(ticketEntity.getSecretHash() != null ? ticketEntity.getSecretHash() : hashSecret(ticketEntity.getSecret()));
+        ticket.setStatus(ticketEntity.getStatus() == null ? null : Ticket.StatusEnum.fromValue(ticketEntity.getStatus().name()));
+        ticket.setTicketTypeConfig(toTicketTypeConfig(ticketEntity.getTicketTypeConfigEntity()));
+        ticket.setIssuedDate(ticketEntity.getIssuedDate() == null ? null : ticketEntity.getIssuedDate().toString());
+        return ticket;
+    }
+
+    /**
+     * Maps an event with every fee and tier it holds. Address is not set.
+     *
+     * @param eventEntity Event to map.
+     * @return Model without availability or calculated fees.
+     */
+    public static Event toEvent(EventEntity eventEntity) {
+
+        if (eventEntity == null) {
+            return null;
+        }
+
+        Event event = new Event();
+        event.setId(eventEntity.getId());
+        event.setVenueId(eventEntity.getVenueEntity() == null ? null : eventEntity.getVenueEntity().getId());
+        event.setName(eventEntity.getName());
+        event.setTagLine(eventEntity.getTagLine());
+        event.setDescription(eventEntity.getDescription());
+        event.setImageUrl(eventEntity.getImageUrl());
+        event.setType(eventEntity.getType() == null ? null : Event.TypeEnum.fromValue(eventEntity.getType().name()));
+        event.setVisibility(eventEntity.getVisibility() == null ? null : Event.VisibilityEnum.fromValue(eventEntity.getVisibility().name()));
+        event.setStartTime(eventEntity.getEventStartTime());
+        event.setEndTime(eventEntity.getEventEndTime());
+
+        final Set<TicketFeeConfigEntity> ticketFeeConfigEntities = eventEntity.getTicketFeeConfig();
+        if (ticketFeeConfigEntities != null) {
+            final List<TicketFeeConfig> ticketFeeConfigs = new ArrayList<>(ticketFeeConfigEntities.size());
+            for (TicketFeeConfigEntity ticketFeeConfigEntity : ticketFeeConfigEntities) {
+                ticketFeeConfigs.add(toTicketFeeConfig(ticketFeeConfigEntity));
+            }
+            event.setTicketFeeConfig(ticketFeeConfigs);
+        }
+
+        final Set<TicketTypeConfigEntity> ticketTypeConfigEntities = eventEntity.getTicketTypeConfigEntity();
+        if (ticketTypeConfigEntities != null) {
+            final List<TicketTypeConfig> ticketTypeConfigs = new ArrayList<>(ticketTypeConfigEntities.size());
+            for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigEntities) {
+                ticketTypeConfigs.add(toTicketTypeConfig(ticketTypeConfigEntity));
+            }
+            event.setTicketTypeConfig(ticketTypeConfigs);
+        }
+
+        return event;
+    }
+
+    /**
+     * @param ticketTypeConfigEntity Tier to map.
+     * @return Model without availability or calculated fee.
+     */
+    public static TicketTypeConfig toTicketTypeConfig(TicketTypeConfigEntity ticketTypeConfigEntity) {
+
+        if (ticketTypeConfigEntity == null) {
+            return null;
+        }
+
+        TicketTypeConfig ticketTypeConfig = new TicketTypeConfig();
+        ticketTypeConfig.setId(ticketTypeConfigEntity.getId());
+        ticketTypeConfig.setName(ticketTypeConfigEntity.getName());
+        ticketTypeConfig.setDescription(ticketTypeConfigEntity.getDescription());
+        ticketTypeConfig.setType(ticketTypeConfigEntity.getType() == null ? null : TicketTypeConfig.TypeEnum.fromValue(ticketTypeConfigEntity.getType().name()));
+        ticketTypeConfig.setAuthorizedAmount(ticketTypeConfigEntity.getAuthorizedAmount());
+        ticketTypeConfig.setPrice(toAmountString(ticketTypeConfigEntity.getPrice()));
+        ticketTypeConfig.setCurrency(ticketTypeConfigEntity.getCurrency());
+        return ticketTypeConfig;
+    }
+
+    /**
+     * @param ticketFeeConfigEntity Fee to map.
+     * @return Model.
+     */
+    public static TicketFeeConfig toTicketFeeConfig(TicketFeeConfigEntity ticketFeeConfigEntity) {
+
+        if (ticketFeeConfigEntity == null) {
+            return null;
+        }
+
+        TicketFeeConfig ticketFeeConfig = new TicketFeeConfig();
+        ticketFeeConfig.setId(ticketFeeConfigEntity.getId());
+        ticketFeeConfig.setName(ticketFeeConfigEntity.getName());
+        ticketFeeConfig.setDescription(ticketFeeConfigEntity.getDescription());
+        ticketFeeConfig.setMethod(ticketFeeConfigEntity.getMethod() == null ? null : TicketFeeConfig.MethodEnum.fromValue(ticketFeeConfigEntity.getMethod().name()));
+        ticketFeeConfig.setType(ticketFeeConfigEntity.getType() == null ? null : TicketFeeConfig.TypeEnum.fromValue(ticketFeeConfigEntity.getType().name()));
+        ticketFeeConfig.setAmount(toAmountString(ticketFeeConfigEntity.getAmount()));
+        ticketFeeConfig.setCurrency(ticketFeeConfigEntity.getCurrency());
+        return ticketFeeConfig;
+    }
+
+    /**
+     * Maps the venue and its contact address. Events are left for the caller to add.
+     *
+     * @param venueEntity Venue to map.
+     * @return Model without events.
+     */
+    public static Venue toVenue(VenueEntity venueEntity) {
+
+        if (venueEntity == null) {
+            return null;
+        }
+
+        Address address = new Address();
+        address.setStreetAddress(venueEntity.getContactStreetAddress());
+        address.setCity(venueEntity.getContactCity());
+        address.setState(venueEntity.getContactState());
+        address.setZip(venueEntity.getContactZip());
+        address.setCountry(venueEntity.getContactCountry());
+
+        Venue venue = new Venue();
+        venue.setId(venueEntity.getId());
+        venue.setName(venueEntity.getName());
+        venue.setDescription(venueEntity.getDescription());
+        venue.setContactName(venueEntity.getContactName());
+        venue.setContactEmail(venueEntity.getContactEmail());
+        venue.setContactPhoneCountry(venueEntity.getContactPhoneCountry());
+        venue.setContactPhone(venueEntity.getContactPhone());
+        venue.setAddress(address);
+        return venue;
+    }
+
+    /**
+     * Hashes a ticket secret into the form published on the ticket model.
+     *
+     * @param secret Secret to hash.
+     * @return SHA-512 hex or null if the secret is null.
+     */
+    public static String hashSecret(String secret) {
+        return secret == null ? null : Sha512DigestUtils.shaHex(secret);
+    }
+
+    private static String toAmountString(BigDecimal amount) {
+        return amount == null ? null : amount.toPlainString();
+    }
+}
@@ -1,19 +1,18 @@
 package com.foriatickets.foriabackend.config;
 
 import com.foriatickets.foriabackend.entities.EventEntity;
-import com.foriatickets.foriabackend.entities.TicketEntity;
 import com.foriatickets.foriabackend.entities.VenueEntity;
 import org.modelmapper.AbstractConverter;
 import org.modelmapper.Converter;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.PropertyMap;
 import org.openapitools.model.Event;
-import org.openapitools.model.Ticket;
 import org.openapitools.model.Venue;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
-import org.springframework.security.core.token.Sha512DigestUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,18 +41,25 @@ public class BeanConfig {
         return modelMapper;
     }
 
-    public static List<PropertyMap> getModelMappers() {
-
-        PropertyMap<TicketEntity, Ticket> ticketMap = new PropertyMap<TicketEntity, Ticket>() {
-
-            @Override
-            protected void configure() {
+    /**
+     * Runs event cancellation jobs. Each job fans its refunds out to its own worker pool, so only a few jobs run
+     * at once. Jobs are persisted, so one rejected by a full queue is picked up later by the resume poller.
+     * Spring shuts the pool down with the context.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor eventCancellationJobExecutor(@Value("${eventCancellationJobThreads:2}") int jobThreads,
+                                                               @Value("${eventCancellationJobQueueSize:50}") int queueSize) {
+
+        ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(jobThreads);
+        threadPoolTaskExecutor.setMaxPoolSize(jobThreads);
+        threadPoolTaskExecutor.setQueueCapacity(queueSize);
+        threadPoolTaskExecutor.setThreadNamePrefix("event-cancellation-job-");
+        threadPoolTaskExecutor.setDaemon(true);
+        return threadPoolTaskExecutor;
+    }
 
-                if (source.getSecret() != null) {
-                    map().setSecretHash(Sha512DigestUtils.shaHex(source.getSecret()));
-                }
-            }
-        };
+    public static List<PropertyMap> getModelMappers() {
 
         Converter<UUID, VenueEntity> entityConverter = new AbstractConverter<UUID, VenueEntity>() {
 
@@ -117,7 +123,6 @@ public class BeanConfig {
         list.add(eventEntityMap);
         list.add(venueDtoMap);
         list.add(venueEntityMap);
-        list.add(ticketMap);
         return list;
     }
 }
@@ -55,9 +55,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .authorizeRequests()
                     .antMatchers(HttpMethod.POST, "/v1/register").hasAuthority("write:register")
                     .antMatchers(HttpMethod.GET, "/v1/health-check").permitAll()
+                    .antMatchers(HttpMethod.GET, "/v1/event/*/offlinePack/**").hasAuthority("write:venue_redeem")
+                    .antMatchers(HttpMethod.GET, "/v1/event/*/cancel").hasAuthority("write:event_cancel")
                     .antMatchers(HttpMethod.GET, "/v1/event/**").permitAll()
                     .antMatchers(HttpMethod.OPTIONS, "/v1/event/**").permitAll()
                     .antMatchers(HttpMethod.POST, "/v1/event/*/ticketTypeConfig/promo").permitAll()
+                    .antMatchers(HttpMethod.POST, "/v1/event/*/offlineRedemptions").hasAuthority("write:venue_redeem")
                     .antMatchers(HttpMethod.POST, "/v1/event").hasAuthority("write:event")
                     .antMatchers(HttpMethod.PUT, "/v1/event/*").hasAuthority("write:event")
                     .antMatchers(HttpMethod.PUT, "/v1/event/*/cancel").hasAuthority("write:event_cancel")
@@ -73,6 +76,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                     .antMatchers(HttpMethod.POST, "/v1/venue/*/deauthorize/**").hasAuthority("write:venue")
                     .antMatchers(HttpMethod.POST, "/v1/ticket/*/manualRedeem").hasAuthority("write:venue_redeem")
                     .antMatchers(HttpMethod.POST, "/v1/ticket/redeem").hasAuthority("write:venue_redeem")
+                    .antMatchers(HttpMethod.POST, "/v1/ticket/scan").hasAuthority("write:venue_redeem")
+                    .antMatchers(HttpMethod.POST, "/v1/ticket/redeemBatch").hasAuthority("write:venue_redeem")
                     .antMatchers(HttpMethod.DELETE, "/v1/ticket/*/refund").hasAuthority("write:venue")
                     .antMatchers(HttpMethod.GET, "/v1/user/music/topArtists/*").permitAll()
                     .antMatchers(HttpMethod.OPTIONS, "/v1/user/music/topArtists/*/").permitAll()
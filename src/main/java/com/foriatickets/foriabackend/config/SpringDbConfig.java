@@ -48,6 +48,9 @@ public class SpringDbConfig {
             ds.setUsername(info.username);
             ds.setPassword(info.password);
 
+            //Lets MySQL collapse Hibernate's JDBC batches into multi row inserts.
+            ds.addDataSourceProperty("rewriteBatchedStatements", "true");
+
         } else {
             ds.setJdbcUrl(DB_JDBC);
             ds.setUsername(DB_USERNAME);
@@ -1,8 +1,13 @@
 package com.foriatickets.foriabackend.controllers;
 
+import com.foriatickets.foriabackend.service.EventCatalogueService;
 import com.foriatickets.foriabackend.service.EventService;
+import com.foriatickets.foriabackend.service.OfflineRedemptionService;
 import org.openapitools.model.*;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +16,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -28,9 +34,27 @@ public class EventApi implements org.openapitools.api.EventApi {
 
     @RequestMapping(value = "/event", method = RequestMethod.GET)
     @Override
+    @SuppressWarnings("unchecked")
     public ResponseEntity<List<Event>> getAllEvents() {
+
+        //Body is the pre-rendered JSON. Spring answers a matching If-None-Match with a 304 from the ETag.
+        EventCatalogueService eventCatalogueService = beanFactory.getBean(EventCatalogueService.class);
+        EventCatalogueService.Catalogue catalogue = eventCatalogueService.getCatalogue();
+        ResponseEntity<byte[]> response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(catalogue.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(catalogue.getBody());
+        return (ResponseEntity<List<Event>>) (ResponseEntity<?>) response;
+    }
+
+    @RequestMapping(value = "/event/page", method = RequestMethod.GET)
+    @Override
+    public ResponseEntity<EventPage> getEventPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                                  @RequestParam(value = "limit", required = false, defaultValue = "20") Integer limit) {
+
         EventService eventService = beanFactory.getBean(EventService.class);
-        return new ResponseEntity<>(eventService.getAllActiveEvents(), HttpStatus.OK);
+        return new ResponseEntity<>(eventService.getEventPage(cursor, limit), HttpStatus.OK);
     }
 
     @RequestMapping(value = "/event", method = RequestMethod.POST)
@@ -65,6 +89,37 @@ public class EventApi implements org.openapitools.api.EventApi {
         return new ResponseEntity<>(eventService.getAttendees(eventId), HttpStatus.OK);
     }
 
+    @Override
+    @RequestMapping(value = "/event/{event_id}/offlinePack", method = RequestMethod.GET, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Resource> getOfflinePack(@PathVariable("event_id") UUID eventId) {
+
+        OfflineRedemptionService offlineRedemptionService = beanFactory.getBean(OfflineRedemptionService.class);
+        byte[] pack = offlineRedemptionService.getOfflinePack(eventId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new ByteArrayResource(pack));
+    }
+
+    @Override
+    @RequestMapping(value = "/event/{event_id}/offlinePack/delta", method = RequestMethod.GET, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Resource> getOfflinePackDelta(@PathVariable("event_id") UUID eventId, @RequestParam(value = "since_version") Long sinceVersion) {
+
+        OfflineRedemptionService offlineRedemptionService = beanFactory.getBean(OfflineRedemptionService.class);
+        byte[] pack = offlineRedemptionService.getOfflinePackDelta(eventId, sinceVersion);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new ByteArrayResource(pack));
+    }
+
+    @Override
+    @RequestMapping(value = "/event/{event_id}/offlineRedemptions", method = RequestMethod.POST)
+    public ResponseEntity<OfflineRedemptionUploadResult> uploadOfflineRedemptions(@PathVariable("event_id") UUID eventId, @Valid @RequestBody OfflineRedemptionUpload offlineRedemptionUpload) {
+
+        OfflineRedemptionService offlineRedemptionService = beanFactory.getBean(OfflineRedemptionService.class);
+        OfflineRedemptionUploadResult result = offlineRedemptionService.uploadOfflineRedemptions(eventId, offlineRedemptionUpload.getRedemptions());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/event/{event_id}/cancel", method = RequestMethod.PUT)
     @Override
     public ResponseEntity<BaseApiModel> cancelEvent(@PathVariable("event_id") UUID eventId, @Valid @RequestBody CancelEvent cancelEvent) {
@@ -74,6 +129,14 @@ public class EventApi implements org.openapitools.api.EventApi {
         return new ResponseEntity<>(new BaseApiModel(), HttpStatus.OK);
     }
 
+    @RequestMapping(value = "/event/{event_id}/cancel", method = RequestMethod.GET)
+    @Override
+    public ResponseEntity<EventCancellationStatus> getEventCancellationStatus(@PathVariable("event_id") UUID eventId) {
+
+        EventService eventService = beanFactory.getBean(EventService.class);
+        return new ResponseEntity<>(eventService.getCancellationStatus(eventId), HttpStatus.OK);
+    }
+
     @RequestMapping(value = "/event/{event_id}/ticketFeeConfig", method = RequestMethod.POST)
     @Override
     public ResponseEntity<TicketFeeConfig> createTicketFeeConfig(@PathVariable("event_id") UUID eventId, @Valid TicketFeeConfig ticketFeeConfig) {
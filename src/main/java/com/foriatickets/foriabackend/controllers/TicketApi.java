@@ -97,6 +97,25 @@ public class TicketApi implements org.openapitools.api.TicketApi {
         return new ResponseEntity<>(redemptionResult, HttpStatus.OK);
     }
 
+    @Override
+    @RequestMapping(value = "/ticket/scan", method = RequestMethod.POST)
+    public ResponseEntity<ScanResult> scanTicket(@Valid @RequestBody RedemptionRequest redemptionRequest) {
+
+        TicketService ticketService = beanFactory.getBean(TicketService.class);
+        ScanResult scanResult = ticketService.scanTicket(redemptionRequest.getTicketId(), redemptionRequest.getTicketOtp());
+        return new ResponseEntity<>(scanResult, HttpStatus.OK);
+    }
+
+    @Override
+    @RequestMapping(value = "/ticket/redeemBatch", method = RequestMethod.POST)
+    public ResponseEntity<RedemptionBatchResult> redeemTicketBatch(@Valid @RequestBody RedemptionBatch redemptionBatch) {
+
+        TicketService ticketService = beanFactory.getBean(TicketService.class);
+        RedemptionBatchResult redemptionBatchResult = new RedemptionBatchResult();
+        redemptionBatchResult.setResults(ticketService.redeemTicketBatch(redemptionBatch.getRedemptions()));
+        return new ResponseEntity<>(redemptionBatchResult, HttpStatus.OK);
+    }
+
     @Override
     @RequestMapping(value = "/ticket/{order_id}/refund", method = RequestMethod.DELETE)
     public ResponseEntity<BaseApiModel> refundOrder(@PathVariable("order_id") UUID orderId) {
@@ -0,0 +1,141 @@
+package com.foriatickets.foriabackend.entities;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Running sales totals for a calendar day in Pacific time, across all events.
+ * Sales count on the day of the order and refunds on the day of the refund. Every change is an atomic increment.
+ */
+@Entity
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+@Table(name = "daily_sales_rollup")
+public class DailySalesRollupEntity implements Serializable {
+
+    private LocalDate id;
+    private int ticketsSold;
+    private int ticketsRefunded;
+    private BigDecimal ticketSubtotal = BigDecimal.ZERO;
+    private BigDecimal issuerFee = BigDecimal.ZERO;
+    private BigDecimal venueFee = BigDecimal.ZERO;
+    private BigDecimal paymentFee = BigDecimal.ZERO;
+    private BigDecimal refundedPaymentFee = BigDecimal.ZERO;
+
+    @Id
+    @Column(name = "sales_date", updatable = false)
+    public LocalDate getId() {
+        return id;
+    }
+
+    public DailySalesRollupEntity setId(LocalDate id) {
+        this.id = id;
+        return this;
+    }
+
+    @Column(name = "tickets_sold", nullable = false)
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public DailySalesRollupEntity setTicketsSold(int ticketsSold) {
+        this.ticketsSold = ticketsSold;
+        return this;
+    }
+
+    @Column(name = "tickets_refunded", nullable = false)
+    public int getTicketsRefunded() {
+        return ticketsRefunded;
+    }
+
+    public DailySalesRollupEntity setTicketsRefunded(int ticketsRefunded) {
+        this.ticketsRefunded = ticketsRefunded;
+        return this;
+    }
+
+    @Column(name = "ticket_subtotal", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getTicketSubtotal() {
+        return ticketSubtotal;
+    }
+
+    public DailySalesRollupEntity setTicketSubtotal(BigDecimal ticketSubtotal) {
+        this.ticketSubtotal = ticketSubtotal;
+        return this;
+    }
+
+    @Column(name = "issuer_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getIssuerFee() {
+        return issuerFee;
+    }
+
+    public DailySalesRollupEntity setIssuerFee(BigDecimal issuerFee) {
+        this.issuerFee = issuerFee;
+        return this;
+    }
+
+    @Column(name = "venue_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getVenueFee() {
+        return venueFee;
+    }
+
+    public DailySalesRollupEntity setVenueFee(BigDecimal venueFee) {
+        this.venueFee = venueFee;
+        return this;
+    }
+
+    @Column(name = "payment_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getPaymentFee() {
+        return paymentFee;
+    }
+
+    public DailySalesRollupEntity setPaymentFee(BigDecimal paymentFee) {
+        this.paymentFee = paymentFee;
+        return this;
+    }
+
+    @Column(name = "refunded_payment_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getRefundedPaymentFee() {
+        return refundedPaymentFee;
+    }
+
+    public DailySalesRollupEntity setRefundedPaymentFee(BigDecimal refundedPaymentFee) {
+        this.refundedPaymentFee = refundedPaymentFee;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "DailySalesRollupEntity{" +
+                "id=" + id +
+                ", ticketsSold=" + ticketsSold +
+                ", ticketsRefunded=" + ticketsRefunded +
+                ", ticketSubtotal=" + ticketSubtotal +
+                ", issuerFee=" + issuerFee +
+                ", venueFee=" + venueFee +
+                ", paymentFee=" + paymentFee +
+                ", refundedPaymentFee=" + refundedPaymentFee +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DailySalesRollupEntity that = (DailySalesRollupEntity) o;
+        return ticketsSold == that.ticketsSold &&
+                ticketsRefunded == that.ticketsRefunded &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(ticketSubtotal, that.ticketSubtotal) &&
+                Objects.equals(issuerFee, that.issuerFee) &&
+                Objects.equals(venueFee, that.venueFee) &&
+                Objects.equals(paymentFee, that.paymentFee) &&
+                Objects.equals(refundedPaymentFee, that.refundedPaymentFee);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ticketsSold, ticketsRefunded, ticketSubtotal, issuerFee, venueFee, paymentFee, refundedPaymentFee);
+    }
+}
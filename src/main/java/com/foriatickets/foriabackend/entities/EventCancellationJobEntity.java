@@ -0,0 +1,170 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Background job that refunds every order of a canceled event. Progress counters are updated atomically by
+ * the refund workers. The lease lets another node resume the job if the owner dies.
+ */
+@Entity
+@Table(name = "event_cancellation_job")
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class EventCancellationJobEntity implements Serializable {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        COMPLETED_WITH_ERRORS
+    }
+
+    private UUID id;
+    private UUID eventId;
+    private String reason;
+    private Status status;
+    private int totalOrders;
+    private int refundedOrders;
+    private int failedOrders;
+    private OffsetDateTime createdDate;
+    private OffsetDateTime leaseExpiresDate;
+    private OffsetDateTime completedDate;
+
+    @Id
+    @GeneratedValue
+    @Type(type = "uuid-char")
+    @Column(name = "id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public EventCancellationJobEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Type(type = "uuid-char")
+    @Column(name = "event_id", nullable = false, updatable = false)
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public EventCancellationJobEntity setEventId(UUID eventId) {
+        this.eventId = eventId;
+        return this;
+    }
+
+    @Column(name = "reason", nullable = false, updatable = false)
+    public String getReason() {
+        return reason;
+    }
+
+    public EventCancellationJobEntity setReason(String reason) {
+        this.reason = reason;
+        return this;
+    }
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Status getStatus() {
+        return status;
+    }
+
+    public EventCancellationJobEntity setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    @Column(name = "total_orders", nullable = false, updatable = false)
+    public int getTotalOrders() {
+        return totalOrders;
+    }
+
+    public EventCancellationJobEntity setTotalOrders(int totalOrders) {
+        this.totalOrders = totalOrders;
+        return this;
+    }
+
+    @Column(name = "refunded_orders", nullable = false)
+    public int getRefundedOrders() {
+        return refundedOrders;
+    }
+
+    public EventCancellationJobEntity setRefundedOrders(int refundedOrders) {
+        this.refundedOrders = refundedOrders;
+        return this;
+    }
+
+    @Column(name = "failed_orders", nullable = false)
+    public int getFailedOrders() {
+        return failedOrders;
+    }
+
+    public EventCancellationJobEntity setFailedOrders(int failedOrders) {
+        this.failedOrders = failedOrders;
+        return this;
+    }
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    public OffsetDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public EventCancellationJobEntity setCreatedDate(OffsetDateTime createdDate) {
+        this.createdDate = createdDate;
+        return this;
+    }
+
+    @Column(name = "lease_expires_date", nullable = false)
+    public OffsetDateTime getLeaseExpiresDate() {
+        return leaseExpiresDate;
+    }
+
+    public EventCancellationJobEntity setLeaseExpiresDate(OffsetDateTime leaseExpiresDate) {
+        this.leaseExpiresDate = leaseExpiresDate;
+        return this;
+    }
+
+    @Column(name = "completed_date")
+    public OffsetDateTime getCompletedDate() {
+        return completedDate;
+    }
+
+    public EventCancellationJobEntity setCompletedDate(OffsetDateTime completedDate) {
+        this.completedDate = completedDate;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "EventCancellationJobEntity{" +
+                "id=" + id +
+                ", eventId=" + eventId +
+                ", status=" + status +
+                ", totalOrders=" + totalOrders +
+                ", refundedOrders=" + refundedOrders +
+                ", failedOrders=" + failedOrders +
+                ", createdDate=" + createdDate +
+                ", leaseExpiresDate=" + leaseExpiresDate +
+                ", completedDate=" + completedDate +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventCancellationJobEntity that = (EventCancellationJobEntity) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(eventId, that.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, eventId);
+    }
+}
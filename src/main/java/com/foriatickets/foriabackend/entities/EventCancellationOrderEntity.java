@@ -0,0 +1,125 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Checkpoint for a single order in an event cancellation job. Marked in the same transaction as the refund,
+ * so a resumed job only processes orders that are still pending.
+ */
+@Entity
+@Table(name = "event_cancellation_order", uniqueConstraints = @UniqueConstraint(columnNames = {"job_id", "order_id"}))
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class EventCancellationOrderEntity implements Serializable {
+
+    public enum Status {
+        PENDING,
+        REFUNDED,
+        FAILED
+    }
+
+    private UUID id;
+    private UUID jobId;
+    private UUID orderId;
+    private Status status;
+    private OffsetDateTime processedDate;
+    private String lastError;
+
+    @Id
+    @GeneratedValue
+    @Type(type = "uuid-char")
+    @Column(name = "id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public EventCancellationOrderEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Type(type = "uuid-char")
+    @Column(name = "job_id", nullable = false, updatable = false)
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public EventCancellationOrderEntity setJobId(UUID jobId) {
+        this.jobId = jobId;
+        return this;
+    }
+
+    @Type(type = "uuid-char")
+    @Column(name = "order_id", nullable = false, updatable = false)
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public EventCancellationOrderEntity setOrderId(UUID orderId) {
+        this.orderId = orderId;
+        return this;
+    }
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Status getStatus() {
+        return status;
+    }
+
+    public EventCancellationOrderEntity setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    @Column(name = "processed_date")
+    public OffsetDateTime getProcessedDate() {
+        return processedDate;
+    }
+
+    public EventCancellationOrderEntity setProcessedDate(OffsetDateTime processedDate) {
+        this.processedDate = processedDate;
+        return this;
+    }
+
+    @Column(name = "last_error", length = 1024)
+    public String getLastError() {
+        return lastError;
+    }
+
+    public EventCancellationOrderEntity setLastError(String lastError) {
+        this.lastError = lastError;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "EventCancellationOrderEntity{" +
+                "id=" + id +
+                ", jobId=" + jobId +
+                ", orderId=" + orderId +
+                ", status=" + status +
+                ", processedDate=" + processedDate +
+                ", lastError='" + lastError + '\'' +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventCancellationOrderEntity that = (EventCancellationOrderEntity) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(jobId, that.jobId) &&
+                Objects.equals(orderId, that.orderId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, jobId, orderId);
+    }
+}
@@ -1,5 +1,7 @@
 package com.foriatickets.foriabackend.entities;
 
+import org.hibernate.annotations.BatchSize;
+
 import javax.annotation.Nullable;
 import javax.persistence.*;
 import java.io.Serializable;
@@ -10,7 +12,35 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "event")
+@Table(name = "event", indexes = {
+        @Index(name = "idx_event_status_visibility_end", columnList = "status, visibility, event_end_time"),
+        @Index(name = "idx_event_status_visibility_start", columnList = "status, visibility, event_start_time, id"),
+        @Index(name = "idx_event_reminder_start", columnList = "event_start_time"),
+        @Index(name = "idx_event_end_time", columnList = "event_end_time")
+})
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "EventEntity.checkout", attributeNodes = {
+                @NamedAttributeNode("venueEntity"),
+                @NamedAttributeNode("ticketFeeConfig")
+        }),
+        @NamedEntityGraph(name = "EventEntity.attendees", attributeNodes = {
+                @NamedAttributeNode("venueEntity"),
+                @NamedAttributeNode(value = "tickets", subgraph = "tickets")
+        }, subgraphs = {
+                @NamedSubgraph(name = "tickets", attributeNodes = {
+                        @NamedAttributeNode("ownerEntity"),
+                        @NamedAttributeNode("ticketTypeConfigEntity")
+                })
+        }),
+        @NamedEntityGraph(name = "EventEntity.report", attributeNodes = {
+                @NamedAttributeNode("venueEntity"),
+                @NamedAttributeNode(value = "tickets", subgraph = "tickets")
+        }, subgraphs = {
+                @NamedSubgraph(name = "tickets", attributeNodes = {
+                        @NamedAttributeNode("ownerEntity")
+                })
+        })
+})
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class EventEntity implements Serializable, Comparable<EventEntity> {
 
@@ -183,7 +213,8 @@ public class EventEntity implements Serializable, Comparable<EventEntity> {
         return this;
     }
 
-    @OneToMany(mappedBy = "eventEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "eventEntity", fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     public Set<TicketFeeConfigEntity> getTicketFeeConfig() {
         return ticketFeeConfig;
     }
@@ -193,7 +224,8 @@ public class EventEntity implements Serializable, Comparable<EventEntity> {
         return this;
     }
 
-    @OneToMany(mappedBy = "eventEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "eventEntity", fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     public Set<TicketTypeConfigEntity> getTicketTypeConfigEntity() {
         return ticketTypeConfig;
     }
@@ -0,0 +1,145 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Running sales totals for an event. Shares its primary key with the event.
+ * Orders add to the totals at checkout. Refunds move them to the refunded columns. Every change is an atomic
+ * increment, so the event end report reads a single row instead of walking every order.
+ */
+@Entity
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+@Table(name = "event_sales_rollup")
+public class EventSalesRollupEntity implements Serializable {
+
+    private UUID id;
+    private int ticketsSold;
+    private int ticketsRefunded;
+    private BigDecimal ticketSubtotal = BigDecimal.ZERO;
+    private BigDecimal issuerFee = BigDecimal.ZERO;
+    private BigDecimal venueFee = BigDecimal.ZERO;
+    private BigDecimal paymentFee = BigDecimal.ZERO;
+    private BigDecimal refundedPaymentFee = BigDecimal.ZERO;
+
+    @Id
+    @Type(type = "uuid-char")
+    @Column(name = "event_id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public EventSalesRollupEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Column(name = "tickets_sold", nullable = false)
+    public int getTicketsSold() {
+        return ticketsSold;
+    }
+
+    public EventSalesRollupEntity setTicketsSold(int ticketsSold) {
+        this.ticketsSold = ticketsSold;
+        return this;
+    }
+
+    @Column(name = "tickets_refunded", nullable = false)
+    public int getTicketsRefunded() {
+        return ticketsRefunded;
+    }
+
+    public EventSalesRollupEntity setTicketsRefunded(int ticketsRefunded) {
+        this.ticketsRefunded = ticketsRefunded;
+        return this;
+    }
+
+    @Column(name = "ticket_subtotal", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getTicketSubtotal() {
+        return ticketSubtotal;
+    }
+
+    public EventSalesRollupEntity setTicketSubtotal(BigDecimal ticketSubtotal) {
+        this.ticketSubtotal = ticketSubtotal;
+        return this;
+    }
+
+    @Column(name = "issuer_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getIssuerFee() {
+        return issuerFee;
+    }
+
+    public EventSalesRollupEntity setIssuerFee(BigDecimal issuerFee) {
+        this.issuerFee = issuerFee;
+        return this;
+    }
+
+    @Column(name = "venue_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getVenueFee() {
+        return venueFee;
+    }
+
+    public EventSalesRollupEntity setVenueFee(BigDecimal venueFee) {
+        this.venueFee = venueFee;
+        return this;
+    }
+
+    @Column(name = "payment_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getPaymentFee() {
+        return paymentFee;
+    }
+
+    public EventSalesRollupEntity setPaymentFee(BigDecimal paymentFee) {
+        this.paymentFee = paymentFee;
+        return this;
+    }
+
+    @Column(name = "refunded_payment_fee", nullable = false, scale = 2, precision = 12)
+    public BigDecimal getRefundedPaymentFee() {
+        return refundedPaymentFee;
+    }
+
+    public EventSalesRollupEntity setRefundedPaymentFee(BigDecimal refundedPaymentFee) {
+        this.refundedPaymentFee = refundedPaymentFee;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "EventSalesRollupEntity{" +
+                "id=" + id +
+                ", ticketsSold=" + ticketsSold +
+                ", ticketsRefunded=" + ticketsRefunded +
+                ", ticketSubtotal=" + ticketSubtotal +
+                ", issuerFee=" + issuerFee +
+                ", venueFee=" + venueFee +
+                ", paymentFee=" + paymentFee +
+                ", refundedPaymentFee=" + refundedPaymentFee +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        EventSalesRollupEntity that = (EventSalesRollupEntity) o;
+        return ticketsSold == that.ticketsSold &&
+                ticketsRefunded == that.ticketsRefunded &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(ticketSubtotal, that.ticketSubtotal) &&
+                Objects.equals(issuerFee, that.issuerFee) &&
+                Objects.equals(venueFee, that.venueFee) &&
+                Objects.equals(paymentFee, that.paymentFee) &&
+                Objects.equals(refundedPaymentFee, that.refundedPaymentFee);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ticketsSold, ticketsRefunded, ticketSubtotal, issuerFee, venueFee, paymentFee, refundedPaymentFee);
+    }
+}
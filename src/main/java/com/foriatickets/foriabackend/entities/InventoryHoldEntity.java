@@ -0,0 +1,128 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Tickets held against a tier while a checkout is in flight. Counted in the tier's held total until
+ * confirmed, released, or expired by the sweeper.
+ */
+@Entity
+@Table(name = "inventory_hold")
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class InventoryHoldEntity implements Serializable {
+
+    public enum Status {
+        HELD,
+        CONFIRMED,
+        RELEASED,
+        EXPIRED
+    }
+
+    private UUID id;
+    private UUID ticketTypeConfigId;
+    private int quantity;
+    private Status status;
+    private OffsetDateTime createdDate;
+    private OffsetDateTime expiresDate;
+
+    @Id
+    @GeneratedValue
+    @Type(type = "uuid-char")
+    @Column(name = "id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public InventoryHoldEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Type(type = "uuid-char")
+    @Column(name = "ticket_type_config_id", nullable = false, updatable = false)
+    public UUID getTicketTypeConfigId() {
+        return ticketTypeConfigId;
+    }
+
+    public InventoryHoldEntity setTicketTypeConfigId(UUID ticketTypeConfigId) {
+        this.ticketTypeConfigId = ticketTypeConfigId;
+        return this;
+    }
+
+    @Column(name = "quantity", nullable = false, updatable = false)
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public InventoryHoldEntity setQuantity(int quantity) {
+        this.quantity = quantity;
+        return this;
+    }
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Status getStatus() {
+        return status;
+    }
+
+    public InventoryHoldEntity setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    public OffsetDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public InventoryHoldEntity setCreatedDate(OffsetDateTime createdDate) {
+        this.createdDate = createdDate;
+        return this;
+    }
+
+    @Column(name = "expires_date", nullable = false, updatable = false)
+    public OffsetDateTime getExpiresDate() {
+        return expiresDate;
+    }
+
+    public InventoryHoldEntity setExpiresDate(OffsetDateTime expiresDate) {
+        this.expiresDate = expiresDate;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "InventoryHoldEntity{" +
+                "id=" + id +
+                ", ticketTypeConfigId=" + ticketTypeConfigId +
+                ", quantity=" + quantity +
+                ", status=" + status +
+                ", createdDate=" + createdDate +
+                ", expiresDate=" + expiresDate +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InventoryHoldEntity that = (InventoryHoldEntity) o;
+        return quantity == that.quantity &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(ticketTypeConfigId, that.ticketTypeConfigId) &&
+                status == that.status &&
+                Objects.equals(createdDate, that.createdDate) &&
+                Objects.equals(expiresDate, that.expiresDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, ticketTypeConfigId, quantity, status, createdDate, expiresDate);
+    }
+}
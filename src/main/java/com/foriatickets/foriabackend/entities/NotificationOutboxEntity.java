@@ -0,0 +1,220 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Email or push notification written in the same transaction as the change that caused it.
+ * Delivered after commit by the notification workers.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class NotificationOutboxEntity implements Serializable {
+
+    public enum Channel {
+        EMAIL,
+        PUSH
+    }
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+
+    private UUID id;
+    private String idempotencyKey;
+    private Channel channel;
+    private String recipient;
+    private String templateName;
+    private String title;
+    private String body;
+    private String templateData;
+    private Status status;
+    private int attempts;
+    private OffsetDateTime createdDate;
+    private OffsetDateTime nextAttemptDate;
+    private OffsetDateTime sentDate;
+    private String lastError;
+
+    @Id
+    @GeneratedValue
+    @Type(type = "uuid-char")
+    @Column(name = "id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public NotificationOutboxEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Column(name = "idempotency_key", nullable = false, unique = true, updatable = false)
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public NotificationOutboxEntity setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+        return this;
+    }
+
+    @Column(name = "channel", nullable = false, updatable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Channel getChannel() {
+        return channel;
+    }
+
+    public NotificationOutboxEntity setChannel(Channel channel) {
+        this.channel = channel;
+        return this;
+    }
+
+    @Column(name = "recipient", nullable = false, updatable = false)
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public NotificationOutboxEntity setRecipient(String recipient) {
+        this.recipient = recipient;
+        return this;
+    }
+
+    @Column(name = "template_name", updatable = false)
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public NotificationOutboxEntity setTemplateName(String templateName) {
+        this.templateName = templateName;
+        return this;
+    }
+
+    @Column(name = "title", updatable = false)
+    public String getTitle() {
+        return title;
+    }
+
+    public NotificationOutboxEntity setTitle(String title) {
+        this.title = title;
+        return this;
+    }
+
+    @Column(name = "body", length = 1024, updatable = false)
+    public String getBody() {
+        return body;
+    }
+
+    public NotificationOutboxEntity setBody(String body) {
+        this.body = body;
+        return this;
+    }
+
+    @Column(name = "template_data", length = 4096, updatable = false)
+    public String getTemplateData() {
+        return templateData;
+    }
+
+    public NotificationOutboxEntity setTemplateData(String templateData) {
+        this.templateData = templateData;
+        return this;
+    }
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Status getStatus() {
+        return status;
+    }
+
+    public NotificationOutboxEntity setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    @Column(name = "attempts", nullable = false)
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public NotificationOutboxEntity setAttempts(int attempts) {
+        this.attempts = attempts;
+        return this;
+    }
+
+    @Column(name = "created_date", nullable = false, updatable = false)
+    public OffsetDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public NotificationOutboxEntity setCreatedDate(OffsetDateTime createdDate) {
+        this.createdDate = createdDate;
+        return this;
+    }
+
+    @Column(name = "next_attempt_date", nullable = false)
+    public OffsetDateTime getNextAttemptDate() {
+        return nextAttemptDate;
+    }
+
+    public NotificationOutboxEntity setNextAttemptDate(OffsetDateTime nextAttemptDate) {
+        this.nextAttemptDate = nextAttemptDate;
+        return this;
+    }
+
+    @Column(name = "sent_date")
+    public OffsetDateTime getSentDate() {
+        return sentDate;
+    }
+
+    public NotificationOutboxEntity setSentDate(OffsetDateTime sentDate) {
+        this.sentDate = sentDate;
+        return this;
+    }
+
+    @Column(name = "last_error", length = 1024)
+    public String getLastError() {
+        return lastError;
+    }
+
+    public NotificationOutboxEntity setLastError(String lastError) {
+        this.lastError = lastError;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationOutboxEntity{" +
+                "id=" + id +
+                ", idempotencyKey='" + idempotencyKey + '\'' +
+                ", channel=" + channel +
+                ", templateName='" + templateName + '\'' +
+                ", status=" + status +
+                ", attempts=" + attempts +
+                ", createdDate=" + createdDate +
+                ", nextAttemptDate=" + nextAttemptDate +
+                ", sentDate=" + sentDate +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NotificationOutboxEntity that = (NotificationOutboxEntity) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(idempotencyKey, that.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, idempotencyKey);
+    }
+}
@@ -11,7 +11,10 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "order")
+@Table(name = "order", indexes = {
+        @Index(name = "idx_order_charge_ref_id", columnList = "charge_ref_id"),
+        @Index(name = "idx_order_refund_ref_id", columnList = "refund_ref_id")
+})
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class OrderEntity implements Serializable {
 
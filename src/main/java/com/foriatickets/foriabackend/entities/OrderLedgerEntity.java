@@ -0,0 +1,222 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Fee breakdown of an order as calculated at checkout. Shares its primary key with the order.
+ * Amounts never change after the row is written. A refund only flips the status.
+ * The pending flags mark a sale or refund that has not been added to the rollups yet.
+ */
+@Entity
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+@Table(name = "order_ledger", indexes = {
+        @Index(name = "idx_order_ledger_event", columnList = "event_id"),
+        @Index(name = "idx_order_ledger_sale_pending", columnList = "sale_rollup_pending, order_timestamp"),
+        @Index(name = "idx_order_ledger_refund_pending", columnList = "refund_rollup_pending, refunded_timestamp")
+})
+public class OrderLedgerEntity implements Serializable {
+
+    public enum Status {
+        SOLD,
+        REFUNDED
+    }
+
+    private UUID id;
+    private UUID eventId;
+    private Status status;
+    private String currency;
+    private int numPaidTickets;
+    private BigDecimal ticketSubtotal;
+    private BigDecimal issuerFee;
+    private BigDecimal venueFee;
+    private BigDecimal paymentFee;
+    private OffsetDateTime orderTimestamp;
+    private OffsetDateTime refundedTimestamp;
+    private boolean saleRollupPending;
+    private boolean refundRollupPending;
+
+    @Id
+    @Type(type = "uuid-char")
+    @Column(name = "order_id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public OrderLedgerEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Type(type = "uuid-char")
+    @Column(name = "event_id", nullable = false, updatable = false)
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public OrderLedgerEntity setEventId(UUID eventId) {
+        this.eventId = eventId;
+        return this;
+    }
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(value = EnumType.STRING)
+    public Status getStatus() {
+        return status;
+    }
+
+    public OrderLedgerEntity setStatus(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    @Column(name = "currency", nullable = false, length = 3)
+    public String getCurrency() {
+        return currency;
+    }
+
+    public OrderLedgerEntity setCurrency(String currency) {
+        this.currency = currency;
+        return this;
+    }
+
+    @Column(name = "num_paid_tickets", nullable = false)
+    public int getNumPaidTickets() {
+        return numPaidTickets;
+    }
+
+    public OrderLedgerEntity setNumPaidTickets(int numPaidTickets) {
+        this.numPaidTickets = numPaidTickets;
+        return this;
+    }
+
+    @Column(name = "ticket_subtotal", nullable = false, scale = 2, precision = 8)
+    public BigDecimal getTicketSubtotal() {
+        return ticketSubtotal;
+    }
+
+    public OrderLedgerEntity setTicketSubtotal(BigDecimal ticketSubtotal) {
+        this.ticketSubtotal = ticketSubtotal;
+        return this;
+    }
+
+    @Column(name = "issuer_fee", nullable = false, scale = 2, precision = 8)
+    public BigDecimal getIssuerFee() {
+        return issuerFee;
+    }
+
+    public OrderLedgerEntity setIssuerFee(BigDecimal issuerFee) {
+        this.issuerFee = issuerFee;
+        return this;
+    }
+
+    @Column(name = "venue_fee", nullable = false, scale = 2, precision = 8)
+    public BigDecimal getVenueFee() {
+        return venueFee;
+    }
+
+    public OrderLedgerEntity setVenueFee(BigDecimal venueFee) {
+        this.venueFee = venueFee;
+        return this;
+    }
+
+    @Column(name = "payment_fee", nullable = false, scale = 2, precision = 8)
+    public BigDecimal getPaymentFee() {
+        return paymentFee;
+    }
+
+    public OrderLedgerEntity setPaymentFee(BigDecimal paymentFee) {
+        this.paymentFee = paymentFee;
+        return this;
+    }
+
+    @Column(name = "order_timestamp", nullable = false, updatable = false)
+    public OffsetDateTime getOrderTimestamp() {
+        return orderTimestamp;
+    }
+
+    public OrderLedgerEntity setOrderTimestamp(OffsetDateTime orderTimestamp) {
+        this.orderTimestamp = orderTimestamp;
+        return this;
+    }
+
+    @Column(name = "refunded_timestamp")
+    public OffsetDateTime getRefundedTimestamp() {
+        return refundedTimestamp;
+    }
+
+    public OrderLedgerEntity setRefundedTimestamp(OffsetDateTime refundedTimestamp) {
+        this.refundedTimestamp = refundedTimestamp;
+        return this;
+    }
+
+    @Column(name = "sale_rollup_pending", nullable = false)
+    public boolean isSaleRollupPending() {
+        return saleRollupPending;
+    }
+
+    public OrderLedgerEntity setSaleRollupPending(boolean saleRollupPending) {
+        this.saleRollupPending = saleRollupPending;
+        return this;
+    }
+
+    @Column(name = "refund_rollup_pending", nullable = false)
+    public boolean isRefundRollupPending() {
+        return refundRollupPending;
+    }
+
+    public OrderLedgerEntity setRefundRollupPending(boolean refundRollupPending) {
+        this.refundRollupPending = refundRollupPending;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderLedgerEntity{" +
+                "id=" + id +
+                ", eventId=" + eventId +
+                ", status=" + status +
+                ", currency='" + currency + '\'' +
+                ", numPaidTickets=" + numPaidTickets +
+                ", ticketSubtotal=" + ticketSubtotal +
+                ", issuerFee=" + issuerFee +
+                ", venueFee=" + venueFee +
+                ", paymentFee=" + paymentFee +
+                ", orderTimestamp=" + orderTimestamp +
+                ", refundedTimestamp=" + refundedTimestamp +
+                ", saleRollupPending=" + saleRollupPending +
+                ", refundRollupPending=" + refundRollupPending +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderLedgerEntity that = (OrderLedgerEntity) o;
+        return numPaidTickets == that.numPaidTickets &&
+                saleRollupPending == that.saleRollupPending &&
+                refundRollupPending == that.refundRollupPending &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(eventId, that.eventId) &&
+                status == that.status &&
+                Objects.equals(currency, that.currency) &&
+                Objects.equals(ticketSubtotal, that.ticketSubtotal) &&
+                Objects.equals(issuerFee, that.issuerFee) &&
+                Objects.equals(venueFee, that.venueFee) &&
+                Objects.equals(paymentFee, that.paymentFee) &&
+                Objects.equals(orderTimestamp, that.orderTimestamp) &&
+                Objects.equals(refundedTimestamp, that.refundedTimestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, eventId, status, currency, numPaidTickets, ticketSubtotal, issuerFee, venueFee, paymentFee, orderTimestamp, refundedTimestamp, saleRollupPending, refundRollupPending);
+    }
+}
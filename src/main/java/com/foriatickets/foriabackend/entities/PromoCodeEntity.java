@@ -89,7 +89,7 @@ public class PromoCodeEntity implements Serializable {
         this.createdDate = createdDate;
     }
 
-    @OneToMany(mappedBy = "promoCodeEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "promoCodeEntity", fetch = FetchType.LAZY)
     public Set<PromoCodeRedemptionEntity> getRedemptions() {
         return promoCodeRedemptionEntitySet;
     }
@@ -1,6 +1,7 @@
 package com.foriatickets.foriabackend.entities;
 
 import org.hibernate.annotations.Type;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -9,7 +10,11 @@ import java.util.Objects;
 import java.util.UUID;
 
 @Entity
-@Table(name = "ticket")
+@Table(name = "ticket", indexes = @Index(name = "idx_ticket_event_updated", columnList = "event_id, updated_date"))
+@NamedEntityGraph(name = "TicketEntity.myTickets", attributeNodes = {
+        @NamedAttributeNode("eventEntity"),
+        @NamedAttributeNode("ticketTypeConfigEntity")
+})
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class TicketEntity implements Serializable {
 
@@ -28,8 +33,11 @@ public class TicketEntity implements Serializable {
     private UserEntity purchaserEntity;
     private TicketTypeConfigEntity ticketTypeConfigEntity;
     private String secret;
+    private String secretHash;
     private Status status;
     private OffsetDateTime issuedDate;
+    private OffsetDateTime redeemedDate;
+    private OffsetDateTime updatedDate;
 
     @Id
     @GeneratedValue
@@ -44,7 +52,7 @@ public class TicketEntity implements Serializable {
         return this;
     }
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "event_id", nullable = false)
     public EventEntity getEventEntity() {
         return eventEntity;
@@ -87,6 +95,19 @@ public class TicketEntity implements Serializable {
         return this;
     }
 
+    /**
+     * @return SHA-512 hex of the secret. Set together with the secret. Null on tickets issued before the column existed until they are backfilled.
+     */
+    @Column(name = "secret_hash", length = 128)
+    public String getSecretHash() {
+        return secretHash;
+    }
+
+    public TicketEntity setSecretHash(String secretHash) {
+        this.secretHash = secretHash;
+        return this;
+    }
+
     @Column(name = "status", nullable = false)
     @Enumerated(EnumType.STRING)
     public Status getStatus() {
@@ -98,7 +119,7 @@ public class TicketEntity implements Serializable {
         return this;
     }
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ticket_type_config_id", nullable = false)
     public TicketTypeConfigEntity getTicketTypeConfigEntity() {
         return ticketTypeConfigEntity;
@@ -119,6 +140,33 @@ public class TicketEntity implements Serializable {
         return this;
     }
 
+    /**
+     * @return When the ticket was first scanned at the door. Offline scans may move this earlier. Null on tickets redeemed before the column existed.
+     */
+    @Column(name = "redeemed_date")
+    public OffsetDateTime getRedeemedDate() {
+        return redeemedDate;
+    }
+
+    public TicketEntity setRedeemedDate(OffsetDateTime redeemedDate) {
+        this.redeemedDate = redeemedDate;
+        return this;
+    }
+
+    /**
+     * @return Last write to the ticket. Drives offline pack delta sync. Bulk updates must set it themselves.
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_date")
+    public OffsetDateTime getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public TicketEntity setUpdatedDate(OffsetDateTime updatedDate) {
+        this.updatedDate = updatedDate;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "TicketEntity{" +
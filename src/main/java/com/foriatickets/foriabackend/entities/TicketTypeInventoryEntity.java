@@ -0,0 +1,124 @@
+package com.foriatickets.foriabackend.entities;
+
+import org.hibernate.annotations.Type;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Running count of issued and held tickets for a price tier. Shares its primary key with the tier.
+ * Updated with conditional statements so concurrent checkouts can not oversell. Every update bumps the version.
+ */
+@Entity
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+@Table(name = "ticket_type_inventory")
+public class TicketTypeInventoryEntity implements Serializable {
+
+    private UUID id;
+    private int authorizedAmount;
+    private int ticketsIssued;
+    private int ticketsHeld;
+    private long version;
+    private OffsetDateTime reconciledDate;
+
+    @Id
+    @Type(type = "uuid-char")
+    @Column(name = "ticket_type_config_id", updatable = false)
+    public UUID getId() {
+        return id;
+    }
+
+    public TicketTypeInventoryEntity setId(UUID id) {
+        this.id = id;
+        return this;
+    }
+
+    @Column(name = "authorized_amount", nullable = false)
+    public int getAuthorizedAmount() {
+        return authorizedAmount;
+    }
+
+    public TicketTypeInventoryEntity setAuthorizedAmount(int authorizedAmount) {
+        this.authorizedAmount = authorizedAmount;
+        return this;
+    }
+
+    @Column(name = "tickets_issued", nullable = false)
+    public int getTicketsIssued() {
+        return ticketsIssued;
+    }
+
+    public TicketTypeInventoryEntity setTicketsIssued(int ticketsIssued) {
+        this.ticketsIssued = ticketsIssued;
+        return this;
+    }
+
+    @Column(name = "tickets_held", nullable = false)
+    public int getTicketsHeld() {
+        return ticketsHeld;
+    }
+
+    public TicketTypeInventoryEntity setTicketsHeld(int ticketsHeld) {
+        this.ticketsHeld = ticketsHeld;
+        return this;
+    }
+
+    @Version
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    public TicketTypeInventoryEntity setVersion(long version) {
+        this.version = version;
+        return this;
+    }
+
+    @Transient
+    public int getTicketsRemaining() {
+        return authorizedAmount - ticketsIssued - ticketsHeld;
+    }
+
+    @Column(name = "reconciled_date")
+    public OffsetDateTime getReconciledDate() {
+        return reconciledDate;
+    }
+
+    public TicketTypeInventoryEntity setReconciledDate(OffsetDateTime reconciledDate) {
+        this.reconciledDate = reconciledDate;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "TicketTypeInventoryEntity{" +
+                "id=" + id +
+                ", authorizedAmount=" + authorizedAmount +
+                ", ticketsIssued=" + ticketsIssued +
+                ", ticketsHeld=" + ticketsHeld +
+                ", version=" + version +
+                ", reconciledDate=" + reconciledDate +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TicketTypeInventoryEntity that = (TicketTypeInventoryEntity) o;
+        return authorizedAmount == that.authorizedAmount &&
+                ticketsIssued == that.ticketsIssued &&
+                ticketsHeld == that.ticketsHeld &&
+                version == that.version &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(reconciledDate, that.reconciledDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, authorizedAmount, ticketsIssued, ticketsHeld, version, reconciledDate);
+    }
+}
@@ -88,7 +88,7 @@ public class UserEntity implements Serializable {
         return this;
     }
 
-    @OneToMany(mappedBy = "userEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "userEntity", fetch = FetchType.LAZY)
     public Set<DeviceTokenEntity> getDeviceTokens() {
         return deviceTokens;
     }
@@ -98,7 +98,7 @@ public class UserEntity implements Serializable {
         return this;
     }
 
-    @OneToMany(mappedBy = "ownerEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "ownerEntity", fetch = FetchType.LAZY)
     public Set<TicketEntity> getTickets() {
         return tickets;
     }
@@ -118,7 +118,7 @@ public class UserEntity implements Serializable {
         return this;
     }
 
-    @OneToMany(mappedBy = "userEntity", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "userEntity", fetch = FetchType.LAZY)
     public Set<VenueAccessEntity> getVenueAccessEntities() {
         return venueAccessEntities;
     }
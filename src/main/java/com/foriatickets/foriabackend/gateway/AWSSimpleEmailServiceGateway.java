@@ -1,7 +1,10 @@
 package com.foriatickets.foriabackend.gateway;
 
+import java.io.File;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Exposes a gateway to send template email via AWS simple email service.
@@ -18,9 +21,47 @@ public interface AWSSimpleEmailServiceGateway {
 
         public byte[] reportDataArray;
         public String reportFilename;
-        String reportMimeType = "text/csv; charset=UTF-8";
+        public String reportMimeType = "text/csv; charset=UTF-8";
+
+        /**
+         * Attaches the file contents instead of reportDataArray, so large reports are not copied onto the heap.
+         */
+        public File reportFile;
+    }
+
+    /**
+     * Delivery counts for a bulk send. Throttled recipients were rejected for exceeding the account send rate or quota.
+     */
+    class BulkEmailResult {
+
+        private final int delivered;
+        private final int throttled;
+        private final int failed;
+
+        public BulkEmailResult(int delivered, int throttled, int failed) {
+            this.delivered = delivered;
+            this.throttled = throttled;
+            this.failed = failed;
+        }
+
+        public int getDelivered() {
+            return delivered;
+        }
+
+        public int getThrottled() {
+            return throttled;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
     }
 
+    /**
+     * Maximum number of destinations SES accepts in a single bulk templated email request.
+     */
+    int MAX_BULK_DESTINATIONS = 50;
+
     String TRANSFEREE_PENDING_EMAIL = "transferee_pending_email";
     String TRANSFEROR_PENDING_EMAIL = "transferor_pending_email";
     String TRANSFEREE_COMPLETE_EMAIL = "transferee_complete_email";
@@ -30,13 +71,25 @@ public interface AWSSimpleEmailServiceGateway {
 
     /**
      * Email template must be loaded into SES account.
-     * Method does not indicate failure. Only the request ID of the call.
+     * Blocks while the account send rate or the in-flight request limit is reached.
      *
      * @param toAddress Address to receive email.
      * @param templateName Name loaded into template-manager.
      * @param templateData Required handlebar placeholders to replace.
+     * @return Future completed once SES accepts the email. Completed exceptionally if it was not sent.
+     */
+    CompletableFuture<Void> sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData);
+
+    /**
+     * Sends the same templated email to many recipients. Recipients are grouped into bulk requests of up to
+     * {@link #MAX_BULK_DESTINATIONS}, or fewer if the account send rate is lower. Blocks while the account send rate or the in-flight request limit is reached.
+     *
+     * @param toAddresses Addresses to receive email. Duplicates are sent once.
+     * @param templateName Name loaded into template-manager.
+     * @param templateData Required handlebar placeholders to replace. Shared by every recipient.
+     * @return Future completed once every batch finishes.
      */
-    void sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData);
+    CompletableFuture<BulkEmailResult> sendBulkEmailFromTemplate(Collection<String> toAddresses, String templateName, Map<String, String> templateData);
 
     /**
      * Sends report to internal email address.
@@ -1,6 +1,7 @@
 package com.foriatickets.foriabackend.gateway;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,12 +21,14 @@ import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 import javax.mail.util.ByteArrayDataSource;
-import java.io.ByteArrayOutputStream;
-import java.nio.ByteBuffer;
+import java.io.*;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Profile("!mock")
@@ -36,37 +39,119 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
 
     private static final String SNS_CONFIG_SET = "Foria-Main";
 
+    private static final String THROTTLING_ERROR_CODE = "Throttling";
+
+    private static final ObjectWriter TEMPLATE_DATA_WRITER = new ObjectMapper().writer();
+
     private static final Logger LOG = LogManager.getLogger();
     private SesAsyncClient sesAsyncClient;
 
     @Value("${report.email}")
     private String reportEmailAddress;
 
-    public AWSSimpleEmailServiceGatewayImpl() {
+    private final Semaphore inFlightRequests;
+
+    private final SendRateLimiter sendRateLimiter;
+
+    private final int bulkBatchSize;
+
+    private final AtomicLong emailsDelivered = new AtomicLong();
+
+    private final AtomicLong emailsThrottled = new AtomicLong();
+
+    private final AtomicLong emailsFailed = new AtomicLong();
+
+    /**
+     * Token bucket refilled at the account send rate. A request takes one token per destination and waits until
+     * the bucket covers it. Waiters queue behind each other because each one debits before sleeping.
+     */
+    static final class SendRateLimiter {
+
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        SendRateLimiter(double permitsPerSecond) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = permitsPerSecond;
+            this.tokens = permitsPerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void acquire(int permits) throws InterruptedException {
+
+            final long waitNanos;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+                lastRefillNanos = now;
+                tokens -= permits;
+                waitNanos = tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+            }
+
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+
+    public AWSSimpleEmailServiceGatewayImpl(@Value("${sesMaxSendRate:14}") double maxSendRate,
+                                            @Value("${sesMaxInFlightRequests:8}") int maxInFlightRequests) {
 
         sesAsyncClient = SesAsyncClient.builder()
                 .region(Region.US_EAST_1)
                 .build();
+
+        this.sendRateLimiter = new SendRateLimiter(maxSendRate);
+
+        //SES counts recipients per second, so a single request must not name more than one second of sends.
+        this.bulkBatchSize = Math.max(1, Math.min(MAX_BULK_DESTINATIONS, (int) maxSendRate));
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+    }
+
+    /**
+     * Waits for send capacity. Callers must release the in-flight permit once the request completes.
+     *
+     * @return False if interrupted while waiting.
+     */
+    private boolean acquireSendCapacity(int recipients) {
+
+        try {
+            sendRateLimiter.acquire(recipients);
+            inFlightRequests.acquire();
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean isThrottled(Throwable ex) {
+
+        final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        return cause instanceof SesException && ((SesException) cause).awsErrorDetails() != null &&
+                THROTTLING_ERROR_CODE.equals(((SesException) cause).awsErrorDetails().errorCode());
     }
 
-    public void sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData) {
+    @Override
+    public CompletableFuture<Void> sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData) {
 
         if (templateName == null || toAddress == null) {
             LOG.error("Attempted to send email with null values.");
-            return;
+            return failedFuture(new IllegalArgumentException("Email is missing a recipient or template."));
         }
 
         if (templateData == null) {
             templateData = new HashMap<>();
         }
 
-        final ObjectMapper mapper = new ObjectMapper();
         String jsonTemplateData;
         try {
-            jsonTemplateData = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(templateData);
+            jsonTemplateData = TEMPLATE_DATA_WRITER.writeValueAsString(templateData);
         } catch (Exception ex) {
             LOG.error("Failed to parse template data to map for SES. Msg: {}", ex.getMessage());
-            return;
+            return failedFuture(ex);
         }
 
         final Destination destination = Destination.builder()
@@ -87,8 +172,169 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
                 .configurationSetName(SNS_CONFIG_SET)
                 .build();
 
-        CompletableFuture<SendTemplatedEmailResponse> resultFuture = sesAsyncClient.sendTemplatedEmail(sendTemplatedEmailRequest);
-        resultFuture.thenAccept(r -> LOG.info("SES Message accepted with messageId: {}", r.messageId()));
+        if (!acquireSendCapacity(1)) {
+            LOG.warn("Interrupted while waiting to send email with template: {}", templateName);
+            return failedFuture(new IllegalStateException("Interrupted while waiting to send email."));
+        }
+
+        //The permit is released when the request completes, or here if the client rejects it before sending.
+        final CompletableFuture<SendTemplatedEmailResponse> resultFuture;
+        try {
+            resultFuture = sesAsyncClient.sendTemplatedEmail(sendTemplatedEmailRequest);
+        } catch (RuntimeException ex) {
+            inFlightRequests.release();
+            emailsFailed.incrementAndGet();
+            LOG.error("SES rejected email with template: {}. Msg: {}", templateName, ex.getMessage());
+            return failedFuture(ex);
+        }
+
+        return resultFuture.whenComplete((r, ex) -> {
+            inFlightRequests.release();
+            if (ex == null) {
+                emailsDelivered.incrementAndGet();
+                LOG.info("SES Message accepted with messageId: {}", r.messageId());
+            } else if (isThrottled(ex)) {
+                emailsThrottled.incrementAndGet();
+                LOG.warn("SES throttled email with template: {}", templateName);
+            } else {
+                emailsFailed.incrementAndGet();
+                LOG.error("SES rejected email with template: {}. Msg: {}", templateName, ex.getMessage());
+            }
+        }).thenApply(r -> null);
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable ex) {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<BulkEmailResult> sendBulkEmailFromTemplate(Collection<String> toAddresses, String templateName, Map<String, String> templateData) {
+
+        if (templateName == null || toAddresses == null) {
+            LOG.error("Attempted to send bulk email with null values.");
+            return CompletableFuture.completedFuture(new BulkEmailResult(0, 0, 0));
+        }
+
+        final String jsonTemplateData;
+        try {
+            jsonTemplateData = TEMPLATE_DATA_WRITER.writeValueAsString(templateData != null ? templateData : new HashMap<>());
+        } catch (Exception ex) {
+            LOG.error("Failed to parse template data to map for SES. Msg: {}", ex.getMessage());
+            return CompletableFuture.completedFuture(new BulkEmailResult(0, 0, toAddresses.size()));
+        }
+
+        final MessageTag appTag = MessageTag.builder()
+                .name("app")
+                .value("foria")
+                .build();
+
+        final List<String> addressList = new ArrayList<>(new LinkedHashSet<>(toAddresses));
+        addressList.remove(null);
+
+        final List<CompletableFuture<BulkEmailResult>> futures = new ArrayList<>();
+        for (int i = 0; i < addressList.size(); i += bulkBatchSize) {
+
+            final List<String> batch = addressList.subList(i, Math.min(i + bulkBatchSize, addressList.size()));
+            final List<BulkEmailDestination> destinations = new ArrayList<>(batch.size());
+            for (String toAddress : batch) {
+                destinations.add(BulkEmailDestination.builder()
+                        .destination(Destination.builder().toAddresses(toAddress).build())
+                        .build());
+            }
+
+            final SendBulkTemplatedEmailRequest sendBulkTemplatedEmailRequest = SendBulkTemplatedEmailRequest.builder()
+                    .destinations(destinations)
+                    .source(SOURCE_EMAIL_ADDRESS)
+                    .template(templateName)
+                    .defaultTemplateData(jsonTemplateData)
+                    .defaultTags(appTag)
+                    .configurationSetName(SNS_CONFIG_SET)
+                    .build();
+
+            if (!acquireSendCapacity(batch.size())) {
+                LOG.warn("Interrupted while sending bulk email with template: {}. {} recipients not sent.", templateName, addressList.size() - i);
+                futures.add(CompletableFuture.completedFuture(new BulkEmailResult(0, 0, addressList.size() - i)));
+                break;
+            }
+
+            //The permit is released when the request completes, or here if the client rejects it before sending.
+            final CompletableFuture<SendBulkTemplatedEmailResponse> responseFuture;
+            try {
+                responseFuture = sesAsyncClient.sendBulkTemplatedEmail(sendBulkTemplatedEmailRequest);
+            } catch (RuntimeException ex) {
+                inFlightRequests.release();
+                futures.add(CompletableFuture.completedFuture(recordBulkResult(templateName, batch.size(), null, ex)));
+                continue;
+            }
+
+            futures.add(responseFuture.handle((response, ex) -> {
+                inFlightRequests.release();
+                return recordBulkResult(templateName, batch.size(), response, ex);
+            }));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+
+            int delivered = 0;
+            int throttled = 0;
+            int failed = 0;
+            for (CompletableFuture<BulkEmailResult> future : futures) {
+                final BulkEmailResult result = future.join();
+                delivered += result.getDelivered();
+                throttled += result.getThrottled();
+                failed += result.getFailed();
+            }
+
+            LOG.info("Bulk email with template: {} finished. Delivered: {} Throttled: {} Failed: {}", templateName, delivered, throttled, failed);
+            return new BulkEmailResult(delivered, throttled, failed);
+        });
+    }
+
+    private BulkEmailResult recordBulkResult(String templateName, int batchSize, SendBulkTemplatedEmailResponse response, Throwable ex) {
+
+        int delivered = 0;
+        int throttled = 0;
+        int failed = 0;
+        if (ex != null) {
+            if (isThrottled(ex)) {
+                throttled = batchSize;
+            } else {
+                failed = batchSize;
+            }
+            LOG.warn("SES bulk request with template: {} for {} recipients failed. Msg: {}", templateName, batchSize, ex.getMessage());
+        } else {
+            for (BulkEmailDestinationStatus destinationStatus : response.status()) {
+                final BulkEmailStatus status = destinationStatus.status();
+                if (status == BulkEmailStatus.SUCCESS) {
+                    delivered++;
+                } else if (status == BulkEmailStatus.ACCOUNT_THROTTLED || status == BulkEmailStatus.ACCOUNT_DAILY_QUOTA_EXCEEDED) {
+                    throttled++;
+                } else {
+                    failed++;
+                }
+            }
+            LOG.debug("SES bulk request with template: {} accepted. Delivered: {} Throttled: {} Failed: {}", templateName, delivered, throttled, failed);
+        }
+
+        emailsDelivered.addAndGet(delivered);
+        emailsThrottled.addAndGet(throttled);
+        emailsFailed.addAndGet(failed);
+        return new BulkEmailResult(delivered, throttled, failed);
+    }
+
+    public long getEmailsDelivered() {
+        return emailsDelivered.get();
+    }
+
+    public long getEmailsThrottled() {
+        return emailsThrottled.get();
+    }
+
+    public long getEmailsFailed() {
+        return emailsFailed.get();
     }
 
     @Override
@@ -110,6 +356,7 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
         final Session session = Session.getDefaultInstance(new Properties());
         final MimeMessage message = new MimeMessage(session);
 
+        File messageFile = null;
         try {
 
             // Add subject, from and to lines.
@@ -146,8 +393,12 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
 
                 for (ReportAttachment reportAttachment : reports) {
                     MimeBodyPart att = new MimeBodyPart();
-                    DataSource ds = new ByteArrayDataSource(reportAttachment.reportDataArray, reportAttachment.reportMimeType);
-                    att.setDataHandler(new DataHandler(ds));
+                    if (reportAttachment.reportFile != null) {
+                        att.attachFile(reportAttachment.reportFile, reportAttachment.reportMimeType, "base64");
+                    } else {
+                        DataSource ds = new ByteArrayDataSource(reportAttachment.reportDataArray, reportAttachment.reportMimeType);
+                        att.setDataHandler(new DataHandler(ds));
+                    }
                     att.setFileName(reportAttachment.reportFilename);
 
                     // Add the attachment to the message.
@@ -155,13 +406,19 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
                 }
             }
 
+            //Encoded to a temp file, so the attachment and its base64 form are not buffered and copied on the heap.
+            messageFile = File.createTempFile("InternalReport", ".eml");
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(messageFile))) {
+                message.writeTo(outputStream);
+            }
+
             // Send the email.
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            message.writeTo(outputStream);
+            final SdkBytes messageBytes;
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(messageFile))) {
+                messageBytes = SdkBytes.fromInputStream(inputStream);
+            }
             RawMessage rawMessage = RawMessage.builder()
-                    .data(
-                            SdkBytes.fromByteBuffer(ByteBuffer.wrap(outputStream.toByteArray()))
-                    )
+                    .data(messageBytes)
                     .build();
 
             final SendRawEmailRequest rawEmailRequest = SendRawEmailRequest.builder()
@@ -177,6 +434,10 @@ public class AWSSimpleEmailServiceGatewayImpl implements AWSSimpleEmailServiceGa
             LOG.error("Failed to send internal report with name: {}", reportName);
             ex.printStackTrace();
             throw new RuntimeException(ex.getMessage(), ex);
+        } finally {
+            if (messageFile != null && !messageFile.delete()) {
+                LOG.warn("Failed to delete temp report message file: {}", messageFile.getAbsolutePath());
+            }
         }
     }
 }
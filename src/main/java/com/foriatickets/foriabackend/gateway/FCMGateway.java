@@ -2,6 +2,11 @@ package com.foriatickets.foriabackend.gateway;
 
 import com.google.firebase.messaging.Notification;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface to communication with Google Firebase.
  * Primary functionality is to send push notifications to client devices.
@@ -11,10 +16,60 @@ import com.google.firebase.messaging.Notification;
 public interface FCMGateway {
 
     /**
-     * Async send a push notification to device.
+     * Maximum number of tokens FCM accepts in a single multicast request.
+     */
+    int MAX_MULTICAST_TOKENS = 500;
+
+    /**
+     * Outcome of a multicast send. Tokens not in the failed set were delivered.
+     */
+    class MulticastResult {
+
+        private final int successCount;
+        private final Set<String> failedTokens;
+        private final Set<String> deactivatedTokens;
+
+        public MulticastResult(int successCount, Set<String> failedTokens, Set<String> deactivatedTokens) {
+            this.successCount = successCount;
+            this.failedTokens = Collections.unmodifiableSet(failedTokens);
+            this.deactivatedTokens = Collections.unmodifiableSet(deactivatedTokens);
+        }
+
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        /**
+         * @return Every token that was not delivered, including deactivated tokens.
+         */
+        public Set<String> getFailedTokens() {
+            return failedTokens;
+        }
+
+        /**
+         * @return Tokens FCM reported as unregistered. These are deactivated and should not be retried.
+         */
+        public Set<String> getDeactivatedTokens() {
+            return deactivatedTokens;
+        }
+    }
+
+    /**
+     * Send a push notification to device. Blocks until FCM responds.
      *
      * @param token Device token registered from device.
      * @param notification Payload
      */
     void sendPushNotification(String token, Notification notification);
+
+    /**
+     * Async send one notification to many devices. Tokens are split into multicast batches of up to
+     * {@link #MAX_MULTICAST_TOKENS} and sent on a bounded executor. Dead tokens are deactivated in one
+     * bulk update per batch.
+     *
+     * @param tokens Device tokens registered from devices. Duplicates are sent once.
+     * @param notification Payload
+     * @return Future completed once every batch finishes. A batch that fails outright counts all of its tokens as failed.
+     */
+    CompletableFuture<MulticastResult> sendMulticast(Collection<String> tokens, Notification notification);
 }
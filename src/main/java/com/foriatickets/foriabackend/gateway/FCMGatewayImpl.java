@@ -1,38 +1,61 @@
 package com.foriatickets.foriabackend.gateway;
 
-import com.foriatickets.foriabackend.entities.DeviceTokenEntity;
 import com.foriatickets.foriabackend.repositories.DeviceTokenRepository;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Profile("!mock")
-@Transactional
 public class FCMGatewayImpl implements FCMGateway {
 
     private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Per-token error code (UNREGISTERED) meaning the token will never be valid again.
+     * Other codes such as invalid-argument can be caused by the message itself, so they only fail the send.
+     */
+    private static final String DEAD_TOKEN_ERROR_CODE = "registration-token-not-registered";
+
     private final DeviceTokenRepository deviceTokenRepository;
 
+    private final ThreadPoolExecutor executorService;
+
+    private final AtomicLong batchesSent = new AtomicLong();
+
+    private final AtomicLong batchesFailed = new AtomicLong();
+
+    private final AtomicLong messagesDelivered = new AtomicLong();
+
+    private final AtomicLong messagesFailed = new AtomicLong();
+
+    private final AtomicLong tokensDeactivated = new AtomicLong();
+
     public FCMGatewayImpl(@Autowired AWSSecretsManagerGateway awsSecretsManagerGateway,
                           @Value("${fcmKey}") String fcmKeyName,
                           @Value("${fcmDatabaseUrl}") String fcmDatabaseUrl,
-                          @Autowired DeviceTokenRepository deviceTokenRepository) throws IOException {
+                          @Autowired DeviceTokenRepository deviceTokenRepository,
+                          @Value("${fcmSenderThreads:4}") int senderThreads,
+                          @Value("${fcmSenderQueueCapacity:100}") int queueCapacity) throws IOException {
 
         this.deviceTokenRepository = deviceTokenRepository;
         final Optional<String> fcmKey = awsSecretsManagerGateway.getSecretRaw(fcmKeyName);
@@ -49,6 +72,22 @@ public class FCMGatewayImpl implements FCMGateway {
 
         FirebaseApp.initializeApp(options);
         LOG.debug("Connected to Firebase with service token.");
+
+        //Callers run overflow batches themselves, which slows large fan-outs instead of dropping pushes.
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "fcm-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
     }
 
     @Override
@@ -58,27 +97,114 @@ public class FCMGatewayImpl implements FCMGateway {
             return;
         }
 
-        final Message message = Message.builder()
-                .setToken(token)
+        sendMulticast(Collections.singletonList(token), notification).join();
+    }
+
+    @Override
+    public CompletableFuture<MulticastResult> sendMulticast(Collection<String> tokens, Notification notification) {
+
+        if (tokens == null || notification == null) {
+            return CompletableFuture.completedFuture(new MulticastResult(0, Collections.emptySet(), Collections.emptySet()));
+        }
+
+        final List<String> tokenList = new ArrayList<>(new LinkedHashSet<>(tokens));
+        tokenList.remove(null);
+
+        final List<CompletableFuture<MulticastResult>> futures = new ArrayList<>();
+        for (int i = 0; i < tokenList.size(); i += MAX_MULTICAST_TOKENS) {
+            final List<String> batch = tokenList.subList(i, Math.min(i + MAX_MULTICAST_TOKENS, tokenList.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> sendBatch(batch, notification), executorService));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+
+            int successCount = 0;
+            final Set<String> failedTokens = new HashSet<>();
+            final Set<String> deactivatedTokens = new HashSet<>();
+            for (CompletableFuture<MulticastResult> future : futures) {
+                final MulticastResult result = future.join();
+                successCount += result.getSuccessCount();
+                failedTokens.addAll(result.getFailedTokens());
+                deactivatedTokens.addAll(result.getDeactivatedTokens());
+            }
+            return new MulticastResult(successCount, failedTokens, deactivatedTokens);
+        });
+    }
+
+    /**
+     * Sends a single multicast request and deactivates dead tokens from the response in one update.
+     */
+    private MulticastResult sendBatch(List<String> batch, Notification notification) {
+
+        final long startNanos = System.nanoTime();
+        final MulticastMessage message = MulticastMessage.builder()
+                .addAllTokens(batch)
                 .setNotification(notification)
                 .putData("click_action", "FLUTTER_NOTIFICATION_CLICK")
                 .build();
 
-        String response;
+        final BatchResponse batchResponse;
         try {
-            response = FirebaseMessaging.getInstance().send(message);
-        } catch (Exception ex) {
+            batchResponse = FirebaseMessaging.getInstance().sendMulticast(message);
+        } catch (FirebaseMessagingException | RuntimeException ex) {
+            batchesFailed.incrementAndGet();
+            messagesFailed.addAndGet(batch.size());
+            LOG.warn("Failed to send FCM batch of {} tokens. Msg: {}", batch.size(), ex.getMessage());
+            return new MulticastResult(0, new HashSet<>(batch), Collections.emptySet());
+        }
+
+        final Set<String> failedTokens = new HashSet<>();
+        final Set<String> deadTokens = new HashSet<>();
+        final List<SendResponse> responses = batchResponse.getResponses();
+        for (int i = 0; i < responses.size(); i++) {
 
-            final DeviceTokenEntity deviceTokenEntity = deviceTokenRepository.findByDeviceToken(token);
-            if (deviceTokenEntity != null) {
-                deviceTokenEntity.setTokenStatus(DeviceTokenEntity.TokenStatus.DEACTIVATED);
-                deviceTokenRepository.save(deviceTokenEntity);
+            final SendResponse sendResponse = responses.get(i);
+            if (sendResponse.isSuccessful()) {
+                continue;
             }
 
-            LOG.info("Failed to send push notification to token: {} - Token deactivated. Msg: {}", token, ex.getMessage());
-            return;
+            final String token = batch.get(i);
+            failedTokens.add(token);
+            if (sendResponse.getException() != null && DEAD_TOKEN_ERROR_CODE.equals(sendResponse.getException().getErrorCode())) {
+                deadTokens.add(token);
+            }
         }
 
-        LOG.debug("Sent push notification with ID: {}", response);
+        if (!deadTokens.isEmpty()) {
+            try {
+                tokensDeactivated.addAndGet(deviceTokenRepository.deactivateTokens(deadTokens));
+            } catch (RuntimeException ex) {
+                LOG.error("Failed to deactivate {} device tokens. Msg: {}", deadTokens.size(), ex.getMessage());
+            }
+        }
+
+        batchesSent.incrementAndGet();
+        messagesDelivered.addAndGet(batchResponse.getSuccessCount());
+        messagesFailed.addAndGet(batchResponse.getFailureCount());
+        LOG.info("Sent FCM batch of {} tokens in {}ms. Delivered: {} Failed: {} Deactivated: {}",
+                batch.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                batchResponse.getSuccessCount(), batchResponse.getFailureCount(), deadTokens.size());
+
+        return new MulticastResult(batchResponse.getSuccessCount(), failedTokens, deadTokens);
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    public long getBatchesFailed() {
+        return batchesFailed.get();
+    }
+
+    public long getMessagesDelivered() {
+        return messagesDelivered.get();
+    }
+
+    public long getMessagesFailed() {
+        return messagesFailed.get();
+    }
+
+    public long getTokensDeactivated() {
+        return tokensDeactivated.get();
     }
 }
@@ -11,9 +11,13 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Profile("mock")
 @Service
@@ -91,8 +95,23 @@ public class GatewayMockImpl implements GatewayMock {
     }
 
     @Override
-    public void sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData) {
+    public CompletableFuture<MulticastResult> sendMulticast(Collection<String> tokens, Notification notification) {
+        LOG.info("FCM mock in use. No multicast sent.");
+        final int successCount = tokens == null ? 0 : new HashSet<>(tokens).size();
+        return CompletableFuture.completedFuture(new MulticastResult(successCount, Collections.emptySet(), Collections.emptySet()));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendEmailFromTemplate(String toAddress, String templateName, Map<String, String> templateData) {
         LOG.info("SES mock in use. No email sent.");
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<BulkEmailResult> sendBulkEmailFromTemplate(Collection<String> toAddresses, String templateName, Map<String, String> templateData) {
+        LOG.info("SES mock in use. No bulk email sent.");
+        final int delivered = toAddresses == null ? 0 : new HashSet<>(toAddresses).size();
+        return CompletableFuture.completedFuture(new BulkEmailResult(delivered, 0, 0));
     }
 
     @Override
@@ -0,0 +1,31 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.DailySalesRollupEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends CrudRepository<DailySalesRollupEntity, LocalDate> {
+
+    List<DailySalesRollupEntity> findAllByIdBetweenOrderByIdAsc(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Atomically adds a signed delta to every total.
+     *
+     * @return 1 if applied; 0 if the rollup row does not exist yet.
+     */
+    @Modifying
+    @Query("UPDATE DailySalesRollupEntity r " +
+            "SET r.ticketsSold = r.ticketsSold + ?2, r.ticketsRefunded = r.ticketsRefunded + ?3, " +
+            "r.ticketSubtotal = r.ticketSubtotal + ?4, r.issuerFee = r.issuerFee + ?5, r.venueFee = r.venueFee + ?6, " +
+            "r.paymentFee = r.paymentFee + ?7, r.refundedPaymentFee = r.refundedPaymentFee + ?8 " +
+            "WHERE r.id = ?1")
+    int applyDelta(LocalDate salesDate, int ticketsSold, int ticketsRefunded, BigDecimal ticketSubtotal, BigDecimal issuerFee,
+                   BigDecimal venueFee, BigDecimal paymentFee, BigDecimal refundedPaymentFee);
+}
@@ -1,9 +1,13 @@
 package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.DeviceTokenEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.UUID;
 
 @Repository
@@ -11,4 +15,17 @@ public interface DeviceTokenRepository extends CrudRepository<DeviceTokenEntity,
 
     boolean existsByDeviceToken(String deviceToken);
     DeviceTokenEntity findByDeviceToken(String deviceToken);
+
+    /**
+     * Deactivates every supplied token in a single update.
+     *
+     * @return Number of tokens deactivated.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DeviceTokenEntity d " +
+            "SET d.tokenStatus = 'DEACTIVATED' " +
+            "WHERE d.deviceToken IN ?1 " +
+            "AND d.tokenStatus <> 'DEACTIVATED'")
+    int deactivateTokens(Collection<String> deviceTokens);
 }
@@ -0,0 +1,67 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.EventCancellationJobEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventCancellationJobRepository extends CrudRepository<EventCancellationJobEntity, UUID> {
+
+    EventCancellationJobEntity findFirstByEventIdOrderByCreatedDateDesc(UUID eventId);
+
+    List<EventCancellationJobEntity> findTop10ByStatusAndLeaseExpiresDateBeforeOrderByCreatedDateAsc(EventCancellationJobEntity.Status status, OffsetDateTime leaseExpiresDate);
+
+    /**
+     * Takes ownership of a running job whose lease has run out. Also used to renew the lease by the owner.
+     *
+     * @return 1 if this caller now owns the job; 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationJobEntity j " +
+            "SET j.leaseExpiresDate = ?3 " +
+            "WHERE j.id = ?1 " +
+            "AND j.status = 'RUNNING' " +
+            "AND j.leaseExpiresDate <= ?2")
+    int claimLease(UUID id, OffsetDateTime now, OffsetDateTime leaseExpiresDate);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationJobEntity j " +
+            "SET j.leaseExpiresDate = ?2 " +
+            "WHERE j.id = ?1 " +
+            "AND j.status = 'RUNNING'")
+    int renewLease(UUID id, OffsetDateTime leaseExpiresDate);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationJobEntity j " +
+            "SET j.refundedOrders = j.refundedOrders + 1 " +
+            "WHERE j.id = ?1")
+    int incrementRefundedOrders(UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationJobEntity j " +
+            "SET j.failedOrders = j.failedOrders + 1 " +
+            "WHERE j.id = ?1")
+    int incrementFailedOrders(UUID id);
+
+    /**
+     * Returns a job to running after its failed orders were reset for retry. The lease is left alone, so a
+     * finished job can be claimed immediately and a running job keeps its owner.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationJobEntity j " +
+            "SET j.status = ?2, j.failedOrders = j.failedOrders - ?3, j.completedDate = NULL " +
+            "WHERE j.id = ?1")
+    int reopen(UUID id, EventCancellationJobEntity.Status status, int numRetried);
+}
@@ -0,0 +1,48 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.EventCancellationOrderEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventCancellationOrderRepository extends CrudRepository<EventCancellationOrderEntity, UUID> {
+
+    List<EventCancellationOrderEntity> findTop100ByJobIdAndStatusOrderByIdAsc(UUID jobId, EventCancellationOrderEntity.Status status);
+
+    /**
+     * Records the outcome of a pending checkpoint. Refunds call this inside the refund transaction so the
+     * checkpoint and the refund commit together.
+     *
+     * @return 1 if the checkpoint was pending; 0 if another worker already processed it.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationOrderEntity o " +
+            "SET o.status = ?2, o.lastError = ?3, o.processedDate = ?4 " +
+            "WHERE o.id = ?1 " +
+            "AND o.status = 'PENDING'")
+    int markProcessed(UUID id, EventCancellationOrderEntity.Status status, String lastError, OffsetDateTime processedDate);
+
+    boolean existsByJobIdAndStatus(UUID jobId, EventCancellationOrderEntity.Status status);
+
+    /**
+     * Puts failed checkpoints of a job back to pending so the job retries their refunds. The last error is kept
+     * until the retry records a new outcome.
+     *
+     * @return Number of checkpoints reset.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventCancellationOrderEntity o " +
+            "SET o.status = ?2, o.processedDate = NULL " +
+            "WHERE o.jobId = ?1 " +
+            "AND o.status = 'FAILED'")
+    int resetFailed(UUID jobId, EventCancellationOrderEntity.Status status);
+}
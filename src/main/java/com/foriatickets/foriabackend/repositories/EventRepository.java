@@ -1,11 +1,15 @@
 package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.EventEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -13,6 +17,88 @@ public interface EventRepository extends CrudRepository<EventEntity, UUID> {
 
     List<EventEntity> findAllByOrderByEventStartTimeAsc();
 
+    /**
+     * Loads an event with the venue and fee configs needed to price and confirm an order.
+     *
+     * @param id Event to load.
+     * @return Event or empty if it does not exist.
+     */
+    @EntityGraph("EventEntity.checkout")
+    Optional<EventEntity> findCheckoutById(UUID id);
+
+    /**
+     * Loads an event with the venue and every ticket along with its owner and tier.
+     *
+     * @param id Event to load.
+     * @return Event or empty if it does not exist.
+     */
+    @EntityGraph("EventEntity.attendees")
+    Optional<EventEntity> findAttendeesById(UUID id);
+
+    /**
+     * Loads the events that belong in the public listing with their venue in one query.
+     *
+     * @param now Events that ended before this are excluded.
+     * @return Live, public events that have not ended ordered by start time and then name.
+     */
+    @Query("SELECT e " +
+            "FROM EventEntity e " +
+            "JOIN FETCH e.venueEntity " +
+            "WHERE e.status = 'LIVE' " +
+            "AND e.visibility = 'PUBLIC' " +
+            "AND e.eventEndTime >= ?1 " +
+            "ORDER BY e.eventStartTime ASC, e.name ASC")
+    List<EventEntity> findAllListedEvents(OffsetDateTime now);
+
+    /**
+     * Loads the first page of the public listing ordered by the (start time, ID) keyset.
+     *
+     * @param now Events that ended before this are excluded.
+     * @param pageable Page size. Only the first page is used.
+     * @return Live, public events that have not ended.
+     */
+    @Query("SELECT e " +
+            "FROM EventEntity e " +
+            "JOIN FETCH e.venueEntity " +
+            "WHERE e.status = 'LIVE' " +
+            "AND e.visibility = 'PUBLIC' " +
+            "AND e.eventEndTime >= ?1 " +
+            "ORDER BY e.eventStartTime ASC, e.id ASC")
+    List<EventEntity> findListedEventsPage(OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Loads the page of the public listing that follows the given keyset. Seeks on the (status, visibility,
+     * start time, ID) index instead of skipping rows, so the cost of a page does not grow with how deep it is.
+     *
+     * @param now Events that ended before this are excluded.
+     * @param startTime Start time of the last event on the previous page.
+     * @param id ID of the last event on the previous page.
+     * @param pageable Page size. Only the first page is used.
+     * @return Live, public events that have not ended and sort after the keyset.
+     */
+    @Query("SELECT e " +
+            "FROM EventEntity e " +
+            "JOIN FETCH e.venueEntity " +
+            "WHERE e.status = 'LIVE' " +
+            "AND e.visibility = 'PUBLIC' " +
+            "AND e.eventEndTime >= ?1 " +
+            "AND (e.eventStartTime > ?2 OR (e.eventStartTime = ?2 AND e.id > ?3)) " +
+            "ORDER BY e.eventStartTime ASC, e.id ASC")
+    List<EventEntity> findListedEventsPageAfter(OffsetDateTime now, OffsetDateTime startTime, UUID id, Pageable pageable);
+
+    /**
+     * Loads events starting in the range with the venue and ticket owners needed to send reminders.
+     * Distinct since fetching the tickets repeats the event once per ticket.
+     *
+     * @param startTime Start of the range, inclusive.
+     * @param endTime End of the range, inclusive.
+     * @return Events starting in the range.
+     */
+    @EntityGraph("EventEntity.report")
+    @Query("SELECT DISTINCT e " +
+            "FROM EventEntity e " +
+            "WHERE e.eventStartTime >= ?1 " +
+            "AND e.eventStartTime <= ?2")
     List<EventEntity> findAllByEventStartTimeGreaterThanEqualAndEventStartTimeLessThanEqual(OffsetDateTime startTime, OffsetDateTime endTime);
 
     List<EventEntity> findAllByEventEndTimeGreaterThanEqualAndEventEndTimeLessThanEqual(OffsetDateTime startTime, OffsetDateTime endTime);
@@ -0,0 +1,30 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.InventoryHoldEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface InventoryHoldRepository extends CrudRepository<InventoryHoldEntity, UUID> {
+
+    /**
+     * Moves a hold between states only if it is still in the expected state.
+     * Lets checkout, release, and the sweeper race on the same hold with exactly one winner.
+     *
+     * @return 1 if transitioned; 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE InventoryHoldEntity h " +
+            "SET h.status = ?3 " +
+            "WHERE h.id = ?1 " +
+            "AND h.status = ?2")
+    int transitionStatus(UUID holdId, InventoryHoldEntity.Status expectedStatus, InventoryHoldEntity.Status newStatus);
+
+    List<InventoryHoldEntity> findTop500ByStatusAndExpiresDateBeforeOrderByExpiresDateAsc(InventoryHoldEntity.Status status, OffsetDateTime expiresDate);
+}
@@ -0,0 +1,36 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends CrudRepository<NotificationOutboxEntity, UUID>, NotificationOutboxRepositoryCustom {
+
+    boolean existsByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Claims a due message for delivery. A claim is a lease until the new next attempt date, so a message left
+     * in SENDING by a crashed worker is claimed again once the lease runs out.
+     *
+     * @return 1 if this caller owns the delivery attempt; 0 otherwise.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE NotificationOutboxEntity n " +
+            "SET n.status = 'SENDING', n.attempts = n.attempts + 1, n.nextAttemptDate = ?3 " +
+            "WHERE n.id = ?1 " +
+            "AND n.status IN ('PENDING', 'SENDING') " +
+            "AND n.nextAttemptDate <= ?2")
+    int claim(UUID id, OffsetDateTime now, OffsetDateTime leaseExpiresDate);
+
+    List<NotificationOutboxEntity> findTop100ByStatusInAndNextAttemptDateBeforeOrderByNextAttemptDateAsc(Collection<NotificationOutboxEntity.Status> statuses, OffsetDateTime nextAttemptDate);
+}
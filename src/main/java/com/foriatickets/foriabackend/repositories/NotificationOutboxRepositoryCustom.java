@@ -0,0 +1,20 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+
+/**
+ * Outbox writes that Spring Data cannot express as a single derived or JPQL query.
+ *
+ * @author Corbin Schwalm
+ */
+public interface NotificationOutboxRepositoryCustom {
+
+    /**
+     * Inserts the message unless one with the same idempotency key exists. A duplicate key only fails the
+     * insert statement, so the caller's transaction stays usable. Bypasses the persistence context.
+     *
+     * @param notificationOutboxEntity Message to insert. ID is assigned if missing.
+     * @return True if inserted; false if the key was already queued.
+     */
+    boolean insertIfAbsent(NotificationOutboxEntity notificationOutboxEntity);
+}
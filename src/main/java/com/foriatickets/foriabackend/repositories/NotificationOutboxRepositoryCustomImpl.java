@@ -0,0 +1,51 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public class NotificationOutboxRepositoryCustomImpl implements NotificationOutboxRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_outbox " +
+            "(id, idempotency_key, channel, recipient, template_name, title, body, template_data, status, attempts, created_date, next_attempt_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NotificationOutboxRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean insertIfAbsent(NotificationOutboxEntity notificationOutboxEntity) {
+
+        if (notificationOutboxEntity.getId() == null) {
+            notificationOutboxEntity.setId(UUID.randomUUID());
+        }
+
+        try {
+            //Written the same way Hibernate binds OffsetDateTime so both paths compare equally.
+            jdbcTemplate.update(INSERT_SQL,
+                    notificationOutboxEntity.getId().toString(),
+                    notificationOutboxEntity.getIdempotencyKey(),
+                    notificationOutboxEntity.getChannel().name(),
+                    notificationOutboxEntity.getRecipient(),
+                    notificationOutboxEntity.getTemplateName(),
+                    notificationOutboxEntity.getTitle(),
+                    notificationOutboxEntity.getBody(),
+                    notificationOutboxEntity.getTemplateData(),
+                    notificationOutboxEntity.getStatus().name(),
+                    notificationOutboxEntity.getAttempts(),
+                    Timestamp.from(notificationOutboxEntity.getCreatedDate().toInstant()),
+                    Timestamp.from(notificationOutboxEntity.getNextAttemptDate().toInstant()));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+}
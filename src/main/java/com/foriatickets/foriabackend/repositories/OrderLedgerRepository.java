@@ -0,0 +1,67 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.OrderLedgerEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OrderLedgerRepository extends CrudRepository<OrderLedgerEntity, UUID> {
+
+    /**
+     * Flips a sold entry to refunded and queues the refund for the rollups.
+     * Only one refund can win, so rollups are adjusted exactly once.
+     *
+     * @return 1 if refunded; 0 if the entry is missing or was already refunded.
+     */
+    @Modifying
+    @Query("UPDATE OrderLedgerEntity l " +
+            "SET l.status = 'REFUNDED', l.refundedTimestamp = ?2, l.refundRollupPending = true " +
+            "WHERE l.id = ?1 " +
+            "AND l.status = 'SOLD'")
+    int markRefunded(UUID orderId, OffsetDateTime refundedTimestamp);
+
+    /**
+     * Clears the sale flag once the entry is in the rollups.
+     *
+     * @return 1 if cleared; 0 if another run already applied the sale.
+     */
+    @Modifying
+    @Query("UPDATE OrderLedgerEntity l " +
+            "SET l.saleRollupPending = false " +
+            "WHERE l.id = ?1 " +
+            "AND l.saleRollupPending = true")
+    int markSaleRolledUp(UUID orderId);
+
+    /**
+     * Clears the refund flag once the refund is in the rollups.
+     *
+     * @return 1 if cleared; 0 if another run already applied the refund.
+     */
+    @Modifying
+    @Query("UPDATE OrderLedgerEntity l " +
+            "SET l.refundRollupPending = false " +
+            "WHERE l.id = ?1 " +
+            "AND l.refundRollupPending = true")
+    int markRefundRolledUp(UUID orderId);
+
+    List<OrderLedgerEntity> findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc();
+
+    List<OrderLedgerEntity> findTop500ByRefundRollupPendingTrueAndSaleRollupPendingFalseOrderByRefundedTimestampAsc();
+
+    /**
+     * Orders placed before the ledger existed, in ID order after the given ID. Paging by ID lets the backfill move
+     * past orders it cannot ledger.
+     */
+    @Query("SELECT o.id FROM OrderEntity o " +
+            "WHERE o.id > ?1 " +
+            "AND NOT EXISTS (SELECT l.id FROM OrderLedgerEntity l WHERE l.id = o.id) " +
+            "ORDER BY o.id ASC")
+    List<UUID> findUnledgeredOrderIdsAfter(UUID afterOrderId, Pageable pageable);
+}
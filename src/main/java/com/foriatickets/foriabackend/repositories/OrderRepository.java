@@ -6,20 +6,48 @@ import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @SuppressWarnings("SqlResolve")
 @Repository
-public interface OrderRepository extends CrudRepository<OrderEntity, UUID> {
-
-    List<OrderEntity> findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(OffsetDateTime startTime, OffsetDateTime endTime);
+public interface OrderRepository extends CrudRepository<OrderEntity, UUID>, OrderRepositoryCustom {
 
     OrderEntity findByChargeReferenceId(String chargeReferenceId);
 
     OrderEntity findByRefundReferenceId(String refundReferenceId);
 
+    /**
+     * Loads orders by Stripe charge ID with the purchaser, tickets and applied fees in one query.
+     * Callers should keep the ID list bounded, since every ID is bound as a parameter.
+     */
+    @Query("SELECT DISTINCT o FROM OrderEntity o " +
+            "JOIN FETCH o.purchaser " +
+            "LEFT JOIN FETCH o.tickets ote " +
+            "LEFT JOIN FETCH ote.ticketEntity t " +
+            "LEFT JOIN FETCH t.ticketTypeConfigEntity " +
+            "LEFT JOIN FETCH t.eventEntity " +
+            "LEFT JOIN FETCH o.fees ofe " +
+            "LEFT JOIN FETCH ofe.ticketFeeConfigEntity " +
+            "WHERE o.chargeReferenceId IN ?1")
+    List<OrderEntity> findAllWithDetailsByChargeReferenceIds(Collection<String> chargeReferenceIds);
+
+    /**
+     * Loads orders by Stripe refund ID with the purchaser, tickets and applied fees in one query.
+     * Callers should keep the ID list bounded, since every ID is bound as a parameter.
+     */
+    @Query("SELECT DISTINCT o FROM OrderEntity o " +
+            "JOIN FETCH o.purchaser " +
+            "LEFT JOIN FETCH o.tickets ote " +
+            "LEFT JOIN FETCH ote.ticketEntity t " +
+            "LEFT JOIN FETCH t.ticketTypeConfigEntity " +
+            "LEFT JOIN FETCH t.eventEntity " +
+            "LEFT JOIN FETCH o.fees ofe " +
+            "LEFT JOIN FETCH ofe.ticketFeeConfigEntity " +
+            "WHERE o.refundReferenceId IN ?1")
+    List<OrderEntity> findAllWithDetailsByRefundReferenceIds(Collection<String> refundReferenceIds);
+
     @Query(value =
             "SELECT DISTINCT o.* " +
             "FROM `order` AS o " +
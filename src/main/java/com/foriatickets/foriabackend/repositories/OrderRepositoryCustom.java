@@ -0,0 +1,22 @@
+package com.foriatickets.foriabackend.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Order reads that need statement options Spring Data cannot set per environment.
+ *
+ * @author Corbin Schwalm
+ */
+public interface OrderRepositoryCustom {
+
+    /**
+     * Streams one row per ticket for orders in the window. Rows are scalars, so nothing is held in the persistence
+     * context and the caller's memory use does not grow with the window. Only this statement uses the streaming
+     * fetch size; other queries on the pool are unaffected. Must be consumed in a transaction and closed.
+     *
+     * @return Rows of [ticketId, eventId, eventName, venueId, purchaserId, orderId, issuedDate,
+     * ticketTypeConfigId, ticketTypeName, ticketTypePrice, ticketTypeCurrency, ticketStatus].
+     */
+    Stream<Object[]> streamTicketReportRows(OffsetDateTime startTime, OffsetDateTime endTime);
+}
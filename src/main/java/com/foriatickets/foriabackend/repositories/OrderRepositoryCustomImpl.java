@@ -0,0 +1,45 @@
+package com.foriatickets.foriabackend.repositories;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.OffsetDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private static final String TICKET_REPORT_JPQL = "SELECT t.id, ev.id, ev.name, ev.venueEntity.id, t.purchaserEntity.id, o.id, t.issuedDate, " +
+            "tt.id, tt.name, tt.price, tt.currency, t.status " +
+            "FROM OrderTicketEntryEntity e " +
+            "JOIN e.orderEntity o " +
+            "JOIN e.ticketEntity t " +
+            "JOIN t.eventEntity ev " +
+            "JOIN t.ticketTypeConfigEntity tt " +
+            "WHERE o.orderTimestamp > ?1 " +
+            "AND o.orderTimestamp < ?2 " +
+            "ORDER BY o.orderTimestamp ASC, o.id ASC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * MySQL only streams row by row when the fetch size is Integer.MIN_VALUE. H2 rejects negative sizes, so the
+     * local profile uses a positive one.
+     */
+    @Value("${reportStreamFetchSize:500}")
+    private int reportStreamFetchSize;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Object[]> streamTicketReportRows(OffsetDateTime startTime, OffsetDateTime endTime) {
+
+        return entityManager.createQuery(TICKET_REPORT_JPQL)
+                .setParameter(1, startTime)
+                .setParameter(2, endTime)
+                .setHint(HINT_FETCH_SIZE, reportStreamFetchSize)
+                .getResultStream();
+    }
+}
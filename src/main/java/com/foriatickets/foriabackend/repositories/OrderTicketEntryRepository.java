@@ -2,13 +2,27 @@ package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.OrderTicketEntryEntity;
 import com.foriatickets.foriabackend.entities.TicketEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface OrderTicketEntryRepository extends CrudRepository<OrderTicketEntryEntity, UUID> {
 
     OrderTicketEntryEntity findByTicketEntity(TicketEntity ticketEntity);
+
+    /**
+     * Loads every completed order containing a ticket for the event in a single join query.
+     *
+     * @param eventId Event to search.
+     * @return Distinct order IDs.
+     */
+    @Query("SELECT DISTINCT e.orderEntity.id " +
+            "FROM OrderTicketEntryEntity e " +
+            "WHERE e.ticketEntity.eventEntity.id = ?1 " +
+            "AND e.orderEntity.status = 'COMPLETED'")
+    List<UUID> findCompletedOrderIdsByEvent(UUID eventId);
 }
@@ -1,14 +1,20 @@
 package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.TicketEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface TicketRepository extends CrudRepository<TicketEntity, UUID> {
+public interface TicketRepository extends CrudRepository<TicketEntity, UUID>, TicketRepositoryCustom {
 
     @Query("SELECT COUNT(id) " +
             "FROM TicketEntity t " +
@@ -16,5 +22,168 @@ public interface TicketRepository extends CrudRepository<TicketEntity, UUID> {
             "AND t.eventEntity.id = ?2 " +
             "AND t.status NOT IN ('CANCELED', 'CANCELED_FRAUD')")
     int countActiveTicketsIssuedByType(UUID ticketTypeConfigId, UUID eventId);
-}
 
+    /**
+     * Counts active tickets for every tier of the supplied events in a single grouped query.
+     *
+     * @param eventIds Events to count.
+     * @return Rows of [ticketTypeConfigId (UUID), ticketsIssued (Long)]. Tiers with no tickets are omitted.
+     */
+    @Query("SELECT t.ticketTypeConfigEntity.id, COUNT(t.id) " +
+            "FROM TicketEntity t " +
+            "WHERE t.eventEntity.id IN ?1 " +
+            "AND t.status NOT IN ('CANCELED', 'CANCELED_FRAUD') " +
+            "GROUP BY t.ticketTypeConfigEntity.id")
+    List<Object[]> countActiveTicketsIssuedByTypeForEvents(Collection<UUID> eventIds);
+
+    /**
+     * Counts active tickets for every tier. Used by inventory reconciliation.
+     *
+     * @return Rows of [ticketTypeConfigId (UUID), ticketsIssued (Long)].
+     */
+    @Query("SELECT t.ticketTypeConfigEntity.id, COUNT(t.id) " +
+            "FROM TicketEntity t " +
+            "WHERE t.status NOT IN ('CANCELED', 'CANCELED_FRAUD') " +
+            "GROUP BY t.ticketTypeConfigEntity.id")
+    List<Object[]> countActiveTicketsIssuedGroupedByType();
+
+    /**
+     * @param eventId Event to search.
+     * @return Distinct IDs of every user that owns a ticket for the event, including canceled tickets.
+     */
+    @Query("SELECT DISTINCT t.ownerEntity.id " +
+            "FROM TicketEntity t " +
+            "WHERE t.eventEntity.id = ?1")
+    List<UUID> findOwnerIdsByEvent(UUID eventId);
+
+    /**
+     * Loads every ticket a user owns along with its event and tier.
+     *
+     * @param ownerId User to search.
+     * @return Tickets owned by the user, including canceled tickets.
+     */
+    @EntityGraph("TicketEntity.myTickets")
+    List<TicketEntity> findAllByOwnerEntity_Id(UUID ownerId);
+
+    /**
+     * Loads secrets of tickets issued before the secret hash was stored.
+     *
+     * @param pageable Page size. Only the first page is used.
+     * @return Rows of [ticketId (UUID), secret (String)].
+     */
+    @Query("SELECT t.id, t.secret " +
+            "FROM TicketEntity t " +
+            "WHERE t.secretHash IS NULL")
+    List<Object[]> findSecretsWithoutHash(Pageable pageable);
+
+    /**
+     * Stores the hash of a secret read earlier. Does nothing if the secret was replaced in the meantime,
+     * because the new secret was stored with its own hash.
+     *
+     * @param ticketId Ticket to update.
+     * @param secret Secret the hash was computed from.
+     * @param secretHash Hash to store.
+     * @return Number of rows updated. Zero or one.
+     */
+    @Modifying
+    @Query("UPDATE TicketEntity t " +
+            "SET t.secretHash = ?3 " +
+            "WHERE t.id = ?1 " +
+            "AND t.secret = ?2 " +
+            "AND t.secretHash IS NULL")
+    int updateSecretHash(UUID ticketId, String secret, String secretHash);
+
+    /**
+     * Loads only what a door scan needs in a single query. The venue ID is read from the event row.
+     *
+     * @param ticketId Ticket to scan.
+     * @return Zero or one row of [status (TicketEntity.Status), secret (String), eventId (UUID), venueId (UUID), ticketTypeName (String)].
+     */
+    @Query("SELECT t.status, t.secret, e.id, e.venueEntity.id, tt.name " +
+            "FROM TicketEntity t " +
+            "JOIN t.eventEntity e " +
+            "JOIN t.ticketTypeConfigEntity tt " +
+            "WHERE t.id = ?1")
+    List<Object[]> findScanInfo(UUID ticketId);
+
+    /**
+     * Batch variant of {@link #findScanInfo(UUID)}. Loads every ticket of a redemption batch in a single query.
+     *
+     * @param ticketIds Tickets to scan.
+     * @return Rows of [ticketId (UUID), status (TicketEntity.Status), secret (String), eventId (UUID), venueId (UUID), ticketTypeName (String)].
+     */
+    @Query("SELECT t.id, t.status, t.secret, e.id, e.venueEntity.id, tt.name " +
+            "FROM TicketEntity t " +
+            "JOIN t.eventEntity e " +
+            "JOIN t.ticketTypeConfigEntity tt " +
+            "WHERE t.id IN ?1")
+    List<Object[]> findScanInfoByIds(Collection<UUID> ticketIds);
+
+    /**
+     * Flips an active ticket to redeemed. Only one of two concurrent scans can win.
+     *
+     * @param ticketId Ticket to redeem.
+     * @param redeemedDate When the ticket was scanned.
+     * @param updatedDate Time of the write.
+     * @return 1 if redeemed; 0 if the ticket is missing or no longer active.
+     */
+    @Modifying
+    @Query("UPDATE TicketEntity t " +
+            "SET t.status = 'REDEEMED', t.redeemedDate = ?2, t.updatedDate = ?3 " +
+            "WHERE t.id = ?1 " +
+            "AND t.status = 'ACTIVE'")
+    int markRedeemed(UUID ticketId, OffsetDateTime redeemedDate, OffsetDateTime updatedDate);
+
+    /**
+     * Moves the redemption of an already redeemed ticket to an earlier offline scan, so the first scan wins
+     * regardless of upload order. Tickets redeemed before the redemption date was stored are never moved.
+     *
+     * @param ticketId Ticket to update.
+     * @param redeemedDate When the offline scan happened.
+     * @param updatedDate Time of the write.
+     * @return 1 if the scan is now the first; 0 if an earlier scan is stored.
+     */
+    @Modifying
+    @Query("UPDATE TicketEntity t " +
+            "SET t.redeemedDate = ?2, t.updatedDate = ?3 " +
+            "WHERE t.id = ?1 " +
+            "AND t.status = 'REDEEMED' " +
+            "AND t.redeemedDate > ?2")
+    int claimEarlierRedemption(UUID ticketId, OffsetDateTime redeemedDate, OffsetDateTime updatedDate);
+
+    /**
+     * Loads the rows of a full offline pack. Canceled tickets are left out.
+     *
+     * @param eventId Event to export.
+     * @return Rows of [ticketId (UUID), status (TicketEntity.Status), secret (String)].
+     */
+    @Query("SELECT t.id, t.status, t.secret " +
+            "FROM TicketEntity t " +
+            "WHERE t.eventEntity.id = ?1 " +
+            "AND t.status NOT IN ('CANCELED', 'CANCELED_FRAUD')")
+    List<Object[]> findOfflinePackRows(UUID eventId);
+
+    /**
+     * Loads the rows of a delta offline pack. Canceled tickets are included so devices drop them.
+     *
+     * @param eventId Event to export.
+     * @param updatedAfter Exclusive lower bound of the last write.
+     * @return Rows of [ticketId (UUID), status (TicketEntity.Status), secret (String)].
+     */
+    @Query("SELECT t.id, t.status, t.secret " +
+            "FROM TicketEntity t " +
+            "WHERE t.eventEntity.id = ?1 " +
+            "AND t.updatedDate > ?2")
+    List<Object[]> findOfflinePackRowsUpdatedAfter(UUID eventId, OffsetDateTime updatedAfter);
+
+    /**
+     * @param eventId Event the tickets must belong to.
+     * @param ticketIds Tickets to load.
+     * @return Rows of [ticketId (UUID), status (TicketEntity.Status)]. Tickets of other events are omitted.
+     */
+    @Query("SELECT t.id, t.status " +
+            "FROM TicketEntity t " +
+            "WHERE t.eventEntity.id = ?1 " +
+            "AND t.id IN ?2")
+    List<Object[]> findStatusesForEvent(UUID eventId, Collection<UUID> ticketIds);
+}
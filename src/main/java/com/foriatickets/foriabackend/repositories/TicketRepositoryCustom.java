@@ -0,0 +1,25 @@
+package com.foriatickets.foriabackend.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ticket writes that Spring Data cannot express as a single derived or JPQL query.
+ *
+ * @author Corbin Schwalm
+ */
+public interface TicketRepositoryCustom {
+
+    /**
+     * Flips many active tickets to redeemed in one JDBC batch of conditional updates. Each ticket is only
+     * redeemed if still active, so concurrent scans of the same ticket are rejected without locks.
+     * Bypasses the persistence context. Callers must not hold modified ticket entities.
+     *
+     * @param ticketIds Tickets to redeem.
+     * @param redeemedDates When each ticket was scanned. Same order as the IDs.
+     * @param updatedDate Time of the write.
+     * @return Rows updated per ticket in the same order. 1 if redeemed; 0 if no longer active.
+     */
+    int[] markRedeemedBatch(List<UUID> ticketIds, List<OffsetDateTime> redeemedDates, OffsetDateTime updatedDate);
+}
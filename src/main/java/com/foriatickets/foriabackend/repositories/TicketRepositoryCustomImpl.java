@@ -0,0 +1,56 @@
+package com.foriatickets.foriabackend.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class TicketRepositoryCustomImpl implements TicketRepositoryCustom {
+
+    private static final String MARK_REDEEMED_SQL = "UPDATE ticket " +
+            "SET status = 'REDEEMED', redeemed_date = ?, updated_date = ? " +
+            "WHERE id = ? " +
+            "AND status = 'ACTIVE'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TicketRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] markRedeemedBatch(List<UUID> ticketIds, List<OffsetDateTime> redeemedDates, OffsetDateTime updatedDate) {
+
+        if (ticketIds.size() != redeemedDates.size()) {
+            throw new IllegalArgumentException("Every ticket must have a redeemed date.");
+        }
+
+        if (ticketIds.isEmpty()) {
+            return new int[0];
+        }
+
+        //Written the same way Hibernate binds OffsetDateTime so both paths compare equally.
+        final Timestamp updatedTimestamp = Timestamp.from(updatedDate.toInstant());
+        return jdbcTemplate.batchUpdate(MARK_REDEEMED_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setTimestamp(1, Timestamp.from(redeemedDates.get(i).toInstant()));
+                ps.setTimestamp(2, updatedTimestamp);
+                ps.setString(3, ticketIds.get(i).toString());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ticketIds.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.TicketTypeInventoryEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TicketTypeInventoryRepository extends CrudRepository<TicketTypeInventoryEntity, UUID> {
+
+    /**
+     * Atomically adds to the issued count if issued plus held stays within the authorized amount.
+     *
+     * @return 1 if reserved; 0 if the tier is sold out or has no inventory row.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsIssued = i.ticketsIssued + ?2, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.ticketsIssued + i.ticketsHeld + ?2 <= i.authorizedAmount")
+    int reserve(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Atomically subtracts from the issued count without going below zero.
+     *
+     * @return 1 if released; 0 otherwise.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsIssued = i.ticketsIssued - ?2, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.ticketsIssued >= ?2")
+    int release(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Atomically adds to the held count if issued plus held stays within the authorized amount.
+     *
+     * @return 1 if held; 0 if the tier is sold out or has no inventory row.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsHeld = i.ticketsHeld + ?2, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.ticketsIssued + i.ticketsHeld + ?2 <= i.authorizedAmount")
+    int hold(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Moves held tickets to issued.
+     *
+     * @return 1 if converted; 0 if the held count is lower than expected.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsHeld = i.ticketsHeld - ?2, i.ticketsIssued = i.ticketsIssued + ?2, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.ticketsHeld >= ?2")
+    int convertHold(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Returns held tickets to the tier.
+     *
+     * @return 1 if released; 0 if the held count is lower than expected.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsHeld = i.ticketsHeld - ?2, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.ticketsHeld >= ?2")
+    int releaseHold(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Overwrites the issued count only if the row has not changed since it was read.
+     *
+     * @return 1 if corrected; 0 if the counter moved in the meantime.
+     */
+    @Modifying
+    @Query("UPDATE TicketTypeInventoryEntity i " +
+            "SET i.ticketsIssued = ?3, i.reconciledDate = ?4, i.version = i.version + 1 " +
+            "WHERE i.id = ?1 " +
+            "AND i.version = ?2")
+    int compareAndSetTicketsIssued(UUID ticketTypeConfigId, long expectedVersion, int ticketsIssued, OffsetDateTime reconciledDate);
+}
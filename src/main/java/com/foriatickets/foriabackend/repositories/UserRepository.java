@@ -1,9 +1,12 @@
 package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.UserEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -12,4 +15,13 @@ public interface UserRepository extends CrudRepository<UserEntity, UUID> {
     UserEntity findByAuth0Id(String auth0Id);
 
     UserEntity findFirstByEmail(String email);
+
+    /**
+     * Loads a batch of users with their device tokens in one query.
+     */
+    @Query("SELECT DISTINCT u " +
+            "FROM UserEntity u " +
+            "LEFT JOIN FETCH u.deviceTokens " +
+            "WHERE u.id IN ?1")
+    List<UserEntity> findAllWithDeviceTokens(Collection<UUID> ids);
 }
@@ -1,9 +1,11 @@
 package com.foriatickets.foriabackend.repositories;
 
 import com.foriatickets.foriabackend.entities.VenueAccessEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -11,4 +13,12 @@ public interface VenueAccessRepository extends CrudRepository<VenueAccessEntity,
 
     boolean existsByVenueEntity_IdAndUserEntity_Id(UUID venueId, UUID userId);
     VenueAccessEntity findByVenueEntity_IdAndUserEntity_Id(UUID venueId, UUID userId);
+    List<VenueAccessEntity> findAllByUserEntity_Id(UUID userId);
+
+    /**
+     * Venue IDs the user is a member of, without loading the user or venue graph.
+     */
+    @Query("SELECT va.venueEntity.id FROM VenueAccessEntity va " +
+            "WHERE va.userEntity.id = ?1")
+    List<UUID> findVenueIdsByUserId(UUID userId);
 }
\ No newline at end of file
@@ -0,0 +1,189 @@
+package com.foriatickets.foriabackend.security;
+
+import com.foriatickets.foriabackend.gateway.AWSSecretsManagerGateway;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the set of API keys accepted by {@link ApiKeyFilter}.
+ *
+ * Keys are loaded from Secrets Manager once at startup and refreshed in the background. The request path only
+ * reads an immutable snapshot, so lookups never perform I/O. Keys that fail to load are skipped one at a time.
+ *
+ * @author Corbin Schwalm
+ */
+@Component
+public class ApiKeyRegistry {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Resolved API key with its authorities built ahead of time.
+     */
+    static final class Entry {
+
+        final String key;
+        final String secret;
+        final List<SimpleGrantedAuthority> authorities;
+
+        Entry(String key, String secret, List<String> scopes) {
+            this.key = key;
+            this.secret = secret;
+            this.authorities = Collections.unmodifiableList(
+                    scopes.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
+            );
+        }
+    }
+
+    /**
+     * Immutable view of the registry at a point in time.
+     */
+    private static final class Snapshot {
+
+        final Map<String, Entry> keys;
+        final long version;
+        final long loadedAtMillis;
+
+        Snapshot(Map<String, Entry> keys, long version, long loadedAtMillis) {
+            this.keys = keys;
+            this.version = version;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+
+    private final AWSSecretsManagerGateway awsSecretsManagerGateway;
+
+    private final String apiKeyListString;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), 0, 0);
+
+    private final AtomicLong lookupHits = new AtomicLong();
+
+    private final AtomicLong lookupMisses = new AtomicLong();
+
+    private final AtomicLong droppedKeys = new AtomicLong();
+
+    public ApiKeyRegistry(AWSSecretsManagerGateway awsSecretsManagerGateway,
+                          @Value("${apiKeyList:#{null}}") String apiKeyListString) {
+        this.awsSecretsManagerGateway = awsSecretsManagerGateway;
+        this.apiKeyListString = apiKeyListString;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /**
+     * Reloads all keys. A key that is missing or malformed is logged and left out, and the result always replaces
+     * the current snapshot so that revoked keys stop working on the next refresh.
+     */
+    @Scheduled(fixedDelayString = "${apiKeyRefreshIntervalMs:300000}", initialDelayString = "${apiKeyRefreshIntervalMs:300000}")
+    public void refresh() {
+
+        Map<String, Entry> keyMap = new HashMap<>();
+        if (apiKeyListString == null) {
+
+            List<String> scopes = new ArrayList<>();
+            scopes.add("write:user_create");
+            scopes.add("write:venue");
+            scopes.add("write:event");
+            scopes.add("write:register");
+
+            LOG.debug("API key list not provided. Using test:test for API key.");
+            keyMap.put("test", new Entry("test", "test", scopes));
+
+        } else {
+
+            for (String apiKey : apiKeyListString.split(";")) {
+
+                Optional<AWSSecretsManagerGateway.ApiKey> apiKeyInfo;
+                try {
+                    apiKeyInfo = awsSecretsManagerGateway.getApiKey(apiKey);
+                } catch (RuntimeException ex) {
+                    droppedKeys.incrementAndGet();
+                    LOG.error("Failed to load API key: {}. Reason: {}", apiKey, ex.getMessage());
+                    continue;
+                }
+
+                if (!apiKeyInfo.isPresent()) {
+                    droppedKeys.incrementAndGet();
+                    LOG.error("Failed to load API key: {}", apiKey);
+                    continue;
+                }
+
+                AWSSecretsManagerGateway.ApiKey apiKeyObj = apiKeyInfo.get();
+                if (apiKeyObj.key == null || apiKeyObj.secret == null || apiKeyObj.scopes == null) {
+                    droppedKeys.incrementAndGet();
+                    LOG.error("Failed to parse API key object. Bad data in secrets manager for key: {}", apiKey);
+                    continue;
+                }
+
+                keyMap.put(apiKeyObj.key, new Entry(apiKeyObj.key, apiKeyObj.secret, apiKeyObj.scopes));
+            }
+        }
+
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(Collections.unmodifiableMap(keyMap), previous.version + 1, System.currentTimeMillis());
+        LOG.info("Loaded {} API keys. Registry version: {}", keyMap.size(), previous.version + 1);
+    }
+
+    /**
+     * Returns the entry if the key exists and the secret matches. Otherwise returns null.
+     *
+     * @param key Public key id.
+     * @param secret Secret presented by the caller.
+     * @return Entry or null.
+     */
+    Entry authenticate(String key, String secret) {
+
+        Entry entry = snapshot.keys.get(key);
+        if (entry == null || !entry.secret.equals(secret)) {
+            lookupMisses.incrementAndGet();
+            return null;
+        }
+
+        lookupHits.incrementAndGet();
+        return entry;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public int getKeyCount() {
+        return snapshot.keys.size();
+    }
+
+    /**
+     * @return Milliseconds since the last refresh, or -1 if no refresh has run.
+     */
+    public long getRefreshAgeMillis() {
+        long loadedAt = snapshot.loadedAtMillis;
+        return loadedAt == 0 ? -1 : System.currentTimeMillis() - loadedAt;
+    }
+
+    public long getLookupHits() {
+        return lookupHits.get();
+    }
+
+    public long getLookupMisses() {
+        return lookupMisses.get();
+    }
+
+    /**
+     * @return Number of keys left out of a refresh because they were missing or malformed.
+     */
+    public long getDroppedKeys() {
+        return droppedKeys.get();
+    }
+}
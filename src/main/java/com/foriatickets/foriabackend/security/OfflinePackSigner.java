@@ -0,0 +1,104 @@
+package com.foriatickets.foriabackend.security;
+
+import com.foriatickets.foriabackend.gateway.AWSSecretsManagerGateway;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.*;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signs offline redemption packs so scanner devices can verify a stored pack came from the server unchanged.
+ *
+ * Packs are signed with ECDSA P-256 over SHA-256. The key pair is loaded from Secrets Manager once at startup as
+ * the JSON fields private_key (PKCS#8) and public_key (X.509), both Base64 DER. Devices pin the public key.
+ * If no key is configured a key pair is generated per process, which is only suitable for local use.
+ *
+ * @author Corbin Schwalm
+ */
+@Component
+public class OfflinePackSigner {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    static final String SIGNATURE_ALGORITHM = "SHA256withECDSA";
+
+    private final AWSSecretsManagerGateway awsSecretsManagerGateway;
+
+    private final String signingKeyName;
+
+    private PrivateKey privateKey;
+
+    private PublicKey publicKey;
+
+    public OfflinePackSigner(AWSSecretsManagerGateway awsSecretsManagerGateway,
+                             @Value("${offlinePackSigningKey:#{null}}") String signingKeyName) {
+        this.awsSecretsManagerGateway = awsSecretsManagerGateway;
+        this.signingKeyName = signingKeyName;
+    }
+
+    @PostConstruct
+    public void init() {
+
+        try {
+            if (signingKeyName == null) {
+
+                KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+                keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+                KeyPair keyPair = keyPairGenerator.generateKeyPair();
+                privateKey = keyPair.getPrivate();
+                publicKey = keyPair.getPublic();
+
+                LOG.debug("Offline pack signing key not provided. Using generated key pair.");
+                return;
+            }
+
+            final Optional<Map<String, String>> keys = awsSecretsManagerGateway.getAllSecrets(signingKeyName);
+            if (!keys.isPresent() || keys.get().get("private_key") == null || keys.get().get("public_key") == null) {
+                LOG.error("Failed to load offline pack signing key with friendlyName: {}", signingKeyName);
+                throw new IllegalStateException("Failed to load offline pack signing key with friendlyName: " + signingKeyName);
+            }
+
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(keys.get().get("private_key"))));
+            publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(keys.get().get("public_key"))));
+            LOG.info("Loaded offline pack signing key: {}", signingKeyName);
+
+        } catch (GeneralSecurityException ex) {
+            LOG.error("Failed to parse offline pack signing key: {}", ex.getMessage());
+            throw new IllegalStateException("Failed to parse offline pack signing key.", ex);
+        }
+    }
+
+    /**
+     * @param data Bytes to sign.
+     * @return DER encoded signature.
+     */
+    public byte[] sign(byte[] data) {
+
+        try {
+            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
+            signature.initSign(privateKey);
+            signature.update(data);
+            return signature.sign();
+        } catch (GeneralSecurityException ex) {
+            LOG.error("Failed to sign offline pack: {}", ex.getMessage());
+            throw new IllegalStateException("Failed to sign offline pack.", ex);
+        }
+    }
+
+    /**
+     * @return Key devices verify packs with.
+     */
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+}
@@ -0,0 +1,134 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.UserEntity;
+import com.foriatickets.foriabackend.entities.VenueAccessEntity;
+
+import java.util.*;
+
+/**
+ * Resolves the caller's Auth0 principal to a lightweight user snapshot.
+ * Snapshots are cached so request scoped services do not load the full user graph on every request.
+ * Venue access in a snapshot is reloaded on a much shorter interval, since the cache is per node and a revoked
+ * venue member must lose access everywhere quickly. Checks that release ticket secrets should still go to the database.
+ *
+ * @author Corbin Schwalm
+ */
+public interface AuthenticatedUserService {
+
+    /**
+     * Immutable view of the fields the request scoped services need for most calls.
+     */
+    final class AuthenticatedUser {
+
+        private final UUID id;
+        private final String auth0Id;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final String stripeId;
+        private final Set<UUID> venueIds;
+
+        private AuthenticatedUser(UUID id, String auth0Id, String firstName, String lastName, String email, String stripeId, Set<UUID> venueIds) {
+            this.id = id;
+            this.auth0Id = auth0Id;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.stripeId = stripeId;
+            this.venueIds = venueIds;
+        }
+
+        /**
+         * @param venueIds Venues the user is currently a member of.
+         * @return Copy of this snapshot with the supplied venue access.
+         */
+        public AuthenticatedUser withVenueIds(Collection<UUID> venueIds) {
+            return new AuthenticatedUser(id, auth0Id, firstName, lastName, email, stripeId, Collections.unmodifiableSet(new HashSet<>(venueIds)));
+        }
+
+        public static AuthenticatedUser fromEntity(UserEntity userEntity) {
+
+            Set<UUID> venueIds = new HashSet<>();
+            Set<VenueAccessEntity> venueAccessEntities = userEntity.getVenueAccessEntities();
+            if (venueAccessEntities != null) {
+                for (VenueAccessEntity venueAccessEntity : venueAccessEntities) {
+                    venueIds.add(venueAccessEntity.getVenueEntity().getId());
+                }
+            }
+
+            return new AuthenticatedUser(
+                    userEntity.getId(),
+                    userEntity.getAuth0Id(),
+                    userEntity.getFirstName(),
+                    userEntity.getLastName(),
+                    userEntity.getEmail(),
+                    userEntity.getStripeId(),
+                    Collections.unmodifiableSet(venueIds)
+            );
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public String getAuth0Id() {
+            return auth0Id;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getStripeId() {
+            return stripeId;
+        }
+
+        public Set<UUID> getVenueIds() {
+            return venueIds;
+        }
+
+        /**
+         * Checks if the user is a member of the supplied venue.
+         *
+         * @param venueId Venue to check.
+         * @return True if authorized.
+         */
+        public boolean hasVenueAccess(UUID venueId) {
+            return venueId != null && venueIds.contains(venueId);
+        }
+    }
+
+    /**
+     * Returns the snapshot for the supplied Auth0 ID. Loads and caches it on a miss.
+     * Users that do not exist are not cached.
+     *
+     * @param auth0Id Auth0 subject.
+     * @return Snapshot or empty if no user is mapped.
+     */
+    Optional<AuthenticatedUser> getAuthenticatedUser(String auth0Id);
+
+    /**
+     * Loads the full user entity graph. Bypasses the cache.
+     *
+     * @param auth0Id Auth0 subject.
+     * @return User entity or null if not found.
+     */
+    UserEntity loadUserEntity(String auth0Id);
+
+    /**
+     * Removes the cached snapshot on this node. Must be called after any write that changes a user or their venue access.
+     * Inside a transaction the snapshot is removed again once it commits, so a concurrent request cannot cache the old
+     * state. Other nodes pick up venue access changes on the next venue access reload.
+     *
+     * @param auth0Id Auth0 subject.
+     */
+    void invalidate(String auth0Id);
+}
@@ -0,0 +1,146 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.UserEntity;
+import com.foriatickets.foriabackend.repositories.UserRepository;
+import com.foriatickets.foriabackend.repositories.VenueAccessRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@Transactional
+public class AuthenticatedUserServiceImpl implements AuthenticatedUserService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final class CacheEntry {
+
+        final AuthenticatedUser authenticatedUser;
+        final long expiresAtMillis;
+        final long venueAccessExpiresAtMillis;
+
+        CacheEntry(AuthenticatedUser authenticatedUser, long expiresAtMillis, long venueAccessExpiresAtMillis) {
+            this.authenticatedUser = authenticatedUser;
+            this.expiresAtMillis = expiresAtMillis;
+            this.venueAccessExpiresAtMillis = venueAccessExpiresAtMillis;
+        }
+    }
+
+    private final UserRepository userRepository;
+
+    private final VenueAccessRepository venueAccessRepository;
+
+    private final long ttlMillis;
+
+    private final long venueAccessTtlMillis;
+
+    private final Map<String, CacheEntry> cache;
+
+    @Autowired
+    public AuthenticatedUserServiceImpl(UserRepository userRepository,
+                                        VenueAccessRepository venueAccessRepository,
+                                        @Value("${principalCacheMaxSize:10000}") int maxSize,
+                                        @Value("${principalCacheTtlMs:300000}") long ttlMillis,
+                                        @Value("${principalVenueAccessTtlMs:5000}") long venueAccessTtlMillis) {
+
+        this.userRepository = userRepository;
+        this.venueAccessRepository = venueAccessRepository;
+        this.ttlMillis = ttlMillis;
+        this.venueAccessTtlMillis = venueAccessTtlMillis;
+
+        //Access ordered so the least recently used entry is evicted once full.
+        this.cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public Optional<AuthenticatedUser> getAuthenticatedUser(String auth0Id) {
+
+        if (auth0Id == null) {
+            return Optional.empty();
+        }
+
+        final long now = System.currentTimeMillis();
+        CacheEntry entry;
+        synchronized (cache) {
+            entry = cache.get(auth0Id);
+            if (entry != null && entry.expiresAtMillis <= now) {
+                cache.remove(auth0Id);
+                entry = null;
+            }
+        }
+
+        if (entry != null && entry.venueAccessExpiresAtMillis > now) {
+            return Optional.of(entry.authenticatedUser);
+        }
+
+        //Rest of the snapshot is still fresh. Only venue access is reloaded.
+        if (entry != null) {
+            final AuthenticatedUser authenticatedUser = entry.authenticatedUser.withVenueIds(venueAccessRepository.findVenueIdsByUserId(entry.authenticatedUser.getId()));
+            synchronized (cache) {
+                if (cache.get(auth0Id) == entry) {
+                    cache.put(auth0Id, new CacheEntry(authenticatedUser, entry.expiresAtMillis, now + venueAccessTtlMillis));
+                }
+            }
+            return Optional.of(authenticatedUser);
+        }
+
+        UserEntity userEntity = userRepository.findByAuth0Id(auth0Id);
+        if (userEntity == null) {
+            return Optional.empty();
+        }
+
+        AuthenticatedUser authenticatedUser = AuthenticatedUser.fromEntity(userEntity);
+        synchronized (cache) {
+            cache.put(auth0Id, new CacheEntry(authenticatedUser, now + ttlMillis, now + venueAccessTtlMillis));
+        }
+
+        LOG.debug("Cached principal for user ID: {}", authenticatedUser.getId());
+        return Optional.of(authenticatedUser);
+    }
+
+    @Override
+    public UserEntity loadUserEntity(String auth0Id) {
+        return auth0Id == null ? null : userRepository.findByAuth0Id(auth0Id);
+    }
+
+    @Override
+    public void invalidate(String auth0Id) {
+
+        if (auth0Id == null) {
+            return;
+        }
+
+        evict(auth0Id);
+
+        //A request that reads before the write commits would cache the old snapshot again.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evict(auth0Id);
+                }
+            });
+        }
+    }
+
+    private void evict(String auth0Id) {
+
+        synchronized (cache) {
+            cache.remove(auth0Id);
+        }
+    }
+}
@@ -26,9 +26,29 @@ public interface CalculationService {
      */
     CalculationServiceImpl.PriceCalculationInfo calculateFees(final int numPaidTickets, final BigDecimal ticketSubtotal, final Set<TicketFeeConfigEntity> feeSet, boolean doInactiveCheck);
 
+    /**
+     * Calculates fees with the active fees of an event. The fees are compiled into a schedule of pre-summed
+     * percent and flat amounts that is cached per event until the event's fees change or the entry expires.
+     *
+     * @param numPaidTickets Number of non-free tickets. Used for FLAT fee calculation.
+     * @param ticketSubtotal Subtotal to apply fees on.
+     * @param eventId Event the fees belong to.
+     * @param feeSet Fee configs of the event. Only read if the schedule is not cached.
+     * @return Object containing break down of fees.
+     */
+    CalculationServiceImpl.PriceCalculationInfo calculateEventFees(final int numPaidTickets, final BigDecimal ticketSubtotal, final UUID eventId, final Set<TicketFeeConfigEntity> feeSet);
+
+    /**
+     * Drops the cached fee schedule of an event. Must be called whenever a fee config of the event is added or changed.
+     *
+     * @param eventId eventId
+     */
+    void invalidateFeeSchedule(UUID eventId);
+
     /**
      * Calculates the order total to display to the user.
      * This uses the same logic that checkout uses to ensure the price is the same.
+     * Fees may come from the cached fee schedule, so a quote can trail a fee change until the entry expires.
      *
      * @param eventId eventId
      * @param orderConfig List of tickets to buy.
@@ -37,6 +57,8 @@ public interface CalculationService {
 
     /**
      * Loads event from database and calculates the order total uses the internal fee calculation methods.
+     * Used by checkout. Fees are read from the loaded event, never the fee schedule cache, so the order is
+     * charged the fees committed at the time of the caller's transaction.
      *
      * @param eventId eventId
      * @param orderConfig List of tickets to buy.
@@ -9,9 +9,13 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openapitools.model.OrderTotal;
 import org.openapitools.model.TicketLineItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -34,22 +38,268 @@ public class CalculationServiceImpl implements CalculationService {
         BigDecimal venueFeeSubtotal;
     }
 
+    /**
+     * Fee totals of one fee set, pre-summed by method and type at FEE_SCALE decimal places.
+     * Applying a schedule to a subtotal needs no iteration over the fee configs.
+     */
+    static final class FeeSchedule {
+
+        final long percentTotal;
+        final long percentIssuer;
+        final long percentVenue;
+
+        final long flatTotalPerTicket;
+        final long flatIssuerPerTicket;
+        final long flatVenuePerTicket;
+
+        private FeeSchedule(long percentTotal, long percentIssuer, long percentVenue,
+                            long flatTotalPerTicket, long flatIssuerPerTicket, long flatVenuePerTicket) {
+            this.percentTotal = percentTotal;
+            this.percentIssuer = percentIssuer;
+            this.percentVenue = percentVenue;
+            this.flatTotalPerTicket = flatTotalPerTicket;
+            this.flatIssuerPerTicket = flatIssuerPerTicket;
+            this.flatVenuePerTicket = flatVenuePerTicket;
+        }
+
+        /**
+         * @param feeSet Fees to sum.
+         * @param doInactiveCheck Indicates that if feeConfig is inactive that it will be skipped.
+         * @throws ArithmeticException If a fee amount has more than FEE_SCALE decimal places or a sum overflows.
+         */
+        static FeeSchedule compile(Set<TicketFeeConfigEntity> feeSet, boolean doInactiveCheck) {
+
+            long percentTotal = 0L;
+            long percentIssuer = 0L;
+            long percentVenue = 0L;
+
+            long flatTotalPerTicket = 0L;
+            long flatIssuerPerTicket = 0L;
+            long flatVenuePerTicket = 0L;
+
+            for (TicketFeeConfigEntity feeConfigEntity : feeSet) {
+
+                final boolean isPercent;
+                switch (feeConfigEntity.getMethod()) {
+
+                    case FLAT:
+                        isPercent = false;
+                        break;
+
+                    case PERCENT:
+                        isPercent = true;
+                        break;
+
+                    default:
+                        LOG.warn("Unknown fee method: {} Skipping.", feeConfigEntity.getMethod());
+                        continue;
+                }
+
+                if (doInactiveCheck && feeConfigEntity.getStatus() != TicketFeeConfigEntity.Status.ACTIVE) {
+                    continue;
+                }
+
+                final long amount = toFixedPoint(feeConfigEntity.getAmount(), FEE_SCALE);
+                if (isPercent) {
+                    percentTotal = Math.addExact(percentTotal, amount);
+                    if (feeConfigEntity.getType() == TicketFeeConfigEntity.FeeType.ISSUER) {
+                        percentIssuer = Math.addExact(percentIssuer, amount);
+                    } else if (feeConfigEntity.getType() == TicketFeeConfigEntity.FeeType.VENUE) {
+                        percentVenue = Math.addExact(percentVenue, amount);
+                    }
+                } else {
+                    flatTotalPerTicket = Math.addExact(flatTotalPerTicket, amount);
+                    if (feeConfigEntity.getType() == TicketFeeConfigEntity.FeeType.ISSUER) {
+                        flatIssuerPerTicket = Math.addExact(flatIssuerPerTicket, amount);
+                    } else if (feeConfigEntity.getType() == TicketFeeConfigEntity.FeeType.VENUE) {
+                        flatVenuePerTicket = Math.addExact(flatVenuePerTicket, amount);
+                    }
+                }
+            }
+
+            return new FeeSchedule(percentTotal, percentIssuer, percentVenue, flatTotalPerTicket, flatIssuerPerTicket, flatVenuePerTicket);
+        }
+    }
+
+    private static final class FeeScheduleEntry {
+
+        final FeeSchedule feeSchedule;
+        final long expiresAtMillis;
+
+        FeeScheduleEntry(FeeSchedule feeSchedule, long expiresAtMillis) {
+            this.feeSchedule = feeSchedule;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
     private static final BigDecimal STRIPE_PERCENT_FEE = BigDecimal.valueOf(0.029);
     private static final BigDecimal STRIPE_FLAT_FEE = BigDecimal.valueOf(0.30);
 
+    private static final long STRIPE_FLAT_FEE_CENTS = toFixedPoint(STRIPE_FLAT_FEE, 2);
+    private static final long STRIPE_NET_RATE_PER_MILLE = toFixedPoint(BigDecimal.ONE.subtract(STRIPE_PERCENT_FEE), 3);
+
+    /**
+     * Decimal places fee amounts are held at in the fixed point path.
+     */
+    private static final int FEE_SCALE = 6;
+    private static final long FEE_SCALE_FACTOR = 1_000_000L;
+
     private static final Logger LOG = LogManager.getLogger();
 
     private final EventRepository eventRepository;
     private final TicketTypeConfigRepository ticketTypeConfigRepository;
 
-    public CalculationServiceImpl(EventRepository eventRepository, TicketTypeConfigRepository ticketTypeConfigRepository) {
+    private final long feeScheduleTtlMillis;
+
+    private final Map<UUID, FeeScheduleEntry> feeScheduleCache;
+
+    @Autowired
+    public CalculationServiceImpl(EventRepository eventRepository,
+                                  TicketTypeConfigRepository ticketTypeConfigRepository,
+                                  @Value("${feeScheduleCacheMaxSize:1000}") int feeScheduleCacheMaxSize,
+                                  @Value("${feeScheduleCacheTtlMs:60000}") long feeScheduleTtlMillis) {
+
         this.eventRepository = eventRepository;
         this.ticketTypeConfigRepository = ticketTypeConfigRepository;
+        this.feeScheduleTtlMillis = feeScheduleTtlMillis;
+
+        //Access ordered so the least recently used event is evicted once full.
+        this.feeScheduleCache = new LinkedHashMap<UUID, FeeScheduleEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, FeeScheduleEntry> eldest) {
+                return size() > feeScheduleCacheMaxSize;
+            }
+        };
     }
 
     @Override
     public PriceCalculationInfo calculateFees(final int numPaidTickets, final BigDecimal ticketSubtotal, final Set<TicketFeeConfigEntity> feeSet, boolean doInactiveCheck) {
 
+        //Whole cent subtotals round exactly the same in minor units. Finer subtotals keep the BigDecimal rounding.
+        if (ticketSubtotal.scale() <= 2) {
+            try {
+                return calculateFeesInCents(numPaidTickets, toFixedPoint(ticketSubtotal, 2), FeeSchedule.compile(feeSet, doInactiveCheck));
+            } catch (ArithmeticException ex) {
+                LOG.debug("Fee calculation for subtotal: {} does not fit in fixed point. Using BigDecimal.", ticketSubtotal);
+            }
+        }
+
+        return calculateFeesWithBigDecimal(numPaidTickets, ticketSubtotal, feeSet, doInactiveCheck);
+    }
+
+    @Override
+    public PriceCalculationInfo calculateEventFees(final int numPaidTickets, final BigDecimal ticketSubtotal, final UUID eventId, final Set<TicketFeeConfigEntity> feeSet) {
+
+        if (ticketSubtotal.scale() <= 2) {
+            try {
+                return calculateFeesInCents(numPaidTickets, toFixedPoint(ticketSubtotal, 2), getFeeSchedule(eventId, feeSet));
+            } catch (ArithmeticException ex) {
+                LOG.debug("Fee calculation for event ID: {} does not fit in fixed point. Using BigDecimal.", eventId);
+            }
+        }
+
+        return calculateFeesWithBigDecimal(numPaidTickets, ticketSubtotal, feeSet, true);
+    }
+
+    @Override
+    public void invalidateFeeSchedule(UUID eventId) {
+
+        if (eventId == null) {
+            return;
+        }
+
+        evictFeeSchedule(eventId);
+
+        //A request that read the old fees before this commit may cache them again, so evict once more after commit.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evictFeeSchedule(eventId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the compiled active fee schedule for the event. Compiles and caches it from the fee set on a miss.
+     *
+     * @throws ArithmeticException If the fee set cannot be held in fixed point. Such sets are not cached.
+     */
+    FeeSchedule getFeeSchedule(UUID eventId, Set<TicketFeeConfigEntity> feeSet) {
+
+        final long now = System.currentTimeMillis();
+        synchronized (feeScheduleCache) {
+            FeeScheduleEntry entry = feeScheduleCache.get(eventId);
+            if (entry != null && entry.expiresAtMillis > now) {
+                return entry.feeSchedule;
+            }
+            if (entry != null) {
+                feeScheduleCache.remove(eventId);
+            }
+        }
+
+        final FeeSchedule feeSchedule = FeeSchedule.compile(feeSet, true);
+        synchronized (feeScheduleCache) {
+            feeScheduleCache.put(eventId, new FeeScheduleEntry(feeSchedule, now + feeScheduleTtlMillis));
+        }
+
+        LOG.debug("Compiled fee schedule for event ID: {}", eventId);
+        return feeSchedule;
+    }
+
+    private void evictFeeSchedule(UUID eventId) {
+
+        synchronized (feeScheduleCache) {
+            feeScheduleCache.remove(eventId);
+        }
+
+        LOG.debug("Evicted fee schedule for event ID: {}", eventId);
+    }
+
+    /**
+     * Fee calculation on long minor units. The schedule already holds the fee sums at FEE_SCALE decimal places,
+     * so the only rounding steps are the HALF_UP ones the BigDecimal path performs.
+     *
+     * @throws ArithmeticException If a value overflows.
+     */
+    PriceCalculationInfo calculateFeesInCents(final int numPaidTickets, final long ticketSubtotalCents, final FeeSchedule feeSchedule) {
+
+        final long ticketFeeCents = feeCents(ticketSubtotalCents, numPaidTickets, feeSchedule.percentTotal, feeSchedule.flatTotalPerTicket);
+        final long issuerFeeCents = feeCents(ticketSubtotalCents, numPaidTickets, feeSchedule.percentIssuer, feeSchedule.flatIssuerPerTicket);
+        final long venueFeeCents = feeCents(ticketSubtotalCents, numPaidTickets, feeSchedule.percentVenue, feeSchedule.flatVenuePerTicket);
+
+        //Apply payment vendor fee.
+        //charge_amount = (subtotal + 0.30) / (1 - 2.90 / 100)
+        final long subtotalWithFeesCents = Math.addExact(ticketSubtotalCents, ticketFeeCents);
+        final long grandTotalCents;
+        final long paymentFeeCents;
+        if (subtotalWithFeesCents <= 0) {
+            grandTotalCents = 0L;
+            paymentFeeCents = 0L;
+        } else {
+            grandTotalCents = divideHalfUp(Math.multiplyExact(Math.addExact(subtotalWithFeesCents, STRIPE_FLAT_FEE_CENTS), 1000L), STRIPE_NET_RATE_PER_MILLE);
+            paymentFeeCents = grandTotalCents - subtotalWithFeesCents;
+        }
+
+        PriceCalculationInfo result = new PriceCalculationInfo();
+        result.ticketSubtotal = BigDecimal.valueOf(ticketSubtotalCents, 2);
+
+        result.feeSubtotal = BigDecimal.valueOf(ticketFeeCents, 2);
+        result.issuerFeeSubtotal = BigDecimal.valueOf(issuerFeeCents, 2);
+        result.venueFeeSubtotal = BigDecimal.valueOf(venueFeeCents, 2);
+
+        result.grandTotal = BigDecimal.valueOf(grandTotalCents, 2);
+        result.paymentFeeSubtotal = BigDecimal.valueOf(paymentFeeCents, 2);
+        return result;
+    }
+
+    /**
+     * Reference implementation on BigDecimal. Used for subtotals finer than a cent and fee amounts that do not
+     * fit in fixed point.
+     */
+    PriceCalculationInfo calculateFeesWithBigDecimal(final int numPaidTickets, final BigDecimal ticketSubtotal, final Set<TicketFeeConfigEntity> feeSet, boolean doInactiveCheck) {
+
         //Group fees by type.
         Set<TicketFeeConfigEntity> percentFeeSet = new HashSet<>();
         Set<TicketFeeConfigEntity> flatFeeSet = new HashSet<>();
@@ -172,7 +422,7 @@ public class CalculationServiceImpl implements CalculationService {
 
         //Calculate order total.
         OrderTotal orderTotal = new OrderTotal();
-        PriceCalculationInfo priceCalculationInfo = calculateTotalPrice(eventId, orderConfig);
+        PriceCalculationInfo priceCalculationInfo = calculateTotalPrice(eventId, orderConfig, true);
 
         BigDecimal subtotal = priceCalculationInfo.ticketSubtotal;
         BigDecimal fees = priceCalculationInfo.feeSubtotal.add(priceCalculationInfo.paymentFeeSubtotal);
@@ -190,13 +440,22 @@ public class CalculationServiceImpl implements CalculationService {
         return orderTotal;
     }
 
+    @Override
     public PriceCalculationInfo calculateTotalPrice(UUID eventId, List<TicketLineItem> orderConfig) {
+        return calculateTotalPrice(eventId, orderConfig, false);
+    }
+
+    /**
+     * Checkout must not use the fee schedule cache. It is per JVM, so a fee change made on another node
+     * is not seen until the entry expires.
+     */
+    private PriceCalculationInfo calculateTotalPrice(UUID eventId, List<TicketLineItem> orderConfig, boolean useCachedFees) {
 
         String currencyCode = "USD";
         BigDecimal ticketSubtotal = BigDecimal.ZERO;
 
         //Load price config along with fees for event.
-        Optional<EventEntity> eventEntityOptional = eventRepository.findById(eventId);
+        Optional<EventEntity> eventEntityOptional = eventRepository.findCheckoutById(eventId);
         if (!eventEntityOptional.isPresent()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event ID is invalid.");
         }
@@ -224,16 +483,50 @@ public class CalculationServiceImpl implements CalculationService {
                 }
 
                 final int orderAmount = ticketLineItem.getAmount();
-                BigDecimal amountForType = new BigDecimal(orderAmount);
-                BigDecimal ticketPriceForType = ticketTypeConfigEntity.getPrice().multiply(amountForType);
+                BigDecimal ticketPriceForType = ticketTypeConfigEntity.getPrice().multiply(BigDecimal.valueOf(orderAmount));
                 ticketSubtotal = ticketSubtotal.add(ticketPriceForType);
                 currencyCode = ticketTypeConfigEntity.getCurrency();
-                numPaidTickets += amountForType.toBigInteger().intValue();
+                numPaidTickets += orderAmount;
             }
         }
 
-        PriceCalculationInfo priceCalculationInfo = calculateFees(numPaidTickets, ticketSubtotal, feeSet, true);
+        PriceCalculationInfo priceCalculationInfo = useCachedFees
+                ? calculateEventFees(numPaidTickets, ticketSubtotal, eventId, feeSet)
+                : calculateFees(numPaidTickets, ticketSubtotal, feeSet, true);
         priceCalculationInfo.currencyCode = currencyCode;
         return priceCalculationInfo;
     }
+
+    /**
+     * Fee in cents for a subtotal in cents. Percent and flat amounts are at FEE_SCALE decimal places.
+     */
+    private static long feeCents(long ticketSubtotalCents, int numPaidTickets, long percentToApply, long flatToApplyPerTicket) {
+
+        //Both terms are in units of 10^-(2 + FEE_SCALE) so the sum is exact before rounding to cents.
+        final long percentAmount = Math.multiplyExact(ticketSubtotalCents, percentToApply);
+        final long flatAmount = Math.multiplyExact(Math.multiplyExact(flatToApplyPerTicket, (long) numPaidTickets), 100L);
+        return divideHalfUp(Math.addExact(percentAmount, flatAmount), FEE_SCALE_FACTOR);
+    }
+
+    /**
+     * Integer division with BigDecimal HALF_UP semantics. Ties round away from zero.
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+
+        final long quotient = dividend / divisor;
+        final long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            return quotient + Long.signum(dividend);
+        }
+
+        return quotient;
+    }
+
+    /**
+     * @return Unscaled value of the amount at the given scale.
+     * @throws ArithmeticException If the amount has more decimal places than the scale or does not fit in a long.
+     */
+    private static long toFixedPoint(BigDecimal amount, int scale) {
+        return amount.movePointRight(scale).longValueExact();
+    }
 }
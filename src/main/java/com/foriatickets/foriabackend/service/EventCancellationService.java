@@ -0,0 +1,56 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventCancellationJobEntity;
+import com.foriatickets.foriabackend.entities.EventEntity;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Refunds every order of a canceled event in the background.
+ *
+ * Orders are checkpointed when the job starts and refunded in parallel by a bounded worker pool. Each checkpoint
+ * commits with its refund, so a job interrupted by a restart resumes with the orders that are still pending.
+ * Impacted customers are notified in batches once all refunds are processed.
+ *
+ * @author Corbin Schwalm
+ */
+public interface EventCancellationService {
+
+    /**
+     * Creates a job for the event in the caller's transaction. Processing starts once the caller commits.
+     *
+     * @param eventEntity Event being canceled.
+     * @param reason Reason sent to customers.
+     * @return The created job.
+     */
+    EventCancellationJobEntity startCancellation(EventEntity eventEntity, String reason);
+
+    /**
+     * Retries the refunds that failed in the event's latest job. Failed orders go back to pending and the job
+     * runs again once the caller commits. A running job whose owner died is also restarted.
+     *
+     * @param eventId Canceled event.
+     * @return The job being resumed, or empty if the event has no cancellation job.
+     */
+    Optional<EventCancellationJobEntity> resumeCancellation(UUID eventId);
+
+    /**
+     * Processes pending orders for a job if no other worker holds its lease, then notifies customers and
+     * completes the job.
+     *
+     * @param jobId Job to run.
+     */
+    void runJob(UUID jobId);
+
+    /**
+     * Restarts running jobs whose lease expired. Covers jobs left behind by a crashed or restarted node.
+     */
+    void resumeExpiredJobs();
+
+    /**
+     * @param eventId Event to search.
+     * @return The most recent cancellation job for the event, if any.
+     */
+    Optional<EventCancellationJobEntity> getLatestJob(UUID eventId);
+}
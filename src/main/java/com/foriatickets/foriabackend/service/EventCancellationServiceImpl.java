@@ -0,0 +1,376 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.repositories.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class EventCancellationServiceImpl implements EventCancellationService {
+
+    private static final String CANCEL_TITLE = "Foria Event Canceled";
+    private static final String CANCEL_BODY = "{{eventName}} has been canceled! Please check your email for more info.";
+    private static final String CANCEL_EMAIL = "event_canceled_email";
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int NOTIFICATION_BATCH_SIZE = 100;
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final EventCancellationJobRepository eventCancellationJobRepository;
+
+    private final EventCancellationOrderRepository eventCancellationOrderRepository;
+
+    private final EventRepository eventRepository;
+
+    private final NotificationService notificationService;
+
+    private final OrderRefundService orderRefundService;
+
+    private final OrderTicketEntryRepository orderTicketEntryRepository;
+
+    private final TicketRepository ticketRepository;
+
+    private final UserRepository userRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor jobExecutor;
+
+    private final ThreadPoolExecutor refundExecutor;
+
+    private final long leaseMs;
+
+    @Autowired
+    public EventCancellationServiceImpl(EventCancellationJobRepository eventCancellationJobRepository,
+                                        EventCancellationOrderRepository eventCancellationOrderRepository,
+                                        EventRepository eventRepository,
+                                        NotificationService notificationService,
+                                        OrderRefundService orderRefundService,
+                                        OrderTicketEntryRepository orderTicketEntryRepository,
+                                        TicketRepository ticketRepository,
+                                        UserRepository userRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Qualifier("eventCancellationJobExecutor") TaskExecutor jobExecutor,
+                                        @Value("${eventCancellationWorkerThreads:8}") int workerThreads,
+                                        @Value("${eventCancellationLeaseMs:300000}") long leaseMs) {
+
+        this.eventCancellationJobRepository = eventCancellationJobRepository;
+        this.eventCancellationOrderRepository = eventCancellationOrderRepository;
+        this.eventRepository = eventRepository;
+        this.notificationService = notificationService;
+        this.orderRefundService = orderRefundService;
+        this.orderTicketEntryRepository = orderTicketEntryRepository;
+        this.ticketRepository = ticketRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jobExecutor = jobExecutor;
+        this.leaseMs = leaseMs;
+
+        //Jobs submit one page at a time, so the queue never holds more than a page. Callers run overflow themselves.
+        final AtomicInteger workerThreadNumber = new AtomicInteger();
+        this.refundExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PAGE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "event-cancellation-worker-" + workerThreadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refundExecutor.shutdownNow();
+    }
+
+    @Override
+    @Transactional
+    public EventCancellationJobEntity startCancellation(EventEntity eventEntity, String reason) {
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final List<UUID> orderIds = orderTicketEntryRepository.findCompletedOrderIdsByEvent(eventEntity.getId());
+
+        //Lease starts expired so the first runner can claim it immediately.
+        EventCancellationJobEntity eventCancellationJobEntity = new EventCancellationJobEntity()
+                .setEventId(eventEntity.getId())
+                .setReason(reason)
+                .setStatus(EventCancellationJobEntity.Status.RUNNING)
+                .setTotalOrders(orderIds.size())
+                .setRefundedOrders(0)
+                .setFailedOrders(0)
+                .setCreatedDate(now)
+                .setLeaseExpiresDate(now);
+        eventCancellationJobEntity = eventCancellationJobRepository.save(eventCancellationJobEntity);
+
+        final List<EventCancellationOrderEntity> checkpoints = new ArrayList<>(orderIds.size());
+        for (UUID orderId : orderIds) {
+            checkpoints.add(new EventCancellationOrderEntity()
+                    .setJobId(eventCancellationJobEntity.getId())
+                    .setOrderId(orderId)
+                    .setStatus(EventCancellationOrderEntity.Status.PENDING));
+        }
+        eventCancellationOrderRepository.saveAll(checkpoints);
+
+        LOG.info("Created cancellation job ID: {} for event ID: {} with {} orders.", eventCancellationJobEntity.getId(), eventEntity.getId(), orderIds.size());
+
+        runAfterCommit(eventCancellationJobEntity.getId());
+        return eventCancellationJobEntity;
+    }
+
+    @Override
+    @Transactional
+    public Optional<EventCancellationJobEntity> resumeCancellation(UUID eventId) {
+
+        final EventCancellationJobEntity eventCancellationJobEntity = eventCancellationJobRepository.findFirstByEventIdOrderByCreatedDateDesc(eventId);
+        if (eventCancellationJobEntity == null) {
+            return Optional.empty();
+        }
+
+        final UUID jobId = eventCancellationJobEntity.getId();
+        final int numRetried = eventCancellationOrderRepository.resetFailed(jobId, EventCancellationOrderEntity.Status.PENDING);
+        if (numRetried > 0) {
+            eventCancellationJobRepository.reopen(jobId, EventCancellationJobEntity.Status.RUNNING, numRetried);
+            LOG.info("Retrying {} failed orders for cancellation job ID: {}", numRetried, jobId);
+        } else if (eventCancellationJobEntity.getStatus() != EventCancellationJobEntity.Status.RUNNING) {
+            LOG.info("Cancellation job ID: {} has no failed orders to retry.", jobId);
+            return Optional.of(eventCancellationJobEntity);
+        }
+
+        runAfterCommit(jobId);
+        return Optional.of(eventCancellationJobEntity);
+    }
+
+    /**
+     * Queues the job on the job pool. A full pool is not an error; the job stays running in the database and the
+     * resume poller submits it again once its lease has expired.
+     *
+     * @return True if the job was queued.
+     */
+    private boolean submitJob(UUID jobId) {
+
+        try {
+            jobExecutor.execute(() -> runJob(jobId));
+            return true;
+        } catch (TaskRejectedException ex) {
+            LOG.warn("Cancellation job pool is full. Job ID: {} will be resumed by the poller.", jobId);
+            return false;
+        }
+    }
+
+    /**
+     * Runs the job once the caller's transaction commits so workers see its checkpoints.
+     */
+    private void runAfterCommit(UUID jobId) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submitJob(jobId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                submitJob(jobId);
+            }
+        });
+    }
+
+    @Override
+    public void runJob(UUID jobId) {
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        if (eventCancellationJobRepository.claimLease(jobId, now, now.plus(leaseMs, ChronoUnit.MILLIS)) != 1) {
+            LOG.debug("Cancellation job ID: {} is owned by another worker or finished.", jobId);
+            return;
+        }
+
+        final Optional<EventCancellationJobEntity> jobOptional = eventCancellationJobRepository.findById(jobId);
+        if (!jobOptional.isPresent()) {
+            return;
+        }
+
+        final EventCancellationJobEntity eventCancellationJobEntity = jobOptional.get();
+        LOG.info("Running cancellation job ID: {} for event ID: {}", jobId, eventCancellationJobEntity.getEventId());
+
+        List<EventCancellationOrderEntity> page;
+        while (!(page = eventCancellationOrderRepository.findTop100ByJobIdAndStatusOrderByIdAsc(jobId, EventCancellationOrderEntity.Status.PENDING)).isEmpty()) {
+
+            final List<Future<Boolean>> futures = new ArrayList<>(page.size());
+            for (EventCancellationOrderEntity checkpoint : page) {
+                futures.add(refundExecutor.submit(() -> processCheckpoint(checkpoint)));
+            }
+
+            int numProcessed = 0;
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        numProcessed++;
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("Cancellation job ID: {} interrupted. It will resume after the lease expires.", jobId);
+                    return;
+                } catch (ExecutionException ex) {
+                    LOG.error("Cancellation worker failed for job ID: {}. Msg: {}", jobId, ex.getMessage());
+                }
+            }
+
+            //Nothing could be recorded. Leave the job for the resume poller rather than spin on the same page.
+            if (numProcessed == 0) {
+                LOG.error("Cancellation job ID: {} made no progress on a page of {} orders. Pausing until lease expires.", jobId, page.size());
+                return;
+            }
+
+            if (eventCancellationJobRepository.renewLease(jobId, OffsetDateTime.now().plus(leaseMs, ChronoUnit.MILLIS)) != 1) {
+                LOG.warn("Cancellation job ID: {} lost its lease.", jobId);
+                return;
+            }
+        }
+
+        notifyImpactedUsers(eventCancellationJobEntity);
+
+        transactionTemplate.execute(status -> {
+
+            //Failed orders reset for retry while this run was notifying. Leave the job for the resume poller.
+            if (eventCancellationOrderRepository.existsByJobIdAndStatus(jobId, EventCancellationOrderEntity.Status.PENDING)) {
+                LOG.info("Cancellation job ID: {} has orders queued for retry. Leaving it running.", jobId);
+                return null;
+            }
+
+            eventCancellationJobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(job.getFailedOrders() > 0 ? EventCancellationJobEntity.Status.COMPLETED_WITH_ERRORS : EventCancellationJobEntity.Status.COMPLETED);
+                job.setCompletedDate(OffsetDateTime.now());
+                eventCancellationJobRepository.save(job);
+                LOG.info("Cancellation job ID: {} finished. Refunded: {} Failed: {} Total: {}",
+                        jobId, job.getRefundedOrders(), job.getFailedOrders(), job.getTotalOrders());
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Refunds a single order. The checkpoint update doubles as the claim; it holds the row lock until the refund
+     * commits, so two workers never refund the same order.
+     *
+     * @return True if the checkpoint was recorded as refunded or failed.
+     */
+    private boolean processCheckpoint(EventCancellationOrderEntity checkpoint) {
+
+        try {
+            final Boolean refunded = transactionTemplate.execute(status -> {
+                if (eventCancellationOrderRepository.markProcessed(checkpoint.getId(), EventCancellationOrderEntity.Status.REFUNDED, null, OffsetDateTime.now()) != 1) {
+                    return false;
+                }
+
+                orderRefundService.refundOrder(checkpoint.getOrderId(), false);
+                eventCancellationJobRepository.incrementRefundedOrders(checkpoint.getJobId());
+                return true;
+            });
+            return Boolean.TRUE.equals(refunded);
+
+        } catch (RuntimeException ex) {
+
+            LOG.error("FAILED to cancel order ID: {} for cancellation job ID: {}. Manual process is required. Msg: {}",
+                    checkpoint.getOrderId(), checkpoint.getJobId(), ex.getMessage());
+
+            final String error = String.valueOf(ex.getMessage());
+            try {
+                transactionTemplate.execute(status -> {
+                    if (eventCancellationOrderRepository.markProcessed(checkpoint.getId(), EventCancellationOrderEntity.Status.FAILED,
+                            error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error, OffsetDateTime.now()) == 1) {
+                        eventCancellationJobRepository.incrementFailedOrders(checkpoint.getJobId());
+                    }
+                    return null;
+                });
+            } catch (RuntimeException markEx) {
+                LOG.error("Failed to record failure for order ID: {}. Msg: {}", checkpoint.getOrderId(), markEx.getMessage());
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Queues the cancel email and push notifications for every ticket owner. Users are loaded in batches with
+     * their device tokens. Idempotency keys make this safe to repeat on resume.
+     */
+    private void notifyImpactedUsers(EventCancellationJobEntity eventCancellationJobEntity) {
+
+        final UUID eventId = eventCancellationJobEntity.getEventId();
+        final String eventName = eventRepository.findById(eventId).map(EventEntity::getName).orElse("Unknown Event");
+        final List<UUID> ownerIds = ticketRepository.findOwnerIdsByEvent(eventId);
+
+        final Map<String, String> templateData = new HashMap<>();
+        templateData.put("eventName", eventName);
+        templateData.put("cancelationReason", eventCancellationJobEntity.getReason());
+
+        for (int i = 0; i < ownerIds.size(); i += NOTIFICATION_BATCH_SIZE) {
+
+            final List<UUID> batch = ownerIds.subList(i, Math.min(i + NOTIFICATION_BATCH_SIZE, ownerIds.size()));
+            transactionTemplate.execute(status -> {
+                for (UserEntity userEntity : userRepository.findAllWithDeviceTokens(batch)) {
+
+                    final String keyPrefix = "event:" + eventId + ":cancel:user:" + userEntity.getId();
+                    notificationService.enqueueEmail(keyPrefix + ":email", userEntity.getEmail(), CANCEL_EMAIL, templateData);
+                    for (DeviceTokenEntity deviceTokenEntity : userEntity.getDeviceTokens()) {
+
+                        if (deviceTokenEntity.getTokenStatus() != DeviceTokenEntity.TokenStatus.ACTIVE) {
+                            continue;
+                        }
+
+                        notificationService.enqueuePush(keyPrefix + ":push:" + deviceTokenEntity.getId(), deviceTokenEntity.getDeviceToken(),
+                                CANCEL_TITLE, CANCEL_BODY.replace("{{eventName}}", eventName));
+                    }
+                }
+                return null;
+            });
+        }
+
+        LOG.info("Queued cancellation notices for {} users of event ID: {}", ownerIds.size(), eventId);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${eventCancellationResumePollMs:60000}", initialDelayString = "${eventCancellationResumePollMs:60000}")
+    public void resumeExpiredJobs() {
+
+        final List<EventCancellationJobEntity> expiredJobs = eventCancellationJobRepository
+                .findTop10ByStatusAndLeaseExpiresDateBeforeOrderByCreatedDateAsc(EventCancellationJobEntity.Status.RUNNING, OffsetDateTime.now());
+
+        for (EventCancellationJobEntity eventCancellationJobEntity : expiredJobs) {
+            final UUID jobId = eventCancellationJobEntity.getId();
+            LOG.info("Resuming cancellation job ID: {}", jobId);
+            if (!submitJob(jobId)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EventCancellationJobEntity> getLatestJob(UUID eventId) {
+        return Optional.ofNullable(eventCancellationJobRepository.findFirstByEventIdOrderByCreatedDateDesc(eventId));
+    }
+}
@@ -0,0 +1,54 @@
+package com.foriatickets.foriabackend.service;
+
+/**
+ * Serves the public event listing from a pre-rendered snapshot.
+ *
+ * Listed events are loaded and mapped once and kept until an event or one of its tiers changes. Availability is
+ * refreshed on a short interval and the snapshot is re-serialized only when something changed, so the listing
+ * endpoint returns stored bytes and an ETag without touching the event tables.
+ *
+ * @author Corbin Schwalm
+ */
+public interface EventCatalogueService {
+
+    /**
+     * Serialized listing and the entity tag that identifies its content.
+     */
+    final class Catalogue {
+
+        private final byte[] body;
+        private final String eTag;
+
+        public Catalogue(byte[] body, String eTag) {
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        /**
+         * @return JSON array of events. Must not be modified.
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return Quoted strong entity tag of the body.
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    /**
+     * Returns the current listing. Rebuilds it if it was invalidated or availability is stale.
+     *
+     * @return Listing of live, public events that have not ended.
+     */
+    Catalogue getCatalogue();
+
+    /**
+     * Drops the mapped events so the next call reloads them. Must be called whenever an event or a tier
+     * is added or changed. Runs again after the current transaction commits so readers cannot cache old rows.
+     */
+    void invalidate();
+}
@@ -0,0 +1,213 @@
+package com.foriatickets.foriabackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openapitools.model.Event;
+import org.openapitools.model.TicketTypeConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class EventCatalogueServiceImpl implements EventCatalogueService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final CalculationService calculationService;
+
+    private final EventRepository eventRepository;
+
+    private final InventoryService inventoryService;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long availabilityTtlMs;
+
+    private final long maxAgeMs;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Listed events mapped without availability. Only touched while holding the rebuild lock.
+     */
+    private MappedCatalogue mappedCatalogue;
+
+    private volatile RenderedCatalogue renderedCatalogue;
+
+    private static final class MappedCatalogue {
+
+        private final long generation;
+        private final long expiresAtMillis;
+        private final List<Event> events;
+        private final List<TicketTypeConfigEntity> ticketTypeConfigEntities;
+
+        private MappedCatalogue(long generation, long expiresAtMillis, List<Event> events, List<TicketTypeConfigEntity> ticketTypeConfigEntities) {
+            this.generation = generation;
+            this.expiresAtMillis = expiresAtMillis;
+            this.events = events;
+            this.ticketTypeConfigEntities = ticketTypeConfigEntities;
+        }
+    }
+
+    private static final class RenderedCatalogue {
+
+        private final long generation;
+        private final long expiresAtMillis;
+        private final Catalogue catalogue;
+
+        private RenderedCatalogue(long generation, long expiresAtMillis, Catalogue catalogue) {
+            this.generation = generation;
+            this.expiresAtMillis = expiresAtMillis;
+            this.catalogue = catalogue;
+        }
+    }
+
+    @Autowired
+    public EventCatalogueServiceImpl(CalculationService calculationService,
+                                     EventRepository eventRepository,
+                                     InventoryService inventoryService,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${eventCatalogueAvailabilityTtlMs:5000}") long availabilityTtlMs,
+                                     @Value("${eventCatalogueMaxAgeMs:300000}") long maxAgeMs) {
+
+        this.calculationService = calculationService;
+        this.eventRepository = eventRepository;
+        this.inventoryService = inventoryService;
+        this.objectMapper = objectMapper;
+        this.availabilityTtlMs = availabilityTtlMs;
+        this.maxAgeMs = maxAgeMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public Catalogue getCatalogue() {
+
+        RenderedCatalogue rendered = renderedCatalogue;
+        if (isFresh(rendered)) {
+            return rendered.catalogue;
+        }
+
+        //One thread rebuilds while the rest wait for its result instead of all reloading at once.
+        synchronized (rebuildLock) {
+
+            rendered = renderedCatalogue;
+            if (isFresh(rendered)) {
+                return rendered.catalogue;
+            }
+
+            rendered = render(rendered);
+            renderedCatalogue = rendered;
+            return rendered.catalogue;
+        }
+    }
+
+    @Override
+    public void invalidate() {
+
+        generation.incrementAndGet();
+
+        //A listing built from rows read before this commit would be cached under the new generation, so bump once more after commit.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private boolean isFresh(RenderedCatalogue rendered) {
+        return rendered != null && rendered.generation == generation.get() && System.currentTimeMillis() < rendered.expiresAtMillis;
+    }
+
+    /**
+     * Applies current availability to the mapped events and serializes them. The mapped events are reloaded first
+     * if they were invalidated or reached the max age. The max age bounds staleness of edits made on other instances.
+     */
+    private RenderedCatalogue render(RenderedCatalogue previous) {
+
+        final long currentGeneration = generation.get();
+        final long nowMillis = System.currentTimeMillis();
+        if (mappedCatalogue == null || mappedCatalogue.generation != currentGeneration || nowMillis >= mappedCatalogue.expiresAtMillis) {
+            mappedCatalogue = load(currentGeneration, nowMillis);
+        }
+
+        final Map<UUID, Integer> ticketsRemainingMap = inventoryService.getTicketsRemaining(mappedCatalogue.ticketTypeConfigEntities);
+        final OffsetDateTime now = OffsetDateTime.now();
+        final List<Event> eventList = new ArrayList<>(mappedCatalogue.events.size());
+        for (Event event : mappedCatalogue.events) {
+
+            if (now.isAfter(event.getEndTime())) {
+                continue;
+            }
+
+            for (TicketTypeConfig ticketTypeConfig : event.getTicketTypeConfig()) {
+                final int ticketsRemaining = ticketsRemainingMap.getOrDefault(ticketTypeConfig.getId(), 0);
+                ticketTypeConfig.setAmountRemaining(Math.min(ticketsRemaining, TicketServiceImpl.MAX_TICKETS_PER_ORDER));
+            }
+
+            eventList.add(event);
+        }
+
+        final byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(eventList);
+        } catch (JsonProcessingException ex) {
+            LOG.error("Failed to serialize event catalogue: {}", ex.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to load events.");
+        }
+
+        //Keep the old tag if nothing changed so clients holding it still get a 304.
+        if (previous != null && Arrays.equals(previous.catalogue.getBody(), body)) {
+            return new RenderedCatalogue(currentGeneration, nowMillis + availabilityTtlMs, previous.catalogue);
+        }
+
+        final String eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        LOG.debug("Rendered event catalogue with {} events. ETag: {}", eventList.size(), eTag);
+        return new RenderedCatalogue(currentGeneration, nowMillis + availabilityTtlMs, new Catalogue(body, eTag));
+    }
+
+    private MappedCatalogue load(long currentGeneration, long nowMillis) {
+
+        return transactionTemplate.execute(status -> {
+
+            final List<EventEntity> eventEntities = eventRepository.findAllListedEvents(OffsetDateTime.now());
+            final List<Event> events = new ArrayList<>();
+            final List<TicketTypeConfigEntity> ticketTypeConfigEntities = new ArrayList<>();
+            if (eventEntities != null) {
+                for (EventEntity eventEntity : eventEntities) {
+
+                    //Availability is applied on render, so the event is mapped with an empty map.
+                    events.add(EventServiceImpl.populateExtraTicketInfo(eventEntity, Collections.emptyMap(), calculationService));
+                    ticketTypeConfigEntities.addAll(eventEntity.getTicketTypeConfigEntity());
+                }
+            }
+
+            LOG.info("Loaded event catalogue with {} events.", events.size());
+            return new MappedCatalogue(currentGeneration, nowMillis + maxAgeMs, events, ticketTypeConfigEntities);
+        });
+    }
+}
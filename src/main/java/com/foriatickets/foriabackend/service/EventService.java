@@ -23,12 +23,23 @@ public interface EventService {
     /**
      * Irrevocably CANCELS an event. This takes down the listing, CANCELS ALL orders, CANCELS ALL tickets,
      * REFUNDS ALL customers, and notifies users the event is CANCELED by push and email. Use with extreme caution.
+     * Refunds run in the background once the caller commits. Canceling an event that is already canceled
+     * retries the refunds that failed.
      *
      * @param eventID The event to cancel.
      * @param reason The reason to show to user.
      */
     void cancelEvent(UUID eventID, String reason);
 
+    /**
+     * Returns progress of the latest cancellation job for an event.
+     * Caller must be a member of the event's venue.
+     *
+     * @param eventId The canceled event.
+     * @return Job progress.
+     */
+    EventCancellationStatus getCancellationStatus(UUID eventId);
+
     /**
      * Create an event.
      *
@@ -63,11 +74,13 @@ public interface EventService {
     TicketTypeConfig createTicketTypeConfig(UUID eventId, TicketTypeConfig ticketTypeConfig);
 
     /**
-     * Returns a list of events that are currently running sorted by their event start date.
+     * Returns one page of the events that are currently running sorted by start date and then ID.
      *
-     * @return A sorted list of events.
+     * @param cursor Cursor returned with the previous page or null for the first page.
+     * @param limit Max events to return. Defaults when null.
+     * @return Page of events and the cursor of the next page if there is one.
      */
-    List<Event> getAllActiveEvents();
+    EventPage getEventPage(String cursor, Integer limit);
 
     /**
      * Obtains all ticket metadata that has been issued for the event.
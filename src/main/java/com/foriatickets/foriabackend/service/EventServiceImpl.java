@@ -1,16 +1,15 @@
 package com.foriatickets.foriabackend.service;
 
+import com.foriatickets.foriabackend.config.ApiModelMapper;
 import com.foriatickets.foriabackend.entities.*;
-import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
-import com.foriatickets.foriabackend.gateway.FCMGateway;
 import com.foriatickets.foriabackend.repositories.*;
-import com.google.firebase.messaging.Notification;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.modelmapper.ModelMapper;
 import org.openapitools.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -19,7 +18,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUEST;
@@ -29,33 +30,11 @@ import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUES
 @Transactional
 public class EventServiceImpl implements EventService {
 
-    private static Comparator<TicketTypeConfig> ticketTypeConfigComparator = (tt1, tt2) -> {
-
-        if (tt1 == null || tt2 == null) {
-            throw new NullPointerException();
-        }
-
-        if (tt1.equals(tt2)) {
-            return 0;
-        }
-
-        final BigDecimal tt1Price = new BigDecimal(tt1.getPrice());
-        final BigDecimal tt2Price = new BigDecimal(tt2.getPrice());
-
-        final int priceCompare = tt1Price.compareTo(tt2Price);
-
-        if (priceCompare == 0) {
-            return tt1.getName().compareTo(tt2.getName());
-        }
-
-        return priceCompare;
-    };
+    private static final Logger LOG = LogManager.getLogger();
 
-    private static final String CANCEL_TITLE = "Foria Event Canceled";
-    private static final String CANCEL_BODY = "{{eventName}} has been canceled! Please check your email for more info.";
-    private static final String CANCEL_EMAIL = "event_canceled_email";
+    private static final int DEFAULT_EVENT_PAGE_SIZE = 20;
 
-    private static final Logger LOG = LogManager.getLogger();
+    private static final int MAX_EVENT_PAGE_SIZE = 50;
 
     private final CalculationService calculationService;
     private final ModelMapper modelMapper;
@@ -63,13 +42,18 @@ public class EventServiceImpl implements EventService {
     private final PromoCodeRepository promoCodeRepository;
     private final TicketFeeConfigRepository ticketFeeConfigRepository;
     private final TicketTypeConfigRepository ticketTypeConfigRepository;
+    private final VenueAccessRepository venueAccessRepository;
     private final VenueRepository venueRepository;
     private final TicketService ticketService;
-    private final OrderTicketEntryRepository orderTicketEntryRepository;
-    private final AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
-    private final FCMGateway fcmGateway;
+    private final EventCancellationService eventCancellationService;
+    private final InventoryService inventoryService;
+    private final EventCatalogueService eventCatalogueService;
 
-    private final UserEntity authenticatedUser;
+    private final AuthenticatedUserService authenticatedUserService;
+
+    private final String auth0Id;
+
+    private AuthenticatedUserService.AuthenticatedUser authenticatedUser;
 
     @Autowired
     public EventServiceImpl(CalculationService calculationService,
@@ -79,10 +63,11 @@ public class EventServiceImpl implements EventService {
                             TicketTypeConfigRepository ticketTypeConfigRepository,
                             VenueRepository venueRepository, ModelMapper modelMapper,
                             TicketService ticketService,
-                            OrderTicketEntryRepository orderTicketEntryRepository,
-                            AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway,
-                            FCMGateway fcmGateway,
-                            UserRepository userRepository) {
+                            EventCancellationService eventCancellationService,
+                            AuthenticatedUserService authenticatedUserService,
+                            InventoryService inventoryService,
+                            EventCatalogueService eventCatalogueService,
+                            VenueAccessRepository venueAccessRepository) {
 
         this.calculationService = calculationService;
         this.eventRepository = eventRepository;
@@ -92,17 +77,30 @@ public class EventServiceImpl implements EventService {
         this.venueRepository = venueRepository;
         this.modelMapper = modelMapper;
         this.ticketService = ticketService;
-        this.orderTicketEntryRepository = orderTicketEntryRepository;
-        this.awsSimpleEmailServiceGateway = awsSimpleEmailServiceGateway;
-        this.fcmGateway = fcmGateway;
+        this.eventCancellationService = eventCancellationService;
+        this.authenticatedUserService = authenticatedUserService;
+        this.inventoryService = inventoryService;
+        this.eventCatalogueService = eventCatalogueService;
+        this.venueAccessRepository = venueAccessRepository;
+
+        //User is resolved from the Auth0 token on first use.
+        this.auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
 
-        //Load user from Auth0 token.
-        String auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    /**
+     * Resolves the cached snapshot of the authenticated user.
+     *
+     * @return Snapshot or null if the principal is not mapped to a user.
+     */
+    private AuthenticatedUserService.AuthenticatedUser getAuthenticatedUser() {
 
-        authenticatedUser = userRepository.findByAuth0Id(auth0Id);
-        if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
-            LOG.warn("Attempted to create event service with non-mapped auth0Id: {}", auth0Id);
+        if (authenticatedUser == null) {
+            authenticatedUser = authenticatedUserService.getAuthenticatedUser(auth0Id).orElse(null);
+            if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
+                LOG.warn("Attempted to use event service with non-mapped auth0Id: {}", auth0Id);
+            }
         }
+        return authenticatedUser;
     }
 
     @Override
@@ -129,6 +127,7 @@ public class EventServiceImpl implements EventService {
         }
 
         ticketTypeSet.add(promoCodeEntity.getTicketTypeConfigEntity());
+        final Map<UUID, Integer> ticketsRemainingMap = ticketService.countTicketsRemainingForEvents(Collections.singletonList(eventEntity));
         final List<TicketTypeConfig> resultList = new ArrayList<>();
         for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeSet) {
 
@@ -140,13 +139,13 @@ public class EventServiceImpl implements EventService {
                 continue;
             }
 
-            TicketTypeConfig ticketTypeConfig = modelMapper.map(ticketTypeConfigEntity, TicketTypeConfig.class);
-            populateExtraTicketTypeConfigInfo(ticketTypeConfig, eventEntity.getTicketFeeConfig());
+            TicketTypeConfig ticketTypeConfig = ApiModelMapper.toTicketTypeConfig(ticketTypeConfigEntity);
+            populateExtraTicketTypeConfigInfo(ticketTypeConfig, eventEntity, ticketsRemainingMap, calculationService);
             ticketTypeConfig.setAmountRemaining(Math.min(ticketTypeConfig.getAmountRemaining(), codesRemaining));
             resultList.add(ticketTypeConfig);
         }
 
-        resultList.sort(ticketTypeConfigComparator);
+        sortTicketTypeConfigs(resultList);
         LOG.debug("Returned ticket type config set with promo code added.");
         return resultList;
     }
@@ -164,10 +163,11 @@ public class EventServiceImpl implements EventService {
         }
 
         final EventEntity eventEntity = eventEntityOptional.get();
-        final String eventName = eventEntity.getName();
-
         if (eventEntity.getStatus() == EventEntity.Status.CANCELED) {
-            LOG.info("Event ID: {} is already canceled.", eventId);
+
+            //Repeating the cancel retries any refunds that failed.
+            final Optional<EventCancellationJobEntity> jobOptional = eventCancellationService.resumeCancellation(eventId);
+            LOG.info("Event ID: {} is already canceled. Resumed job ID: {}", eventId, jobOptional.map(EventCancellationJobEntity::getId).orElse(null));
             return;
         }
 
@@ -176,46 +176,47 @@ public class EventServiceImpl implements EventService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event has already ended. Failed to cancel.");
         }
 
-        //Obtain all orders for event and cancel each.
-        final Set<UserEntity> usersImpacted = new HashSet<>();
-        final Set<OrderEntity> orderEntityList = new HashSet<>();
-        for (TicketEntity ticketEntity : eventEntity.getTickets()) {
-            final OrderEntity orderEntity = orderTicketEntryRepository.findByTicketEntity(ticketEntity).getOrderEntity();
-            orderEntityList.add(orderEntity);
-            usersImpacted.add(ticketEntity.getOwnerEntity());
-        }
-
-        LOG.info("Number of orders to cancel for ending Event Id: {} is: {}", eventId, orderEntityList.size());
-        for (OrderEntity orderEntity : orderEntityList) {
-            try {
-                ticketService.refundOrder(orderEntity.getId());
-            } catch (Exception ex) {
-                LOG.error("FAILED to cancel order ID: {} while canceling event Id: {}. " + "Manual process is required.", orderEntity.getId(), eventId);
-            }
-        }
-
-        //Send push notifications and emails to impacted customers.
-        for (UserEntity userEntity : usersImpacted) {
+        //Listing comes down immediately. Refunds and notices are processed by the cancellation job.
+        eventEntity.setStatus(EventEntity.Status.CANCELED);
+        eventRepository.save(eventEntity);
+        eventCatalogueService.invalidate();
+        final EventCancellationJobEntity eventCancellationJobEntity = eventCancellationService.startCancellation(eventEntity, reason);
+        LOG.info("Event ID: {} has been canceled. Refunds are processing in job ID: {}", eventId, eventCancellationJobEntity.getId());
+    }
 
-            Map<String, String> templateData = new HashMap<>();
-            templateData.put("eventName", eventName);
-            templateData.put("cancelationReason", reason);
+    @Override
+    public EventCancellationStatus getCancellationStatus(UUID eventId) {
 
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(userEntity.getEmail(), CANCEL_EMAIL, templateData);
-            for (DeviceTokenEntity deviceTokenEntity : userEntity.getDeviceTokens()) {
+        final Optional<EventEntity> eventEntityOptional = eventRepository.findById(eventId);
+        if (!eventEntityOptional.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event ID does not exist.");
+        }
 
-                if (deviceTokenEntity.getTokenStatus() != DeviceTokenEntity.TokenStatus.ACTIVE) {
-                    continue;
-                }
+        //Checked against stored membership since the status exposes refund progress.
+        final EventEntity eventEntity = eventEntityOptional.get();
+        final AuthenticatedUserService.AuthenticatedUser authenticatedUser = getAuthenticatedUser();
+        if (authenticatedUser == null || !VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(),
+                new HashSet<>(venueAccessRepository.findAllByUserEntity_Id(authenticatedUser.getId())))) {
+            LOG.warn("User attempted to obtain cancellation status for eventId: {} that they are not authorized.", eventId);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
+        }
 
-                Notification notification = new Notification(CANCEL_TITLE, CANCEL_BODY.replace("{{eventName}}", eventName));
-                fcmGateway.sendPushNotification(deviceTokenEntity.getDeviceToken(), notification);
-            }
+        final Optional<EventCancellationJobEntity> jobOptional = eventCancellationService.getLatestJob(eventId);
+        if (!jobOptional.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event has not been canceled.");
         }
 
-        eventEntity.setStatus(EventEntity.Status.CANCELED);
-        eventRepository.save(eventEntity);
-        LOG.info("Event ID: {} has been successfully canceled.", eventId);
+        final EventCancellationJobEntity eventCancellationJobEntity = jobOptional.get();
+        final EventCancellationStatus eventCancellationStatus = new EventCancellationStatus();
+        eventCancellationStatus.setJobId(eventCancellationJobEntity.getId());
+        eventCancellationStatus.setEventId(eventCancellationJobEntity.getEventId());
+        eventCancellationStatus.setStatus(EventCancellationStatus.StatusEnum.fromValue(eventCancellationJobEntity.getStatus().name()));
+        eventCancellationStatus.setTotalOrders(eventCancellationJobEntity.getTotalOrders());
+        eventCancellationStatus.setRefundedOrders(eventCancellationJobEntity.getRefundedOrders());
+        eventCancellationStatus.setFailedOrders(eventCancellationJobEntity.getFailedOrders());
+        eventCancellationStatus.setCreatedDate(eventCancellationJobEntity.getCreatedDate());
+        eventCancellationStatus.setCompletedDate(eventCancellationJobEntity.getCompletedDate());
+        return eventCancellationStatus;
     }
 
     @Override
@@ -259,9 +260,11 @@ public class EventServiceImpl implements EventService {
             ticketTypeConfigEntity.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
             ticketTypeConfigEntity.setType(TicketTypeConfigEntity.Type.PUBLIC);
             ticketTypeConfigEntity = ticketTypeConfigRepository.save(ticketTypeConfigEntity);
+            inventoryService.initialize(ticketTypeConfigEntity);
             ticketTypeConfig.setId(ticketTypeConfigEntity.getId());
         }
 
+        eventCatalogueService.invalidate();
         LOG.info("Created event entry with ID: {}", eventEntity.getId());
         return event;
     }
@@ -308,37 +311,78 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public List<Event> getAllActiveEvents() {
+    public EventPage getEventPage(String cursor, Integer limit) {
 
-        List<Event> eventList = new ArrayList<>();
-        List<EventEntity> eventEntities = eventRepository.findAllByOrderByEventStartTimeAsc();
-        if (eventEntities == null || eventEntities.isEmpty()) {
-            LOG.info("No events loaded in database.");
-            return eventList;
+        final int pageSize = limit == null ? DEFAULT_EVENT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_EVENT_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_EVENT_PAGE_SIZE + ".");
         }
 
-        Collections.sort(eventEntities);
+        //One extra row shows if there is a next page without a count query.
         final OffsetDateTime now = OffsetDateTime.now();
-        for (EventEntity eventEntity : eventEntities) {
+        final List<EventEntity> eventEntities;
+        if (StringUtils.isEmpty(cursor)) {
+            eventEntities = eventRepository.findListedEventsPage(now, PageRequest.of(0, pageSize + 1));
+        } else {
+            final EventCursor eventCursor = EventCursor.decode(cursor);
+            eventEntities = eventRepository.findListedEventsPageAfter(now, eventCursor.startTime, eventCursor.id, PageRequest.of(0, pageSize + 1));
+        }
 
-            if (eventEntity.getStatus() == EventEntity.Status.CANCELED) {
-                continue;
-            }
+        final boolean hasNextPage = eventEntities.size() > pageSize;
+        final List<EventEntity> pageEntities = hasNextPage ? eventEntities.subList(0, pageSize) : eventEntities;
 
-            if (eventEntity.getVisibility() == EventEntity.Visibility.PRIVATE) {
-                continue;
-            }
+        final Map<UUID, Integer> ticketsRemainingMap = ticketService.countTicketsRemainingForEvents(pageEntities);
+        final List<Event> eventList = new ArrayList<>(pageEntities.size());
+        for (EventEntity eventEntity : pageEntities) {
+            eventList.add(populateExtraTicketInfo(eventEntity, ticketsRemainingMap, calculationService));
+        }
 
-            if (now.isAfter(eventEntity.getEventEndTime())) {
-                continue;
-            }
+        final EventPage eventPage = new EventPage();
+        eventPage.setEvents(eventList);
+        if (hasNextPage) {
+            final EventEntity lastEventEntity = pageEntities.get(pageEntities.size() - 1);
+            eventPage.setNextCursor(new EventCursor(lastEventEntity.getEventStartTime(), lastEventEntity.getId()).encode());
+        }
+
+        LOG.debug("Returned page of {} events. Has next page: {}", eventList.size(), hasNextPage);
+        return eventPage;
+    }
+
+    /**
+     * Keyset of the last event on a page. Encoded as URL safe Base64 so clients treat it as opaque.
+     */
+    static final class EventCursor {
+
+        private static final String SEPARATOR = "|";
+
+        final OffsetDateTime startTime;
+        final UUID id;
+
+        EventCursor(OffsetDateTime startTime, UUID id) {
+            this.startTime = startTime;
+            this.id = id;
+        }
 
-            final Event event = populateExtraTicketInfo(eventEntity);
-            eventList.add(event);
+        String encode() {
+            final String keyset = startTime.toString() + SEPARATOR + id.toString();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(keyset.getBytes(StandardCharsets.UTF_8));
         }
 
-        LOG.debug("Returned {} events.", eventList.size());
-        return eventList;
+        static EventCursor decode(String cursor) {
+
+            try {
+                final String keyset = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                final int separatorIndex = keyset.lastIndexOf(SEPARATOR);
+                if (separatorIndex < 0) {
+                    throw new IllegalArgumentException("Missing separator.");
+                }
+
+                return new EventCursor(OffsetDateTime.parse(keyset.substring(0, separatorIndex)), UUID.fromString(keyset.substring(separatorIndex + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                LOG.info("Rejected malformed event cursor: {}", cursor);
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor is malformed.");
+            }
+        }
     }
 
     @Override
@@ -348,18 +392,18 @@ public class EventServiceImpl implements EventService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event ID is null");
         }
 
-        if (authenticatedUser == null) {
+        if (getAuthenticatedUser() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Venue account is not authenticated / null.");
         }
 
-        final Optional<EventEntity> eventEntityOptional = eventRepository.findById(eventId);
+        final Optional<EventEntity> eventEntityOptional = eventRepository.findAttendeesById(eventId);
         if (!eventEntityOptional.isPresent()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event ID does not exist.");
         }
 
         final EventEntity eventEntity = eventEntityOptional.get();
-        if (!VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to obtain attendees for eventId: {} that they are not authorized.", authenticatedUser.getId(), eventEntity.getId());
+        if (!getAuthenticatedUser().hasVenueAccess(eventEntity.getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to obtain attendees for eventId: {} that they are not authorized.", getAuthenticatedUser().getId(), eventEntity.getId());
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
         }
 
@@ -376,7 +420,7 @@ public class EventServiceImpl implements EventService {
 
             Attendee attendee = new Attendee();
             attendee.setTicketId(ticketEntity.getId());
-            attendee.setTicket(modelMapper.map(ticketEntity, Ticket.class));
+            attendee.setTicket(ApiModelMapper.toTicket(ticketEntity));
             attendee.setUserId(ownerEntity.getId());
             attendee.setFirstName(ownerEntity.getFirstName());
             attendee.setLastName(ownerEntity.getLastName());
@@ -391,9 +435,11 @@ public class EventServiceImpl implements EventService {
      * Configures additional field for event that can't be simply mapped from entity.
      *
      * @param eventEntity Event to build.
+     * @param ticketsRemainingMap Tickets remaining by ticket type config ID.
+     * @param calculationService Service to calculate the per ticket fee with.
      * @return Completed data.
      */
-    private Event populateExtraTicketInfo(EventEntity eventEntity) {
+    static Event populateExtraTicketInfo(EventEntity eventEntity, Map<UUID, Integer> ticketsRemainingMap, CalculationService calculationService) {
 
         //Remove non-active price tiers.
         eventEntity.getTicketTypeConfigEntity().removeIf(ticketTypeConfigEntity -> {
@@ -428,30 +474,66 @@ public class EventServiceImpl implements EventService {
             return false;
         });
 
-        Event event = modelMapper.map(eventEntity, Event.class);
+        Event event = ApiModelMapper.toEvent(eventEntity);
         populateEventModelWithAddress(event, eventEntity.getVenueEntity());
 
-        event.getTicketTypeConfig().sort(ticketTypeConfigComparator);
+        sortTicketTypeConfigs(event.getTicketTypeConfig());
         for (TicketTypeConfig ticketTypeConfig : event.getTicketTypeConfig()) {
-            populateExtraTicketTypeConfigInfo(ticketTypeConfig, eventEntity.getTicketFeeConfig());
+            populateExtraTicketTypeConfigInfo(ticketTypeConfig, eventEntity, ticketsRemainingMap, calculationService);
         }
 
         return event;
     }
 
+    /**
+     * Sorts ticket types by price and then name. Each price string is parsed once up front instead of on every comparison.
+     *
+     * @param ticketTypeConfigs List to sort in place.
+     */
+    private static void sortTicketTypeConfigs(List<TicketTypeConfig> ticketTypeConfigs) {
+
+        if (ticketTypeConfigs == null || ticketTypeConfigs.size() < 2) {
+            return;
+        }
+
+        final Map<TicketTypeConfig, BigDecimal> priceMap = new IdentityHashMap<>(ticketTypeConfigs.size());
+        for (TicketTypeConfig ticketTypeConfig : ticketTypeConfigs) {
+            priceMap.put(Objects.requireNonNull(ticketTypeConfig), new BigDecimal(ticketTypeConfig.getPrice()));
+        }
+
+        ticketTypeConfigs.sort((tt1, tt2) -> {
+
+            if (tt1 == tt2) {
+                return 0;
+            }
+
+            final int priceCompare = priceMap.get(tt1).compareTo(priceMap.get(tt2));
+            if (priceCompare == 0) {
+                return tt1.getName().compareTo(tt2.getName());
+            }
+
+            return priceCompare;
+        });
+    }
+
     /**
      * Populates fields that must be calculated.
      *
      * @param ticketTypeConfig Object to modify.
+     * @param eventEntity Event the ticket type belongs to.
+     * @param ticketsRemainingMap Tickets remaining by ticket type config ID.
+     * @param calculationService Service to calculate the per ticket fee with.
      */
-    private void populateExtraTicketTypeConfigInfo(TicketTypeConfig ticketTypeConfig, Set<TicketFeeConfigEntity> feeSet) {
+    private static void populateExtraTicketTypeConfigInfo(TicketTypeConfig ticketTypeConfig, EventEntity eventEntity,
+                                                          Map<UUID, Integer> ticketsRemainingMap, CalculationService calculationService) {
 
-        int ticketsRemaining = ticketService.countTicketsRemaining(ticketTypeConfig.getId());
+        int ticketsRemaining = ticketsRemainingMap.getOrDefault(ticketTypeConfig.getId(), 0);
         ticketTypeConfig.setAmountRemaining(ticketsRemaining);
 
         //Add calculated fee to assist front ends.
-        final int numPaidTickets = new BigDecimal(ticketTypeConfig.getPrice()).compareTo(BigDecimal.ZERO) <= 0 ? 0 : 1;
-        CalculationServiceImpl.PriceCalculationInfo calc = calculationService.calculateFees(numPaidTickets, new BigDecimal(ticketTypeConfig.getPrice()), feeSet, true);
+        final BigDecimal price = new BigDecimal(ticketTypeConfig.getPrice());
+        final int numPaidTickets = price.compareTo(BigDecimal.ZERO) <= 0 ? 0 : 1;
+        CalculationServiceImpl.PriceCalculationInfo calc = calculationService.calculateEventFees(numPaidTickets, price, eventEntity.getId(), eventEntity.getTicketFeeConfig());
         BigDecimal feeSubtotal = calc.feeSubtotal.add(calc.paymentFeeSubtotal);
         ticketTypeConfig.setCalculatedFee(feeSubtotal.toPlainString());
     }
@@ -469,7 +551,7 @@ public class EventServiceImpl implements EventService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event has already ended.");
         }
 
-        return populateExtraTicketInfo(eventEntity);
+        return populateExtraTicketInfo(eventEntity, ticketService.countTicketsRemainingForEvents(Collections.singletonList(eventEntity)), calculationService);
     }
 
     @Override
@@ -494,6 +576,7 @@ public class EventServiceImpl implements EventService {
         eventEntity.setEventEndTime(updatedEvent.getEndTime());
         eventEntity.setType(EventEntity.Type.valueOf(updatedEvent.getType().name()));
         eventEntity = eventRepository.save(eventEntity);
+        eventCatalogueService.invalidate();
 
         LOG.info("Event ID: {} updated. \n New event: {}", eventEntity.getId(), eventEntity);
         return getEvent(eventId);
@@ -504,8 +587,8 @@ public class EventServiceImpl implements EventService {
 
         EventEntity eventEntity = loadAndValidateEventEntity(eventId);
 
-        if (!VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to create ticket fee for eventId: {} that they are not authorized.", authenticatedUser.getId(), eventEntity.getId());
+        if (!getAuthenticatedUser().hasVenueAccess(eventEntity.getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to create ticket fee for eventId: {} that they are not authorized.", getAuthenticatedUser().getId(), eventEntity.getId());
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
         }
 
@@ -531,8 +614,10 @@ public class EventServiceImpl implements EventService {
 
         ticketFeeConfigEntity = ticketFeeConfigRepository.save(ticketFeeConfigEntity);
         ticketFeeConfig.setId(ticketFeeConfigEntity.getId());
+        calculationService.invalidateFeeSchedule(eventId);
+        eventCatalogueService.invalidate();
 
-        LOG.info("UserID: {} created a new feeConfig: {} for eventId: {}", authenticatedUser.getId(), ticketFeeConfig.getId(), eventEntity.getId());
+        LOG.info("UserID: {} created a new feeConfig: {} for eventId: {}", getAuthenticatedUser().getId(), ticketFeeConfig.getId(), eventEntity.getId());
         return ticketFeeConfig;
     }
 
@@ -541,8 +626,8 @@ public class EventServiceImpl implements EventService {
 
         EventEntity eventEntity = loadAndValidateEventEntity(eventId);
 
-        if (!VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to create ticket type for eventId: {} that they are not authorized.", authenticatedUser.getId(), eventEntity.getId());
+        if (!getAuthenticatedUser().hasVenueAccess(eventEntity.getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to create ticket type for eventId: {} that they are not authorized.", getAuthenticatedUser().getId(), eventEntity.getId());
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
         }
 
@@ -571,9 +656,11 @@ public class EventServiceImpl implements EventService {
         ticketTypeConfigEntity.setEventEntity(eventEntity);
 
         ticketTypeConfigEntity = ticketTypeConfigRepository.save(ticketTypeConfigEntity);
+        inventoryService.initialize(ticketTypeConfigEntity);
         ticketTypeConfig.setId(ticketTypeConfigEntity.getId());
+        eventCatalogueService.invalidate();
 
-        LOG.info("UserID: {} created a new price tier: {} for eventId: {}", authenticatedUser.getId(), ticketTypeConfigEntity.getId(), eventEntity.getId());
+        LOG.info("UserID: {} created a new price tier: {} for eventId: {}", getAuthenticatedUser().getId(), ticketTypeConfigEntity.getId(), eventEntity.getId());
         return ticketTypeConfig;
     }
 
@@ -582,8 +669,8 @@ public class EventServiceImpl implements EventService {
 
         EventEntity eventEntity = loadAndValidateEventEntity(eventId);
 
-        if (!VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to remove ticket fee for eventId: {} that they are not authorized.", authenticatedUser.getId(), eventEntity.getId());
+        if (!getAuthenticatedUser().hasVenueAccess(eventEntity.getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to remove ticket fee for eventId: {} that they are not authorized.", getAuthenticatedUser().getId(), eventEntity.getId());
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
         }
 
@@ -601,9 +688,11 @@ public class EventServiceImpl implements EventService {
 
         ticketFeeConfigEntity.setStatus(TicketFeeConfigEntity.Status.INACTIVE);
         ticketFeeConfigEntity = ticketFeeConfigRepository.save(ticketFeeConfigEntity);
+        calculationService.invalidateFeeSchedule(eventId);
+        eventCatalogueService.invalidate();
 
-        LOG.info("UserID: {} inactivated ticketFeeConfig: {} for eventId: {}", authenticatedUser.getId(), ticketFeeConfigEntity.getId(), eventEntity.getId());
-        return modelMapper.map(ticketFeeConfigEntity, TicketFeeConfig.class);
+        LOG.info("UserID: {} inactivated ticketFeeConfig: {} for eventId: {}", getAuthenticatedUser().getId(), ticketFeeConfigEntity.getId(), eventEntity.getId());
+        return ApiModelMapper.toTicketFeeConfig(ticketFeeConfigEntity);
     }
 
     @Override
@@ -611,8 +700,8 @@ public class EventServiceImpl implements EventService {
 
         EventEntity eventEntity = loadAndValidateEventEntity(eventId);
 
-        if (!VenueService.checkVenueAuthorization(eventEntity.getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to remove ticket type for eventId: {} that they are not authorized.", authenticatedUser.getId(), eventEntity.getId());
+        if (!getAuthenticatedUser().hasVenueAccess(eventEntity.getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to remove ticket type for eventId: {} that they are not authorized.", getAuthenticatedUser().getId(), eventEntity.getId());
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
         }
 
@@ -630,9 +719,10 @@ public class EventServiceImpl implements EventService {
 
         ticketTypeConfigEntity.setStatus(TicketTypeConfigEntity.Status.INACTIVE);
         ticketTypeConfigEntity = ticketTypeConfigRepository.save(ticketTypeConfigEntity);
+        eventCatalogueService.invalidate();
 
-        LOG.info("UserID: {} inactivated ticketTypeConfig: {} for eventId: {}", authenticatedUser.getId(), ticketTypeConfigEntity.getId(), eventEntity.getId());
-        return modelMapper.map(ticketTypeConfigEntity, TicketTypeConfig.class);
+        LOG.info("UserID: {} inactivated ticketTypeConfig: {} for eventId: {}", getAuthenticatedUser().getId(), ticketTypeConfigEntity.getId(), eventEntity.getId());
+        return ApiModelMapper.toTicketTypeConfig(ticketTypeConfigEntity);
     }
 
     /**
@@ -0,0 +1,90 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maintains the per tier issued ticket counters used to answer availability without counting the ticket table.
+ * Reservations join the caller's transaction so a failed checkout rolls the counter back.
+ *
+ * Checkout takes short lived holds before its own transaction opens. Holds commit immediately so the tier row is
+ * only locked for a single update, and are confirmed, released, or expired by the sweeper. Every transition is a
+ * conditional update so exactly one of those paths wins. Holds never open a nested transaction, so checkout only
+ * ever uses one pooled connection at a time.
+ *
+ * @author Corbin Schwalm
+ */
+public interface InventoryService {
+
+    /**
+     * Creates the counter row for a tier if missing. The issued count is seeded from the ticket table.
+     *
+     * @param ticketTypeConfigEntity Tier to initialize.
+     */
+    void initialize(TicketTypeConfigEntity ticketTypeConfigEntity);
+
+    /**
+     * Atomically reserves tickets against the tier's authorized amount.
+     *
+     * @param ticketTypeConfigEntity Tier to reserve from.
+     * @param amount Number of tickets.
+     * @return True if reserved; false if not enough tickets remain.
+     */
+    boolean reserve(TicketTypeConfigEntity ticketTypeConfigEntity, int amount);
+
+    /**
+     * Holds tickets against the tier until confirmed, released, or expired.
+     * Call outside a transaction so the hold commits right away and the tier row is not locked for longer.
+     *
+     * @param ticketTypeConfigEntity Tier to hold from.
+     * @param amount Number of tickets.
+     * @return Hold ID or empty if not enough tickets remain.
+     */
+    Optional<UUID> hold(TicketTypeConfigEntity ticketTypeConfigEntity, int amount);
+
+    /**
+     * Converts holds to issued tickets in the caller's transaction.
+     * A hold that already expired is reserved again if tickets remain.
+     *
+     * @param holdIds Holds to confirm.
+     * @return True if every hold was confirmed; false if a tier sold out after a hold expired.
+     */
+    boolean confirmHolds(Collection<UUID> holdIds);
+
+    /**
+     * Returns a hold to the tier. No-op if the hold is no longer held. Call outside a transaction.
+     *
+     * @param holdId Hold to release.
+     */
+    void releaseHold(UUID holdId);
+
+    /**
+     * Returns every hold past its expiry to the tier.
+     */
+    void expireHolds();
+
+    /**
+     * Returns tickets to the tier after they are canceled.
+     *
+     * @param ticketTypeConfigId Tier to release to.
+     * @param amount Number of tickets.
+     */
+    void release(UUID ticketTypeConfigId, int amount);
+
+    /**
+     * Returns the tickets remaining for each tier. Held tickets are not available. Not capped by the per order max.
+     *
+     * @param ticketTypeConfigEntities Tiers to load.
+     * @return Map of ticket type config ID to tickets remaining.
+     */
+    Map<UUID, Integer> getTicketsRemaining(Collection<TicketTypeConfigEntity> ticketTypeConfigEntities);
+
+    /**
+     * Compares every counter to the ticket table and corrects drift. Creates missing counters.
+     */
+    void reconcileInventory();
+}
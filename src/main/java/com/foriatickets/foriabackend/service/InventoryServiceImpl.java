@@ -0,0 +1,296 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.InventoryHoldEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeInventoryEntity;
+import com.foriatickets.foriabackend.repositories.InventoryHoldRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeConfigRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeInventoryRepository;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+@Transactional
+public class InventoryServiceImpl implements InventoryService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final int EXPIRE_BATCH_SIZE = 500;
+
+    private final InventoryHoldRepository inventoryHoldRepository;
+
+    private final TicketRepository ticketRepository;
+
+    private final TicketTypeConfigRepository ticketTypeConfigRepository;
+
+    private final TicketTypeInventoryRepository ticketTypeInventoryRepository;
+
+    private final long holdTtlMs;
+
+    @Autowired
+    public InventoryServiceImpl(InventoryHoldRepository inventoryHoldRepository,
+                                TicketRepository ticketRepository,
+                                TicketTypeConfigRepository ticketTypeConfigRepository,
+                                TicketTypeInventoryRepository ticketTypeInventoryRepository,
+                                @Value("${inventoryHoldTtlMs:600000}") long holdTtlMs) {
+        this.inventoryHoldRepository = inventoryHoldRepository;
+        this.ticketRepository = ticketRepository;
+        this.ticketTypeConfigRepository = ticketTypeConfigRepository;
+        this.ticketTypeInventoryRepository = ticketTypeInventoryRepository;
+        this.holdTtlMs = holdTtlMs;
+    }
+
+    @Override
+    public void initialize(TicketTypeConfigEntity ticketTypeConfigEntity) {
+
+        if (ticketTypeInventoryRepository.existsById(ticketTypeConfigEntity.getId())) {
+            return;
+        }
+
+        final int ticketsIssued = ticketRepository.countActiveTicketsIssuedByType(ticketTypeConfigEntity.getId(), ticketTypeConfigEntity.getEventEntity().getId());
+
+        TicketTypeInventoryEntity ticketTypeInventoryEntity = new TicketTypeInventoryEntity()
+                .setId(ticketTypeConfigEntity.getId())
+                .setAuthorizedAmount(ticketTypeConfigEntity.getAuthorizedAmount())
+                .setTicketsIssued(ticketsIssued)
+                .setReconciledDate(OffsetDateTime.now());
+
+        ticketTypeInventoryRepository.save(ticketTypeInventoryEntity);
+        LOG.info("Initialized inventory for ticketTypeConfigId: {} with {} tickets issued.", ticketTypeConfigEntity.getId(), ticketsIssued);
+    }
+
+    @Override
+    public boolean reserve(TicketTypeConfigEntity ticketTypeConfigEntity, int amount) {
+
+        final UUID ticketTypeConfigId = ticketTypeConfigEntity.getId();
+        if (ticketTypeInventoryRepository.reserve(ticketTypeConfigId, amount) == 1) {
+            return true;
+        }
+
+        //Counter rows are created with the tier. Tiers that predate counters are seeded on first checkout.
+        if (ticketTypeInventoryRepository.existsById(ticketTypeConfigId)) {
+            LOG.debug("Not enough inventory to reserve {} tickets for ticketTypeConfigId: {}", amount, ticketTypeConfigId);
+            return false;
+        }
+
+        initialize(ticketTypeConfigEntity);
+        return ticketTypeInventoryRepository.reserve(ticketTypeConfigId, amount) == 1;
+    }
+
+    @Override
+    public Optional<UUID> hold(TicketTypeConfigEntity ticketTypeConfigEntity, int amount) {
+
+        final UUID ticketTypeConfigId = ticketTypeConfigEntity.getId();
+        if (ticketTypeInventoryRepository.hold(ticketTypeConfigId, amount) != 1) {
+
+            if (ticketTypeInventoryRepository.existsById(ticketTypeConfigId)) {
+                LOG.debug("Not enough inventory to hold {} tickets for ticketTypeConfigId: {}", amount, ticketTypeConfigId);
+                return Optional.empty();
+            }
+
+            initialize(ticketTypeConfigEntity);
+            if (ticketTypeInventoryRepository.hold(ticketTypeConfigId, amount) != 1) {
+                return Optional.empty();
+            }
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        InventoryHoldEntity inventoryHoldEntity = new InventoryHoldEntity()
+                .setTicketTypeConfigId(ticketTypeConfigId)
+                .setQuantity(amount)
+                .setStatus(InventoryHoldEntity.Status.HELD)
+                .setCreatedDate(now)
+                .setExpiresDate(now.plus(holdTtlMs, ChronoUnit.MILLIS));
+
+        inventoryHoldEntity = inventoryHoldRepository.save(inventoryHoldEntity);
+        LOG.debug("Created hold ID: {} for {} tickets of ticketTypeConfigId: {}", inventoryHoldEntity.getId(), amount, ticketTypeConfigId);
+        return Optional.of(inventoryHoldEntity.getId());
+    }
+
+    @Override
+    public boolean confirmHolds(Collection<UUID> holdIds) {
+
+        for (InventoryHoldEntity inventoryHoldEntity : inventoryHoldRepository.findAllById(holdIds)) {
+
+            final UUID ticketTypeConfigId = inventoryHoldEntity.getTicketTypeConfigId();
+            final int quantity = inventoryHoldEntity.getQuantity();
+
+            if (inventoryHoldRepository.transitionStatus(inventoryHoldEntity.getId(), InventoryHoldEntity.Status.HELD, InventoryHoldEntity.Status.CONFIRMED) == 1) {
+
+                if (ticketTypeInventoryRepository.convertHold(ticketTypeConfigId, quantity) != 1) {
+                    LOG.error("Held count for ticketTypeConfigId: {} is lower than hold ID: {}", ticketTypeConfigId, inventoryHoldEntity.getId());
+                    return false;
+                }
+                continue;
+            }
+
+            //Hold was returned to the tier before checkout finished. Take the tickets again if they are still available.
+            LOG.warn("Hold ID: {} is {} at confirmation. Reserving {} tickets again.", inventoryHoldEntity.getId(), inventoryHoldEntity.getStatus(), quantity);
+            if (ticketTypeInventoryRepository.reserve(ticketTypeConfigId, quantity) != 1) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void releaseHold(UUID holdId) {
+        inventoryHoldRepository.findById(holdId).ifPresent(inventoryHoldEntity -> returnHold(inventoryHoldEntity, InventoryHoldEntity.Status.RELEASED));
+    }
+
+    @Override
+    @Scheduled(cron = "${inventory-hold-expiry-cron:-}")
+    @SchedulerLock(name = "inventory-hold-expiry")
+    public void expireHolds() {
+
+        int numExpired = 0;
+        List<InventoryHoldEntity> expiredHolds;
+        do {
+            expiredHolds = inventoryHoldRepository.findTop500ByStatusAndExpiresDateBeforeOrderByExpiresDateAsc(InventoryHoldEntity.Status.HELD, OffsetDateTime.now());
+            for (InventoryHoldEntity inventoryHoldEntity : expiredHolds) {
+                if (returnHold(inventoryHoldEntity, InventoryHoldEntity.Status.EXPIRED)) {
+                    numExpired++;
+                }
+            }
+        } while (expiredHolds.size() == EXPIRE_BATCH_SIZE);
+
+        if (numExpired > 0) {
+            LOG.info("Expired {} inventory holds.", numExpired);
+        }
+    }
+
+    /**
+     * Moves a held hold to a terminal state and returns its tickets to the tier.
+     *
+     * @return True if this call returned the tickets.
+     */
+    private boolean returnHold(InventoryHoldEntity inventoryHoldEntity, InventoryHoldEntity.Status newStatus) {
+
+        if (inventoryHoldRepository.transitionStatus(inventoryHoldEntity.getId(), InventoryHoldEntity.Status.HELD, newStatus) != 1) {
+            return false;
+        }
+
+        if (ticketTypeInventoryRepository.releaseHold(inventoryHoldEntity.getTicketTypeConfigId(), inventoryHoldEntity.getQuantity()) != 1) {
+            LOG.warn("Failed to return hold ID: {} to ticketTypeConfigId: {}", inventoryHoldEntity.getId(), inventoryHoldEntity.getTicketTypeConfigId());
+        }
+        return true;
+    }
+
+    @Override
+    public void release(UUID ticketTypeConfigId, int amount) {
+
+        if (amount <= 0) {
+            return;
+        }
+
+        if (ticketTypeInventoryRepository.release(ticketTypeConfigId, amount) != 1) {
+            LOG.warn("Failed to release {} tickets for ticketTypeConfigId: {}. Counter will be corrected on reconciliation.", amount, ticketTypeConfigId);
+        }
+    }
+
+    @Override
+    public Map<UUID, Integer> getTicketsRemaining(Collection<TicketTypeConfigEntity> ticketTypeConfigEntities) {
+
+        Map<UUID, Integer> ticketsRemainingMap = new HashMap<>();
+        if (ticketTypeConfigEntities == null || ticketTypeConfigEntities.isEmpty()) {
+            return ticketsRemainingMap;
+        }
+
+        Set<UUID> ticketTypeConfigIds = new HashSet<>();
+        for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigEntities) {
+            ticketTypeConfigIds.add(ticketTypeConfigEntity.getId());
+        }
+
+        for (TicketTypeInventoryEntity ticketTypeInventoryEntity : ticketTypeInventoryRepository.findAllById(ticketTypeConfigIds)) {
+            ticketsRemainingMap.put(ticketTypeInventoryEntity.getId(), ticketTypeInventoryEntity.getTicketsRemaining());
+        }
+
+        //Fall back to counting tickets for tiers without a counter. Rows are not created on the read path.
+        Set<UUID> eventIds = new HashSet<>();
+        for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigEntities) {
+            if (!ticketsRemainingMap.containsKey(ticketTypeConfigEntity.getId())) {
+                eventIds.add(ticketTypeConfigEntity.getEventEntity().getId());
+            }
+        }
+
+        if (!eventIds.isEmpty()) {
+
+            Map<UUID, Long> ticketsIssuedMap = new HashMap<>();
+            for (Object[] row : ticketRepository.countActiveTicketsIssuedByTypeForEvents(eventIds)) {
+                ticketsIssuedMap.put((UUID) row[0], (Long) row[1]);
+            }
+
+            for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigEntities) {
+                if (!ticketsRemainingMap.containsKey(ticketTypeConfigEntity.getId())) {
+                    long ticketsIssued = ticketsIssuedMap.getOrDefault(ticketTypeConfigEntity.getId(), 0L);
+                    ticketsRemainingMap.put(ticketTypeConfigEntity.getId(), (int) (ticketTypeConfigEntity.getAuthorizedAmount() - ticketsIssued));
+                }
+            }
+        }
+
+        return ticketsRemainingMap;
+    }
+
+    @Override
+    @Scheduled(cron = "${inventory-reconciliation-cron:-}")
+    @SchedulerLock(name = "inventory-reconciliation")
+    public void reconcileInventory() {
+
+        LOG.info("Starting inventory reconciliation.");
+
+        //Counters are read before tickets are counted. A checkout that commits in between bumps the version,
+        //so the compare and set below fails instead of writing a count that misses its tickets.
+        Map<UUID, TicketTypeInventoryEntity> inventoryMap = new HashMap<>();
+        for (TicketTypeInventoryEntity ticketTypeInventoryEntity : ticketTypeInventoryRepository.findAll()) {
+            inventoryMap.put(ticketTypeInventoryEntity.getId(), ticketTypeInventoryEntity);
+        }
+
+        Map<UUID, Long> ticketsIssuedMap = new HashMap<>();
+        for (Object[] row : ticketRepository.countActiveTicketsIssuedGroupedByType()) {
+            ticketsIssuedMap.put((UUID) row[0], (Long) row[1]);
+        }
+
+        int numCreated = 0;
+        int numCorrected = 0;
+        final OffsetDateTime now = OffsetDateTime.now();
+        for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigRepository.findAll()) {
+
+            final int actualTicketsIssued = ticketsIssuedMap.getOrDefault(ticketTypeConfigEntity.getId(), 0L).intValue();
+            final TicketTypeInventoryEntity ticketTypeInventoryEntity = inventoryMap.get(ticketTypeConfigEntity.getId());
+
+            if (ticketTypeInventoryEntity == null) {
+                ticketTypeInventoryRepository.save(new TicketTypeInventoryEntity()
+                        .setId(ticketTypeConfigEntity.getId())
+                        .setAuthorizedAmount(ticketTypeConfigEntity.getAuthorizedAmount())
+                        .setTicketsIssued(actualTicketsIssued)
+                        .setReconciledDate(now));
+                numCreated++;
+                continue;
+            }
+
+            if (ticketTypeInventoryEntity.getTicketsIssued() == actualTicketsIssued) {
+                continue;
+            }
+
+            //Only overwrite if the row is unchanged since it was read. A checkout that moved the counter since wins.
+            LOG.warn("Inventory drift for ticketTypeConfigId: {} - counter: {} - actual: {}",
+                    ticketTypeConfigEntity.getId(), ticketTypeInventoryEntity.getTicketsIssued(), actualTicketsIssued);
+            numCorrected += ticketTypeInventoryRepository.compareAndSetTicketsIssued(
+                    ticketTypeConfigEntity.getId(), ticketTypeInventoryEntity.getVersion(), actualTicketsIssued, now);
+        }
+
+        LOG.info("Inventory reconciliation complete. Created: {} - Corrected: {}", numCreated, numCorrected);
+    }
+}
@@ -0,0 +1,49 @@
+package com.foriatickets.foriabackend.service;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for customer emails and push notifications.
+ *
+ * Messages are written in the caller's transaction and delivered by a bounded worker pool once it commits, so
+ * request latency does not depend on SES or FCM. Failed deliveries are retried with exponential backoff.
+ * Each message has an idempotency key; enqueueing a key that already exists is a no-op, even when two callers race.
+ *
+ * @author Corbin Schwalm
+ */
+public interface NotificationService {
+
+    /**
+     * Queues a templated email.
+     *
+     * @param idempotencyKey Unique key for this message. Derived from the business event that caused it.
+     * @param toAddress Address to receive email.
+     * @param templateName Name loaded into template-manager.
+     * @param templateData Required handlebar placeholders to replace.
+     */
+    void enqueueEmail(String idempotencyKey, String toAddress, String templateName, Map<String, String> templateData);
+
+    /**
+     * Queues a push notification to a single device.
+     *
+     * @param idempotencyKey Unique key for this message. Derived from the business event that caused it.
+     * @param deviceToken Device token registered from device.
+     * @param title Notification title.
+     * @param body Notification body.
+     */
+    void enqueuePush(String idempotencyKey, String deviceToken, String title, String body);
+
+    /**
+     * Attempts delivery of a single message if it is due and not claimed by another worker.
+     * The result is recorded once SES or FCM answers. Until then the claim's lease covers the message.
+     *
+     * @param notificationId Message to deliver.
+     */
+    void dispatch(UUID notificationId);
+
+    /**
+     * Hands every due message to the worker pool. Picks up retries and anything not dispatched after commit.
+     */
+    void dispatchPending();
+}
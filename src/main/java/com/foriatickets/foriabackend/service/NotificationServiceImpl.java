@@ -0,0 +1,367 @@
+package com.foriatickets.foriabackend.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
+import com.foriatickets.foriabackend.gateway.FCMGateway;
+import com.foriatickets.foriabackend.repositories.NotificationOutboxRepository;
+import com.google.firebase.messaging.Notification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Transactional
+public class NotificationServiceImpl implements NotificationService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private static final List<NotificationOutboxEntity.Status> DUE_STATUSES =
+            Collections.unmodifiableList(Arrays.asList(NotificationOutboxEntity.Status.PENDING, NotificationOutboxEntity.Status.SENDING));
+
+    private final AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
+
+    private final FCMGateway fcmGateway;
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Object pendingDispatchKey = new Object();
+
+    private final ThreadPoolExecutor executorService;
+
+    private final int maxAttempts;
+
+    private final long retryBaseMs;
+
+    private final long retryMaxMs;
+
+    private final long leaseMs;
+
+    @Autowired
+    public NotificationServiceImpl(AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway,
+                                   FCMGateway fcmGateway,
+                                   NotificationOutboxRepository notificationOutboxRepository,
+                                   @Value("${notificationWorkerThreads:4}") int workerThreads,
+                                   @Value("${notificationQueueCapacity:1000}") int queueCapacity,
+                                   @Value("${notificationMaxAttempts:6}") int maxAttempts,
+                                   @Value("${notificationRetryBaseMs:30000}") long retryBaseMs,
+                                   @Value("${notificationRetryMaxMs:3600000}") long retryMaxMs,
+                                   @Value("${notificationLeaseMs:300000}") long leaseMs) {
+
+        this.awsSimpleEmailServiceGateway = awsSimpleEmailServiceGateway;
+        this.fcmGateway = fcmGateway;
+        this.notificationOutboxRepository = notificationOutboxRepository;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.leaseMs = leaseMs;
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executorService = new ThreadPoolExecutor(workerThreads, workerThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> LOG.debug("Notification queue is full. Message will be sent by the outbox poller."));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    @Override
+    public void enqueueEmail(String idempotencyKey, String toAddress, String templateName, Map<String, String> templateData) {
+
+        if (toAddress == null || templateName == null) {
+            LOG.error("Attempted to queue email with null values. Key: {}", idempotencyKey);
+            return;
+        }
+
+        String templateDataJson;
+        try {
+            templateDataJson = objectMapper.writeValueAsString(templateData != null ? templateData : new HashMap<>());
+        } catch (IOException ex) {
+            LOG.error("Failed to serialize template data for key: {}. Msg: {}", idempotencyKey, ex.getMessage());
+            return;
+        }
+
+        enqueue(new NotificationOutboxEntity()
+                .setIdempotencyKey(idempotencyKey)
+                .setChannel(NotificationOutboxEntity.Channel.EMAIL)
+                .setRecipient(toAddress)
+                .setTemplateName(templateName)
+                .setTemplateData(templateDataJson));
+    }
+
+    @Override
+    public void enqueuePush(String idempotencyKey, String deviceToken, String title, String body) {
+
+        if (deviceToken == null) {
+            return;
+        }
+
+        enqueue(new NotificationOutboxEntity()
+                .setIdempotencyKey(idempotencyKey)
+                .setChannel(NotificationOutboxEntity.Channel.PUSH)
+                .setRecipient(deviceToken)
+                .setTitle(title)
+                .setBody(body));
+    }
+
+    private void enqueue(NotificationOutboxEntity notificationOutboxEntity) {
+
+        if (notificationOutboxRepository.existsByIdempotencyKey(notificationOutboxEntity.getIdempotencyKey())) {
+            LOG.info("Notification with key: {} already queued. Skipping.", notificationOutboxEntity.getIdempotencyKey());
+            return;
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final NotificationOutboxEntity savedEntity = notificationOutboxEntity
+                .setStatus(NotificationOutboxEntity.Status.PENDING)
+                .setAttempts(0)
+                .setCreatedDate(now)
+                .setNextAttemptDate(now);
+
+        //A concurrent caller can queue the same key after the check above. Losing that race must not fail the caller.
+        if (!notificationOutboxRepository.insertIfAbsent(savedEntity)) {
+            LOG.info("Notification with key: {} already queued. Skipping.", savedEntity.getIdempotencyKey());
+            return;
+        }
+
+        //Workers must not see the row before the caller commits. A rolled back caller sends nothing.
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executorService.execute(() -> dispatchAll(Collections.singletonList(savedEntity)));
+            return;
+        }
+
+        //Messages queued by one transaction are dispatched together, so pushes with the same payload share a multicast.
+        @SuppressWarnings("unchecked")
+        List<NotificationOutboxEntity> pendingDispatch = (List<NotificationOutboxEntity>) TransactionSynchronizationManager.getResource(pendingDispatchKey);
+        if (pendingDispatch == null) {
+
+            final List<NotificationOutboxEntity> transactionDispatch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(pendingDispatchKey, transactionDispatch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    executorService.execute(() -> dispatchAll(transactionDispatch));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingDispatchKey);
+                }
+            });
+            pendingDispatch = transactionDispatch;
+        }
+
+        pendingDispatch.add(savedEntity);
+    }
+
+    /**
+     * Emails are dispatched one at a time. Pushes with the same title and body are claimed and sent as one multicast.
+     */
+    private void dispatchAll(List<NotificationOutboxEntity> notificationOutboxEntities) {
+
+        final Map<List<String>, List<NotificationOutboxEntity>> pushGroups = new LinkedHashMap<>();
+        for (NotificationOutboxEntity notificationOutboxEntity : notificationOutboxEntities) {
+
+            if (notificationOutboxEntity.getChannel() != NotificationOutboxEntity.Channel.PUSH) {
+                final UUID notificationId = notificationOutboxEntity.getId();
+                executorService.execute(() -> dispatch(notificationId));
+                continue;
+            }
+
+            pushGroups.computeIfAbsent(Arrays.asList(notificationOutboxEntity.getTitle(), notificationOutboxEntity.getBody()), key -> new ArrayList<>())
+                    .add(notificationOutboxEntity);
+        }
+
+        for (List<NotificationOutboxEntity> pushGroup : pushGroups.values()) {
+            dispatchPushGroup(pushGroup);
+        }
+    }
+
+    private void dispatchPushGroup(List<NotificationOutboxEntity> pushGroup) {
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OffsetDateTime leaseExpiresDate = now.plus(leaseMs, ChronoUnit.MILLIS);
+
+        //Mirror the claim on the detached rows so the results below save the correct attempt count.
+        final List<NotificationOutboxEntity> claimed = new ArrayList<>(pushGroup.size());
+        for (NotificationOutboxEntity notificationOutboxEntity : pushGroup) {
+            if (notificationOutboxRepository.claim(notificationOutboxEntity.getId(), now, leaseExpiresDate) == 1) {
+                claimed.add(notificationOutboxEntity
+                        .setStatus(NotificationOutboxEntity.Status.SENDING)
+                        .setAttempts(notificationOutboxEntity.getAttempts() + 1)
+                        .setNextAttemptDate(leaseExpiresDate));
+            }
+        }
+
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        final List<String> tokens = new ArrayList<>(claimed.size());
+        for (NotificationOutboxEntity notificationOutboxEntity : claimed) {
+            tokens.add(notificationOutboxEntity.getRecipient());
+        }
+
+        final NotificationOutboxEntity first = claimed.get(0);
+        fcmGateway.sendMulticast(tokens, new Notification(first.getTitle(), first.getBody()))
+                .whenComplete((result, ex) -> recordPushResults(claimed, result, ex));
+    }
+
+    private void recordPushResults(List<NotificationOutboxEntity> claimed, FCMGateway.MulticastResult result, Throwable ex) {
+
+        for (NotificationOutboxEntity notificationOutboxEntity : claimed) {
+
+            final String token = notificationOutboxEntity.getRecipient();
+            if (ex != null) {
+                recordFailure(notificationOutboxEntity, String.valueOf(ex.getMessage()));
+            } else if (result.getDeactivatedTokens().contains(token)) {
+                notificationOutboxEntity
+                        .setStatus(NotificationOutboxEntity.Status.FAILED)
+                        .setLastError("Device token is no longer registered.");
+            } else if (result.getFailedTokens().contains(token)) {
+                recordFailure(notificationOutboxEntity, "FCM delivery failed.");
+            } else {
+                markSent(notificationOutboxEntity);
+            }
+        }
+
+        try {
+            notificationOutboxRepository.saveAll(claimed);
+        } catch (RuntimeException saveEx) {
+            LOG.error("Failed to record results for {} push notifications. Leases will expire and retry. Msg: {}", claimed.size(), saveEx.getMessage());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void dispatch(UUID notificationId) {
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        if (notificationOutboxRepository.claim(notificationId, now, now.plus(leaseMs, ChronoUnit.MILLIS)) != 1) {
+            return;
+        }
+
+        final Optional<NotificationOutboxEntity> notificationOutboxEntityOptional = notificationOutboxRepository.findById(notificationId);
+        if (!notificationOutboxEntityOptional.isPresent()) {
+            return;
+        }
+
+        final NotificationOutboxEntity notificationOutboxEntity = notificationOutboxEntityOptional.get();
+        if (notificationOutboxEntity.getChannel() == NotificationOutboxEntity.Channel.PUSH) {
+            final List<NotificationOutboxEntity> claimed = Collections.singletonList(notificationOutboxEntity);
+            fcmGateway.sendMulticast(Collections.singletonList(notificationOutboxEntity.getRecipient()), new Notification(notificationOutboxEntity.getTitle(), notificationOutboxEntity.getBody()))
+                    .whenComplete((result, ex) -> recordPushResults(claimed, result, ex));
+            return;
+        }
+
+        //The lease covers the request. The result is recorded once SES answers.
+        CompletableFuture<Void> sendFuture;
+        try {
+            sendFuture = sendEmail(notificationOutboxEntity);
+        } catch (RuntimeException ex) {
+            sendFuture = new CompletableFuture<>();
+            sendFuture.completeExceptionally(ex);
+        }
+
+        sendFuture.whenComplete((ignored, ex) -> recordEmailResult(notificationOutboxEntity, ex));
+    }
+
+    private void recordEmailResult(NotificationOutboxEntity notificationOutboxEntity, Throwable ex) {
+
+        if (ex == null) {
+            markSent(notificationOutboxEntity);
+        } else {
+            final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            recordFailure(notificationOutboxEntity, String.valueOf(cause.getMessage()));
+        }
+
+        try {
+            notificationOutboxRepository.save(notificationOutboxEntity);
+        } catch (RuntimeException saveEx) {
+            LOG.error("Failed to record result for notification key: {}. Lease will expire and retry. Msg: {}", notificationOutboxEntity.getIdempotencyKey(), saveEx.getMessage());
+        }
+    }
+
+    private void markSent(NotificationOutboxEntity notificationOutboxEntity) {
+        notificationOutboxEntity
+                .setStatus(NotificationOutboxEntity.Status.SENT)
+                .setSentDate(OffsetDateTime.now())
+                .setLastError(null);
+    }
+
+    /**
+     * Schedules a retry with exponential backoff, or fails the message once attempts are exhausted.
+     */
+    private void recordFailure(NotificationOutboxEntity notificationOutboxEntity, String error) {
+
+        notificationOutboxEntity.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+
+        if (notificationOutboxEntity.getAttempts() >= maxAttempts) {
+            notificationOutboxEntity.setStatus(NotificationOutboxEntity.Status.FAILED);
+            LOG.error("Notification key: {} failed after {} attempts. Msg: {}", notificationOutboxEntity.getIdempotencyKey(), notificationOutboxEntity.getAttempts(), error);
+        } else {
+            final long delayMs = Math.min(retryBaseMs << Math.min(notificationOutboxEntity.getAttempts() - 1, 20), retryMaxMs);
+            notificationOutboxEntity
+                    .setStatus(NotificationOutboxEntity.Status.PENDING)
+                    .setNextAttemptDate(OffsetDateTime.now().plus(delayMs, ChronoUnit.MILLIS));
+            LOG.warn("Notification key: {} failed on attempt {}. Retrying in {}ms. Msg: {}", notificationOutboxEntity.getIdempotencyKey(), notificationOutboxEntity.getAttempts(), delayMs, error);
+        }
+    }
+
+    private CompletableFuture<Void> sendEmail(NotificationOutboxEntity notificationOutboxEntity) {
+
+        Map<String, String> templateData;
+        try {
+            templateData = objectMapper.readValue(notificationOutboxEntity.getTemplateData(), new TypeReference<Map<String, String>>() {});
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to parse template data.", ex);
+        }
+        return awsSimpleEmailServiceGateway.sendEmailFromTemplate(notificationOutboxEntity.getRecipient(), notificationOutboxEntity.getTemplateName(), templateData);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Scheduled(fixedDelayString = "${notificationOutboxPollMs:15000}", initialDelayString = "${notificationOutboxPollMs:15000}")
+    public void dispatchPending() {
+
+        final List<NotificationOutboxEntity> dueNotifications =
+                notificationOutboxRepository.findTop100ByStatusInAndNextAttemptDateBeforeOrderByNextAttemptDateAsc(DUE_STATUSES, OffsetDateTime.now());
+
+        dispatchAll(dueNotifications);
+
+        if (!dueNotifications.isEmpty()) {
+            LOG.debug("Dispatched {} pending notifications from outbox.", dueNotifications.size());
+        }
+    }
+}
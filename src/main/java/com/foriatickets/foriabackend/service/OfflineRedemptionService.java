@@ -0,0 +1,62 @@
+package com.foriatickets.foriabackend.service;
+
+import org.openapitools.model.OfflineRedemption;
+import org.openapitools.model.OfflineRedemptionUploadResult;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lets scanner devices redeem tickets without a connection to the API.
+ *
+ * Devices download a signed pack of ticket IDs, TOTP secrets and statuses for an event, keep it current with
+ * delta packs while online and upload the tickets they admitted once connectivity returns. Scoped to the request.
+ *
+ * Pack layout, big endian:
+ * <pre>
+ * magic       4 bytes  "FOPK"
+ * format      1 byte   1
+ * kind        1 byte   0 = full, 1 = delta
+ * eventId     16 bytes
+ * version     8 bytes  pass as since_version to the next delta
+ * since       8 bytes  version the delta was built from; 0 for a full pack
+ * count       4 bytes
+ * entries     count x { ticketId 16 bytes, status 1 byte, secretLength 1 byte, secret ASCII }
+ * sigLength   2 bytes
+ * signature   sigLength bytes; SHA256withECDSA over every byte before sigLength
+ * </pre>
+ * Status bytes are 0 ISSUED, 1 ACTIVE, 2 TRANSFER_PENDING, 3 REDEEMED, 4 CANCELED, 5 CANCELED_FRAUD.
+ * Secrets are only included for active tickets.
+ *
+ * @author Corbin Schwalm
+ */
+public interface OfflineRedemptionService {
+
+    /**
+     * Exports every ticket of the event that is not canceled.
+     *
+     * @param eventId Event to export. Caller must be a member of its venue.
+     * @return Signed pack.
+     */
+    byte[] getOfflinePack(UUID eventId);
+
+    /**
+     * Exports every ticket of the event written since a previous pack, including canceled tickets.
+     * Deltas overlap slightly so writes that commit late are never missed.
+     *
+     * @param eventId Event to export. Caller must be a member of its venue.
+     * @param sinceVersion Version of the last pack applied on the device.
+     * @return Signed pack.
+     */
+    byte[] getOfflinePackDelta(UUID eventId, long sinceVersion);
+
+    /**
+     * Reconciles tickets admitted while offline. Active tickets are redeemed with the scan time. Tickets already
+     * redeemed keep the earliest scan, so the first scan wins regardless of which device uploads first.
+     *
+     * @param eventId Event scanned. Caller must be a member of its venue.
+     * @param redemptions Scans recorded on the device.
+     * @return Result for every ticket in the upload, in upload order.
+     */
+    OfflineRedemptionUploadResult uploadOfflineRedemptions(UUID eventId, List<OfflineRedemption> redemptions);
+}
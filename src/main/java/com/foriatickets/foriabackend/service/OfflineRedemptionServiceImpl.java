@@ -0,0 +1,338 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.foriatickets.foriabackend.repositories.VenueAccessRepository;
+import com.foriatickets.foriabackend.security.OfflinePackSigner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openapitools.model.OfflineRedemption;
+import org.openapitools.model.OfflineRedemptionResult;
+import org.openapitools.model.OfflineRedemptionUploadResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Scope;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUEST;
+
+@Scope(scopeName = SCOPE_REQUEST)
+@Service
+@Transactional
+public class OfflineRedemptionServiceImpl implements OfflineRedemptionService {
+
+    static final byte[] PACK_MAGIC = {'F', 'O', 'P', 'K'};
+
+    static final byte PACK_FORMAT = 1;
+
+    static final byte PACK_KIND_FULL = 0;
+
+    static final byte PACK_KIND_DELTA = 1;
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final AuthenticatedUserService authenticatedUserService;
+
+    private final EventRepository eventRepository;
+
+    private final TicketRepository ticketRepository;
+
+    private final VenueAccessRepository venueAccessRepository;
+
+    private final OfflinePackSigner offlinePackSigner;
+
+    private final long syncOverlapMillis;
+
+    private final int maxUploadSize;
+
+    private final String auth0Id;
+
+    private AuthenticatedUserService.AuthenticatedUser authenticatedUser;
+
+    @Autowired
+    public OfflineRedemptionServiceImpl(AuthenticatedUserService authenticatedUserService,
+                                        EventRepository eventRepository,
+                                        TicketRepository ticketRepository,
+                                        VenueAccessRepository venueAccessRepository,
+                                        OfflinePackSigner offlinePackSigner,
+                                        @Value("${offlinePackSyncOverlapMs:60000}") long syncOverlapMillis,
+                                        @Value("${offlineRedemptionMaxUpload:1000}") int maxUploadSize) {
+
+        this.authenticatedUserService = authenticatedUserService;
+        this.eventRepository = eventRepository;
+        this.ticketRepository = ticketRepository;
+        this.venueAccessRepository = venueAccessRepository;
+        this.offlinePackSigner = offlinePackSigner;
+        this.syncOverlapMillis = syncOverlapMillis;
+        this.maxUploadSize = maxUploadSize;
+
+        //User is resolved from the Auth0 token on first use.
+        this.auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+
+    /**
+     * Resolves the cached snapshot of the authenticated user.
+     *
+     * @return Snapshot or null if the principal is not mapped to a user.
+     */
+    private AuthenticatedUserService.AuthenticatedUser getAuthenticatedUser() {
+
+        if (authenticatedUser == null) {
+            authenticatedUser = authenticatedUserService.getAuthenticatedUser(auth0Id).orElse(null);
+            if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
+                LOG.warn("Attempted to use offline redemption service with non-mapped auth0Id: {}", auth0Id);
+            }
+        }
+        return authenticatedUser;
+    }
+
+    @Override
+    public byte[] getOfflinePack(UUID eventId) {
+
+        verifyVenueAccess(eventId);
+
+        final long version = System.currentTimeMillis();
+        final List<Object[]> rows = ticketRepository.findOfflinePackRows(eventId);
+
+        LOG.info("Exported offline pack for eventId: {} with {} tickets to userID: {}", eventId, rows.size(), getAuthenticatedUser().getId());
+        return writePack(PACK_KIND_FULL, eventId, version, 0L, rows);
+    }
+
+    @Override
+    public byte[] getOfflinePackDelta(UUID eventId, long sinceVersion) {
+
+        final long version = System.currentTimeMillis();
+        if (sinceVersion <= 0 || sinceVersion > version) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Since version is invalid.");
+        }
+
+        verifyVenueAccess(eventId);
+
+        //Writes are stamped before they commit. Reaching back covers commits that landed after the last pack was built.
+        final OffsetDateTime updatedAfter = OffsetDateTime.ofInstant(Instant.ofEpochMilli(sinceVersion - syncOverlapMillis), ZoneOffset.UTC);
+        final List<Object[]> rows = ticketRepository.findOfflinePackRowsUpdatedAfter(eventId, updatedAfter);
+
+        LOG.debug("Exported offline pack delta for eventId: {} since: {} with {} tickets.", eventId, sinceVersion, rows.size());
+        return writePack(PACK_KIND_DELTA, eventId, version, sinceVersion, rows);
+    }
+
+    @Override
+    public OfflineRedemptionUploadResult uploadOfflineRedemptions(UUID eventId, List<OfflineRedemption> redemptions) {
+
+        OfflineRedemptionUploadResult uploadResult = new OfflineRedemptionUploadResult();
+        uploadResult.setResults(new ArrayList<>());
+        if (redemptions == null || redemptions.isEmpty()) {
+            return uploadResult;
+        }
+
+        if (redemptions.size() > maxUploadSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Upload must not contain more than " + maxUploadSize + " redemptions.");
+        }
+
+        verifyVenueAccess(eventId);
+
+        //Device clocks may run ahead. A scan can never be later than its upload.
+        final OffsetDateTime now = OffsetDateTime.now();
+        final Map<UUID, OffsetDateTime> firstScans = new HashMap<>();
+        for (OfflineRedemption redemption : redemptions) {
+
+            if (redemption.getTicketId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket ID must not be null.");
+            }
+
+            OffsetDateTime scannedAt = redemption.getScannedAt();
+            if (scannedAt == null || scannedAt.isAfter(now)) {
+                scannedAt = now;
+            }
+            firstScans.merge(redemption.getTicketId(), scannedAt, (a, b) -> a.isBefore(b) ? a : b);
+        }
+
+        final Map<UUID, TicketEntity.Status> statuses = new HashMap<>();
+        for (Object[] row : ticketRepository.findStatusesForEvent(eventId, firstScans.keySet())) {
+            statuses.put((UUID) row[0], (TicketEntity.Status) row[1]);
+        }
+
+        final Map<UUID, OfflineRedemptionResult> ticketResults = new HashMap<>();
+        for (Map.Entry<UUID, OffsetDateTime> entry : firstScans.entrySet()) {
+            ticketResults.put(entry.getKey(), reconcile(entry.getKey(), statuses.get(entry.getKey()), entry.getValue(), now));
+        }
+
+        //Repeats of a ticket within the upload were admitted after its first scan on this device.
+        final Set<UUID> reported = new HashSet<>();
+        int numAccepted = 0;
+        for (OfflineRedemption redemption : redemptions) {
+
+            final UUID ticketId = redemption.getTicketId();
+            if (!reported.add(ticketId)) {
+                uploadResult.getResults().add(buildResult(ticketId, OfflineRedemptionResult.StatusEnum.DUPLICATE, null));
+                continue;
+            }
+
+            final OfflineRedemptionResult result = ticketResults.get(ticketId);
+            if (result.getStatus() == OfflineRedemptionResult.StatusEnum.ACCEPTED) {
+                numAccepted++;
+            }
+            uploadResult.getResults().add(result);
+        }
+
+        LOG.info("Reconciled {} offline redemptions for eventId: {} from userID: {}. Accepted: {}", redemptions.size(), eventId, getAuthenticatedUser().getId(), numAccepted);
+        return uploadResult;
+    }
+
+    /**
+     * Applies the first scan of a ticket in the upload.
+     *
+     * @param ticketId Ticket scanned.
+     * @param status Status read before any update. Null if not a ticket of the event.
+     * @param scannedAt When the device scanned it.
+     * @param now Time of the write.
+     * @return Result to report.
+     */
+    private OfflineRedemptionResult reconcile(UUID ticketId, TicketEntity.Status status, OffsetDateTime scannedAt, OffsetDateTime now) {
+
+        if (status == null) {
+            LOG.warn("Offline redemption for unknown ticket ID: {}", ticketId);
+            return buildResult(ticketId, OfflineRedemptionResult.StatusEnum.REJECTED, OfflineRedemptionResult.ReasonEnum.NOT_FOUND);
+        }
+
+        if (status != TicketEntity.Status.ACTIVE && status != TicketEntity.Status.REDEEMED) {
+            LOG.warn("Offline redemption for ticket ID: {} in status: {}", ticketId, status);
+            return buildResult(ticketId, OfflineRedemptionResult.StatusEnum.REJECTED, OfflineRedemptionResult.ReasonEnum.INVALID_STATUS);
+        }
+
+        //Redeem if still active. Otherwise another scan got there first and the earlier of the two is kept.
+        if (status == TicketEntity.Status.ACTIVE && ticketRepository.markRedeemed(ticketId, scannedAt, now) == 1) {
+            return buildResult(ticketId, OfflineRedemptionResult.StatusEnum.ACCEPTED, null);
+        }
+
+        if (ticketRepository.claimEarlierRedemption(ticketId, scannedAt, now) == 1) {
+            LOG.info("Offline scan of ticket ID: {} at: {} predates the stored redemption.", ticketId, scannedAt);
+            return buildResult(ticketId, OfflineRedemptionResult.StatusEnum.ACCEPTED, null);
+        }
+
+        return buildResult(ticketId, OfflineRedemptionResult.StatusEnum.DUPLICATE, null);
+    }
+
+    /**
+     * Checks the event exists and the authenticated user is a member of its venue.
+     * Membership is read from the database rather than the snapshot, since a pack exposes every ticket secret for the event.
+     *
+     * @param eventId Event to check.
+     */
+    private void verifyVenueAccess(UUID eventId) {
+
+        if (eventId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event ID must not be null.");
+        }
+
+        final Optional<EventEntity> eventEntityOptional = eventRepository.findById(eventId);
+        if (!eventEntityOptional.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event ID does not exist.");
+        }
+
+        final UUID venueId = eventEntityOptional.get().getVenueEntity().getId();
+        if (getAuthenticatedUser() == null || !VenueService.checkVenueAuthorization(venueId,
+                new HashSet<>(venueAccessRepository.findAllByUserEntity_Id(getAuthenticatedUser().getId())))) {
+            LOG.warn("User with auth0Id: {} attempted to scan offline for eventId: {} that they are not authorized.", auth0Id, eventId);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Authenticated user does not have access to venue.");
+        }
+    }
+
+    private static OfflineRedemptionResult buildResult(UUID ticketId, OfflineRedemptionResult.StatusEnum status, OfflineRedemptionResult.ReasonEnum reason) {
+
+        OfflineRedemptionResult result = new OfflineRedemptionResult();
+        result.setTicketId(ticketId);
+        result.setStatus(status);
+        result.setReason(reason);
+        return result;
+    }
+
+    /**
+     * Encodes and signs a pack in the layout documented on {@link OfflineRedemptionService}.
+     *
+     * @param rows Rows of [ticketId (UUID), status (TicketEntity.Status), secret (String)].
+     * @return Signed pack.
+     */
+    private byte[] writePack(byte kind, UUID eventId, long version, long sinceVersion, List<Object[]> rows) {
+
+        try {
+            final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(40 + rows.size() * 34 + 80);
+            final DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+
+            out.write(PACK_MAGIC);
+            out.writeByte(PACK_FORMAT);
+            out.writeByte(kind);
+            writeUuid(out, eventId);
+            out.writeLong(version);
+            out.writeLong(sinceVersion);
+            out.writeInt(rows.size());
+
+            for (Object[] row : rows) {
+
+                final TicketEntity.Status status = (TicketEntity.Status) row[1];
+                final byte[] secret = status == TicketEntity.Status.ACTIVE && row[2] != null ?
+                        ((String) row[2]).getBytes(StandardCharsets.US_ASCII) : new byte[0];
+
+                writeUuid(out, (UUID) row[0]);
+                out.writeByte(statusCode(status));
+                out.writeByte(secret.length);
+                out.write(secret);
+            }
+            out.flush();
+
+            final byte[] signature = offlinePackSigner.sign(byteArrayOutputStream.toByteArray());
+            out.writeShort(signature.length);
+            out.write(signature);
+            out.flush();
+
+            return byteArrayOutputStream.toByteArray();
+
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Stable wire codes, independent of the enum order.
+     */
+    static byte statusCode(TicketEntity.Status status) {
+
+        switch (status) {
+            case ISSUED:
+                return 0;
+            case ACTIVE:
+                return 1;
+            case TRANSFER_PENDING:
+                return 2;
+            case REDEEMED:
+                return 3;
+            case CANCELED:
+                return 4;
+            case CANCELED_FRAUD:
+                return 5;
+            default:
+                throw new IllegalArgumentException("Unknown ticket status: " + status);
+        }
+    }
+}
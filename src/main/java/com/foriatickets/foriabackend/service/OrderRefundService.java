@@ -0,0 +1,20 @@
+package com.foriatickets.foriabackend.service;
+
+import java.util.UUID;
+
+/**
+ * Cancels and refunds orders. Not bound to a request so it can be called from background jobs.
+ *
+ * @author Corbin Schwalm
+ */
+public interface OrderRefundService {
+
+    /**
+     * Cancels and refunds an order. Cancels every ticket on the order and returns them to inventory.
+     *
+     * This method is idempotent.
+     * @param orderId The order to cancel.
+     * @param notifyCustomers If false, the caller is responsible for notifying the purchaser and owners.
+     */
+    void refundOrder(UUID orderId, boolean notifyCustomers);
+}
@@ -0,0 +1,144 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.gateway.StripeGateway;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.stripe.model.Refund;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+@Service
+@Transactional
+public class OrderRefundServiceImpl implements OrderRefundService {
+
+    private static final String REFUND_TITLE = "Foria Order Refunded";
+    private static final String REFUND_BODY = "Your {{eventName}} order has been canceled and refunded.";
+    private static final String REFUND_EMAIL = "refund_order_email";
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final InventoryService inventoryService;
+
+    private final NotificationService notificationService;
+
+    private final OrderRepository orderRepository;
+
+    private final SalesLedgerService salesLedgerService;
+
+    private final StripeGateway stripeGateway;
+
+    private final TicketRepository ticketRepository;
+
+    @Autowired
+    public OrderRefundServiceImpl(InventoryService inventoryService,
+                                  NotificationService notificationService,
+                                  OrderRepository orderRepository,
+                                  SalesLedgerService salesLedgerService,
+                                  StripeGateway stripeGateway,
+                                  TicketRepository ticketRepository) {
+        this.inventoryService = inventoryService;
+        this.notificationService = notificationService;
+        this.orderRepository = orderRepository;
+        this.salesLedgerService = salesLedgerService;
+        this.stripeGateway = stripeGateway;
+        this.ticketRepository = ticketRepository;
+    }
+
+    @Override
+    public void refundOrder(UUID orderId, boolean notifyCustomers) {
+
+        if (orderId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order cancel request contains null orderId.");
+        }
+
+        final Optional<OrderEntity> orderEntityOptional = orderRepository.findById(orderId);
+        if (!orderEntityOptional.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order Id not found. Failed to cancel order.");
+        }
+
+        final OrderEntity orderEntity = orderEntityOptional.get();
+        if (orderEntity.getStatus() == OrderEntity.Status.CANCELED) {
+            LOG.info("Order ID: {} is already canceled.", orderEntity.getId());
+            return;
+        }
+
+        orderEntity.setStatus(OrderEntity.Status.CANCELED);
+
+        //Cancel each issued ticket and collect owner list.
+        final Set<UserEntity> usersImpacted = new HashSet<>();
+        final Map<UUID, Integer> releasedByType = new HashMap<>();
+        String eventName = "Unknown Event";
+        for (OrderTicketEntryEntity orderTicketEntryEntity : orderEntity.getTickets()) {
+
+            final TicketEntity ticketEntity = orderTicketEntryEntity.getTicketEntity();
+            if (OffsetDateTime.now().isAfter(ticketEntity.getEventEntity().getEventEndTime().plusDays(7L))) {
+                LOG.error("Attempted to refund order ID: {} after event has already ended.", orderEntity.getId());
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attempted to refund order after event has ended.");
+            }
+
+            if (ticketEntity.getStatus() != TicketEntity.Status.CANCELED && ticketEntity.getStatus() != TicketEntity.Status.CANCELED_FRAUD) {
+                releasedByType.merge(ticketEntity.getTicketTypeConfigEntity().getId(), 1, Integer::sum);
+            }
+
+            ticketEntity.setStatus(TicketEntity.Status.CANCELED);
+            ticketRepository.save(ticketEntity);
+
+            usersImpacted.add(ticketEntity.getPurchaserEntity());
+            eventName = ticketEntity.getEventEntity().getName();
+
+            //Add both owner and purchaser to notify.
+            if (!ticketEntity.getPurchaserEntity().getId().equals(ticketEntity.getOwnerEntity().getId())) {
+                usersImpacted.add(ticketEntity.getOwnerEntity());
+            }
+        }
+
+        LOG.info("Number of tickets cancelled in order: {} - OrderId: {}", orderEntity.getTickets().size(), orderEntity.getId());
+        LOG.info("Number of users impacted: {} - OrderId: {}", usersImpacted.size(), orderEntity.getId());
+
+        Refund refund;
+        //Refunds the entire order amount if not free.
+        if (!StringUtils.isEmpty(orderEntity.getChargeReferenceId())) {
+            refund = stripeGateway.refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+            orderEntity.setRefundReferenceId(refund.getId());
+        }
+
+        //Send push notifications and emails to impacted customers. Event cancellation notifies in bulk instead.
+        if (notifyCustomers) {
+            for (UserEntity userEntity : usersImpacted) {
+
+                Map<String, String> templateData = new HashMap<>();
+                templateData.put("eventName", eventName);
+                final String keyPrefix = "order:" + orderEntity.getId() + ":refund:user:" + userEntity.getId();
+                notificationService.enqueueEmail(keyPrefix + ":email", userEntity.getEmail(), REFUND_EMAIL, templateData);
+                for (DeviceTokenEntity deviceTokenEntity : userEntity.getDeviceTokens()) {
+
+                    if (deviceTokenEntity.getTokenStatus() != DeviceTokenEntity.TokenStatus.ACTIVE) {
+                        continue;
+                    }
+
+                    notificationService.enqueuePush(keyPrefix + ":push:" + deviceTokenEntity.getId(), deviceTokenEntity.getDeviceToken(),
+                            REFUND_TITLE, REFUND_BODY.replace("{{eventName}}", eventName));
+                }
+            }
+        }
+
+        //Seats return to sale only once the charge is refunded, and commit with the cancellation.
+        for (Map.Entry<UUID, Integer> entry : releasedByType.entrySet()) {
+            inventoryService.release(entry.getKey(), entry.getValue());
+        }
+
+        orderRepository.save(orderEntity);
+        salesLedgerService.recordRefund(orderEntity);
+        LOG.info("Order ID: {} has been successfully refunded.", orderEntity.getId());
+    }
+}
@@ -10,6 +10,7 @@ import com.foriatickets.foriabackend.service.report_templates.OrderReportRow;
 import com.foriatickets.foriabackend.service.report_templates.TicketRow;
 import com.opencsv.CSVWriter;
 import com.opencsv.bean.*;
+import com.opencsv.exceptions.CsvDataTypeMismatchException;
 import com.opencsv.exceptions.CsvRequiredFieldEmptyException;
 import com.stripe.model.BalanceTransaction;
 import com.stripe.model.Payout;
@@ -22,16 +23,19 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.CharArrayWriter;
+import java.io.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 @Transactional
@@ -80,7 +84,9 @@ public class ReportServiceImpl implements ReportService {
 
     private final StripeGateway stripeGateway;
 
-    private final CalculationService calculationService;
+    private final SalesLedgerService salesLedgerService;
+
+    private final SettlementReconciliationService settlementReconciliationService;
 
     private static final Logger LOG = LogManager.getLogger();
 
@@ -92,12 +98,13 @@ public class ReportServiceImpl implements ReportService {
 
     private static final String GENERAL_EVENT_REMINDER_TEMPLATE = "general_event_reminder";
 
-    public ReportServiceImpl(AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway, EventRepository eventRepository, OrderRepository orderRepository, StripeGateway stripeGateway, CalculationService calculationService) {
+    public ReportServiceImpl(AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway, EventRepository eventRepository, OrderRepository orderRepository, StripeGateway stripeGateway, SalesLedgerService salesLedgerService, SettlementReconciliationService settlementReconciliationService) {
         this.awsSimpleEmailServiceGateway = awsSimpleEmailServiceGateway;
         this.eventRepository = eventRepository;
         this.orderRepository = orderRepository;
         this.stripeGateway = stripeGateway;
-        this.calculationService = calculationService;
+        this.salesLedgerService = salesLedgerService;
+        this.settlementReconciliationService = settlementReconciliationService;
     }
 
     @Override
@@ -113,6 +120,11 @@ public class ReportServiceImpl implements ReportService {
 
         final List<EventEntity> eventEntityList = eventRepository.findAllByEventEndTimeGreaterThanEqualAndEventEndTimeLessThanEqual(yesterdayStart.toOffsetDateTime(), yesterdayEnd.toOffsetDateTime());
 
+        //Rollups trail checkouts and refunds by up to one rollup run. Drain the queue so the report includes them.
+        if (!eventEntityList.isEmpty()) {
+            salesLedgerService.rollupLedger();
+        }
+
         for (EventEntity eventEntity : eventEntityList) {
             sendEventEndReportForEvent(eventEntity);
         }
@@ -126,64 +138,18 @@ public class ReportServiceImpl implements ReportService {
      */
     private void sendEventEndReportForEvent(EventEntity eventEntity) {
 
-        int numTicketsPurchased = 0;
-        int numTicketsRefunded = 0;
-
-        BigDecimal venueTicketSubtotal = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
-        BigDecimal venueFees = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
-        BigDecimal paymentGatewayCharges = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
-        BigDecimal issuerRevenue = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
-
-        List<OrderEntity> orders = orderRepository.findAllByEventId(eventEntity.getId().toString());
-
-        for (OrderEntity orderEntity : orders) {
-
-            //Setup Fees
-            final Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
-            for (OrderFeeEntryEntity orderFee : orderEntity.getFees()) {
-                feeSet.add(orderFee.getTicketFeeConfigEntity());
-            }
-
-            //Load tickets for order
-            int numPaidTickets = 0;
-            BigDecimal ticketsSubtotal = BigDecimal.ZERO;
-
-            Set<OrderTicketEntryEntity> orderTicketEntryEntities = orderEntity.getTickets();
-            for (OrderTicketEntryEntity orderTicketEntryEntity : orderTicketEntryEntities) {
+        //Totals come from the rollup job, drained just before the report runs, so this is a single row read.
+        final EventSalesRollupEntity eventSales = salesLedgerService.getEventSales(eventEntity.getId());
 
-                final TicketEntity ticketEntity = orderTicketEntryEntity.getTicketEntity();
+        final int numTicketsPurchased = eventSales.getTicketsSold();
+        final int numTicketsRefunded = eventSales.getTicketsRefunded();
 
-                //Skip non USD tickets.
-                if (!ticketEntity.getTicketTypeConfigEntity().getCurrency().equalsIgnoreCase("USD")) {
-                    LOG.warn("Ticket ID: {} is not in USD. Skipping calculation.", ticketEntity.getId());
-                    continue;
-                }
+        final BigDecimal venueTicketSubtotal = eventSales.getTicketSubtotal().setScale(2, RoundingMode.FLOOR);
+        final BigDecimal venueFees = eventSales.getVenueFee().setScale(2, RoundingMode.FLOOR);
+        final BigDecimal issuerRevenue = eventSales.getIssuerFee().setScale(2, RoundingMode.FLOOR);
 
-                //Skip Free tickets.
-                final BigDecimal ticketSubtotal = ticketEntity.getTicketTypeConfigEntity().getPrice();
-                if (ticketSubtotal.compareTo(BigDecimal.ZERO) <= 0) {
-                    continue;
-                }
-
-                numPaidTickets++;
-                ticketsSubtotal = ticketsSubtotal.add(ticketSubtotal);
-            }
-
-            final CalculationServiceImpl.PriceCalculationInfo pInfo = calculationService.calculateFees(numPaidTickets, ticketsSubtotal, feeSet, false);
-            if (orderEntity.getStatus() != OrderEntity.Status.CANCELED) {
-
-                issuerRevenue = issuerRevenue.add(pInfo.issuerFeeSubtotal);
-                venueTicketSubtotal = venueTicketSubtotal.add(pInfo.ticketSubtotal);
-                venueFees = venueFees.add(pInfo.venueFeeSubtotal);
-                numTicketsPurchased += numPaidTickets;
-
-            } else {
-
-                //Subtract the payment (Stripe) fee from their revenue.
-                paymentGatewayCharges = paymentGatewayCharges.add( (pInfo.paymentFeeSubtotal).negate() );
-                numTicketsRefunded += numPaidTickets;
-            }
-        }
+        //Subtract the payment (Stripe) fee of refunded orders from their revenue.
+        final BigDecimal paymentGatewayCharges = eventSales.getRefundedPaymentFee().negate().setScale(2, RoundingMode.FLOOR);
 
         final BigDecimal netAmount = issuerRevenue.add(venueTicketSubtotal).add(venueFees).add(paymentGatewayCharges);
 
@@ -263,60 +229,54 @@ public class ReportServiceImpl implements ReportService {
         BigDecimal foriaRevenueAmount = BigDecimal.ZERO;
         BigDecimal venueRevenueAmount = BigDecimal.ZERO;
 
-        int numCharges = 0;
-        int numRefunds = 0;
-
         final List<OrderReportRow> orderReportRows = new ArrayList<>();
         final List<OrderReportRow> refundReportRows = new ArrayList<>();
 
-        boolean isTransactionMissing = false;
-        for (BalanceTransaction refund : refunds) {
-
-            OrderEntity orderEntity = orderRepository.findByRefundReferenceId(refund.getSource());
+        //Check that we have record for every transaction. Lookups are batched and charges and refunds run in parallel.
+        final SettlementReconciliationService.ReconciliationResult reconciliation = settlementReconciliationService.reconcile(charges, refunds);
+        boolean isTransactionMissing = reconciliation.isTransactionMissing();
+        for (BalanceTransaction refund : reconciliation.getUnmatchedRefunds()) {
+            LOG.warn("Transaction with refundRefId: {} is not found in order table.", refund.getSource());
+        }
+        for (BalanceTransaction balanceTransaction : reconciliation.getUnmatchedCharges()) {
+            LOG.warn("Transaction with chargeRefId: {} is not found in order table.", balanceTransaction.getSource());
+        }
 
-            if (orderEntity == null) {
-                isTransactionMissing = true;
-                LOG.warn("Transaction with refundRefId: {} is not found in order table.", refund.getSource());
-                continue;
-            }
+        final int numCharges = reconciliation.getCharges().size();
+        final int numRefunds = reconciliation.getRefunds().size();
 
-            numRefunds++;
+        final List<OrderEntity> matchedOrders = new ArrayList<>();
+        for (SettlementReconciliationService.Match match : reconciliation.getRefunds()) {
 
+            final OrderEntity orderEntity = match.getOrderEntity();
             if (orderEntity.getStatus() != OrderEntity.Status.CANCELED) {
-                LOG.error("Stripe transaction marked as REFUND but order is not canceled. Order ID: {} - Refund ID: {}", orderEntity.getId(), refund.getSource());
+                LOG.error("Stripe transaction marked as REFUND but order is not canceled. Order ID: {} - Refund ID: {}", orderEntity.getId(), match.getTransaction().getSource());
             }
+            matchedOrders.add(orderEntity);
+        }
+        for (SettlementReconciliationService.Match match : reconciliation.getCharges()) {
+            matchedOrders.add(match.getOrderEntity());
+        }
+
+        //Fees were recorded at checkout. Load them for every matched order in one read.
+        final Map<UUID, OrderLedgerEntity> ledgerEntries = salesLedgerService.getLedgerEntries(matchedOrders);
 
-            //Setup Fees
-            final Set<OrderFeeEntryEntity> orderFeeEntryEntities = orderEntity.getFees();
-            final Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
-            for (OrderFeeEntryEntity orderFee : orderFeeEntryEntities) {
-                feeSet.add(orderFee.getTicketFeeConfigEntity());
+        for (SettlementReconciliationService.Match match : reconciliation.getRefunds()) {
+
+            final BalanceTransaction refund = match.getTransaction();
+            final OrderEntity orderEntity = match.getOrderEntity();
+            final OrderLedgerEntity ledger = ledgerEntries.get(orderEntity.getId());
+            if (ledger == null) {
+                isTransactionMissing = true;
+                LOG.warn("Order ID: {} has no ledger entry. Skipping refund: {}", orderEntity.getId(), refund.getSource());
+                continue;
             }
 
             //Subtract confirmed refunds from settlement total.
             final BigDecimal refundAmount = BigDecimal.valueOf(refund.getAmount()).movePointLeft(2);
 
-            BigDecimal ticketSubtotal = BigDecimal.ZERO;
-            int numPaidTickets = 0;
-            for (OrderTicketEntryEntity orderTicketEntryEntity : orderEntity.getTickets()) {
-
-                TicketEntity ticket = orderTicketEntryEntity.getTicketEntity();
-
-                if (!ticket.getTicketTypeConfigEntity().getCurrency().equalsIgnoreCase("USD")) {
-                    LOG.warn("Ticket ID: {} is not in USD. Skipping calculation.", ticket.getId());
-                    continue;
-                }
-
-                //Check ticket to see if it's free to skip FLAT fee apply.
-                if (ticket.getTicketTypeConfigEntity().getPrice().compareTo(BigDecimal.ZERO) > 0) {
-                    numPaidTickets++;
-                    ticketSubtotal = ticketSubtotal.add(ticket.getTicketTypeConfigEntity().getPrice());
-                }
-            }
-
-            CalculationServiceImpl.PriceCalculationInfo pInfo = calculationService.calculateFees(numPaidTickets, ticketSubtotal, feeSet, false);
-            foriaRevenueAmount = foriaRevenueAmount.add(pInfo.issuerFeeSubtotal.negate());
-            venueRevenueAmount = venueRevenueAmount.add( (pInfo.venueFeeSubtotal.add(pInfo.ticketSubtotal).add(pInfo.paymentFeeSubtotal)).negate() );
+            foriaRevenueAmount = foriaRevenueAmount.add(ledger.getIssuerFee().negate());
+            venueRevenueAmount = venueRevenueAmount.add( (ledger.getVenueFee().add(ledger.getTicketSubtotal()).add(ledger.getPaymentFee())).negate() );
 
             //Build refund report entry.
             final OrderReportRow refundReportRow = new OrderReportRow();
@@ -328,58 +288,31 @@ public class ReportServiceImpl implements ReportService {
             refundReportRow.setChargeAmount(refundAmount.toPlainString());
             refundReportRow.setPaymentFeeAmount(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP).toPlainString());
             refundReportRow.setNetAmount(refundAmount.toPlainString());
-            refundReportRow.setTicketSubtotal(ticketSubtotal.negate().toPlainString());
-            refundReportRow.setIssuerFeeAmount(pInfo.issuerFeeSubtotal.negate().toPlainString());
-            refundReportRow.setVenueFeeAmount( (pInfo.venueFeeSubtotal.add(pInfo.paymentFeeSubtotal) ).negate().toPlainString());
+            refundReportRow.setTicketSubtotal(ledger.getTicketSubtotal().negate().toPlainString());
+            refundReportRow.setIssuerFeeAmount(ledger.getIssuerFee().negate().toPlainString());
+            refundReportRow.setVenueFeeAmount( (ledger.getVenueFee().add(ledger.getPaymentFee()) ).negate().toPlainString());
             refundReportRow.setCurrency(orderEntity.getCurrency());
             refundReportRows.add(refundReportRow);
         }
 
-        //Check that we have record for every transaction
-        for (BalanceTransaction balanceTransaction : charges) {
+        for (SettlementReconciliationService.Match match : reconciliation.getCharges()) {
 
-            OrderEntity orderEntity = orderRepository.findByChargeReferenceId(balanceTransaction.getSource());
-            if (orderEntity == null) {
+            final BalanceTransaction balanceTransaction = match.getTransaction();
+            final OrderEntity orderEntity = match.getOrderEntity();
+            final OrderLedgerEntity ledger = ledgerEntries.get(orderEntity.getId());
+            if (ledger == null) {
                 isTransactionMissing = true;
-                LOG.warn("Transaction with chargeRefId: {} is not found in order table.", balanceTransaction.getSource());
+                LOG.warn("Order ID: {} has no ledger entry. Skipping charge: {}", orderEntity.getId(), balanceTransaction.getSource());
                 continue;
             }
 
-            numCharges++;
-
-            //Setup Fees
-            final Set<OrderFeeEntryEntity> orderFeeEntryEntities = orderEntity.getFees();
-            final Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
-            for (OrderFeeEntryEntity orderFee : orderFeeEntryEntities) {
-                feeSet.add(orderFee.getTicketFeeConfigEntity());
-            }
-
             //Checking net amount against settlement amount catches ledger mismatch.
             final BigDecimal chargeAmount = BigDecimal.valueOf(balanceTransaction.getAmount()).movePointLeft(2);
             final BigDecimal paymentFeeAmount = BigDecimal.valueOf(balanceTransaction.getFee()).movePointLeft(2);
             final BigDecimal netAmount = BigDecimal.valueOf(balanceTransaction.getNet()).movePointLeft(2);
 
-            BigDecimal ticketSubtotal = BigDecimal.ZERO;
-            int numPaidTickets = 0;
-            for (OrderTicketEntryEntity orderTicketEntryEntity : orderEntity.getTickets()) {
-
-                TicketEntity ticket = orderTicketEntryEntity.getTicketEntity();
-
-                if (!ticket.getTicketTypeConfigEntity().getCurrency().equalsIgnoreCase("USD")) {
-                    LOG.warn("Ticket ID: {} is not in USD. Skipping calculation.", ticket.getId());
-                    continue;
-                }
-
-                //Check ticket to see if it's free to skip FLAT fee apply.
-                if (ticket.getTicketTypeConfigEntity().getPrice().compareTo(BigDecimal.ZERO) > 0) {
-                    numPaidTickets++;
-                    ticketSubtotal = ticketSubtotal.add(ticket.getTicketTypeConfigEntity().getPrice());
-                }
-            }
-
-            CalculationServiceImpl.PriceCalculationInfo pInfo = calculationService.calculateFees(numPaidTickets, ticketSubtotal, feeSet, false);
-            foriaRevenueAmount = foriaRevenueAmount.add(pInfo.issuerFeeSubtotal);
-            venueRevenueAmount = venueRevenueAmount.add((pInfo.venueFeeSubtotal.add(pInfo.ticketSubtotal)));
+            foriaRevenueAmount = foriaRevenueAmount.add(ledger.getIssuerFee());
+            venueRevenueAmount = venueRevenueAmount.add((ledger.getVenueFee().add(ledger.getTicketSubtotal())));
 
             //Build report entry.
             final OrderReportRow orderReportRow = new OrderReportRow();
@@ -391,15 +324,28 @@ public class ReportServiceImpl implements ReportService {
             orderReportRow.setChargeAmount(chargeAmount.toPlainString());
             orderReportRow.setPaymentFeeAmount(paymentFeeAmount.toPlainString());
             orderReportRow.setNetAmount(netAmount.toPlainString());
-            orderReportRow.setTicketSubtotal(ticketSubtotal.toPlainString());
-            orderReportRow.setIssuerFeeAmount(pInfo.issuerFeeSubtotal.toPlainString());
-            orderReportRow.setVenueFeeAmount(pInfo.venueFeeSubtotal.toPlainString());
+            orderReportRow.setTicketSubtotal(ledger.getTicketSubtotal().toPlainString());
+            orderReportRow.setIssuerFeeAmount(ledger.getIssuerFee().toPlainString());
+            orderReportRow.setVenueFeeAmount(ledger.getVenueFee().toPlainString());
             orderReportRow.setCurrency(orderEntity.getCurrency());
             orderReportRows.add(orderReportRow);
         }
 
         totalExpectedAmount = totalExpectedAmount.add((foriaRevenueAmount.add(venueRevenueAmount)));
 
+        //Week of sales before the payout from the daily rollups. Gives a sense of volume alongside the settlement.
+        final LocalDate ledgerEndDate = nowInPST.toLocalDate().minusDays(1L);
+        int ledgerTicketsSold = 0;
+        int ledgerTicketsRefunded = 0;
+        BigDecimal ledgerIssuerFees = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
+        BigDecimal ledgerVenueRevenue = BigDecimal.ZERO.setScale(2, RoundingMode.FLOOR);
+        for (DailySalesRollupEntity dailySales : salesLedgerService.getDailySales(ledgerEndDate.minusDays(6L), ledgerEndDate)) {
+            ledgerTicketsSold += dailySales.getTicketsSold();
+            ledgerTicketsRefunded += dailySales.getTicketsRefunded();
+            ledgerIssuerFees = ledgerIssuerFees.add(dailySales.getIssuerFee());
+            ledgerVenueRevenue = ledgerVenueRevenue.add(dailySales.getTicketSubtotal()).add(dailySales.getVenueFee()).subtract(dailySales.getRefundedPaymentFee());
+        }
+
         final Date settlementDate = new Date(payout.getArrivalDate() * 1000);
 
         String reportStr = String.join(
@@ -419,6 +365,11 @@ public class ReportServiceImpl implements ReportService {
                 "Foria Revenue Amount (Foria Fees Collected On Tickets - Transfer/Keep this to Foria Operating Account): " + foriaRevenueAmount.toPlainString() + " " + payout.getCurrency(),
                 "Venue Revenue Amount (Venue Ticket Rev plus Venue Fees) - Transfer this to Venue ITF Account): " + venueRevenueAmount.toPlainString() + " " + payout.getCurrency(),
                 MAIL_DELIMITER,
+                "Tickets Sold Past 7 Days (Sales Ledger): " + ledgerTicketsSold,
+                "Tickets Refunded Past 7 Days (Sales Ledger): " + ledgerTicketsRefunded,
+                "Foria Fees Past 7 Days (Sales Ledger): " + ledgerIssuerFees.toPlainString() + " USD",
+                "Venue Revenue Past 7 Days (Sales Ledger): " + ledgerVenueRevenue.toPlainString() + " USD",
+                MAIL_DELIMITER,
                 "Signed,",
                 "Foria API Server",
                 "CONFIDENTIAL - DO NOT FORWARD",
@@ -501,31 +452,25 @@ public class ReportServiceImpl implements ReportService {
                     venueEntity.getContactZip();
             final String eventName = eventEntity.getName();
 
-            final HashSet<String> uniqueAttendees = new HashSet<>();
+            final Set<String> uniqueAttendees = new HashSet<>();
             for (TicketEntity ticketEntity : tickets) {
+                uniqueAttendees.add(ticketEntity.getOwnerEntity().getEmail());
+            }
 
-                final Map<String, String> templateData = new HashMap<>();
-
-                final UserEntity ticketHolder = ticketEntity.getOwnerEntity();
-                final String email = ticketHolder.getEmail();
-
-                if (uniqueAttendees.contains(email)) {
-                    continue;
-                }
-
-                uniqueAttendees.add(email);
+            final Map<String, String> templateData = new HashMap<>();
+            templateData.put("eventName", eventName);
+            templateData.put("eventDate", eventStartDate);
+            templateData.put("eventStartTime", eventStartTime);
+            templateData.put("eventLocation", locationName);
+            templateData.put("eventAddress", locationAddress);
+            templateData.put("eventId", eventEntity.getId().toString());
 
-                templateData.put("eventName", eventName);
-                templateData.put("eventDate", eventStartDate);
-                templateData.put("eventStartTime", eventStartTime);
-                templateData.put("eventLocation", locationName);
-                templateData.put("eventAddress", locationAddress);
-                templateData.put("eventId", eventEntity.getId().toString());
+            final AWSSimpleEmailServiceGateway.BulkEmailResult result = awsSimpleEmailServiceGateway
+                    .sendBulkEmailFromTemplate(uniqueAttendees, GENERAL_EVENT_REMINDER_TEMPLATE, templateData)
+                    .join();
 
-                awsSimpleEmailServiceGateway.sendEmailFromTemplate(email, GENERAL_EVENT_REMINDER_TEMPLATE, templateData);
-            }
-
-            LOG.info("{} emails sent for eventID: {}", uniqueAttendees.size(), eventEntity.getId());
+            LOG.info("Reminder emails for eventID: {} - Delivered: {} Throttled: {} Failed: {}",
+                    eventEntity.getId(), result.getDelivered(), result.getThrottled(), result.getFailed());
         }
 
         LOG.debug("GeneralEventReminderEmail completed at: {}", OffsetDateTime.now().format(DATE_TIME_FORMAT));
@@ -541,93 +486,101 @@ public class ReportServiceImpl implements ReportService {
 
         LOG.info("Generating DailyTicketPurchaseReport with START_TIME: {} and END_TIME: {}", startDateTime, endDateTime);
 
-        final List<OrderEntity> orders = orderRepository
-                .findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(startDateTime.toOffsetDateTime(), endDateTime.toOffsetDateTime());
-
-        if (orders == null || orders.isEmpty()) {
-            LOG.info("No orders were completed yesterday. Skipping report generation.");
-            final String reportText = "Nothing to report for today.";
-            awsSimpleEmailServiceGateway.sendInternalReport("DailyTicketPurchaseReport", reportText, null);
-            return;
-        }
+        //Rows are encoded straight into a compressed temp file so heap use stays flat as order volume grows.
+        File reportFile = null;
+        try {
+            reportFile = File.createTempFile("TicketPurchaseReport", ".csv.gz");
 
-        final List<TicketRow> ticketRows = new ArrayList<>();
-        for (OrderEntity orderEntity : orders) {
+            long numRows;
+            try (Stream<Object[]> rows = orderRepository.streamTicketReportRows(startDateTime.toOffsetDateTime(), endDateTime.toOffsetDateTime());
+                 Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(reportFile)), StandardCharsets.UTF_8))) {
+                numRows = writeTicketRows(rows, writer);
+            }
 
-            final Set<OrderTicketEntryEntity> tickets = orderEntity.getTickets();
-            if (tickets == null || tickets.isEmpty()) {
-                LOG.info("Skipping orderID: {} because it has no tickets.", orderEntity.getId());
-                continue;
+            if (numRows == 0) {
+                LOG.info("No orders were completed yesterday. Skipping report generation.");
+                final String reportText = "Nothing to report for today.";
+                awsSimpleEmailServiceGateway.sendInternalReport("DailyTicketPurchaseReport", reportText, null);
+                return;
             }
 
-            for (OrderTicketEntryEntity ticket : tickets) {
-
-                final TicketEntity ticketEntity = ticket.getTicketEntity();
-                final EventEntity eventEntity = ticketEntity.getEventEntity();
-                final TicketTypeConfigEntity ticketTypeConfig = ticketEntity.getTicketTypeConfigEntity();
-
-                final ZonedDateTime issuedDate = ticketEntity.getIssuedDate().toZonedDateTime().withZoneSameInstant(ZoneId.of("America/Los_Angeles"));
-
-                TicketRow ticketRow = new TicketRow();
-                ticketRow
-                        .setTicketId(ticketEntity.getId().toString())
-                        .setEventId(eventEntity.getId().toString())
-                        .setEventName(eventEntity.getName())
-                        .setVenueId(eventEntity.getVenueEntity().getId().toString())
-                        .setUserId(ticketEntity.getPurchaserEntity().getId().toString())
-                        .setOrderId(orderEntity.getId().toString())
-                        .setIssueDateTime(issuedDate.format(DATE_FORMAT))
-                        .setTicketConfigId(ticketTypeConfig.getId().toString())
-                        .setTicketConfigName(ticketTypeConfig.getName())
-                        .setTicketConfigPrice(ticketTypeConfig.getPrice().toPlainString())
-                        .setTicketConfigCurrency(ticketTypeConfig.getCurrency())
-                        .setTicketStatus(ticketEntity.getStatus().name());
-                ticketRows.add(ticketRow);
+            final String bodyText = "### INTERNAL FORIA REPORT ### - " +
+                    "TicketPurchaseReport" +
+                    "\r\n" +
+                    "Report Generated at: " +
+                    ZonedDateTime.now().withZoneSameInstant(ZoneId.of("America/Los_Angeles")).toString() +
+                    "\r\n" +
+                    "\r\n" +
+                    "Report is attached as a compressed CSV that can be opened in Google Sheets / Excel." +
+                    "\r\n" +
+                    "\r\n" +
+                    "Signed," +
+                    "\r\n" +
+                    "Foria API Server" +
+                    "\r\n" +
+                    "\r\n" +
+                    "CONFIDENTIAL - DO NOT FORWARD" +
+                    "\r\n";
+
+            final List<AWSSimpleEmailServiceGateway.ReportAttachment> reportAttachmentList = new ArrayList<>();
+            final AWSSimpleEmailServiceGateway.ReportAttachment reportAttachment = new AWSSimpleEmailServiceGateway.ReportAttachment();
+            reportAttachment.reportFile = reportFile;
+            reportAttachment.reportFilename = "TicketPurchaseReport.csv.gz";
+            reportAttachment.reportMimeType = "application/gzip";
+            reportAttachmentList.add(reportAttachment);
+
+            awsSimpleEmailServiceGateway.sendInternalReport("Ticket Purchase Report", bodyText, reportAttachmentList);
+            LOG.info("Ticket purchase report with {} rows generated and sent at: {}", numRows, LocalDateTime.now());
+
+        } catch (IOException | CsvDataTypeMismatchException | CsvRequiredFieldEmptyException ex) {
+            LOG.error("Failed to generate TicketPurchaseReport. Error: {}", ex.getMessage());
+        } finally {
+            if (reportFile != null && !reportFile.delete()) {
+                LOG.warn("Failed to delete temp report file: {}", reportFile.getAbsolutePath());
             }
         }
+    }
 
-        final String bodyText = "### INTERNAL FORIA REPORT ### - " +
-                "TicketPurchaseReport" +
-                "\r\n" +
-                "Report Generated at: " +
-                ZonedDateTime.now().withZoneSameInstant(ZoneId.of("America/Los_Angeles")).toString() +
-                "\r\n" +
-                "\r\n" +
-                "Report is attached as a CSV that can be opened in Google Sheets / Excel." +
-                "\r\n" +
-                "\r\n" +
-                "Signed," +
-                "\r\n" +
-                "Foria API Server" +
-                "\r\n" +
-                "\r\n" +
-                "CONFIDENTIAL - DO NOT FORWARD" +
-                "\r\n";
+    /**
+     * Encodes each streamed row as it is read. Only one row is held at a time.
+     *
+     * @return Number of rows written.
+     */
+    private long writeTicketRows(Stream<Object[]> rows, Writer writer) throws CsvDataTypeMismatchException, CsvRequiredFieldEmptyException {
 
-        final CharArrayWriter writer = new CharArrayWriter();
         final CustomMappingStrategy<TicketRow> mappingStrategy = new CustomMappingStrategy<>();
         mappingStrategy.setType(TicketRow.class);
-        StatefulBeanToCsv<TicketRow> sbc = new StatefulBeanToCsvBuilder<TicketRow>(writer)
+        final StatefulBeanToCsv<TicketRow> sbc = new StatefulBeanToCsvBuilder<TicketRow>(writer)
                 .withSeparator(CSVWriter.DEFAULT_SEPARATOR)
                 .withMappingStrategy(mappingStrategy)
                 .build();
 
-        try {
-            sbc.write(ticketRows);
-            writer.close();
-        } catch (Exception ex) {
-            LOG.error("Failed to generate TicketPurchaseReport. Error: {}" + ex.getMessage());
-            ex.printStackTrace();
-            return;
+        long numRows = 0;
+        final Iterator<Object[]> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+
+            final Object[] row = iterator.next();
+            final ZonedDateTime issuedDate = ((OffsetDateTime) row[6]).toZonedDateTime().withZoneSameInstant(ZoneId.of("America/Los_Angeles"));
+
+            TicketRow ticketRow = new TicketRow();
+            ticketRow
+                    .setTicketId(row[0].toString())
+                    .setEventId(row[1].toString())
+                    .setEventName((String) row[2])
+                    .setVenueId(row[3].toString())
+                    .setUserId(row[4].toString())
+                    .setOrderId(row[5].toString())
+                    .setIssueDateTime(issuedDate.format(DATE_FORMAT))
+                    .setTicketConfigId(row[7].toString())
+                    .setTicketConfigName((String) row[8])
+                    .setTicketConfigPrice(((BigDecimal) row[9]).toPlainString())
+                    .setTicketConfigCurrency((String) row[10])
+                    .setTicketStatus(((TicketEntity.Status) row[11]).name());
+
+            sbc.write(ticketRow);
+            numRows++;
         }
 
-        final List<AWSSimpleEmailServiceGateway.ReportAttachment> reportAttachmentList = new ArrayList<>();
-        final AWSSimpleEmailServiceGateway.ReportAttachment reportAttachment = new AWSSimpleEmailServiceGateway.ReportAttachment();
-        reportAttachment.reportDataArray = writer.toString().getBytes(StandardCharsets.UTF_8);
-        reportAttachment.reportFilename = "TicketPurchaseReport.csv";
-        reportAttachmentList.add(reportAttachment);
-
-        awsSimpleEmailServiceGateway.sendInternalReport("Ticket Purchase Report", bodyText, reportAttachmentList);
-        LOG.info("Ticket purchase report generated and sent at: {}", LocalDateTime.now());
+        return numRows;
     }
 }
@@ -0,0 +1,75 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.DailySalesRollupEntity;
+import com.foriatickets.foriabackend.entities.EventSalesRollupEntity;
+import com.foriatickets.foriabackend.entities.OrderEntity;
+import com.foriatickets.foriabackend.entities.OrderLedgerEntity;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps a fee ledger with one entry per order, plus running sales totals per event and per day.
+ *
+ * Checkout writes the entry with the fees it charged and a refund flips it, both in the caller's transaction.
+ * A scheduled job folds new sales and refunds into the rollups, so reports read totals instead of recalculating
+ * every order and checkout never touches a shared rollup row. Rollups trail the ledger by one job interval.
+ * Only USD orders count towards the rollups. Orders that predate the ledger are backfilled from the order graph.
+ *
+ * @author Corbin Schwalm
+ */
+public interface SalesLedgerService {
+
+    /**
+     * Writes the ledger entry for a completed checkout and queues it for the rollups.
+     *
+     * @param orderEntity Saved order.
+     * @param eventId Event the tickets belong to.
+     * @param numPaidTickets Number of non-free tickets in the order.
+     * @param priceCalculationInfo Fee breakdown that was charged.
+     */
+    void recordOrder(OrderEntity orderEntity, UUID eventId, int numPaidTickets, CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo);
+
+    /**
+     * Marks the order's entry refunded and queues the refund for the rollups. No-op if already refunded.
+     * Orders without an entry are ledgered from the order graph, which must already be canceled.
+     *
+     * @param orderEntity Order being refunded.
+     */
+    void recordRefund(OrderEntity orderEntity);
+
+    /**
+     * @param eventId Event to load.
+     * @return Totals for the event. Zero if nothing was sold.
+     */
+    EventSalesRollupEntity getEventSales(UUID eventId);
+
+    /**
+     * @param startDate First day, inclusive.
+     * @param endDate Last day, inclusive.
+     * @return Totals for each day that had sales or refunds.
+     */
+    List<DailySalesRollupEntity> getDailySales(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Loads ledger entries for the orders in a single read. Entries missing for an order are calculated but not saved.
+     *
+     * @param orderEntities Orders to load.
+     * @return Map of order ID to entry. Orders without tickets are left out.
+     */
+    Map<UUID, OrderLedgerEntity> getLedgerEntries(Collection<OrderEntity> orderEntities);
+
+    /**
+     * Ledgers every order placed before the ledger existed. Each page commits on its own. Orders without tickets
+     * are skipped and stay unledgered.
+     */
+    void backfillLedger();
+
+    /**
+     * Adds every queued sale and refund to the event and daily rollups. Each batch commits on its own.
+     */
+    void rollupLedger();
+}
@@ -0,0 +1,341 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.repositories.DailySalesRollupRepository;
+import com.foriatickets.foriabackend.repositories.EventSalesRollupRepository;
+import com.foriatickets.foriabackend.repositories.OrderLedgerRepository;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Transactional
+public class SalesLedgerServiceImpl implements SalesLedgerService {
+
+    private static final ZoneId REPORT_ZONE = ZoneId.of("America/Los_Angeles");
+
+    private static final String ROLLUP_CURRENCY = "USD";
+
+    private static final int BACKFILL_PAGE_SIZE = 100;
+
+    private static final int ROLLUP_BATCH_SIZE = 500;
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final CalculationService calculationService;
+
+    private final DailySalesRollupRepository dailySalesRollupRepository;
+
+    private final EventSalesRollupRepository eventSalesRollupRepository;
+
+    private final OrderLedgerRepository orderLedgerRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public SalesLedgerServiceImpl(CalculationService calculationService,
+                                  DailySalesRollupRepository dailySalesRollupRepository,
+                                  EventSalesRollupRepository eventSalesRollupRepository,
+                                  OrderLedgerRepository orderLedgerRepository,
+                                  OrderRepository orderRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.calculationService = calculationService;
+        this.dailySalesRollupRepository = dailySalesRollupRepository;
+        this.eventSalesRollupRepository = eventSalesRollupRepository;
+        this.orderLedgerRepository = orderLedgerRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void recordOrder(OrderEntity orderEntity, UUID eventId, int numPaidTickets, CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo) {
+
+        final OrderLedgerEntity orderLedgerEntity = buildEntry(orderEntity, eventId, priceCalculationInfo.currencyCode, numPaidTickets, priceCalculationInfo);
+        orderLedgerRepository.save(orderLedgerEntity);
+    }
+
+    @Override
+    public void recordRefund(OrderEntity orderEntity) {
+
+        final Optional<OrderLedgerEntity> orderLedgerEntity = orderLedgerRepository.findById(orderEntity.getId());
+        if (!orderLedgerEntity.isPresent()) {
+            LOG.info("Order ID: {} predates the ledger. Ledgering as refunded.", orderEntity.getId());
+            final OrderLedgerEntity calculatedEntry = calculateEntry(orderEntity);
+            if (calculatedEntry != null) {
+                orderLedgerRepository.save(calculatedEntry);
+            }
+            return;
+        }
+
+        if (orderLedgerRepository.markRefunded(orderEntity.getId(), OffsetDateTime.now()) != 1) {
+            LOG.info("Ledger entry for order ID: {} is already refunded.", orderEntity.getId());
+        }
+    }
+
+    @Override
+    public EventSalesRollupEntity getEventSales(UUID eventId) {
+        return eventSalesRollupRepository.findById(eventId).orElse(new EventSalesRollupEntity().setId(eventId));
+    }
+
+    @Override
+    public List<DailySalesRollupEntity> getDailySales(LocalDate startDate, LocalDate endDate) {
+        return dailySalesRollupRepository.findAllByIdBetweenOrderByIdAsc(startDate, endDate);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, OrderLedgerEntity> getLedgerEntries(Collection<OrderEntity> orderEntities) {
+
+        final List<UUID> orderIds = new ArrayList<>(orderEntities.size());
+        for (OrderEntity orderEntity : orderEntities) {
+            orderIds.add(orderEntity.getId());
+        }
+
+        final Map<UUID, OrderLedgerEntity> orderLedgerMap = new HashMap<>();
+        for (OrderLedgerEntity orderLedgerEntity : orderLedgerRepository.findAllById(orderIds)) {
+            orderLedgerMap.put(orderLedgerEntity.getId(), orderLedgerEntity);
+        }
+
+        for (OrderEntity orderEntity : orderEntities) {
+
+            if (orderLedgerMap.containsKey(orderEntity.getId())) {
+                continue;
+            }
+
+            //Calculated for the report only. The backfill job writes the entry.
+            final OrderLedgerEntity orderLedgerEntity = calculateEntry(orderEntity);
+            if (orderLedgerEntity != null) {
+                orderLedgerMap.put(orderLedgerEntity.getId(), orderLedgerEntity);
+            }
+        }
+
+        return orderLedgerMap;
+    }
+
+    @Override
+    @Scheduled(cron = "${sales-ledger-backfill-cron:-}")
+    @SchedulerLock(name = "sales-ledger-backfill")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillLedger() {
+
+        LOG.info("Starting sales ledger backfill.");
+
+        final AtomicInteger numLedgered = new AtomicInteger();
+        UUID afterOrderId = new UUID(0L, 0L);
+        while (afterOrderId != null) {
+            final UUID pageStart = afterOrderId;
+            afterOrderId = transactionTemplate.execute(status -> backfillPage(pageStart, numLedgered));
+        }
+
+        LOG.info("Sales ledger backfill complete. Ledgered: {}", numLedgered.get());
+    }
+
+    /**
+     * Ledgers the next page of orders without an entry. Orders without tickets are skipped and stay unledgered.
+     *
+     * @param afterOrderId Last order ID of the previous page.
+     * @param numLedgered Incremented for each entry written.
+     * @return Last order ID in the page, or null once no unledgered orders remain.
+     */
+    private UUID backfillPage(UUID afterOrderId, AtomicInteger numLedgered) {
+
+        UUID lastOrderId = null;
+        for (UUID orderId : orderLedgerRepository.findUnledgeredOrderIdsAfter(afterOrderId, PageRequest.of(0, BACKFILL_PAGE_SIZE))) {
+
+            lastOrderId = orderId;
+            final Optional<OrderEntity> orderEntity = orderRepository.findById(orderId);
+            if (!orderEntity.isPresent()) {
+                continue;
+            }
+
+            final OrderLedgerEntity orderLedgerEntity = calculateEntry(orderEntity.get());
+            if (orderLedgerEntity != null) {
+                orderLedgerRepository.save(orderLedgerEntity);
+                numLedgered.incrementAndGet();
+            }
+        }
+
+        return lastOrderId;
+    }
+
+    @Override
+    @Scheduled(cron = "${sales-rollup-cron:-}")
+    @SchedulerLock(name = "sales-rollup")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rollupLedger() {
+
+        int numSales = 0;
+        int numRefunds = 0;
+        Integer numInBatch;
+        do {
+            numInBatch = transactionTemplate.execute(status -> rollupSales());
+            numSales += numInBatch == null ? 0 : numInBatch;
+        } while (numInBatch != null && numInBatch == ROLLUP_BATCH_SIZE);
+
+        do {
+            numInBatch = transactionTemplate.execute(status -> rollupRefunds());
+            numRefunds += numInBatch == null ? 0 : numInBatch;
+        } while (numInBatch != null && numInBatch == ROLLUP_BATCH_SIZE);
+
+        if (numSales > 0 || numRefunds > 0) {
+            LOG.info("Added {} sales and {} refunds to the sales rollups.", numSales, numRefunds);
+        }
+    }
+
+    /**
+     * Adds the oldest batch of pending sales to the rollups.
+     *
+     * @return Number of entries in the batch.
+     */
+    private int rollupSales() {
+
+        final List<OrderLedgerEntity> pendingEntries = orderLedgerRepository.findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc();
+        for (OrderLedgerEntity orderLedgerEntity : pendingEntries) {
+            if (orderLedgerRepository.markSaleRolledUp(orderLedgerEntity.getId()) == 1) {
+                applySale(orderLedgerEntity);
+            }
+        }
+
+        return pendingEntries.size();
+    }
+
+    /**
+     * Adds the oldest batch of pending refunds to the rollups. A refund is only applied after its sale.
+     *
+     * @return Number of entries in the batch.
+     */
+    private int rollupRefunds() {
+
+        final List<OrderLedgerEntity> pendingEntries = orderLedgerRepository.findTop500ByRefundRollupPendingTrueAndSaleRollupPendingFalseOrderByRefundedTimestampAsc();
+        for (OrderLedgerEntity orderLedgerEntity : pendingEntries) {
+            if (orderLedgerRepository.markRefundRolledUp(orderLedgerEntity.getId()) == 1) {
+                applyRefund(orderLedgerEntity, orderLedgerEntity.getRefundedTimestamp());
+            }
+        }
+
+        return pendingEntries.size();
+    }
+
+    /**
+     * Recalculates the fees of an order from its tickets and the fees applied at checkout. Nothing is written.
+     * Canceled orders are ledgered as sold and refunded on the day of the order, since the refund date is unknown.
+     *
+     * @return The entry or null if the order has no tickets.
+     */
+    private OrderLedgerEntity calculateEntry(OrderEntity orderEntity) {
+
+        final Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+        for (OrderFeeEntryEntity orderFee : orderEntity.getFees()) {
+            feeSet.add(orderFee.getTicketFeeConfigEntity());
+        }
+
+        UUID eventId = null;
+        int numPaidTickets = 0;
+        BigDecimal ticketSubtotal = BigDecimal.ZERO;
+        for (OrderTicketEntryEntity orderTicketEntryEntity : orderEntity.getTickets()) {
+
+            final TicketEntity ticketEntity = orderTicketEntryEntity.getTicketEntity();
+            eventId = ticketEntity.getEventEntity().getId();
+
+            if (!ticketEntity.getTicketTypeConfigEntity().getCurrency().equalsIgnoreCase(ROLLUP_CURRENCY)) {
+                LOG.warn("Ticket ID: {} is not in USD. Skipping calculation.", ticketEntity.getId());
+                continue;
+            }
+
+            //Check ticket to see if it's free to skip FLAT fee apply.
+            final BigDecimal price = ticketEntity.getTicketTypeConfigEntity().getPrice();
+            if (price.compareTo(BigDecimal.ZERO) > 0) {
+                numPaidTickets++;
+                ticketSubtotal = ticketSubtotal.add(price);
+            }
+        }
+
+        if (eventId == null) {
+            LOG.warn("Order ID: {} has no tickets. Skipping ledger entry.", orderEntity.getId());
+            return null;
+        }
+
+        final CalculationServiceImpl.PriceCalculationInfo pInfo = calculationService.calculateFees(numPaidTickets, ticketSubtotal, feeSet, false);
+        final OrderLedgerEntity orderLedgerEntity = buildEntry(orderEntity, eventId, orderEntity.getCurrency(), numPaidTickets, pInfo);
+
+        if (orderEntity.getStatus() == OrderEntity.Status.CANCELED) {
+            orderLedgerEntity.setStatus(OrderLedgerEntity.Status.REFUNDED)
+                    .setRefundedTimestamp(orderEntity.getOrderTimestamp())
+                    .setRefundRollupPending(true);
+        }
+
+        return orderLedgerEntity;
+    }
+
+    private OrderLedgerEntity buildEntry(OrderEntity orderEntity, UUID eventId, String currency, int numPaidTickets, CalculationServiceImpl.PriceCalculationInfo pInfo) {
+
+        return new OrderLedgerEntity()
+                .setId(orderEntity.getId())
+                .setEventId(eventId)
+                .setStatus(OrderLedgerEntity.Status.SOLD)
+                .setCurrency(currency)
+                .setNumPaidTickets(numPaidTickets)
+                .setTicketSubtotal(pInfo.ticketSubtotal)
+                .setIssuerFee(pInfo.issuerFeeSubtotal)
+                .setVenueFee(pInfo.venueFeeSubtotal)
+                .setPaymentFee(pInfo.paymentFeeSubtotal)
+                .setOrderTimestamp(orderEntity.getOrderTimestamp())
+                .setSaleRollupPending(true);
+    }
+
+    private void applySale(OrderLedgerEntity orderLedgerEntity) {
+
+        applyDelta(orderLedgerEntity, orderLedgerEntity.getOrderTimestamp(), orderLedgerEntity.getNumPaidTickets(), 0,
+                orderLedgerEntity.getTicketSubtotal(), orderLedgerEntity.getIssuerFee(), orderLedgerEntity.getVenueFee(), orderLedgerEntity.getPaymentFee(), BigDecimal.ZERO);
+    }
+
+    /**
+     * The venue absorbs the payment fee on a refund, so it moves to the refunded column instead of being dropped.
+     */
+    private void applyRefund(OrderLedgerEntity orderLedgerEntity, OffsetDateTime refundedTimestamp) {
+
+        applyDelta(orderLedgerEntity, refundedTimestamp, -orderLedgerEntity.getNumPaidTickets(), orderLedgerEntity.getNumPaidTickets(),
+                orderLedgerEntity.getTicketSubtotal().negate(), orderLedgerEntity.getIssuerFee().negate(), orderLedgerEntity.getVenueFee().negate(), orderLedgerEntity.getPaymentFee().negate(), orderLedgerEntity.getPaymentFee());
+    }
+
+    private void applyDelta(OrderLedgerEntity orderLedgerEntity, OffsetDateTime timestamp, int ticketsSold, int ticketsRefunded,
+                            BigDecimal ticketSubtotal, BigDecimal issuerFee, BigDecimal venueFee, BigDecimal paymentFee, BigDecimal refundedPaymentFee) {
+
+        if (!ROLLUP_CURRENCY.equalsIgnoreCase(orderLedgerEntity.getCurrency())) {
+            LOG.warn("Order ID: {} is not in USD. Skipping rollups.", orderLedgerEntity.getId());
+            return;
+        }
+
+        final UUID eventId = orderLedgerEntity.getEventId();
+        final LocalDate salesDate = timestamp.atZoneSameInstant(REPORT_ZONE).toLocalDate();
+
+        //Rollup rows are only written by the locked rollup job, so creating them here cannot race.
+        if (!eventSalesRollupRepository.existsById(eventId)) {
+            eventSalesRollupRepository.save(new EventSalesRollupEntity().setId(eventId));
+        }
+        eventSalesRollupRepository.applyDelta(eventId, ticketsSold, ticketsRefunded, ticketSubtotal, issuerFee, venueFee, paymentFee, refundedPaymentFee);
+
+        if (!dailySalesRollupRepository.existsById(salesDate)) {
+            dailySalesRollupRepository.save(new DailySalesRollupEntity().setId(salesDate));
+        }
+        dailySalesRollupRepository.applyDelta(salesDate, ticketsSold, ticketsRefunded, ticketSubtotal, issuerFee, venueFee, paymentFee, refundedPaymentFee);
+    }
+}
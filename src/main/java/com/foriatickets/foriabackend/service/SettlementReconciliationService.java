@@ -0,0 +1,92 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.OrderEntity;
+import com.stripe.model.BalanceTransaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Matches Stripe balance transactions to orders.
+ *
+ * Reference IDs are resolved in bounded chunks with one query per chunk. Charges and refunds are matched in
+ * parallel. Orders come back with purchaser, tickets and fees loaded, so callers can use them without a session.
+ *
+ * @author Corbin Schwalm
+ */
+public interface SettlementReconciliationService {
+
+    /**
+     * A Stripe transaction and the order it belongs to.
+     */
+    class Match {
+
+        private final BalanceTransaction transaction;
+        private final OrderEntity orderEntity;
+
+        public Match(BalanceTransaction transaction, OrderEntity orderEntity) {
+            this.transaction = transaction;
+            this.orderEntity = orderEntity;
+        }
+
+        public BalanceTransaction getTransaction() {
+            return transaction;
+        }
+
+        public OrderEntity getOrderEntity() {
+            return orderEntity;
+        }
+    }
+
+    /**
+     * Outcome of matching a set of charges and refunds. Matches keep the order of the input transactions.
+     */
+    class ReconciliationResult {
+
+        private final List<Match> charges;
+        private final List<Match> refunds;
+        private final List<BalanceTransaction> unmatchedCharges;
+        private final List<BalanceTransaction> unmatchedRefunds;
+
+        public ReconciliationResult(List<Match> charges, List<Match> refunds,
+                                    List<BalanceTransaction> unmatchedCharges, List<BalanceTransaction> unmatchedRefunds) {
+            this.charges = Collections.unmodifiableList(new ArrayList<>(charges));
+            this.refunds = Collections.unmodifiableList(new ArrayList<>(refunds));
+            this.unmatchedCharges = Collections.unmodifiableList(new ArrayList<>(unmatchedCharges));
+            this.unmatchedRefunds = Collections.unmodifiableList(new ArrayList<>(unmatchedRefunds));
+        }
+
+        public List<Match> getCharges() {
+            return charges;
+        }
+
+        public List<Match> getRefunds() {
+            return refunds;
+        }
+
+        public List<BalanceTransaction> getUnmatchedCharges() {
+            return unmatchedCharges;
+        }
+
+        public List<BalanceTransaction> getUnmatchedRefunds() {
+            return unmatchedRefunds;
+        }
+
+        /**
+         * @return True if Stripe holds a transaction that has no order.
+         */
+        public boolean isTransactionMissing() {
+            return !unmatchedCharges.isEmpty() || !unmatchedRefunds.isEmpty();
+        }
+    }
+
+    /**
+     * Matches each charge by its charge ID and each refund by its refund ID.
+     *
+     * @param charges Charge transactions from the payout.
+     * @param refunds Refund transactions from the payout.
+     * @return Matched and unmatched transactions.
+     */
+    ReconciliationResult reconcile(List<BalanceTransaction> charges, List<BalanceTransaction> refunds);
+}
@@ -0,0 +1,142 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.OrderEntity;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import com.stripe.model.BalanceTransaction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+@Service
+public class SettlementReconciliationServiceImpl implements SettlementReconciliationService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final OrderRepository orderRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor reconciliationExecutor;
+
+    private final int chunkSize;
+
+    @Autowired
+    public SettlementReconciliationServiceImpl(OrderRepository orderRepository,
+                                               PlatformTransactionManager transactionManager,
+                                               @Value("${reconciliationThreads:4}") int reconciliationThreads,
+                                               @Value("${reconciliationChunkSize:500}") int chunkSize) {
+
+        this.orderRepository = orderRepository;
+        this.chunkSize = chunkSize;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+
+        //Callers run overflow chunks themselves, so a huge payout slows down instead of queueing without bound.
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.reconciliationExecutor = new ThreadPoolExecutor(reconciliationThreads, reconciliationThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(reconciliationThreads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "settlement-reconciliation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconciliationExecutor.shutdownNow();
+    }
+
+    @Override
+    public ReconciliationResult reconcile(List<BalanceTransaction> charges, List<BalanceTransaction> refunds) {
+
+        //Submit both sides before waiting on either so charge and refund chunks run side by side.
+        final List<CompletableFuture<List<OrderEntity>>> chargeChunks = loadInChunks(charges, orderRepository::findAllWithDetailsByChargeReferenceIds);
+        final List<CompletableFuture<List<OrderEntity>>> refundChunks = loadInChunks(refunds, orderRepository::findAllWithDetailsByRefundReferenceIds);
+
+        final Map<String, OrderEntity> ordersByChargeId = new HashMap<>();
+        for (OrderEntity orderEntity : join(chargeChunks)) {
+            ordersByChargeId.put(orderEntity.getChargeReferenceId(), orderEntity);
+        }
+
+        final Map<String, OrderEntity> ordersByRefundId = new HashMap<>();
+        for (OrderEntity orderEntity : join(refundChunks)) {
+            ordersByRefundId.put(orderEntity.getRefundReferenceId(), orderEntity);
+        }
+
+        final List<Match> chargeMatches = new ArrayList<>();
+        final List<BalanceTransaction> unmatchedCharges = new ArrayList<>();
+        match(charges, ordersByChargeId, chargeMatches, unmatchedCharges);
+
+        final List<Match> refundMatches = new ArrayList<>();
+        final List<BalanceTransaction> unmatchedRefunds = new ArrayList<>();
+        match(refunds, ordersByRefundId, refundMatches, unmatchedRefunds);
+
+        LOG.info("Reconciled {} charges and {} refunds in {} chunks. Unmatched charges: {} - Unmatched refunds: {}",
+                chargeMatches.size(), refundMatches.size(), chargeChunks.size() + refundChunks.size(), unmatchedCharges.size(), unmatchedRefunds.size());
+        return new ReconciliationResult(chargeMatches, refundMatches, unmatchedCharges, unmatchedRefunds);
+    }
+
+    /**
+     * Splits the distinct source IDs into chunks and loads each chunk in its own read only transaction.
+     */
+    private List<CompletableFuture<List<OrderEntity>>> loadInChunks(List<BalanceTransaction> transactions,
+                                                                    Function<Collection<String>, List<OrderEntity>> loader) {
+
+        final Set<String> sourceIds = new LinkedHashSet<>();
+        for (BalanceTransaction transaction : transactions) {
+            if (transaction.getSource() != null) {
+                sourceIds.add(transaction.getSource());
+            }
+        }
+
+        final List<String> sourceIdList = new ArrayList<>(sourceIds);
+        final List<CompletableFuture<List<OrderEntity>>> futures = new ArrayList<>();
+        for (int start = 0; start < sourceIdList.size(); start += chunkSize) {
+
+            final List<String> chunk = sourceIdList.subList(start, Math.min(start + chunkSize, sourceIdList.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> loader.apply(chunk)), reconciliationExecutor));
+        }
+
+        return futures;
+    }
+
+    private List<OrderEntity> join(List<CompletableFuture<List<OrderEntity>>> futures) {
+
+        final List<OrderEntity> orderEntities = new ArrayList<>();
+        for (CompletableFuture<List<OrderEntity>> future : futures) {
+            final List<OrderEntity> chunk = future.join();
+            if (chunk != null) {
+                orderEntities.addAll(chunk);
+            }
+        }
+
+        return orderEntities;
+    }
+
+    private void match(List<BalanceTransaction> transactions, Map<String, OrderEntity> ordersBySourceId,
+                       List<Match> matches, List<BalanceTransaction> unmatched) {
+
+        for (BalanceTransaction transaction : transactions) {
+
+            final OrderEntity orderEntity = transaction.getSource() == null ? null : ordersBySourceId.get(transaction.getSource());
+            if (orderEntity == null) {
+                unmatched.add(transaction);
+                continue;
+            }
+
+            matches.add(new Match(transaction, orderEntity));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.foriatickets.foriabackend.service;
+
+/**
+ * Stores the secret hash on tickets issued before the hash was kept next to the secret.
+ *
+ * Rows are read in pages and each page is split into chunks that hash and update in parallel, each in its own
+ * transaction. Updates only apply while the row still holds the secret that was hashed, so the job can run
+ * alongside activations and transfers. Once every ticket has a hash a run is a single empty query.
+ *
+ * @author Corbin Schwalm
+ */
+public interface TicketSecretBackfillService {
+
+    /**
+     * Hashes the secret of every ticket without a stored hash.
+     *
+     * @return Number of tickets updated.
+     */
+    int backfillSecretHashes();
+}
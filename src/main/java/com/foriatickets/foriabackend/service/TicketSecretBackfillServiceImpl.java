@@ -0,0 +1,120 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.config.ApiModelMapper;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class TicketSecretBackfillServiceImpl implements TicketSecretBackfillService {
+
+    private static final Logger LOG = LogManager.getLogger();
+
+    private final TicketRepository ticketRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor backfillExecutor;
+
+    private final int backfillThreads;
+
+    private final int chunkSize;
+
+    @Autowired
+    public TicketSecretBackfillServiceImpl(TicketRepository ticketRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${ticketSecretBackfillThreads:4}") int backfillThreads,
+                                           @Value("${ticketSecretBackfillChunkSize:500}") int chunkSize) {
+
+        this.ticketRepository = ticketRepository;
+        this.backfillThreads = backfillThreads;
+        this.chunkSize = chunkSize;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //Callers run overflow chunks themselves, so a page never queues more than the pool can take.
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.backfillExecutor = new ThreadPoolExecutor(backfillThreads, backfillThreads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(backfillThreads),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ticket-secret-backfill-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    @Override
+    @Scheduled(cron = "${ticket-secret-hash-backfill-cron:-}")
+    @SchedulerLock(name = "ticket-secret-hash-backfill")
+    public int backfillSecretHashes() {
+
+        LOG.info("Starting ticket secret hash backfill.");
+
+        int numUpdated = 0;
+        while (true) {
+
+            //Updated rows leave the query, so the first page is always the next one.
+            final List<Object[]> page = transactionTemplate.execute(status ->
+                    ticketRepository.findSecretsWithoutHash(PageRequest.of(0, chunkSize * backfillThreads)));
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+
+            final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int start = 0; start < page.size(); start += chunkSize) {
+
+                final List<Object[]> chunk = page.subList(start, Math.min(start + chunkSize, page.size()));
+                futures.add(CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> updateChunk(chunk)), backfillExecutor));
+            }
+
+            int numInPage = 0;
+            for (CompletableFuture<Integer> future : futures) {
+                final Integer numInChunk = future.join();
+                numInPage += numInChunk == null ? 0 : numInChunk;
+            }
+
+            //Every row in the page changed its secret underneath us. Stop rather than spin.
+            if (numInPage == 0) {
+                LOG.warn("No ticket secret hashes stored for a page of {} rows. Stopping backfill.", page.size());
+                break;
+            }
+            numUpdated += numInPage;
+        }
+
+        LOG.info("Ticket secret hash backfill complete. Updated: {}", numUpdated);
+        return numUpdated;
+    }
+
+    private int updateChunk(List<Object[]> chunk) {
+
+        int numUpdated = 0;
+        for (Object[] row : chunk) {
+
+            final UUID ticketId = (UUID) row[0];
+            final String secret = (String) row[1];
+            numUpdated += ticketRepository.updateSecretHash(ticketId, secret, ApiModelMapper.hashSecret(secret));
+        }
+
+        return numUpdated;
+    }
+}
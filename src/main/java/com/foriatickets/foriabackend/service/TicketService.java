@@ -1,10 +1,13 @@
 package com.foriatickets.foriabackend.service;
 
+import com.foriatickets.foriabackend.entities.EventEntity;
 import com.foriatickets.foriabackend.entities.TicketEntity;
 import com.foriatickets.foriabackend.entities.UserEntity;
 import org.openapitools.model.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -64,6 +67,14 @@ public interface TicketService {
      */
     int countTicketsRemaining(UUID ticketTypeConfigId);
 
+    /**
+     * Batch form of countTicketsRemaining. Counts every tier of the supplied events with one query.
+     *
+     * @param eventEntities Events with their tiers loaded.
+     * @return Map of ticket type config ID to tickets remaining capped at the ticket order max.
+     */
+    Map<UUID, Integer> countTicketsRemainingForEvents(Collection<EventEntity> eventEntities);
+
     /**
      * Obtains information about the specified ticket.
      * @param ticketId id
@@ -90,6 +101,18 @@ public interface TicketService {
      */
     TicketEntity issueTicket(UUID purchaserId, UUID eventId, UUID ticketTypeId);
 
+    /**
+     * Issues several tickets of the same type. The event, purchaser, and ticket type are validated once and the
+     * tickets are written in a single JDBC batch.
+     *
+     * @param purchaserId The id of the purchaser. Because owner.
+     * @param eventId The event to issue tickets for.
+     * @param ticketTypeId Ticket type.
+     * @param amount Number of tickets to issue.
+     * @return Issued tickets.
+     */
+    List<TicketEntity> issueTickets(UUID purchaserId, UUID eventId, UUID ticketTypeId, int amount);
+
     /**
      * Manually redeems a ticket either from manual checkin or offline scan.
      *
@@ -116,6 +139,27 @@ public interface TicketService {
      */
     RedemptionResult redeemTicket(UUID ticketId, String otpCode);
 
+    /**
+     * Door scanner variant of {@link #redeemTicket(UUID, String)}.
+     * Reads the ticket in one query and redeems it with a conditional update, so only one of two
+     * concurrent scans of the same ticket is allowed.
+     *
+     * @param ticketId Ticket to redeem.
+     * @param otpCode OTP code supplied by client device.
+     * @return Compact result with the deny reason if not allowed.
+     */
+    ScanResult scanTicket(UUID ticketId, String otpCode);
+
+    /**
+     * Redeems scans queued on a scanner device in one call. Tickets are loaded in one query, venue access is
+     * checked once per event and every redemption is written in one batch of conditional updates.
+     * Each OTP is checked at the time it was scanned.
+     *
+     * @param redemptions Queued scans.
+     * @return Result for every scan in request order.
+     */
+    List<ScanResult> redeemTicketBatch(List<RedemptionBatchItem> redemptions);
+
     /**
      * Allows one user to transfer tickets to email addresses.
      * If the email address is already registered, the transfer completes immediately.
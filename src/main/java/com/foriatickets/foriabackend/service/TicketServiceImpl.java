@@ -1,13 +1,11 @@
 package com.foriatickets.foriabackend.service;
 
+import com.foriatickets.foriabackend.config.ApiModelMapper;
 import com.foriatickets.foriabackend.entities.*;
 import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
-import com.foriatickets.foriabackend.gateway.FCMGateway;
 import com.foriatickets.foriabackend.gateway.StripeGateway;
 import com.foriatickets.foriabackend.repositories.*;
-import com.google.firebase.messaging.Notification;
 import com.stripe.model.Charge;
-import com.stripe.model.Refund;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
@@ -18,9 +16,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.token.Sha512DigestUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -37,13 +37,14 @@ import static org.springframework.web.context.WebApplicationContext.SCOPE_REQUES
 @Transactional
 public class TicketServiceImpl implements TicketService {
 
-    private static final int MAX_TICKETS_PER_ORDER = 10;
+    static final int MAX_TICKETS_PER_ORDER = 10;
+
+    static final int MAX_REDEMPTIONS_PER_BATCH = 500;
+
+    static final long MAX_QUEUED_SCAN_AGE_MINUTES = 15L;
 
     private static final String RECEIVED_TICKET_TITLE = "Foria Pass Received";
     private static final String RECEIVED_TICKET_BODY = "You received a pass for {{eventName}} from {{previousName}}.";
-    private static final String REFUND_TITLE = "Foria Order Refunded";
-    private static final String REFUND_BODY = "Your {{eventName}} order has been canceled and refunded.";
-    private static final String REFUND_EMAIL = "refund_order_email";
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
     private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm a");
@@ -54,7 +55,7 @@ public class TicketServiceImpl implements TicketService {
 
     private final EventRepository eventRepository;
 
-    private final FCMGateway fcmGateway;
+    private final InventoryService inventoryService;
 
     private final GoogleAuthenticator gAuth = new GoogleAuthenticator();
 
@@ -62,12 +63,16 @@ public class TicketServiceImpl implements TicketService {
 
     private final OrderTicketEntryRepository orderTicketEntryRepository;
 
+    private final OrderRefundService orderRefundService;
+
     private final OrderRepository orderRepository;
 
     private final PromoCodeRepository promoCodeRepository;
 
     private final PromoCodeRedemptionRepository promoCodeRedemptionRepository;
 
+    private final SalesLedgerService salesLedgerService;
+
     private final UserRepository userRepository;
 
     private final TicketTypeConfigRepository ticketTypeConfigRepository;
@@ -76,16 +81,25 @@ public class TicketServiceImpl implements TicketService {
 
     private final TransferRequestRepository transferRequestRepository;
 
-    private final AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
+    private final TransactionTemplate transactionTemplate;
+
+    private final NotificationService notificationService;
 
     private static final Logger LOG = LogManager.getLogger();
 
     private final StripeGateway stripeGateway;
 
-    private UserEntity authenticatedUser;
+    private final AuthenticatedUserService authenticatedUserService;
+
+    private final String auth0Id;
+
+    private AuthenticatedUserService.AuthenticatedUser authenticatedUser;
+
+    private UserEntity authenticatedUserEntity;
 
     @Autowired
-    public TicketServiceImpl(CalculationService calculationService,
+    public TicketServiceImpl(AuthenticatedUserService authenticatedUserService,
+                             CalculationService calculationService,
                              ModelMapper modelMapper,
                              EventRepository eventRepository,
                              OrderRepository orderRepository,
@@ -98,9 +112,13 @@ public class TicketServiceImpl implements TicketService {
                              OrderFeeEntryRepository orderFeeEntryRepository,
                              OrderTicketEntryRepository orderTicketEntryRepository,
                              TransferRequestRepository transferRequestRepository,
-                             FCMGateway fcmGateway,
-                             AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway) {
+                             NotificationService notificationService,
+                             InventoryService inventoryService,
+                             OrderRefundService orderRefundService,
+                             SalesLedgerService salesLedgerService,
+                             PlatformTransactionManager transactionManager) {
 
+        this.authenticatedUserService = authenticatedUserService;
         this.calculationService = calculationService;
         this.modelMapper = modelMapper;
         this.eventRepository = eventRepository;
@@ -114,16 +132,43 @@ public class TicketServiceImpl implements TicketService {
         this.orderFeeEntryRepository = orderFeeEntryRepository;
         this.orderTicketEntryRepository = orderTicketEntryRepository;
         this.transferRequestRepository = transferRequestRepository;
-        this.fcmGateway = fcmGateway;
-        this.awsSimpleEmailServiceGateway = awsSimpleEmailServiceGateway;
+        this.notificationService = notificationService;
+        this.inventoryService = inventoryService;
+        this.orderRefundService = orderRefundService;
+        this.salesLedgerService = salesLedgerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //User is resolved from the Auth0 token on first use.
+        this.auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
 
-        //Load user from Auth0 token.
-        String auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    /**
+     * Resolves the cached snapshot of the authenticated user. Sufficient for ID, contact and venue access checks.
+     *
+     * @return Snapshot or null if the principal is not mapped to a user.
+     */
+    private AuthenticatedUserService.AuthenticatedUser getAuthenticatedUser() {
 
-        authenticatedUser = userRepository.findByAuth0Id(auth0Id);
-        if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
-            LOG.warn("Attempted to create ticket service with non-mapped auth0Id: {}", auth0Id);
+        if (authenticatedUser == null) {
+            authenticatedUser = authenticatedUserService.getAuthenticatedUser(auth0Id).orElse(null);
+            if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
+                LOG.warn("Attempted to use ticket service with non-mapped auth0Id: {}", auth0Id);
+            }
         }
+        return authenticatedUser;
+    }
+
+    /**
+     * Loads the full user entity. Only used by methods that write relations to the user or read their tickets.
+     *
+     * @return User entity or null if the principal is not mapped to a user.
+     */
+    private UserEntity getAuthenticatedUserEntity() {
+
+        if (authenticatedUserEntity == null) {
+            authenticatedUserEntity = authenticatedUserService.loadUserEntity(auth0Id);
+        }
+        return authenticatedUserEntity;
     }
 
     @Override
@@ -131,8 +176,8 @@ public class TicketServiceImpl implements TicketService {
 
         TicketEntity ticketEntity = verifyTicketValidity(ticketId, TicketEntity.Status.ISSUED);
 
-        if (!ticketEntity.getOwnerEntity().getId().equals(authenticatedUser.getId())) {
-            LOG.warn("User ID: {} attempted to activate not owned ticket ID: {}", authenticatedUser.getId(), ticketEntity.getId());
+        if (!ticketEntity.getOwnerEntity().getId().equals(getAuthenticatedUser().getId())) {
+            LOG.warn("User ID: {} attempted to activate not owned ticket ID: {}", getAuthenticatedUser().getId(), ticketEntity.getId());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket owned by another user.");
         }
 
@@ -143,11 +188,12 @@ public class TicketServiceImpl implements TicketService {
         activationResult.setTicketSecret(ticketEntity.getSecret());
         activationResult.setTicket(getTicket(ticketId, true));
 
-        LOG.info("Ticket ID: {} activated by user ID: {}", ticketEntity.getId(), authenticatedUser.getId());
+        LOG.info("Ticket ID: {} activated by user ID: {}", ticketEntity.getId(), getAuthenticatedUser().getId());
         return activationResult;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UUID checkoutOrder(String paymentToken, UUID eventId, List<TicketLineItem> orderConfig, String promoCode) {
 
         if (orderConfig == null || eventId == null) {
@@ -162,8 +208,51 @@ public class TicketServiceImpl implements TicketService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Max of " + MAX_TICKETS_PER_ORDER + " tickets per order allowed.");
         }
 
+        //Holds commit before the checkout transaction opens, so checkout never waits on a second pooled connection
+        //and the tier row is only locked for the hold update.
+        final int numTickets = totalTicketCount;
+        final List<TicketTypeConfigEntity> ticketTypeConfigEntities = new ArrayList<>();
+        final List<UUID> holdIds = new ArrayList<>();
+        try {
+            for (TicketLineItem ticketLineItem : orderConfig) {
+
+                final UUID ticketTypeConfigId = ticketLineItem.getTicketTypeId();
+                final Optional<TicketTypeConfigEntity> ticketTypeConfigEntityOptional = ticketTypeConfigRepository.findById(ticketTypeConfigId);
+                if (!ticketTypeConfigEntityOptional.isPresent()) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket type config is invalid.");
+                }
+
+                //Hold against the tier counter. Confirmed after payment or returned when checkout fails.
+                final Optional<UUID> holdId = inventoryService.hold(ticketTypeConfigEntityOptional.get(), ticketLineItem.getAmount());
+                if (!holdId.isPresent()) {
+                    LOG.warn("Not enough tickets to complete the order. - eventId: {} - ticketConfigId: {}", eventId, ticketTypeConfigId);
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough tickets to complete the order.");
+                }
+                ticketTypeConfigEntities.add(ticketTypeConfigEntityOptional.get());
+                holdIds.add(holdId.get());
+            }
+
+            return transactionTemplate.execute(status ->
+                    completeCheckout(paymentToken, eventId, orderConfig, ticketTypeConfigEntities, holdIds, promoCode, numTickets));
+
+        } catch (RuntimeException ex) {
+            releaseHolds(holdIds);
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes the order and its tickets, charges the buyer and confirms the holds. Runs in the checkout transaction.
+     *
+     * @param ticketTypeConfigEntities Tier of each line item, in line item order.
+     * @param holdIds Holds taken for the line items.
+     * @return Order ID.
+     */
+    private UUID completeCheckout(String paymentToken, UUID eventId, List<TicketLineItem> orderConfig, List<TicketTypeConfigEntity> ticketTypeConfigEntities,
+                                  List<UUID> holdIds, String promoCode, int totalTicketCount) {
+
         //Load price config along with fees for event.
-        Optional<EventEntity> eventEntityOptional = eventRepository.findById(eventId);
+        Optional<EventEntity> eventEntityOptional = eventRepository.findCheckoutById(eventId);
         if (!eventEntityOptional.isPresent()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Event ID is invalid.");
         }
@@ -175,7 +264,7 @@ public class TicketServiceImpl implements TicketService {
 
         //Create order entry.
         OrderEntity orderEntity = new OrderEntity();
-        orderEntity.setPurchaser(authenticatedUser);
+        orderEntity.setPurchaser(getAuthenticatedUserEntity());
         orderEntity.setStatus(OrderEntity.Status.COMPLETED);
         orderEntity.setOrderTimestamp(OffsetDateTime.now());
         orderEntity.setTotal(priceCalculationInfo.grandTotal);
@@ -185,14 +274,16 @@ public class TicketServiceImpl implements TicketService {
         //Generate unique order ID.
         final UUID orderId = orderEntity.getId();
 
-        //Validate ticket config IDs are valid and issue tickets.
-        for (TicketLineItem ticketLineItem : orderConfig) {
-            UUID ticketTypeConfigId = ticketLineItem.getTicketTypeId();
-            Optional<TicketTypeConfigEntity> ticketTypeConfigEntityOptional = ticketTypeConfigRepository.findById(ticketTypeConfigId);
-            if (!ticketTypeConfigEntityOptional.isPresent()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket type config is invalid.");
-            }
-            final TicketTypeConfigEntity ticketTypeConfigEntity = ticketTypeConfigEntityOptional.get();
+        //Rows are built in memory and written in batches once every line item is validated.
+        final List<OrderTicketEntryEntity> orderTicketEntryEntities = new ArrayList<>();
+        final List<PromoCodeRedemptionEntity> promoCodeRedemptionEntities = new ArrayList<>();
+        int numPaidTickets = 0;
+
+        //Validate promo codes and issue tickets.
+        for (int i = 0; i < orderConfig.size(); i++) {
+            final TicketLineItem ticketLineItem = orderConfig.get(i);
+            final UUID ticketTypeConfigId = ticketLineItem.getTicketTypeId();
+            final TicketTypeConfigEntity ticketTypeConfigEntity = ticketTypeConfigEntities.get(i);
             PromoCodeEntity promoCodeEntity = null;
 
             //Validate that promo code is entered for promo tier.
@@ -217,20 +308,16 @@ public class TicketServiceImpl implements TicketService {
                 }
             }
 
-            int ticketsRemaining = obtainTicketsRemainingByType(ticketTypeConfigEntity);
-            if (ticketLineItem.getAmount() > ticketsRemaining) {
-                LOG.warn("Not enough tickets to complete the order. - eventId: {} - ticketConfigId: {}", eventId, ticketTypeConfigId);
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough tickets to complete the order.");
+            if (ticketTypeConfigEntity.getPrice().compareTo(BigDecimal.ZERO) > 0) {
+                numPaidTickets += ticketLineItem.getAmount();
             }
 
-            for (int i = 0; i < ticketLineItem.getAmount(); i++) {
-
-                final TicketEntity issuedTicket = issueTicket(authenticatedUser.getId(), eventId, ticketTypeConfigId);
+            for (TicketEntity issuedTicket : issueTickets(getAuthenticatedUser().getId(), eventId, ticketTypeConfigId, ticketLineItem.getAmount())) {
 
                 OrderTicketEntryEntity orderTicketEntryEntity = new OrderTicketEntryEntity();
                 orderTicketEntryEntity.setOrderEntity(orderEntity);
                 orderTicketEntryEntity.setTicketEntity(issuedTicket);
-                orderTicketEntryRepository.save(orderTicketEntryEntity);
+                orderTicketEntryEntities.add(orderTicketEntryEntity);
 
                 //Add mapping if promo code was used.
                 if (promoCodeEntity != null) {
@@ -241,13 +328,19 @@ public class TicketServiceImpl implements TicketService {
                     promoCodeRedemptionEntity.setRedemptionDate(issuedTicket.getIssuedDate());
                     promoCodeRedemptionEntity.setTicketTypeConfigEntity(issuedTicket.getTicketTypeConfigEntity());
                     promoCodeRedemptionEntity.setUserEntity(issuedTicket.getPurchaserEntity());
-                    promoCodeRedemptionEntity = promoCodeRedemptionRepository.save(promoCodeRedemptionEntity);
-                    LOG.info("Added redemption entry for promo code: {} with ID: {}", promoCode, promoCodeRedemptionEntity.getId());
+                    promoCodeRedemptionEntities.add(promoCodeRedemptionEntity);
                 }
             }
         }
 
+        orderTicketEntryRepository.saveAll(orderTicketEntryEntities);
+        if (!promoCodeRedemptionEntities.isEmpty()) {
+            promoCodeRedemptionRepository.saveAll(promoCodeRedemptionEntities);
+            LOG.info("Added {} redemption entries for promo code: {}", promoCodeRedemptionEntities.size(), promoCode);
+        }
+
         //Save fee settings that were applied at checkout.
+        final List<OrderFeeEntryEntity> orderFeeEntryEntities = new ArrayList<>();
         for (TicketFeeConfigEntity ticketFeeConfigEntity : ticketFeeConfigEntitySet) {
 
             if (ticketFeeConfigEntity.getStatus() != TicketFeeConfigEntity.Status.ACTIVE) {
@@ -257,30 +350,43 @@ public class TicketServiceImpl implements TicketService {
             OrderFeeEntryEntity orderFeeEntryEntity = new OrderFeeEntryEntity();
             orderFeeEntryEntity.setOrderEntity(orderEntity);
             orderFeeEntryEntity.setTicketFeeConfigEntity(ticketFeeConfigEntity);
-            orderFeeEntryRepository.save(orderFeeEntryEntity);
+            orderFeeEntryEntities.add(orderFeeEntryEntity);
         }
+        orderFeeEntryRepository.saveAll(orderFeeEntryEntities);
 
         //If order is not free, charge payment method - tickets have been issued. Create Stripe user if it doesn't exist.
         if (priceCalculationInfo.grandTotal.compareTo(BigDecimal.ZERO) > 0) {
 
             String stripeCustomerId;
-            if (StringUtils.isEmpty(authenticatedUser.getStripeId())) {
-                User user = modelMapper.map(authenticatedUser, User.class);
+            UserEntity purchaser = getAuthenticatedUserEntity();
+            if (StringUtils.isEmpty(purchaser.getStripeId())) {
+                User user = modelMapper.map(purchaser, User.class);
                 stripeCustomerId = stripeGateway.createStripeCustomer(user, paymentToken).getId();
-                authenticatedUser.setStripeId(stripeCustomerId);
-                authenticatedUser = userRepository.save(authenticatedUser);
+                purchaser.setStripeId(stripeCustomerId);
+                authenticatedUserEntity = userRepository.save(purchaser);
+                authenticatedUserService.invalidate(auth0Id);
 
             } else {
 
                 //Replace Stripe customer default payment method with new one.
-                stripeCustomerId = authenticatedUser.getStripeId();
+                stripeCustomerId = purchaser.getStripeId();
                 stripeGateway.updateCustomerPaymentMethod(stripeCustomerId, paymentToken);
             }
 
             Charge chargeResult = stripeGateway.chargeCustomer(stripeCustomerId, paymentToken, orderEntity.getId(), priceCalculationInfo.grandTotal, priceCalculationInfo.currencyCode);
             orderEntity.setChargeReferenceId(chargeResult.getId());
         }
+
+        //Holds are only lost if checkout outlived the hold TTL and the tier sold out in the meantime.
+        if (!inventoryService.confirmHolds(holdIds)) {
+            LOG.error("Holds expired before order ID: {} was confirmed. Refunding charge.", orderId);
+            if (orderEntity.getChargeReferenceId() != null) {
+                stripeGateway.refundStripeCharge(orderEntity.getChargeReferenceId(), priceCalculationInfo.grandTotal);
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not enough tickets to complete the order.");
+        }
         orderRepository.save(orderEntity);
+        salesLedgerService.recordOrder(orderEntity, eventId, numPaidTickets, priceCalculationInfo);
 
         //Send order confirmation email.
         final VenueEntity venueEntity = eventEntity.getVenueEntity();
@@ -289,94 +395,41 @@ public class TicketServiceImpl implements TicketService {
         map.put("eventStartTime", eventEntity.getEventStartTime().format(TIME_FORMATTER));
         map.put("eventName", eventEntity.getName());
         map.put("eventId", eventEntity.getId().toString());
-        map.put("accountFirstName", authenticatedUser.getFirstName());
+        map.put("accountFirstName", getAuthenticatedUser().getFirstName());
         map.put("orderId", orderId.toString());
         map.put("ticketQuantity", String.valueOf(totalTicketCount));
         map.put("eventLocation", venueEntity.getName());
         map.put("eventAddress", venueEntity.getContactStreetAddress() + ", " + venueEntity.getContactCity() + ", " + venueEntity.getContactState());
 
         if (eventEntity.getType() == EventEntity.Type.PRIMARY) {
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(authenticatedUser.getEmail(), AWSSimpleEmailServiceGateway.TICKET_PURCHASE_EMAIL, map);
+            notificationService.enqueueEmail("order:" + orderId + ":purchase-email", getAuthenticatedUser().getEmail(), AWSSimpleEmailServiceGateway.TICKET_PURCHASE_EMAIL, map);
         } else if (eventEntity.getType() == EventEntity.Type.RESELL) {
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(authenticatedUser.getEmail(), AWSSimpleEmailServiceGateway.RESELL_TICKET_PURCHASE_EMAIL, map);
+            notificationService.enqueueEmail("order:" + orderId + ":purchase-email", getAuthenticatedUser().getEmail(), AWSSimpleEmailServiceGateway.RESELL_TICKET_PURCHASE_EMAIL, map);
         }
 
-        LOG.info("User: (ID: {}) charged: {}{}", authenticatedUser.getId(), priceCalculationInfo.grandTotal, priceCalculationInfo.currencyCode);
+        LOG.info("User: (ID: {}) charged: {}{}", getAuthenticatedUser().getId(), priceCalculationInfo.grandTotal, priceCalculationInfo.currencyCode);
         return orderId;
     }
 
-    @Override
-    public void refundOrder(UUID orderId) {
-
-        if (orderId == null) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Order cancel request contains null orderId.");
-        }
-
-        final Optional<OrderEntity> orderEntityOptional = orderRepository.findById(orderId);
-        if (!orderEntityOptional.isPresent()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Order Id not found. Failed to cancel order.");
-        }
-
-        final OrderEntity orderEntity = orderEntityOptional.get();
-        if (orderEntity.getStatus() == OrderEntity.Status.CANCELED) {
-            LOG.info("Order ID: {} is already canceled.", orderEntity.getId());
-            return;
-        }
-
-        orderEntity.setStatus(OrderEntity.Status.CANCELED);
-
-        //Cancel each issued ticket and collect owner list.
-        final Set<UserEntity> usersImpacted = new HashSet<>();
-        String eventName = "Unknown Event";
-        for (OrderTicketEntryEntity orderTicketEntryEntity : orderEntity.getTickets()) {
-
-            final TicketEntity ticketEntity = orderTicketEntryEntity.getTicketEntity();
-            if (OffsetDateTime.now().isAfter(ticketEntity.getEventEntity().getEventEndTime().plusDays(7L))) {
-                LOG.error("Attempted to refund order ID: {} after event has already ended.", orderEntity.getId());
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attempted to refund order after event has ended.");
-            }
-
-            ticketEntity.setStatus(TicketEntity.Status.CANCELED);
-            ticketRepository.save(ticketEntity);
-
-            usersImpacted.add(ticketEntity.getPurchaserEntity());
-            eventName = ticketEntity.getEventEntity().getName();
-
-            //Add both owner and purchaser to notify.
-            if (!ticketEntity.getPurchaserEntity().getId().equals(ticketEntity.getOwnerEntity().getId())) {
-                usersImpacted.add(ticketEntity.getOwnerEntity());
-            }
-        }
-
-        LOG.info("Number of tickets cancelled in order: {} - OrderId: {}", orderEntity.getTickets().size(), orderEntity.getId());
-        LOG.info("Number of users impacted: {} - OrderId: {}", usersImpacted.size(), orderEntity.getId());
-
-        Refund refund;
-        //Refunds the entire order amount if not free.
-        if (!StringUtils.isEmpty(orderEntity.getChargeReferenceId())) {
-            refund = stripeGateway.refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
-            orderEntity.setRefundReferenceId(refund.getId());
-        }
-
-        //Send push notifications and emails to impacted customers.
-        for (UserEntity userEntity : usersImpacted) {
-
-            Map<String, String> templateData = new HashMap<>();
-            templateData.put("eventName", eventName);
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(userEntity.getEmail(), REFUND_EMAIL, templateData);
-            for (DeviceTokenEntity deviceTokenEntity : userEntity.getDeviceTokens()) {
-
-                if (deviceTokenEntity.getTokenStatus() != DeviceTokenEntity.TokenStatus.ACTIVE) {
-                    continue;
-                }
+    /**
+     * Returns checkout holds to their tiers after checkout failed. Called outside the checkout transaction.
+     *
+     * @param holdIds Holds taken by the failed checkout.
+     */
+    private void releaseHolds(List<UUID> holdIds) {
 
-                Notification notification = new Notification(REFUND_TITLE, REFUND_BODY.replace("{{eventName}}", eventName));
-                fcmGateway.sendPushNotification(deviceTokenEntity.getDeviceToken(), notification);
+        for (UUID holdId : holdIds) {
+            try {
+                inventoryService.releaseHold(holdId);
+            } catch (RuntimeException ex) {
+                LOG.warn("Failed to release hold ID: {}. It will be returned on expiry. Reason: {}", holdId, ex.getMessage());
             }
         }
+    }
 
-        orderRepository.save(orderEntity);
-        LOG.info("Order ID: {} has been successfully refunded.", orderEntity.getId());
+    @Override
+    public void refundOrder(UUID orderId) {
+        orderRefundService.refundOrder(orderId, true);
     }
 
     @Override
@@ -387,17 +440,13 @@ public class TicketServiceImpl implements TicketService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invalid event ID");
         }
         TicketEntity ticketEntity = ticketEntityOptional.get();
-        boolean doesUserOwn = ticketEntity.getOwnerEntity().getId().equals(authenticatedUser.getId());
+        boolean doesUserOwn = ticketEntity.getOwnerEntity().getId().equals(getAuthenticatedUser().getId());
         if (doOwnerCheck && !doesUserOwn) {
-            LOG.warn("User Id: {} attempted to access non-owned ticket Id: {}", authenticatedUser.getId(), ticketEntity.getId());
+            LOG.warn("User Id: {} attempted to access non-owned ticket Id: {}", getAuthenticatedUser().getId(), ticketEntity.getId());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket not owned by user.");
         }
 
-        Ticket ticket = modelMapper.map(ticketEntity, Ticket.class);
-        ticket.setOwnerId(ticketEntity.getOwnerEntity().getId());
-        ticket.setPurchaserId(ticketEntity.getPurchaserEntity().getId());
-        ticket.setSecretHash(Sha512DigestUtils.shaHex(ticketEntity.getSecret()));
-        ticket.setStatus(Ticket.StatusEnum.fromValue(ticketEntity.getStatus().name()));
+        Ticket ticket = ApiModelMapper.toTicket(ticketEntity);
 
         LOG.debug("Ticket ID: {} obtained.", ticketEntity.getId());
         return ticket;
@@ -412,12 +461,13 @@ public class TicketServiceImpl implements TicketService {
                         TicketEntity.Status.CANCELED_FRAUD)
         );
 
-        if (authenticatedUser == null) {
+        final UserEntity userEntity = getAuthenticatedUserEntity();
+        if (userEntity == null) {
             LOG.warn("User is not in system. Failing ticket load.");
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User is not found.");
         }
 
-        Set<TicketEntity> userTickets = authenticatedUser.getTickets();
+        final List<TicketEntity> userTickets = ticketRepository.findAllByOwnerEntity_Id(userEntity.getId());
         List<Ticket> ticketList = new ArrayList<>();
         for (TicketEntity ticketEntity : userTickets) {
 
@@ -437,20 +487,21 @@ public class TicketServiceImpl implements TicketService {
                 continue;
             }
 
-            Ticket ticket = modelMapper.map(ticketEntity, Ticket.class);
-            ticket.setStatus(Ticket.StatusEnum.fromValue(ticketEntity.getStatus().name()));
-            ticket.setOwnerId(ticketEntity.getOwnerEntity().getId());
-            ticket.setPurchaserId(ticketEntity.getPurchaserEntity().getId());
-            ticket.setSecretHash(Sha512DigestUtils.shaHex(ticketEntity.getSecret()));
-            ticketList.add(ticket);
+            ticketList.add(ApiModelMapper.toTicket(ticketEntity));
         }
-        LOG.debug("Tickets returned for user ID: {}", authenticatedUser.getId());
+        LOG.debug("Tickets returned for user ID: {}", userEntity.getId());
         return ticketList;
     }
 
     @Override
     public TicketEntity issueTicket(UUID purchaserId, UUID eventId, UUID ticketTypeId) {
+        return issueTickets(purchaserId, eventId, ticketTypeId, 1).get(0);
+    }
+
+    @Override
+    public List<TicketEntity> issueTickets(UUID purchaserId, UUID eventId, UUID ticketTypeId, int amount) {
 
+        Validate.isTrue(amount > 0, "amount must be positive");
         Validate.notNull(eventId, "eventId must not be null");
         Validate.notNull(purchaserId, "purchaserId must not be null");
         Validate.notNull(ticketTypeId, "ticketTypeId must not be null");
@@ -486,19 +537,29 @@ public class TicketServiceImpl implements TicketService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket type is disabled.");
         }
 
-        TicketEntity ticketEntity = new TicketEntity();
-        ticketEntity.setEventEntity(eventEntity);
-        ticketEntity.setOwnerEntity(userEntity);
-        ticketEntity.setPurchaserEntity(userEntity);
-        ticketEntity.setSecret(gAuth.createCredentials().getKey());
-        ticketEntity.setTicketTypeConfigEntity(ticketTypeConfigEntity);
-        ticketEntity.setStatus(TicketEntity.Status.ISSUED);
-        ticketEntity.setIssuedDate(OffsetDateTime.now());
+        //IDs are generated in memory on persist so the inserts are batched at flush.
+        final OffsetDateTime issuedDate = OffsetDateTime.now();
+        final List<TicketEntity> ticketEntities = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+
+            TicketEntity ticketEntity = new TicketEntity();
+            ticketEntity.setEventEntity(eventEntity);
+            ticketEntity.setOwnerEntity(userEntity);
+            ticketEntity.setPurchaserEntity(userEntity);
+            assignNewSecret(ticketEntity);
+            ticketEntity.setTicketTypeConfigEntity(ticketTypeConfigEntity);
+            ticketEntity.setStatus(TicketEntity.Status.ISSUED);
+            ticketEntity.setIssuedDate(issuedDate);
+            ticketEntities.add(ticketEntity);
+        }
 
-        ticketEntity = ticketRepository.save(ticketEntity);
+        final List<TicketEntity> issuedTickets = new ArrayList<>(amount);
+        ticketRepository.saveAll(ticketEntities).forEach(issuedTickets::add);
 
-        LOG.info("Issued ticket: {} for userID: {}", ticketEntity.getId(), userEntity.getId());
-        return ticketEntity;
+        for (TicketEntity ticketEntity : issuedTickets) {
+            LOG.info("Issued ticket: {} for userID: {}", ticketEntity.getId(), userEntity.getId());
+        }
+        return issuedTickets;
     }
 
     @Override
@@ -513,15 +574,16 @@ public class TicketServiceImpl implements TicketService {
 
         //Check scanner permission to redeem.
         final UUID venueId = ticketEntity.getEventEntity().getVenueEntity().getId();
-        if (!VenueService.checkVenueAuthorization(ticketEntity.getEventEntity().getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.warn("User ID: {} attempted to scan for Venue ID: {} that they are not a member of.", authenticatedUser.getId(), venueId);
+        if (!getAuthenticatedUser().hasVenueAccess(ticketEntity.getEventEntity().getVenueEntity().getId())) {
+            LOG.warn("User ID: {} attempted to scan for Venue ID: {} that they are not a member of.", getAuthenticatedUser().getId(), venueId);
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Not authorized to scan this ticket.");
         }
 
         ticketEntity.setStatus(TicketEntity.Status.REDEEMED);
+        ticketEntity.setRedeemedDate(OffsetDateTime.now());
         ticketRepository.save(ticketEntity);
 
-        LOG.info("Manually redeemed ticket ID: {} by userID: {}", ticketId, authenticatedUser.getId());
+        LOG.info("Manually redeemed ticket ID: {} by userID: {}", ticketId, getAuthenticatedUser().getId());
         return getTicket(ticketId, false);
     }
 
@@ -530,19 +592,19 @@ public class TicketServiceImpl implements TicketService {
 
         TicketEntity ticketEntity = verifyTicketValidity(ticketId, TicketEntity.Status.ACTIVE, TicketEntity.Status.TRANSFER_PENDING);
 
-        if (!ticketEntity.getOwnerEntity().getId().equals(authenticatedUser.getId())) {
-            LOG.warn("User ID: {} attempted to activate not owned ticket ID: {}", authenticatedUser.getId(), ticketEntity.getId());
+        if (!ticketEntity.getOwnerEntity().getId().equals(getAuthenticatedUser().getId())) {
+            LOG.warn("User ID: {} attempted to activate not owned ticket ID: {}", getAuthenticatedUser().getId(), ticketEntity.getId());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket owned by another user.");
         }
 
-        ticketEntity.setSecret(gAuth.createCredentials().getKey());
+        assignNewSecret(ticketEntity);
         ticketEntity = ticketRepository.save(ticketEntity);
 
         ActivationResult activationResult = new ActivationResult();
         activationResult.setTicketSecret(ticketEntity.getSecret());
         activationResult.setTicket(getTicket(ticketId, true));
 
-        LOG.info("Ticket ID: {} reactivated by user ID: {}", ticketEntity.getId(), authenticatedUser.getId());
+        LOG.info("Ticket ID: {} reactivated by user ID: {}", ticketEntity.getId(), getAuthenticatedUser().getId());
         return activationResult;
     }
 
@@ -563,7 +625,7 @@ public class TicketServiceImpl implements TicketService {
             ticketEntity = verifyTicketValidity(ticketId, TicketEntity.Status.ACTIVE);
         } catch (Exception ex) {
             redemptionResult.setStatus(RedemptionResult.StatusEnum.DENY);
-            LOG.warn("Failed to redeem ticket ID: {} for userID: {}", ticketId, authenticatedUser.getId());
+            LOG.warn("Failed to redeem ticket ID: {} for userID: {}", ticketId, getAuthenticatedUser().getId());
             return redemptionResult;
         }
 
@@ -571,8 +633,8 @@ public class TicketServiceImpl implements TicketService {
 
         //Check scanner permission to redeem.
         final UUID venueId = ticketEntity.getEventEntity().getVenueEntity().getId();
-        if (!VenueService.checkVenueAuthorization(ticketEntity.getEventEntity().getVenueEntity().getId(), authenticatedUser.getVenueAccessEntities())) {
-            LOG.info("User ID: {} attempted to scan for Venue ID: {} that they are not a member of.", authenticatedUser.getId(), venueId);
+        if (!getAuthenticatedUser().hasVenueAccess(ticketEntity.getEventEntity().getVenueEntity().getId())) {
+            LOG.info("User ID: {} attempted to scan for Venue ID: {} that they are not a member of.", getAuthenticatedUser().getId(), venueId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not authorized to scan this ticket.");
         }
 
@@ -582,17 +644,204 @@ public class TicketServiceImpl implements TicketService {
         if (isValid) {
 
             ticketEntity.setStatus(TicketEntity.Status.REDEEMED);
+            ticketEntity.setRedeemedDate(OffsetDateTime.now());
             ticketRepository.save(ticketEntity);
 
-            LOG.info("Redeemed ticket ID: {} for userID: {}", ticketId, authenticatedUser.getId());
+            LOG.info("Redeemed ticket ID: {} for userID: {}", ticketId, getAuthenticatedUser().getId());
         } else {
-            LOG.warn("Failed to redeem ticket ID: {} for userID: {}", ticketId, authenticatedUser.getId());
+            LOG.warn("Failed to redeem ticket ID: {} for userID: {}", ticketId, getAuthenticatedUser().getId());
         }
 
         redemptionResult.setTicket(getTicket(ticketId, false));
         return redemptionResult;
     }
 
+    @Override
+    public ScanResult scanTicket(UUID ticketId, String otpCode) {
+
+        if (ticketId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket ID must not be null.");
+        }
+
+        int otpCodeInteger;
+        try {
+            otpCodeInteger = Integer.parseInt(otpCode);
+        } catch (RuntimeException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "OTP must be a valid integer.");
+        }
+
+        ScanResult scanResult = new ScanResult();
+        scanResult.setTicketId(ticketId);
+        scanResult.setStatus(ScanResult.StatusEnum.DENY);
+
+        final List<Object[]> rows = ticketRepository.findScanInfo(ticketId);
+        if (rows.isEmpty()) {
+            LOG.warn("Failed to scan unknown ticket ID: {} for userID: {}", ticketId, getAuthenticatedUser().getId());
+            scanResult.setReason(ScanResult.ReasonEnum.NOT_FOUND);
+            return scanResult;
+        }
+
+        final Object[] row = rows.get(0);
+        final TicketEntity.Status status = (TicketEntity.Status) row[0];
+        final String ticketSecret = (String) row[1];
+        final UUID venueId = (UUID) row[3];
+        scanResult.setEventId((UUID) row[2]);
+        scanResult.setTicketTypeName((String) row[4]);
+
+        //Check scanner permission to redeem. Venue access is part of the cached user snapshot.
+        if (!getAuthenticatedUser().hasVenueAccess(venueId)) {
+            LOG.info("User ID: {} attempted to scan for Venue ID: {} that they are not a member of.", getAuthenticatedUser().getId(), venueId);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Not authorized to scan this ticket.");
+        }
+
+        if (status != TicketEntity.Status.ACTIVE) {
+            LOG.warn("Failed to scan ticket ID: {} in status: {} for userID: {}", ticketId, status, getAuthenticatedUser().getId());
+            scanResult.setReason(status == TicketEntity.Status.REDEEMED ? ScanResult.ReasonEnum.ALREADY_REDEEMED : ScanResult.ReasonEnum.INVALID_STATUS);
+            return scanResult;
+        }
+
+        if (!gAuth.authorize(ticketSecret, otpCodeInteger)) {
+            LOG.warn("Failed to scan ticket ID: {} with invalid OTP for userID: {}", ticketId, getAuthenticatedUser().getId());
+            scanResult.setReason(ScanResult.ReasonEnum.INVALID_OTP);
+            return scanResult;
+        }
+
+        //A concurrent scan of the same ticket redeemed it first.
+        final OffsetDateTime now = OffsetDateTime.now();
+        if (ticketRepository.markRedeemed(ticketId, now, now) == 0) {
+            LOG.warn("Ticket ID: {} was redeemed by a concurrent scan. Denied for userID: {}", ticketId, getAuthenticatedUser().getId());
+            scanResult.setReason(ScanResult.ReasonEnum.ALREADY_REDEEMED);
+            return scanResult;
+        }
+
+        scanResult.setStatus(ScanResult.StatusEnum.ALLOW);
+        LOG.info("Scanned and redeemed ticket ID: {} for userID: {}", ticketId, getAuthenticatedUser().getId());
+        return scanResult;
+    }
+
+    @Override
+    public List<ScanResult> redeemTicketBatch(List<RedemptionBatchItem> redemptions) {
+
+        final List<ScanResult> scanResults = new ArrayList<>();
+        if (redemptions == null || redemptions.isEmpty()) {
+            return scanResults;
+        }
+
+        if (redemptions.size() > MAX_REDEMPTIONS_PER_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch must not contain more than " + MAX_REDEMPTIONS_PER_BATCH + " redemptions.");
+        }
+
+        final int[] otpCodes = new int[redemptions.size()];
+        final Set<UUID> ticketIds = new HashSet<>();
+        for (int i = 0; i < redemptions.size(); i++) {
+
+            final RedemptionBatchItem redemption = redemptions.get(i);
+            if (redemption.getTicketId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket ID must not be null.");
+            }
+
+            try {
+                otpCodes[i] = Integer.parseInt(redemption.getTicketOtp());
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "OTP must be a valid integer.");
+            }
+            ticketIds.add(redemption.getTicketId());
+        }
+
+        final Map<UUID, Object[]> scanInfo = new HashMap<>();
+        for (Object[] row : ticketRepository.findScanInfoByIds(ticketIds)) {
+            scanInfo.put((UUID) row[0], row);
+        }
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final OffsetDateTime oldestScan = now.minusMinutes(MAX_QUEUED_SCAN_AGE_MINUTES);
+        final Map<UUID, Boolean> venueAccessByEvent = new HashMap<>();
+        final Set<UUID> pendingTicketIds = new HashSet<>();
+        final List<UUID> redeemTicketIds = new ArrayList<>();
+        final List<OffsetDateTime> redeemDates = new ArrayList<>();
+        final List<ScanResult> redeemResults = new ArrayList<>();
+
+        for (int i = 0; i < redemptions.size(); i++) {
+
+            final RedemptionBatchItem redemption = redemptions.get(i);
+            final UUID ticketId = redemption.getTicketId();
+
+            ScanResult scanResult = new ScanResult();
+            scanResult.setTicketId(ticketId);
+            scanResult.setStatus(ScanResult.StatusEnum.DENY);
+            scanResults.add(scanResult);
+
+            final Object[] row = scanInfo.get(ticketId);
+            if (row == null) {
+                scanResult.setReason(ScanResult.ReasonEnum.NOT_FOUND);
+                continue;
+            }
+
+            final TicketEntity.Status status = (TicketEntity.Status) row[1];
+            final String ticketSecret = (String) row[2];
+            final UUID eventId = (UUID) row[3];
+            final UUID venueId = (UUID) row[4];
+            scanResult.setEventId(eventId);
+            scanResult.setTicketTypeName((String) row[5]);
+
+            if (!venueAccessByEvent.computeIfAbsent(eventId, id -> getAuthenticatedUser().hasVenueAccess(venueId))) {
+                scanResult.setReason(ScanResult.ReasonEnum.NOT_AUTHORIZED);
+                continue;
+            }
+
+            if (status != TicketEntity.Status.ACTIVE) {
+                scanResult.setReason(status == TicketEntity.Status.REDEEMED ? ScanResult.ReasonEnum.ALREADY_REDEEMED : ScanResult.ReasonEnum.INVALID_STATUS);
+                continue;
+            }
+
+            //Device clocks may run ahead. A scan can never be later than its upload.
+            OffsetDateTime scannedAt = redemption.getScannedAt();
+            if (scannedAt == null || scannedAt.isAfter(now)) {
+                scannedAt = now;
+            }
+
+            //Stale scans would let a captured OTP be replayed long after it expired.
+            if (scannedAt.isBefore(oldestScan)) {
+                scanResult.setReason(ScanResult.ReasonEnum.EXPIRED);
+                continue;
+            }
+
+            if (!gAuth.authorize(ticketSecret, otpCodes[i], scannedAt.toInstant().toEpochMilli())) {
+                scanResult.setReason(ScanResult.ReasonEnum.INVALID_OTP);
+                continue;
+            }
+
+            //An earlier scan in the batch already redeems this ticket.
+            if (!pendingTicketIds.add(ticketId)) {
+                scanResult.setReason(ScanResult.ReasonEnum.ALREADY_REDEEMED);
+                continue;
+            }
+
+            redeemTicketIds.add(ticketId);
+            redeemDates.add(scannedAt);
+            redeemResults.add(scanResult);
+        }
+
+        int numAllowed = 0;
+        if (!redeemTicketIds.isEmpty()) {
+
+            final int[] updateCounts = ticketRepository.markRedeemedBatch(redeemTicketIds, redeemDates, now);
+            for (int i = 0; i < redeemResults.size(); i++) {
+
+                //A concurrent scan of the same ticket redeemed it first.
+                if (updateCounts[i] == 1) {
+                    redeemResults.get(i).setStatus(ScanResult.StatusEnum.ALLOW);
+                    numAllowed++;
+                } else {
+                    redeemResults.get(i).setReason(ScanResult.ReasonEnum.ALREADY_REDEEMED);
+                }
+            }
+        }
+
+        LOG.info("Redeemed batch of {} scans for auth0Id: {}. Allowed: {}", redemptions.size(), auth0Id, numAllowed);
+        return scanResults;
+    }
+
     @Override
     public int countTicketsRemaining(UUID ticketTypeConfigId) {
 
@@ -606,6 +855,27 @@ public class TicketServiceImpl implements TicketService {
         return Math.min(ticketsRemaining, MAX_TICKETS_PER_ORDER);
     }
 
+    @Override
+    public Map<UUID, Integer> countTicketsRemainingForEvents(Collection<EventEntity> eventEntities) {
+
+        Map<UUID, Integer> ticketsRemainingMap = new HashMap<>();
+        if (eventEntities == null || eventEntities.isEmpty()) {
+            return ticketsRemainingMap;
+        }
+
+        List<TicketTypeConfigEntity> ticketTypeConfigEntities = new ArrayList<>();
+        for (EventEntity eventEntity : eventEntities) {
+            ticketTypeConfigEntities.addAll(eventEntity.getTicketTypeConfigEntity());
+        }
+
+        for (Map.Entry<UUID, Integer> entry : inventoryService.getTicketsRemaining(ticketTypeConfigEntities).entrySet()) {
+            ticketsRemainingMap.put(entry.getKey(), Math.min(entry.getValue(), MAX_TICKETS_PER_ORDER));
+        }
+
+        LOG.debug("Counted tickets remaining for {} tiers across {} events.", ticketsRemainingMap.size(), eventEntities.size());
+        return ticketsRemainingMap;
+    }
+
     /**
      * Returns the amount of tickets that are allowed to be issued.
      *
@@ -614,8 +884,19 @@ public class TicketServiceImpl implements TicketService {
      */
     int obtainTicketsRemainingByType(TicketTypeConfigEntity ticketTypeConfigEntity) {
 
-        int ticketsIssued = ticketRepository.countActiveTicketsIssuedByType(ticketTypeConfigEntity.getId(), ticketTypeConfigEntity.getEventEntity().getId());
-        return ticketTypeConfigEntity.getAuthorizedAmount() - ticketsIssued;
+        return inventoryService.getTicketsRemaining(Collections.singletonList(ticketTypeConfigEntity)).get(ticketTypeConfigEntity.getId());
+    }
+
+    /**
+     * Generates a new secret for the ticket and stores its hash next to it, so reads never hash it again.
+     *
+     * @param ticketEntity Ticket to update.
+     */
+    private void assignNewSecret(TicketEntity ticketEntity) {
+
+        final String secret = gAuth.createCredentials().getKey();
+        ticketEntity.setSecret(secret);
+        ticketEntity.setSecretHash(ApiModelMapper.hashSecret(secret));
     }
 
     /**
@@ -646,7 +927,7 @@ public class TicketServiceImpl implements TicketService {
         TicketEntity ticketEntity = ticketEntityOptional.get();
 
         if (expectedStatusList != null && !expectedStatusList.contains(ticketEntity.getStatus())) {
-            LOG.warn("User ID: {} attempted to activate/reactivate/redeem ticket not having {} status. Ticket ID: {}", authenticatedUser.getId(), expectedStatusList, ticketEntity.getId());
+            LOG.warn("User ID: {} attempted to activate/reactivate/redeem ticket not having {} status. Ticket ID: {}", getAuthenticatedUser().getId(), expectedStatusList, ticketEntity.getId());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket is not in " + expectedStatusList + " status.");
         }
 
@@ -657,14 +938,14 @@ public class TicketServiceImpl implements TicketService {
     public void cancelTransferTicket(UUID ticketId) {
 
         TicketEntity ticketEntity = verifyTicketValidity(ticketId, TicketEntity.Status.TRANSFER_PENDING);
-        if (!ticketEntity.getOwnerEntity().equals(authenticatedUser)) {
-            LOG.warn("User ID: {} attempted to transfer ticket ID: {} they dont own.", authenticatedUser.getId(), ticketId);
+        if (!ticketEntity.getOwnerEntity().getId().equals(getAuthenticatedUser().getId())) {
+            LOG.warn("User ID: {} attempted to transfer ticket ID: {} they dont own.", getAuthenticatedUser().getId(), ticketId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unauthorized");
         }
 
         TransferRequestEntity transferRequestEntity = transferRequestRepository.findFirstByTicketAndStatus(ticketEntity, TransferRequestEntity.Status.PENDING);
         if (transferRequestEntity == null) {
-            LOG.warn("User ID: {} attempted to cancel non-pending transfer. Ticket ID: {}", authenticatedUser.getId(), ticketId);
+            LOG.warn("User ID: {} attempted to cancel non-pending transfer. Ticket ID: {}", getAuthenticatedUser().getId(), ticketId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Attempted to cancel non-pending transfer");
         }
 
@@ -675,20 +956,20 @@ public class TicketServiceImpl implements TicketService {
         transferRequestEntity.setStatus(TransferRequestEntity.Status.CANCELED);
         transferRequestEntity = transferRequestRepository.save(transferRequestEntity);
 
-        LOG.info("User ID: {} canceled transfer request ID: {}", authenticatedUser.getId(), transferRequestEntity.getId());
+        LOG.info("User ID: {} canceled transfer request ID: {}", getAuthenticatedUser().getId(), transferRequestEntity.getId());
     }
 
     @Override
     public Ticket transferTicket(UUID ticketId, TransferRequest transferRequest) {
 
         TicketEntity ticketEntity = verifyTicketValidity(ticketId, TicketEntity.Status.ACTIVE);
-        if (!ticketEntity.getOwnerEntity().equals(authenticatedUser)) {
-            LOG.warn("User ID: {} attempted to transfer ticket ID: {} they dont own.", authenticatedUser.getId(), ticketId);
+        if (!ticketEntity.getOwnerEntity().getId().equals(getAuthenticatedUser().getId())) {
+            LOG.warn("User ID: {} attempted to transfer ticket ID: {} they dont own.", getAuthenticatedUser().getId(), ticketId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unauthorized");
         }
 
         if (OffsetDateTime.now().isAfter(ticketEntity.getEventEntity().getEventEndTime())) {
-            LOG.warn("User ID: {} attempted to transfer ticket ID: {} for ended event.", authenticatedUser.getId(), ticketId);
+            LOG.warn("User ID: {} attempted to transfer ticket ID: {} for ended event.", getAuthenticatedUser().getId(), ticketId);
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User attempted to transfer ticket for ended event.");
         }
 
@@ -699,7 +980,7 @@ public class TicketServiceImpl implements TicketService {
         transferRequestEntity.setTicket(ticketEntity);
         transferRequestEntity.setCreatedDate(OffsetDateTime.now());
         transferRequestEntity.setReceiverEmail(receiverEmail);
-        transferRequestEntity.setTransferor(authenticatedUser);
+        transferRequestEntity.setTransferor(getAuthenticatedUserEntity());
 
         UserEntity receiver = userRepository.findFirstByEmail(receiverEmail);
         if (receiver != null) { //Complete transfer ASAP.
@@ -709,7 +990,7 @@ public class TicketServiceImpl implements TicketService {
             transferRequestEntity.setStatus(TransferRequestEntity.Status.COMPLETED);
             transferRequestRepository.save(transferRequestEntity);
 
-            changeTicketOwner(ticketEntity, receiver);
+            changeTicketOwner(ticketEntity, receiver, transferRequestEntity.getId());
             return null;
 
         } else {
@@ -720,11 +1001,12 @@ public class TicketServiceImpl implements TicketService {
 
             transferRequestRepository.save(transferRequestEntity);
 
+            final String keyPrefix = "transfer:" + transferRequestEntity.getId();
             final Map<String, String> templateData = buildTransferTemplateDataPayload(ticketEntity, null, ticketEntity.getOwnerEntity());
             templateData.put("emailTransferee", receiverEmail);
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(ticketEntity.getOwnerEntity().getEmail(),
+            notificationService.enqueueEmail(keyPrefix + ":transferor-pending-email", ticketEntity.getOwnerEntity().getEmail(),
                     AWSSimpleEmailServiceGateway.TRANSFEROR_PENDING_EMAIL, templateData);
-            awsSimpleEmailServiceGateway.sendEmailFromTemplate(receiverEmail,
+            notificationService.enqueueEmail(keyPrefix + ":transferee-pending-email", receiverEmail,
                     AWSSimpleEmailServiceGateway.TRANSFEREE_PENDING_EMAIL, templateData);
 
             return getTicket(ticketId, false);
@@ -737,8 +1019,11 @@ public class TicketServiceImpl implements TicketService {
      *
      * @param ticketEntity Ticket to transfer.
      * @param newOwner New owner.
+     * @param transferRequestId Transfer being completed. Keys the notifications.
      */
-    private void changeTicketOwner(TicketEntity ticketEntity, UserEntity newOwner) {
+    private void changeTicketOwner(TicketEntity ticketEntity, UserEntity newOwner, UUID transferRequestId) {
+
+        final String keyPrefix = "transfer:" + transferRequestId;
 
         //Send push to all of users logged in devices.
         for (DeviceTokenEntity token : newOwner.getDeviceTokens()) {
@@ -751,23 +1036,21 @@ public class TicketServiceImpl implements TicketService {
             final String message = RECEIVED_TICKET_BODY
                     .replace("{{eventName}}", eventName)
                     .replace("{{previousName}}", ticketEntity.getOwnerEntity().getFirstName());
-            final Notification notification = new Notification(RECEIVED_TICKET_TITLE, message);
-
-            fcmGateway.sendPushNotification(token.getDeviceToken(), notification);
+            notificationService.enqueuePush(keyPrefix + ":push:" + token.getId(), token.getDeviceToken(), RECEIVED_TICKET_TITLE, message);
         }
 
         //Send email to both new and old owner.
         final Map<String, String> templateData = buildTransferTemplateDataPayload(ticketEntity, newOwner, ticketEntity.getOwnerEntity());
         templateData.put("emailTransferee", newOwner.getEmail());
 
-        awsSimpleEmailServiceGateway.sendEmailFromTemplate(newOwner.getEmail(),
+        notificationService.enqueueEmail(keyPrefix + ":transferee-complete-email", newOwner.getEmail(),
                 AWSSimpleEmailServiceGateway.TRANSFEREE_COMPLETE_EMAIL, templateData);
-        awsSimpleEmailServiceGateway.sendEmailFromTemplate(ticketEntity.getOwnerEntity().getEmail(),
+        notificationService.enqueueEmail(keyPrefix + ":transferor-complete-email", ticketEntity.getOwnerEntity().getEmail(),
                 AWSSimpleEmailServiceGateway.TRANSFEROR_COMPLETE_EMAIL, templateData);
 
         ticketEntity.setOwnerEntity(newOwner);
         ticketEntity.setStatus(TicketEntity.Status.ISSUED);
-        ticketEntity.setSecret(gAuth.createCredentials().getKey());
+        assignNewSecret(ticketEntity);
         ticketRepository.save(ticketEntity);
 
         LOG.info("Ticket ID: {} transferred to new owner Id: {}", ticketEntity.getId(), newOwner.getId());
@@ -819,7 +1102,7 @@ public class TicketServiceImpl implements TicketService {
             ticketRequest.setCompletedDate(OffsetDateTime.now());
             ticketRequest.setStatus(TransferRequestEntity.Status.COMPLETED);
 
-            changeTicketOwner(ticketRequest.getTicket(), newUser);
+            changeTicketOwner(ticketRequest.getTicket(), newUser, ticketRequest.getId());
         }
 
         transferRequestRepository.saveAll(pendingTickets);
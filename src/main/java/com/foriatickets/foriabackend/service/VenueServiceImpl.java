@@ -1,5 +1,6 @@
 package com.foriatickets.foriabackend.service;
 
+import com.foriatickets.foriabackend.config.ApiModelMapper;
 import com.foriatickets.foriabackend.entities.EventEntity;
 import com.foriatickets.foriabackend.entities.UserEntity;
 import com.foriatickets.foriabackend.entities.VenueAccessEntity;
@@ -35,7 +36,9 @@ public class VenueServiceImpl implements VenueService {
 
     private static final Logger LOG = LogManager.getLogger();
 
-    private final UserEntity authenticatedUser;
+    private final AuthenticatedUserService authenticatedUserService;
+
+    private final String auth0Id;
 
     private final ModelMapper modelMapper;
 
@@ -46,20 +49,16 @@ public class VenueServiceImpl implements VenueService {
     private final VenueRepository venueRepository;
 
     @Autowired
-    public VenueServiceImpl(UserRepository userRepository, VenueAccessRepository venueAccessRepository, VenueRepository venueRepository, ModelMapper modelMapper) {
+    public VenueServiceImpl(AuthenticatedUserService authenticatedUserService, UserRepository userRepository, VenueAccessRepository venueAccessRepository, VenueRepository venueRepository, ModelMapper modelMapper) {
 
+        this.authenticatedUserService = authenticatedUserService;
         this.modelMapper = modelMapper;
         this.userRepository = userRepository;
         this.venueAccessRepository = venueAccessRepository;
         this.venueRepository = venueRepository;
 
-        //Load user from Auth0 token.
-        String auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        authenticatedUser = userRepository.findByAuth0Id(auth0Id);
-        if (authenticatedUser == null && !auth0Id.equalsIgnoreCase("anonymousUser") && !auth0Id.equalsIgnoreCase("auth0")) {
-            LOG.warn("Attempted to create venue service with non-mapped auth0Id: {}", auth0Id);
-        }
+        //User is resolved from the Auth0 token on first use.
+        this.auth0Id = (String) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
     }
 
     @Override
@@ -89,6 +88,7 @@ public class VenueServiceImpl implements VenueService {
         venueAccessEntity.setVenueEntity(venueEntity.get());
 
         venueAccessRepository.save(venueAccessEntity);
+        authenticatedUserService.invalidate(userEntity.get().getAuth0Id());
         LOG.info("User ID: {} authorized for Venue ID: {}", userId, venueId);
     }
 
@@ -114,6 +114,7 @@ public class VenueServiceImpl implements VenueService {
         }
 
         venueAccessRepository.delete(venueAccessEntity);
+        authenticatedUserService.invalidate(venueAccessEntity.getUserEntity().getAuth0Id());
         LOG.info("User ID: {} deauthorized for Venue ID: {}", userId, venueId);
     }
 
@@ -136,15 +137,21 @@ public class VenueServiceImpl implements VenueService {
     @Override
     public List<Venue> getAllVenues() {
 
+        final Optional<AuthenticatedUserService.AuthenticatedUser> authenticatedUser = authenticatedUserService.getAuthenticatedUser(auth0Id);
+        if (!authenticatedUser.isPresent()) {
+            LOG.warn("Attempted to use venue service with non-mapped auth0Id: {}", auth0Id);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User is not found.");
+        }
+
         List<Venue> venueList = new ArrayList<>();
 
-        for (VenueAccessEntity venueAccessEntity : authenticatedUser.getVenueAccessEntities()) {
+        for (UUID venueId : authenticatedUser.get().getVenueIds()) {
 
-            Optional<Venue> venue = getVenue(venueAccessEntity.getVenueEntity().getId());
+            Optional<Venue> venue = getVenue(venueId);
             venue.ifPresent(venueList::add);
         }
 
-        LOG.info("Obtained {} venues for userID: {}", venueList.size(), authenticatedUser.getId());
+        LOG.info("Obtained {} venues for userID: {}", venueList.size(), authenticatedUser.get().getId());
         return venueList;
     }
 
@@ -158,13 +165,13 @@ public class VenueServiceImpl implements VenueService {
         }
 
         VenueEntity venueEntity = venueEntityOptional.get();
-        Venue venue = modelMapper.map(venueEntity, Venue.class);
+        Venue venue = ApiModelMapper.toVenue(venueEntity);
 
         List<Event> eventList = new ArrayList<>();
         venue.setEvents(eventList);
         for (EventEntity eventEntity : venueEntity.getEvents()) {
 
-            Event event = modelMapper.map(eventEntity, Event.class);
+            Event event = ApiModelMapper.toEvent(eventEntity);
             EventServiceImpl.populateEventModelWithAddress(event, venueEntity);
             eventList.add(event);
         }
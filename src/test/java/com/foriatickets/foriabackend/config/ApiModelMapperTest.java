@@ -0,0 +1,196 @@
+package com.foriatickets.foriabackend.config;
+
+import com.foriatickets.foriabackend.entities.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+import org.openapitools.model.Event;
+import org.openapitools.model.Ticket;
+import org.openapitools.model.TicketFeeConfig;
+import org.openapitools.model.TicketTypeConfig;
+import org.openapitools.model.Venue;
+import org.springframework.security.core.token.Sha512DigestUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the hand written conversions produce the same models as the reflective mappings they replace.
+ */
+public class ApiModelMapperTest {
+
+    private ModelMapper modelMapper;
+
+    private VenueEntity venueEntity;
+
+    private EventEntity eventEntity;
+
+    private TicketTypeConfigEntity ticketTypeConfigEntity;
+
+    private TicketFeeConfigEntity ticketFeeConfigEntity;
+
+    private TicketEntity ticketEntity;
+
+    @SuppressWarnings("rawtypes")
+    @Before
+    public void setUp() {
+
+        modelMapper = new ModelMapper();
+        for (PropertyMap map : BeanConfig.getModelMappers()) {
+            //noinspection unchecked
+            modelMapper.addMappings(map);
+        }
+
+        venueEntity = new VenueEntity()
+                .setId(UUID.randomUUID())
+                .setName("Test Venue")
+                .setDescription("Test Venue Desc")
+                .setContactName("John Doe")
+                .setContactEmail("john.doe@test.com")
+                .setContactPhoneCountry("+1")
+                .setContactPhone("5555555555")
+                .setContactStreetAddress("12345 Maple Ln")
+                .setContactCity("Test City")
+                .setContactState("MO")
+                .setContactZip("55555")
+                .setContactCountry("USA");
+
+        eventEntity = new EventEntity()
+                .setId(UUID.randomUUID())
+                .setName("Test Event")
+                .setTagLine("Test Tag")
+                .setDescription("Test Event Desc")
+                .setImageUrl("https://foriatickets.com/img.png")
+                .setVenueEntity(venueEntity)
+                .setEventStartTime(OffsetDateTime.now().plusDays(1L))
+                .setEventEndTime(OffsetDateTime.now().plusDays(2L));
+        eventEntity.setStatus(EventEntity.Status.LIVE);
+        eventEntity.setVisibility(EventEntity.Visibility.PUBLIC);
+        eventEntity.setType(EventEntity.Type.PRIMARY);
+
+        ticketTypeConfigEntity = new TicketTypeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setName("General Admission")
+                .setDescription("Test Type Desc")
+                .setEventEntity(eventEntity)
+                .setAuthorizedAmount(100)
+                .setPrice(new BigDecimal("25.00"))
+                .setCurrency("USD");
+        ticketTypeConfigEntity.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+        ticketTypeConfigEntity.setType(TicketTypeConfigEntity.Type.PUBLIC);
+
+        ticketFeeConfigEntity = new TicketFeeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setName("Test Fee")
+                .setDescription("Test Fee Desc")
+                .setEventEntity(eventEntity)
+                .setMethod(TicketFeeConfigEntity.FeeMethod.PERCENT)
+                .setType(TicketFeeConfigEntity.FeeType.ISSUER)
+                .setAmount(new BigDecimal("0.050"))
+                .setCurrency("USD");
+        ticketFeeConfigEntity.setStatus(TicketFeeConfigEntity.Status.ACTIVE);
+
+        eventEntity.setTicketTypeConfigEntity(new HashSet<>(Collections.singletonList(ticketTypeConfigEntity)));
+        eventEntity.setTicketFeeConfig(new HashSet<>(Collections.singletonList(ticketFeeConfigEntity)));
+
+        UserEntity owner = new UserEntity().setId(UUID.randomUUID());
+        UserEntity purchaser = new UserEntity().setId(UUID.randomUUID());
+
+        ticketEntity = new TicketEntity()
+                .setId(UUID.randomUUID())
+                .setEventEntity(eventEntity)
+                .setOwnerEntity(owner)
+                .setPurchaserEntity(purchaser)
+                .setTicketTypeConfigEntity(ticketTypeConfigEntity)
+                .setSecret("secret")
+                .setSecretHash(ApiModelMapper.hashSecret("secret"))
+                .setStatus(TicketEntity.Status.ACTIVE)
+                .setIssuedDate(OffsetDateTime.now());
+    }
+
+    @Test
+    public void toTicket() {
+
+        Ticket expected = modelMapper.map(ticketEntity, Ticket.class);
+        Ticket actual = ApiModelMapper.toTicket(ticketEntity);
+
+        assertEquals(expected, actual);
+        assertEquals(Sha512DigestUtils.shaHex("secret"), actual.getSecretHash());
+        assertEquals(ticketEntity.getOwnerEntity().getId(), actual.getOwnerId());
+        assertEquals(ticketEntity.getPurchaserEntity().getId(), actual.getPurchaserId());
+    }
+
+    @Test
+    public void toTicket_HashNotStored() {
+
+        ticketEntity.setSecretHash(null);
+
+        Ticket actual = ApiModelMapper.toTicket(ticketEntity);
+
+        assertEquals(Sha512DigestUtils.shaHex("secret"), actual.getSecretHash());
+    }
+
+    @Test
+    public void toEvent() {
+
+        Event expected = modelMapper.map(eventEntity, Event.class);
+        Event actual = ApiModelMapper.toEvent(eventEntity);
+
+        //Address is always set by the caller from the venue.
+        expected.setAddress(null);
+        assertEquals(expected, actual);
+        assertEquals(venueEntity.getId(), actual.getVenueId());
+        assertEquals(1, actual.getTicketTypeConfig().size());
+        assertEquals(1, actual.getTicketFeeConfig().size());
+    }
+
+    @Test
+    public void toTicketTypeConfig() {
+
+        TicketTypeConfig expected = modelMapper.map(ticketTypeConfigEntity, TicketTypeConfig.class);
+        TicketTypeConfig actual = ApiModelMapper.toTicketTypeConfig(ticketTypeConfigEntity);
+
+        assertEquals(expected, actual);
+        assertEquals("25.00", actual.getPrice());
+    }
+
+    @Test
+    public void toTicketFeeConfig() {
+
+        TicketFeeConfig expected = modelMapper.map(ticketFeeConfigEntity, TicketFeeConfig.class);
+        TicketFeeConfig actual = ApiModelMapper.toTicketFeeConfig(ticketFeeConfigEntity);
+
+        assertEquals(expected, actual);
+        assertEquals("0.050", actual.getAmount());
+    }
+
+    @Test
+    public void toVenue() {
+
+        Venue expected = modelMapper.map(venueEntity, Venue.class);
+        Venue actual = ApiModelMapper.toVenue(venueEntity);
+
+        //Events are always set by the caller.
+        expected.setEvents(null);
+        assertEquals(expected, actual);
+        assertEquals("12345 Maple Ln", actual.getAddress().getStreetAddress());
+    }
+
+    @Test
+    public void nullSafe() {
+
+        assertNull(ApiModelMapper.toTicket(null));
+        assertNull(ApiModelMapper.toEvent(null));
+        assertNull(ApiModelMapper.toVenue(null));
+
+        Ticket actual = ApiModelMapper.toTicket(new TicketEntity().setId(ticketEntity.getId()));
+        assertEquals(ticketEntity.getId(), actual.getId());
+        assertNull(actual.getEventId());
+        assertNull(actual.getSecretHash());
+        assertNull(actual.getTicketTypeConfig());
+    }
+}
@@ -0,0 +1,42 @@
+package com.foriatickets.foriabackend.gateway;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+public class AWSSimpleEmailServiceGatewayImplTest {
+
+    @Test
+    public void sendRateLimiter_WaitsForDeficitOfLargeRequest() throws InterruptedException {
+
+        AWSSimpleEmailServiceGatewayImpl.SendRateLimiter sendRateLimiter = new AWSSimpleEmailServiceGatewayImpl.SendRateLimiter(20);
+
+        //Burst is 20. The other 10 must wait half a second to be covered.
+        long start = System.nanoTime();
+        sendRateLimiter.acquire(30);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Large request returned after " + elapsedMs + " ms.", elapsedMs >= 450);
+
+        //The bucket is empty again, so the next single send waits one refill interval.
+        start = System.nanoTime();
+        sendRateLimiter.acquire(1);
+        elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Next request returned after " + elapsedMs + " ms.", elapsedMs >= 40);
+    }
+
+    @Test
+    public void sendRateLimiter_BurstDoesNotWait() throws InterruptedException {
+
+        AWSSimpleEmailServiceGatewayImpl.SendRateLimiter sendRateLimiter = new AWSSimpleEmailServiceGatewayImpl.SendRateLimiter(20);
+
+        long start = System.nanoTime();
+        sendRateLimiter.acquire(20);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Burst request returned after " + elapsedMs + " ms.", elapsedMs < 450);
+    }
+}
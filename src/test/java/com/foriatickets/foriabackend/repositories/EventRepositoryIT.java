@@ -0,0 +1,163 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.VenueEntity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the event queries filter in the database and that H2 plans them on the event indexes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles({"local", "mock"})
+public class EventRepositoryIT {
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private VenueRepository venueRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private VenueEntity venueEntity;
+
+    @Before
+    public void setUp() {
+
+        venueEntity = venueRepository.save(new VenueEntity()
+                .setName("Index Test Venue")
+                .setDescription("Index Test Venue")
+                .setContactName("John Doe")
+                .setContactEmail("john.doe@test.com")
+                .setContactPhoneCountry("+1")
+                .setContactPhone("5555555555")
+                .setContactStreetAddress("12345 Maple Ln")
+                .setContactCity("Fake City")
+                .setContactState("MO")
+                .setContactCountry("USA"));
+    }
+
+    @Test
+    public void findAllListedEvents() {
+
+        final OffsetDateTime now = OffsetDateTime.now();
+        final UUID listed = saveEvent(EventEntity.Status.LIVE, EventEntity.Visibility.PUBLIC, now.plusDays(2L));
+        final UUID canceled = saveEvent(EventEntity.Status.CANCELED, EventEntity.Visibility.PUBLIC, now.plusDays(2L));
+        final UUID hidden = saveEvent(EventEntity.Status.LIVE, EventEntity.Visibility.PRIVATE, now.plusDays(2L));
+        final UUID ended = saveEvent(EventEntity.Status.LIVE, EventEntity.Visibility.PUBLIC, now.minusDays(1L));
+
+        final Set<UUID> actual = new HashSet<>();
+        for (EventEntity eventEntity : eventRepository.findAllListedEvents(now)) {
+            actual.add(eventEntity.getId());
+        }
+
+        assertTrue(actual.contains(listed));
+        assertFalse(actual.contains(canceled));
+        assertFalse(actual.contains(hidden));
+        assertFalse(actual.contains(ended));
+    }
+
+    @Test
+    public void findListedEventsPageAfter() {
+
+        //Events share a start time so the ID breaks ties between pages.
+        final OffsetDateTime now = OffsetDateTime.now();
+        final Set<UUID> expected = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add(saveEvent(EventEntity.Status.LIVE, EventEntity.Visibility.PUBLIC, now.plusDays(3L)));
+        }
+
+        final List<UUID> actual = new ArrayList<>();
+        List<EventEntity> page = eventRepository.findListedEventsPage(now, PageRequest.of(0, 2));
+        while (!page.isEmpty()) {
+
+            for (EventEntity eventEntity : page) {
+                actual.add(eventEntity.getId());
+            }
+
+            final EventEntity last = page.get(page.size() - 1);
+            page = eventRepository.findListedEventsPageAfter(now, last.getEventStartTime(), last.getId(), PageRequest.of(0, 2));
+        }
+
+        assertEquals(new HashSet<>(actual).size(), actual.size());
+        assertTrue(actual.containsAll(expected));
+    }
+
+    @Test
+    public void listedEventsPlan_UsesStatusVisibilityEndIndex() {
+
+        final String plan = explain("SELECT id FROM event " +
+                "WHERE status = 'LIVE' " +
+                "AND visibility = 'PUBLIC' " +
+                "AND event_end_time >= CURRENT_TIMESTAMP " +
+                "ORDER BY event_start_time, name");
+
+        assertTrue(plan, plan.contains("idx_event_status_visibility_end"));
+    }
+
+    @Test
+    public void startTimeRangePlan_UsesReminderStartIndex() {
+
+        final String plan = explain("SELECT id FROM event " +
+                "WHERE event_start_time >= TIMESTAMP '2020-01-01 00:00:00' " +
+                "AND event_start_time <= TIMESTAMP '2020-01-01 23:59:59'");
+
+        assertTrue(plan, plan.contains("idx_event_reminder_start"));
+    }
+
+    @Test
+    public void listingIndex_MatchesListingKeyset() {
+
+        final List<String> actual = jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEXES " +
+                "WHERE INDEX_NAME = 'idx_event_status_visibility_start' " +
+                "ORDER BY ORDINAL_POSITION", String.class);
+
+        assertEquals(Arrays.asList("status", "visibility", "event_start_time", "id"), actual);
+    }
+
+    @Test
+    public void endTimeRangePlan_UsesEndTimeIndex() {
+
+        final String plan = explain("SELECT id FROM event " +
+                "WHERE event_end_time >= TIMESTAMP '2020-01-01 00:00:00' " +
+                "AND event_end_time <= TIMESTAMP '2020-01-02 06:00:00'");
+
+        assertTrue(plan, plan.contains("idx_event_end_time"));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase();
+    }
+
+    private UUID saveEvent(EventEntity.Status status, EventEntity.Visibility visibility, OffsetDateTime endTime) {
+
+        EventEntity eventEntity = new EventEntity()
+                .setVenueEntity(venueEntity)
+                .setName("Index Test Event")
+                .setTagLine("Index Test")
+                .setDescription("Index Test Event")
+                .setImageUrl("https://foriatickets.com/favicon.ico")
+                .setEventStartTime(endTime.minusHours(4L))
+                .setEventEndTime(endTime)
+                .setAuthorizedTickets(100);
+        eventEntity.setStatus(status);
+        eventEntity.setVisibility(visibility);
+        eventEntity.setType(EventEntity.Type.PRIMARY);
+        return eventRepository.save(eventEntity).getId();
+    }
+}
@@ -0,0 +1,106 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the plain SQL outbox insert against H2, including a duplicate key inside the caller's transaction.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "notificationOutboxPollMs=3600000")
+@ActiveProfiles({"local", "mock"})
+public class NotificationOutboxRepositoryIT {
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<UUID> createdNotifications = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+
+        for (UUID notificationId : createdNotifications) {
+            notificationOutboxRepository.deleteById(notificationId);
+        }
+        createdNotifications.clear();
+    }
+
+    @Test
+    public void insertIfAbsent() {
+
+        final NotificationOutboxEntity notificationOutboxEntity = newNotification("it:" + UUID.randomUUID());
+
+        assertTrue(transactionTemplate.execute(status -> notificationOutboxRepository.insertIfAbsent(notificationOutboxEntity)));
+        createdNotifications.add(notificationOutboxEntity.getId());
+
+        final NotificationOutboxEntity actual = notificationOutboxRepository.findById(notificationOutboxEntity.getId()).orElseThrow(IllegalStateException::new);
+        assertEquals(notificationOutboxEntity.getIdempotencyKey(), actual.getIdempotencyKey());
+        assertEquals(NotificationOutboxEntity.Channel.PUSH, actual.getChannel());
+        assertEquals(NotificationOutboxEntity.Status.PENDING, actual.getStatus());
+        assertTrue(notificationOutboxEntity.getNextAttemptDate().isEqual(actual.getNextAttemptDate()));
+        assertTrue(notificationOutboxRepository.existsByIdempotencyKey(notificationOutboxEntity.getIdempotencyKey()));
+    }
+
+    @Test
+    public void insertIfAbsent_DuplicateKeepsTransaction() {
+
+        final String idempotencyKey = "it:" + UUID.randomUUID();
+        final NotificationOutboxEntity first = newNotification(idempotencyKey);
+        assertTrue(transactionTemplate.execute(status -> notificationOutboxRepository.insertIfAbsent(first)));
+        createdNotifications.add(first.getId());
+
+        //Losing the race must leave the rest of the caller's transaction able to commit.
+        final NotificationOutboxEntity duplicate = newNotification(idempotencyKey);
+        final NotificationOutboxEntity other = newNotification("it:" + UUID.randomUUID());
+        transactionTemplate.execute(status -> {
+            assertFalse(notificationOutboxRepository.insertIfAbsent(duplicate));
+            return notificationOutboxRepository.insertIfAbsent(other);
+        });
+        createdNotifications.add(other.getId());
+
+        assertFalse(notificationOutboxRepository.existsById(duplicate.getId()));
+        assertTrue(notificationOutboxRepository.existsById(other.getId()));
+    }
+
+    private static NotificationOutboxEntity newNotification(String idempotencyKey) {
+
+        final OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        return new NotificationOutboxEntity()
+                .setIdempotencyKey(idempotencyKey)
+                .setChannel(NotificationOutboxEntity.Channel.PUSH)
+                .setRecipient("token")
+                .setTitle("Title")
+                .setBody("body")
+                .setStatus(NotificationOutboxEntity.Status.PENDING)
+                .setAttempts(0)
+                .setCreatedDate(now)
+                .setNextAttemptDate(now);
+    }
+}
@@ -0,0 +1,158 @@
+package com.foriatickets.foriabackend.repositories;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.UserEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the scanner and offline redemption writes against H2, including the plain SQL redemption batch.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles({"local", "mock"})
+public class TicketRepositoryIT {
+
+    private static final UUID EVENT_ID = UUID.fromString("40c6a84f-9505-40b9-a9ea-817074aac2f1");
+
+    private static final UUID VENUE_ID = UUID.fromString("2b2c8c0f-5b17-429a-a5f6-44dd47935e9a");
+
+    private static final UUID TICKET_TYPE_CONFIG_ID = UUID.fromString("9c0f3a04-a4f6-4229-9e8b-2ee9c3ec5f18");
+
+    private static final UUID USER_ID = UUID.fromString("3f4bc13d-3bc3-4c41-84ed-c92193bac935");
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketTypeConfigRepository ticketTypeConfigRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<UUID> createdTickets = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+
+        for (UUID ticketId : createdTickets) {
+            ticketRepository.deleteById(ticketId);
+        }
+        createdTickets.clear();
+    }
+
+    @Test
+    public void markRedeemedBatch() {
+
+        final UUID first = saveTicket(TicketEntity.Status.ACTIVE);
+        final UUID second = saveTicket(TicketEntity.Status.ACTIVE);
+        final UUID redeemed = saveTicket(TicketEntity.Status.REDEEMED);
+
+        final OffsetDateTime scannedAt = OffsetDateTime.now().minusMinutes(5L).truncatedTo(ChronoUnit.SECONDS);
+        final OffsetDateTime now = OffsetDateTime.now();
+        final int[] actual = transactionTemplate.execute(status -> ticketRepository.markRedeemedBatch(
+                Arrays.asList(first, second, redeemed), Arrays.asList(scannedAt, scannedAt, scannedAt), now));
+
+        assertArrayEquals(new int[] {1, 1, 0}, actual);
+
+        final TicketEntity firstEntity = ticketRepository.findById(first).orElseThrow(IllegalStateException::new);
+        assertEquals(TicketEntity.Status.REDEEMED, firstEntity.getStatus());
+        assertTrue(scannedAt.isEqual(firstEntity.getRedeemedDate()));
+        assertNotNull(firstEntity.getUpdatedDate());
+        assertNull(ticketRepository.findById(redeemed).orElseThrow(IllegalStateException::new).getRedeemedDate());
+    }
+
+    @Test
+    public void claimEarlierRedemption() {
+
+        final UUID ticketId = saveTicket(TicketEntity.Status.ACTIVE);
+        final OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        assertEquals(Integer.valueOf(1), transactionTemplate.execute(status -> ticketRepository.markRedeemed(ticketId, now.minusMinutes(10L), now)));
+        assertEquals(Integer.valueOf(0), transactionTemplate.execute(status -> ticketRepository.claimEarlierRedemption(ticketId, now.minusMinutes(5L), now)));
+        assertEquals(Integer.valueOf(1), transactionTemplate.execute(status -> ticketRepository.claimEarlierRedemption(ticketId, now.minusMinutes(20L), now)));
+
+        final TicketEntity ticketEntity = ticketRepository.findById(ticketId).orElseThrow(IllegalStateException::new);
+        assertTrue(now.minusMinutes(20L).isEqual(ticketEntity.getRedeemedDate()));
+    }
+
+    @Test
+    public void findScanInfoByIds() {
+
+        final UUID ticketId = saveTicket(TicketEntity.Status.ACTIVE);
+
+        final List<Object[]> actual = ticketRepository.findScanInfoByIds(Arrays.asList(ticketId, UUID.randomUUID()));
+
+        assertEquals(1, actual.size());
+        assertEquals(ticketId, actual.get(0)[0]);
+        assertEquals(TicketEntity.Status.ACTIVE, actual.get(0)[1]);
+        assertEquals(EVENT_ID, actual.get(0)[3]);
+        assertEquals(VENUE_ID, actual.get(0)[4]);
+        assertEquals("GA Test", actual.get(0)[5]);
+    }
+
+    @Test
+    public void findOfflinePackRowsUpdatedAfter() {
+
+        final OffsetDateTime before = OffsetDateTime.now().minusSeconds(1L);
+        final UUID ticketId = saveTicket(TicketEntity.Status.ACTIVE);
+
+        final Set<UUID> actual = new HashSet<>();
+        for (Object[] row : ticketRepository.findOfflinePackRowsUpdatedAfter(EVENT_ID, before)) {
+            actual.add((UUID) row[0]);
+        }
+        assertTrue(actual.contains(ticketId));
+
+        for (Object[] row : ticketRepository.findOfflinePackRowsUpdatedAfter(EVENT_ID, OffsetDateTime.now().plusMinutes(1L))) {
+            assertNotEquals(ticketId, row[0]);
+        }
+    }
+
+    private UUID saveTicket(TicketEntity.Status status) {
+
+        final EventEntity eventEntity = eventRepository.findById(EVENT_ID).orElseThrow(IllegalStateException::new);
+        final TicketTypeConfigEntity ticketTypeConfigEntity = ticketTypeConfigRepository.findById(TICKET_TYPE_CONFIG_ID).orElseThrow(IllegalStateException::new);
+        final UserEntity userEntity = userRepository.findById(USER_ID).orElseThrow(IllegalStateException::new);
+
+        final TicketEntity ticketEntity = ticketRepository.save(new TicketEntity()
+                .setEventEntity(eventEntity)
+                .setOwnerEntity(userEntity)
+                .setPurchaserEntity(userEntity)
+                .setTicketTypeConfigEntity(ticketTypeConfigEntity)
+                .setSecret(UUID.randomUUID().toString())
+                .setStatus(status)
+                .setIssuedDate(OffsetDateTime.now()));
+
+        createdTickets.add(ticketEntity.getId());
+        return ticketEntity.getId();
+    }
+}
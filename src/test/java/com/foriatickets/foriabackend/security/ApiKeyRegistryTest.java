@@ -0,0 +1,109 @@
+package com.foriatickets.foriabackend.security;
+
+import com.foriatickets.foriabackend.gateway.AWSSecretsManagerGateway;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class ApiKeyRegistryTest {
+
+    @Mock
+    private AWSSecretsManagerGateway awsSecretsManagerGateway;
+
+    private ApiKeyRegistry apiKeyRegistry;
+
+    @Before
+    public void setUp() {
+
+        AWSSecretsManagerGateway.ApiKey apiKey = new AWSSecretsManagerGateway.ApiKey();
+        apiKey.key = "key";
+        apiKey.secret = "secret";
+        apiKey.scopes = Collections.singletonList("write:register");
+
+        when(awsSecretsManagerGateway.getApiKey(anyString())).thenReturn(Optional.of(apiKey));
+        apiKeyRegistry = new ApiKeyRegistry(awsSecretsManagerGateway, "keyOne");
+        apiKeyRegistry.init();
+    }
+
+    @Test
+    public void authenticate() {
+
+        ApiKeyRegistry.Entry entry = apiKeyRegistry.authenticate("key", "secret");
+        Assert.assertNotNull(entry);
+        Assert.assertEquals(1, entry.authorities.size());
+        Assert.assertEquals("write:register", entry.authorities.get(0).getAuthority());
+
+        Assert.assertNull(apiKeyRegistry.authenticate("key", "wrong"));
+        Assert.assertNull(apiKeyRegistry.authenticate("missing", "secret"));
+
+        Assert.assertEquals(1, apiKeyRegistry.getLookupHits());
+        Assert.assertEquals(2, apiKeyRegistry.getLookupMisses());
+        verify(awsSecretsManagerGateway, times(1)).getApiKey(anyString());
+    }
+
+    @Test
+    public void refresh_DropsRevokedAndMalformedKeys() {
+
+        ApiKeyRegistry multiKeyRegistry = new ApiKeyRegistry(awsSecretsManagerGateway, "keyOne;keyTwo;keyThree");
+        when(awsSecretsManagerGateway.getApiKey("keyOne")).thenReturn(Optional.of(apiKey("one")));
+        when(awsSecretsManagerGateway.getApiKey("keyTwo")).thenReturn(Optional.of(apiKey("two")));
+        when(awsSecretsManagerGateway.getApiKey("keyThree")).thenReturn(Optional.of(apiKey("three")));
+        multiKeyRegistry.init();
+        Assert.assertEquals(3, multiKeyRegistry.getKeyCount());
+
+        //keyOne is revoked and keyTwo is malformed.
+        AWSSecretsManagerGateway.ApiKey malformed = apiKey("two");
+        malformed.scopes = null;
+        when(awsSecretsManagerGateway.getApiKey("keyOne")).thenReturn(Optional.empty());
+        when(awsSecretsManagerGateway.getApiKey("keyTwo")).thenReturn(Optional.of(malformed));
+        multiKeyRegistry.refresh();
+
+        Assert.assertEquals(2, multiKeyRegistry.getVersion());
+        Assert.assertEquals(2, multiKeyRegistry.getDroppedKeys());
+        Assert.assertEquals(1, multiKeyRegistry.getKeyCount());
+        Assert.assertNull(multiKeyRegistry.authenticate("one", "one-secret"));
+        Assert.assertNull(multiKeyRegistry.authenticate("two", "two-secret"));
+        Assert.assertNotNull(multiKeyRegistry.authenticate("three", "three-secret"));
+    }
+
+    @Test
+    public void init_LoadsValidKeysWhenOneFails() {
+
+        ApiKeyRegistry multiKeyRegistry = new ApiKeyRegistry(awsSecretsManagerGateway, "keyOne;keyTwo");
+        when(awsSecretsManagerGateway.getApiKey("keyOne")).thenThrow(new RuntimeException("Secrets Manager unavailable"));
+        when(awsSecretsManagerGateway.getApiKey("keyTwo")).thenReturn(Optional.of(apiKey("two")));
+        multiKeyRegistry.init();
+
+        Assert.assertEquals(1, multiKeyRegistry.getDroppedKeys());
+        Assert.assertNotNull(multiKeyRegistry.authenticate("two", "two-secret"));
+    }
+
+    @Test
+    public void refresh_LocalKeyWhenListMissing() {
+
+        ApiKeyRegistry localRegistry = new ApiKeyRegistry(awsSecretsManagerGateway, null);
+        localRegistry.init();
+
+        Assert.assertNotNull(localRegistry.authenticate("test", "test"));
+        Assert.assertEquals(1, localRegistry.getKeyCount());
+    }
+
+    private static AWSSecretsManagerGateway.ApiKey apiKey(String key) {
+
+        AWSSecretsManagerGateway.ApiKey apiKey = new AWSSecretsManagerGateway.ApiKey();
+        apiKey.key = key;
+        apiKey.secret = key + "-secret";
+        apiKey.scopes = Collections.singletonList("write:register");
+        return apiKey;
+    }
+}
@@ -0,0 +1,138 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.UserEntity;
+import com.foriatickets.foriabackend.entities.VenueAccessEntity;
+import com.foriatickets.foriabackend.entities.VenueEntity;
+import com.foriatickets.foriabackend.repositories.UserRepository;
+import com.foriatickets.foriabackend.repositories.VenueAccessRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class AuthenticatedUserServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private VenueAccessRepository venueAccessRepository;
+
+    private AuthenticatedUserServiceImpl authenticatedUserService;
+
+    private UUID userId;
+
+    private UUID venueId;
+
+    @Before
+    public void setUp() {
+
+        userId = UUID.randomUUID();
+        venueId = UUID.randomUUID();
+
+        VenueEntity venueEntity = mock(VenueEntity.class);
+        when(venueEntity.getId()).thenReturn(venueId);
+        VenueAccessEntity venueAccessEntity = mock(VenueAccessEntity.class);
+        when(venueAccessEntity.getVenueEntity()).thenReturn(venueEntity);
+
+        UserEntity userEntity = mock(UserEntity.class);
+        when(userEntity.getId()).thenReturn(userId);
+        when(userEntity.getAuth0Id()).thenReturn("test");
+        when(userEntity.getEmail()).thenReturn("test@test.com");
+        when(userEntity.getVenueAccessEntities()).thenReturn(Collections.singleton(venueAccessEntity));
+        when(userRepository.findByAuth0Id(eq("test"))).thenReturn(userEntity);
+
+        authenticatedUserService = new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 1, 60000, 60000);
+    }
+
+    @Test
+    public void getAuthenticatedUser() {
+
+        Optional<AuthenticatedUserService.AuthenticatedUser> actual = authenticatedUserService.getAuthenticatedUser("test");
+        authenticatedUserService.getAuthenticatedUser("test");
+
+        assertTrue(actual.isPresent());
+        assertEquals(userId, actual.get().getId());
+        assertEquals("test@test.com", actual.get().getEmail());
+        assertTrue(actual.get().hasVenueAccess(venueId));
+        assertFalse(actual.get().hasVenueAccess(UUID.randomUUID()));
+        verify(userRepository, times(1)).findByAuth0Id(eq("test"));
+    }
+
+    @Test
+    public void getAuthenticatedUser_NotFound() {
+
+        assertFalse(authenticatedUserService.getAuthenticatedUser("missing").isPresent());
+        assertFalse(authenticatedUserService.getAuthenticatedUser("missing").isPresent());
+        verify(userRepository, times(2)).findByAuth0Id(eq("missing"));
+    }
+
+    @Test
+    public void invalidate() {
+
+        authenticatedUserService.getAuthenticatedUser("test");
+        authenticatedUserService.invalidate("test");
+        authenticatedUserService.getAuthenticatedUser("test");
+
+        verify(userRepository, times(2)).findByAuth0Id(eq("test"));
+    }
+
+    @Test
+    public void getAuthenticatedUser_Expired() {
+
+        authenticatedUserService = new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 1, 0, 0);
+        authenticatedUserService.getAuthenticatedUser("test");
+        authenticatedUserService.getAuthenticatedUser("test");
+
+        verify(userRepository, times(2)).findByAuth0Id(eq("test"));
+    }
+
+    @Test
+    public void getAuthenticatedUser_VenueAccessExpired() {
+
+        authenticatedUserService = new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 1, 60000, 0);
+        when(venueAccessRepository.findVenueIdsByUserId(userId)).thenReturn(Collections.emptyList());
+
+        assertTrue(authenticatedUserService.getAuthenticatedUser("test").get().hasVenueAccess(venueId));
+        Optional<AuthenticatedUserService.AuthenticatedUser> actual = authenticatedUserService.getAuthenticatedUser("test");
+
+        //Revoked access is seen without reloading the user.
+        assertTrue(actual.isPresent());
+        assertEquals(userId, actual.get().getId());
+        assertFalse(actual.get().hasVenueAccess(venueId));
+        verify(userRepository, times(1)).findByAuth0Id(eq("test"));
+        verify(venueAccessRepository).findVenueIdsByUserId(userId);
+    }
+
+    @Test
+    public void invalidate_AfterCommit() {
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            authenticatedUserService.invalidate("test");
+
+            //Concurrent request caches the snapshot before the write commits.
+            authenticatedUserService.getAuthenticatedUser("test");
+            for (TransactionSynchronization transactionSynchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                transactionSynchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        authenticatedUserService.getAuthenticatedUser("test");
+        verify(userRepository, times(2)).findByAuth0Id(eq("test"));
+    }
+}
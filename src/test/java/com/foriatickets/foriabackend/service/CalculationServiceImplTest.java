@@ -36,7 +36,7 @@ public class CalculationServiceImplTest {
 
     @Before
     public void setUp() {
-        calculationService = new CalculationServiceImpl(eventRepository, ticketTypeConfigRepository);
+        calculationService = new CalculationServiceImpl(eventRepository, ticketTypeConfigRepository, 100, 60000L);
     }
 
     @Test
@@ -52,6 +52,7 @@ public class CalculationServiceImplTest {
         when(eventEntityMock.getType()).thenReturn(EventEntity.Type.PRIMARY);
 
         Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
+        Mockito.when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntityMock));
 
         TicketTypeConfigEntity ticketTypeConfigEntityMock = mock(TicketTypeConfigEntity.class);
         when(ticketTypeConfigEntityMock.getAuthorizedAmount()).thenReturn(5);
@@ -125,6 +126,7 @@ public class CalculationServiceImplTest {
         when(eventEntityMock.getId()).thenReturn(eventId);
 
         Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
+        Mockito.when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntityMock));
 
         UUID paidEventTypeId = UUID.randomUUID();
         TicketTypeConfigEntity ticketTypeConfigEntityMock = mock(TicketTypeConfigEntity.class);
@@ -206,6 +208,7 @@ public class CalculationServiceImplTest {
         when(eventEntityMock.getId()).thenReturn(eventId);
 
         Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
+        Mockito.when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntityMock));
 
         TicketTypeConfigEntity ticketTypeConfigEntityMock = mock(TicketTypeConfigEntity.class);
         when(ticketTypeConfigEntityMock.getAuthorizedAmount()).thenReturn(5);
@@ -278,6 +281,7 @@ public class CalculationServiceImplTest {
         when(eventEntityMock.getId()).thenReturn(eventId);
 
         Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
+        Mockito.when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntityMock));
 
         TicketTypeConfigEntity ticketTypeConfigEntityMock = mock(TicketTypeConfigEntity.class);
         when(ticketTypeConfigEntityMock.getAuthorizedAmount()).thenReturn(5);
@@ -477,4 +481,173 @@ public class CalculationServiceImplTest {
         assertEquals(actual.feeSubtotal, actual.issuerFeeSubtotal.add(actual.venueFeeSubtotal));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void calculateFeesTest_FixedPointMatchesBigDecimal() {
+
+        final CalculationServiceImpl calculationServiceImpl = new CalculationServiceImpl(eventRepository, ticketTypeConfigRepository, 100, 60000L);
+        final Random random = new Random(20200118L);
+
+        for (int i = 0; i < 20000; i++) {
+
+            Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+            final int numFees = random.nextInt(7);
+            for (int j = 0; j < numFees; j++) {
+
+                final boolean isPercent = random.nextBoolean();
+                TicketFeeConfigEntity ticketFeeConfigEntity = new TicketFeeConfigEntity()
+                        .setId(UUID.randomUUID())
+                        .setMethod(isPercent ? TicketFeeConfigEntity.FeeMethod.PERCENT : TicketFeeConfigEntity.FeeMethod.FLAT)
+                        .setType(random.nextBoolean() ? TicketFeeConfigEntity.FeeType.ISSUER : TicketFeeConfigEntity.FeeType.VENUE)
+                        .setAmount(isPercent ? BigDecimal.valueOf(random.nextInt(2501), 1 + random.nextInt(4)) : BigDecimal.valueOf(random.nextInt(2000), random.nextInt(4)))
+                        .setCurrency("USD");
+                ticketFeeConfigEntity.setStatus(random.nextInt(4) == 0 ? TicketFeeConfigEntity.Status.INACTIVE : TicketFeeConfigEntity.Status.ACTIVE);
+                feeSet.add(ticketFeeConfigEntity);
+            }
+
+            //Mix of whole cent subtotals at different scales and a few sub-cent ones that take the BigDecimal path.
+            BigDecimal subtotal = BigDecimal.valueOf(random.nextInt(10000000), 2);
+            if (random.nextInt(10) == 0) {
+                subtotal = BigDecimal.valueOf(random.nextInt(10000000), 3);
+            } else if (random.nextInt(10) == 0) {
+                subtotal = BigDecimal.valueOf(random.nextInt(100000));
+            }
+
+            final int numPaidTickets = random.nextInt(21);
+            final boolean doInactiveCheck = random.nextBoolean();
+
+            CalculationServiceImpl.PriceCalculationInfo actual = calculationServiceImpl.calculateFees(numPaidTickets, subtotal, feeSet, doInactiveCheck);
+            CalculationServiceImpl.PriceCalculationInfo expected = calculationServiceImpl.calculateFeesWithBigDecimal(numPaidTickets, subtotal, feeSet, doInactiveCheck);
+
+            final String message = "Subtotal: " + subtotal + " Paid Tickets: " + numPaidTickets + " Fees: " + feeSet;
+            assertEquals(message, expected.ticketSubtotal, actual.ticketSubtotal);
+            assertEquals(message, expected.feeSubtotal, actual.feeSubtotal);
+            assertEquals(message, expected.issuerFeeSubtotal, actual.issuerFeeSubtotal);
+            assertEquals(message, expected.venueFeeSubtotal, actual.venueFeeSubtotal);
+            assertEquals(message, expected.paymentFeeSubtotal, actual.paymentFeeSubtotal);
+            assertEquals(message, expected.grandTotal, actual.grandTotal);
+        }
+    }
+
+    @Test
+    public void calculateFeesTest_SubCentSubtotal() {
+
+        BigDecimal subtotal = new BigDecimal("100.335");
+
+        Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+
+        TicketFeeConfigEntity ticketFeeConfigEntityPercent = new TicketFeeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setMethod(TicketFeeConfigEntity.FeeMethod.PERCENT)
+                .setType(TicketFeeConfigEntity.FeeType.ISSUER)
+                .setAmount(new BigDecimal("0.11"))
+                .setCurrency("USD");
+        ticketFeeConfigEntityPercent.setStatus(TicketFeeConfigEntity.Status.ACTIVE);
+        feeSet.add(ticketFeeConfigEntityPercent);
+
+        CalculationServiceImpl.PriceCalculationInfo actual = calculationService.calculateFees(1, subtotal, feeSet, true);
+
+        assertEquals(new BigDecimal("100.33"), actual.ticketSubtotal);
+        assertEquals(new BigDecimal("11.04"), actual.feeSubtotal);
+        assertEquals(new BigDecimal("115.01"), actual.grandTotal);
+        assertEquals(new BigDecimal("3.63"), actual.paymentFeeSubtotal);
+    }
+
+    @Test
+    public void calculateEventFeesTest_CachedUntilInvalidated() {
+
+        UUID eventId = UUID.randomUUID();
+        BigDecimal subtotal = new BigDecimal("100.00");
+
+        Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.ISSUER, "1.50", TicketFeeConfigEntity.Status.ACTIVE));
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.PERCENT, TicketFeeConfigEntity.FeeType.VENUE, "0.11", TicketFeeConfigEntity.Status.ACTIVE));
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.VENUE, "10000.00", TicketFeeConfigEntity.Status.INACTIVE));
+
+        CalculationServiceImpl.PriceCalculationInfo actual = calculationService.calculateEventFees(1, subtotal, eventId, feeSet);
+        assertEquals(new BigDecimal("12.50"), actual.feeSubtotal);
+        assertEquals(new BigDecimal("1.50"), actual.issuerFeeSubtotal);
+        assertEquals(new BigDecimal("11.00"), actual.venueFeeSubtotal);
+        assertEquals(new BigDecimal("116.17"), actual.grandTotal);
+
+        //Fee set is only read on a miss.
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.ISSUER, "1.00", TicketFeeConfigEntity.Status.ACTIVE));
+        actual = calculationService.calculateEventFees(1, subtotal, eventId, feeSet);
+        assertEquals(new BigDecimal("12.50"), actual.feeSubtotal);
+
+        calculationService.invalidateFeeSchedule(eventId);
+        actual = calculationService.calculateEventFees(1, subtotal, eventId, feeSet);
+        assertEquals(new BigDecimal("13.50"), actual.feeSubtotal);
+        assertEquals(new BigDecimal("2.50"), actual.issuerFeeSubtotal);
+    }
+
+    @Test
+    public void calculateEventFeesTest_MatchesCalculateFees() {
+
+        UUID eventId = UUID.randomUUID();
+        BigDecimal subtotal = new BigDecimal("100.33");
+
+        Set<TicketFeeConfigEntity> feeSet = new HashSet<>();
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.ISSUER, "1.50", TicketFeeConfigEntity.Status.ACTIVE));
+        feeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.PERCENT, TicketFeeConfigEntity.FeeType.ISSUER, "0.11", TicketFeeConfigEntity.Status.ACTIVE));
+
+        CalculationServiceImpl.PriceCalculationInfo expected = calculationService.calculateFees(3, subtotal, feeSet, true);
+        CalculationServiceImpl.PriceCalculationInfo actual = calculationService.calculateEventFees(3, subtotal, eventId, feeSet);
+
+        assertEquals(expected.ticketSubtotal, actual.ticketSubtotal);
+        assertEquals(expected.feeSubtotal, actual.feeSubtotal);
+        assertEquals(expected.issuerFeeSubtotal, actual.issuerFeeSubtotal);
+        assertEquals(expected.venueFeeSubtotal, actual.venueFeeSubtotal);
+        assertEquals(expected.paymentFeeSubtotal, actual.paymentFeeSubtotal);
+        assertEquals(expected.grandTotal, actual.grandTotal);
+    }
+
+    @Test
+    public void calculateTotalPriceTest_IgnoresCachedFees() {
+
+        UUID eventId = UUID.randomUUID();
+        UUID ticketTypeId = UUID.randomUUID();
+        BigDecimal subtotal = new BigDecimal("100.00");
+
+        Set<TicketFeeConfigEntity> cachedFeeSet = new HashSet<>();
+        cachedFeeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.ISSUER, "1.50", TicketFeeConfigEntity.Status.ACTIVE));
+        cachedFeeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.PERCENT, TicketFeeConfigEntity.FeeType.VENUE, "0.11", TicketFeeConfigEntity.Status.ACTIVE));
+        assertEquals(new BigDecimal("12.50"), calculationService.calculateEventFees(1, subtotal, eventId, cachedFeeSet).feeSubtotal);
+
+        //Fees changed on another node after the schedule was cached here.
+        Set<TicketFeeConfigEntity> currentFeeSet = new HashSet<>(cachedFeeSet);
+        currentFeeSet.add(feeConfig(TicketFeeConfigEntity.FeeMethod.FLAT, TicketFeeConfigEntity.FeeType.ISSUER, "1.00", TicketFeeConfigEntity.Status.ACTIVE));
+
+        EventEntity eventEntityMock = mock(EventEntity.class);
+        when(eventEntityMock.getId()).thenReturn(eventId);
+        when(eventEntityMock.getTicketFeeConfig()).thenReturn(currentFeeSet);
+        Mockito.when(eventRepository.findCheckoutById(eventId)).thenReturn(Optional.of(eventEntityMock));
+
+        TicketTypeConfigEntity ticketTypeConfigEntityMock = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntityMock.getId()).thenReturn(ticketTypeId);
+        when(ticketTypeConfigEntityMock.getPrice()).thenReturn(subtotal);
+        when(ticketTypeConfigEntityMock.getCurrency()).thenReturn("USD");
+        when(ticketTypeConfigEntityMock.getStatus()).thenReturn(TicketTypeConfigEntity.Status.ACTIVE);
+        Mockito.when(ticketTypeConfigRepository.findById(ticketTypeId)).thenReturn(Optional.of(ticketTypeConfigEntityMock));
+
+        TicketLineItem ticketLineItem = new TicketLineItem();
+        ticketLineItem.setTicketTypeId(ticketTypeId);
+        ticketLineItem.setAmount(1);
+
+        CalculationServiceImpl.PriceCalculationInfo actual = calculationService.calculateTotalPrice(eventId, Collections.singletonList(ticketLineItem));
+        assertEquals(new BigDecimal("13.50"), actual.feeSubtotal);
+        assertEquals(new BigDecimal("2.50"), actual.issuerFeeSubtotal);
+        assertEquals("USD", actual.currencyCode);
+    }
+
+    private static TicketFeeConfigEntity feeConfig(TicketFeeConfigEntity.FeeMethod method, TicketFeeConfigEntity.FeeType type, String amount, TicketFeeConfigEntity.Status status) {
+
+        TicketFeeConfigEntity ticketFeeConfigEntity = new TicketFeeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setMethod(method)
+                .setType(type)
+                .setAmount(new BigDecimal(amount))
+                .setCurrency("USD");
+        ticketFeeConfigEntity.setStatus(status);
+        return ticketFeeConfigEntity;
+    }
+}
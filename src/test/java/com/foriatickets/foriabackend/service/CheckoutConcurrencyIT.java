@@ -0,0 +1,166 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeInventoryEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeConfigRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeInventoryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openapitools.model.TicketLineItem;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.SQLTransientConnectionException;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs far more concurrent checkouts than the connection pool holds against a single tier in H2.
+ * Checkout must never wait on a second connection while holding one, so no buyer may time out on the pool.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "datasource.hikari.maximum-pool-size=" + CheckoutConcurrencyIT.POOL_SIZE,
+        "notificationOutboxPollMs=3600000",
+        "eventCancellationResumePollMs=3600000"
+})
+@ActiveProfiles({"local", "mock"})
+public class CheckoutConcurrencyIT {
+
+    static final int POOL_SIZE = 4;
+
+    private static final String AUTH0_ID = "test";
+
+    private static final UUID EVENT_ID = UUID.fromString("40c6a84f-9505-40b9-a9ea-817074aac2f1");
+
+    private static final int AUTHORIZED_AMOUNT = 10;
+
+    private static final int NUM_BUYERS = POOL_SIZE * 8;
+
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TicketTypeConfigRepository ticketTypeConfigRepository;
+
+    @Autowired
+    private TicketTypeInventoryRepository ticketTypeInventoryRepository;
+
+    private TicketTypeConfigEntity ticketTypeConfigEntity;
+
+    @Before
+    public void setUp() {
+
+        final EventEntity eventEntity = eventRepository.findById(EVENT_ID).orElseThrow(IllegalStateException::new);
+
+        TicketTypeConfigEntity newTier = new TicketTypeConfigEntity()
+                .setName("Checkout IT")
+                .setDescription("Checkout IT")
+                .setEventEntity(eventEntity)
+                .setAuthorizedAmount(AUTHORIZED_AMOUNT)
+                .setPrice(BigDecimal.ZERO)
+                .setCurrency("USD");
+        newTier.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+        newTier.setType(TicketTypeConfigEntity.Type.PUBLIC);
+
+        ticketTypeConfigEntity = ticketTypeConfigRepository.save(newTier);
+        inventoryService.initialize(ticketTypeConfigEntity);
+    }
+
+    @Test
+    public void checkoutOrder_MoreBuyersThanConnections() throws Exception {
+
+        final AtomicInteger numOrders = new AtomicInteger();
+        final AtomicInteger numSoldOut = new AtomicInteger();
+        final AtomicInteger numPoolTimeouts = new AtomicInteger();
+        final ConcurrentLinkedQueue<Throwable> otherErrors = new ConcurrentLinkedQueue<>();
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(NUM_BUYERS);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(NUM_BUYERS);
+
+        for (int i = 0; i < NUM_BUYERS; i++) {
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    checkout();
+                    numOrders.incrementAndGet();
+                } catch (ResponseStatusException ex) {
+                    numSoldOut.incrementAndGet();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException ex) {
+                    if (isPoolTimeout(ex)) {
+                        numPoolTimeouts.incrementAndGet();
+                    } else {
+                        otherErrors.add(ex);
+                    }
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                    SecurityContextHolder.clearContext();
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(2, TimeUnit.MINUTES));
+        executorService.shutdown();
+
+        final TicketTypeInventoryEntity actual = ticketTypeInventoryRepository.findById(ticketTypeConfigEntity.getId()).orElseThrow(IllegalStateException::new);
+        assertEquals(0, numPoolTimeouts.get());
+        assertTrue("Checkouts failed with errors: " + otherErrors, otherErrors.isEmpty());
+        assertEquals(AUTHORIZED_AMOUNT, numOrders.get());
+        assertEquals(NUM_BUYERS - AUTHORIZED_AMOUNT, numSoldOut.get());
+        assertEquals(AUTHORIZED_AMOUNT, actual.getTicketsIssued());
+        assertEquals(0, actual.getTicketsHeld());
+    }
+
+    /**
+     * Each buyer is a new request for the request scoped ticket service.
+     */
+    private void checkout() {
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(AUTH0_ID, null));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        final TicketLineItem ticketLineItem = new TicketLineItem();
+        ticketLineItem.setTicketTypeId(ticketTypeConfigEntity.getId());
+        ticketLineItem.setAmount(1);
+
+        beanFactory.getBean(TicketService.class).checkoutOrder("token", EVENT_ID, Collections.singletonList(ticketLineItem), null);
+    }
+
+    private static boolean isPoolTimeout(Throwable ex) {
+
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,286 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.repositories.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class EventCancellationServiceImplTest {
+
+    @Mock
+    private EventCancellationJobRepository eventCancellationJobRepository;
+
+    @Mock
+    private EventCancellationOrderRepository eventCancellationOrderRepository;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private OrderRefundService orderRefundService;
+
+    @Mock
+    private OrderTicketEntryRepository orderTicketEntryRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor jobExecutor;
+
+    private EventCancellationServiceImpl eventCancellationService;
+
+    private UUID eventId;
+
+    private UUID jobId;
+
+    private EventCancellationJobEntity eventCancellationJobEntity;
+
+    @Before
+    public void setUp() {
+
+        jobExecutor = new ThreadPoolTaskExecutor();
+        jobExecutor.setCorePoolSize(1);
+        jobExecutor.setMaxPoolSize(1);
+        jobExecutor.setQueueCapacity(1);
+        jobExecutor.initialize();
+
+        eventCancellationService = new EventCancellationServiceImpl(eventCancellationJobRepository, eventCancellationOrderRepository,
+                eventRepository, notificationService, orderRefundService, orderTicketEntryRepository, ticketRepository, userRepository,
+                transactionManager, jobExecutor, 2, 60000);
+
+        eventId = UUID.randomUUID();
+        jobId = UUID.randomUUID();
+        eventCancellationJobEntity = new EventCancellationJobEntity()
+                .setId(jobId)
+                .setEventId(eventId)
+                .setReason("This is a test.")
+                .setStatus(EventCancellationJobEntity.Status.RUNNING)
+                .setTotalOrders(2)
+                .setCreatedDate(OffsetDateTime.now())
+                .setLeaseExpiresDate(OffsetDateTime.now());
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(eventId);
+        when(eventEntity.getName()).thenReturn("Test Event");
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+        when(eventCancellationJobRepository.findById(jobId)).thenReturn(Optional.of(eventCancellationJobEntity));
+    }
+
+    @After
+    public void tearDown() {
+        eventCancellationService.shutdown();
+        jobExecutor.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void startCancellation() {
+
+        final EventEntity eventEntity = eventRepository.findById(eventId).orElseThrow(IllegalStateException::new);
+        when(orderTicketEntryRepository.findCompletedOrderIdsByEvent(eventId)).thenReturn(Arrays.asList(UUID.randomUUID(), UUID.randomUUID()));
+        when(eventCancellationJobRepository.save(any())).thenAnswer(invocation -> ((EventCancellationJobEntity) invocation.getArgument(0)).setId(jobId));
+
+        EventCancellationJobEntity actual = eventCancellationService.startCancellation(eventEntity, "This is a test.");
+
+        assertEquals(jobId, actual.getId());
+        assertEquals(2, actual.getTotalOrders());
+        assertEquals(EventCancellationJobEntity.Status.RUNNING, actual.getStatus());
+
+        ArgumentCaptor<Iterable<EventCancellationOrderEntity>> checkpointCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(eventCancellationOrderRepository).saveAll(checkpointCaptor.capture());
+        for (EventCancellationOrderEntity checkpoint : checkpointCaptor.getValue()) {
+            assertEquals(jobId, checkpoint.getJobId());
+            assertEquals(EventCancellationOrderEntity.Status.PENDING, checkpoint.getStatus());
+        }
+    }
+
+    @Test
+    public void runJob() {
+
+        final EventCancellationOrderEntity checkpoint = pendingCheckpoint();
+        final EventCancellationOrderEntity checkpoint2 = pendingCheckpoint();
+        mockRunnableJob(Arrays.asList(checkpoint, checkpoint2));
+
+        eventCancellationService.runJob(jobId);
+
+        verify(orderRefundService).refundOrder(checkpoint.getOrderId(), false);
+        verify(orderRefundService).refundOrder(checkpoint2.getOrderId(), false);
+        verify(eventCancellationJobRepository, times(2)).incrementRefundedOrders(jobId);
+        verify(eventCancellationJobRepository, never()).incrementFailedOrders(any());
+        verify(notificationService, times(1)).enqueueEmail(any(), eq("test@test.com"), any(), any());
+        verify(notificationService, times(1)).enqueuePush(any(), eq("fake_token"), any(), any());
+        verify(eventCancellationJobRepository).save(eventCancellationJobEntity);
+        assertEquals(EventCancellationJobEntity.Status.COMPLETED, eventCancellationJobEntity.getStatus());
+    }
+
+    @Test
+    public void runJob_RefundFails() {
+
+        final EventCancellationOrderEntity checkpoint = pendingCheckpoint();
+        final EventCancellationOrderEntity checkpoint2 = pendingCheckpoint();
+        mockRunnableJob(Arrays.asList(checkpoint, checkpoint2));
+        when(eventCancellationOrderRepository.markProcessed(eq(checkpoint2.getId()), eq(EventCancellationOrderEntity.Status.FAILED), any(), any())).thenReturn(1);
+        doThrow(new IllegalStateException("Stripe down.")).when(orderRefundService).refundOrder(checkpoint2.getOrderId(), false);
+
+        eventCancellationService.runJob(jobId);
+
+        verify(eventCancellationJobRepository, times(1)).incrementRefundedOrders(jobId);
+        verify(eventCancellationJobRepository, times(1)).incrementFailedOrders(jobId);
+        verify(eventCancellationOrderRepository).markProcessed(eq(checkpoint2.getId()), eq(EventCancellationOrderEntity.Status.FAILED), eq("Stripe down."), any());
+        verify(notificationService, times(1)).enqueueEmail(any(), any(), any(), any());
+    }
+
+    @Test
+    public void runJob_LeaseHeld() {
+
+        when(eventCancellationJobRepository.claimLease(eq(jobId), any(), any())).thenReturn(0);
+
+        eventCancellationService.runJob(jobId);
+
+        verify(orderRefundService, never()).refundOrder(any(), anyBoolean());
+        verify(notificationService, never()).enqueueEmail(any(), any(), any(), any());
+        verify(eventCancellationJobRepository, never()).save(any());
+    }
+
+    @Test
+    public void runJob_LeavesRunningWhenOrdersQueuedForRetry() {
+
+        mockRunnableJob(Collections.singletonList(pendingCheckpoint()));
+        when(eventCancellationOrderRepository.existsByJobIdAndStatus(jobId, EventCancellationOrderEntity.Status.PENDING)).thenReturn(true);
+
+        eventCancellationService.runJob(jobId);
+
+        verify(eventCancellationJobRepository, never()).save(any());
+        assertEquals(EventCancellationJobEntity.Status.RUNNING, eventCancellationJobEntity.getStatus());
+    }
+
+    @Test
+    public void resumeCancellation_RetriesFailedOrders() {
+
+        eventCancellationJobEntity.setStatus(EventCancellationJobEntity.Status.COMPLETED_WITH_ERRORS).setFailedOrders(1);
+        when(eventCancellationJobRepository.findFirstByEventIdOrderByCreatedDateDesc(eventId)).thenReturn(eventCancellationJobEntity);
+        when(eventCancellationOrderRepository.resetFailed(jobId, EventCancellationOrderEntity.Status.PENDING)).thenReturn(1);
+
+        final EventCancellationOrderEntity checkpoint = pendingCheckpoint();
+        mockRunnableJob(Collections.singletonList(checkpoint));
+
+        assertEquals(Optional.of(eventCancellationJobEntity), eventCancellationService.resumeCancellation(eventId));
+
+        verify(eventCancellationJobRepository).reopen(jobId, EventCancellationJobEntity.Status.RUNNING, 1);
+        verify(orderRefundService, timeout(5000)).refundOrder(checkpoint.getOrderId(), false);
+        verify(eventCancellationJobRepository, timeout(5000)).incrementRefundedOrders(jobId);
+        verify(eventCancellationJobRepository, timeout(5000)).save(eventCancellationJobEntity);
+    }
+
+    @Test
+    public void resumeCancellation_NothingToRetry() {
+
+        eventCancellationJobEntity.setStatus(EventCancellationJobEntity.Status.COMPLETED);
+        when(eventCancellationJobRepository.findFirstByEventIdOrderByCreatedDateDesc(eventId)).thenReturn(eventCancellationJobEntity);
+
+        assertEquals(Optional.of(eventCancellationJobEntity), eventCancellationService.resumeCancellation(eventId));
+
+        verify(eventCancellationJobRepository, never()).reopen(any(), any(), anyInt());
+        verify(eventCancellationJobRepository, never()).claimLease(any(), any(), any());
+    }
+
+    @Test
+    public void resumeExpiredJobs_StopsWhenPoolIsFull() {
+
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        jobExecutor.execute(() -> {
+            try {
+                releaseLatch.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        jobExecutor.execute(() -> { });
+
+        final List<EventCancellationJobEntity> expiredJobs = Arrays.asList(eventCancellationJobEntity,
+                new EventCancellationJobEntity().setId(UUID.randomUUID()));
+        when(eventCancellationJobRepository.findTop10ByStatusAndLeaseExpiresDateBeforeOrderByCreatedDateAsc(eq(EventCancellationJobEntity.Status.RUNNING), any()))
+                .thenReturn(expiredJobs);
+
+        eventCancellationService.resumeExpiredJobs();
+        releaseLatch.countDown();
+
+        verify(eventCancellationJobRepository, never()).claimLease(any(), any(), any());
+    }
+
+    @Test
+    public void resumeCancellation_NoJob() {
+        assertEquals(Optional.empty(), eventCancellationService.resumeCancellation(eventId));
+    }
+
+    @Test
+    public void getLatestJob() {
+
+        when(eventCancellationJobRepository.findFirstByEventIdOrderByCreatedDateDesc(eventId)).thenReturn(eventCancellationJobEntity);
+        assertEquals(Optional.of(eventCancellationJobEntity), eventCancellationService.getLatestJob(eventId));
+    }
+
+    private EventCancellationOrderEntity pendingCheckpoint() {
+        return new EventCancellationOrderEntity()
+                .setId(UUID.randomUUID())
+                .setJobId(jobId)
+                .setOrderId(UUID.randomUUID())
+                .setStatus(EventCancellationOrderEntity.Status.PENDING);
+    }
+
+    private void mockRunnableJob(List<EventCancellationOrderEntity> page) {
+
+        when(eventCancellationJobRepository.claimLease(eq(jobId), any(), any())).thenReturn(1);
+        when(eventCancellationJobRepository.renewLease(eq(jobId), any())).thenReturn(1);
+        when(eventCancellationOrderRepository.findTop100ByJobIdAndStatusOrderByIdAsc(jobId, EventCancellationOrderEntity.Status.PENDING))
+                .thenReturn(page, Collections.emptyList());
+        when(eventCancellationOrderRepository.markProcessed(any(), eq(EventCancellationOrderEntity.Status.REFUNDED), any(), any())).thenReturn(1);
+
+        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity.getId()).thenReturn(UUID.randomUUID());
+        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
+        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
+
+        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
+        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
+
+        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
+        deviceTokenEntities.add(deviceTokenEntity);
+        deviceTokenEntities.add(deviceTokenEntity2);
+
+        UserEntity owner = mock(UserEntity.class);
+        when(owner.getId()).thenReturn(UUID.randomUUID());
+        when(owner.getEmail()).thenReturn("test@test.com");
+        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        when(ticketRepository.findOwnerIdsByEvent(eventId)).thenReturn(Collections.singletonList(owner.getId()));
+        when(userRepository.findAllWithDeviceTokens(any())).thenReturn(Collections.singletonList(owner));
+    }
+}
@@ -0,0 +1,170 @@
+package com.foriatickets.foriabackend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketFeeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.VenueEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class EventCatalogueServiceImplTest {
+
+    @Mock
+    private CalculationService calculationService;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+
+    private TicketTypeConfigEntity generalAdmission;
+
+    @Before
+    public void setUp() {
+
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        VenueEntity venueEntity = new VenueEntity()
+                .setId(UUID.randomUUID())
+                .setName("Test Venue")
+                .setContactStreetAddress("12345 Maple Ln")
+                .setContactCity("Test City")
+                .setContactState("MO")
+                .setContactZip("55555")
+                .setContactCountry("USA");
+
+        EventEntity eventEntity = new EventEntity()
+                .setId(UUID.randomUUID())
+                .setName("Test Event")
+                .setTagLine("Test Tag")
+                .setDescription("Test Event Desc")
+                .setImageUrl("https://foriatickets.com/img.png")
+                .setVenueEntity(venueEntity)
+                .setEventStartTime(OffsetDateTime.now().plusDays(1L))
+                .setEventEndTime(OffsetDateTime.now().plusDays(2L));
+        eventEntity.setStatus(EventEntity.Status.LIVE);
+        eventEntity.setVisibility(EventEntity.Visibility.PUBLIC);
+        eventEntity.setType(EventEntity.Type.PRIMARY);
+
+        generalAdmission = new TicketTypeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setName("General Admission")
+                .setDescription("Test Type Desc")
+                .setEventEntity(eventEntity)
+                .setAuthorizedAmount(100)
+                .setPrice(new BigDecimal("25.00"))
+                .setCurrency("USD");
+        generalAdmission.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+        generalAdmission.setType(TicketTypeConfigEntity.Type.PUBLIC);
+
+        TicketTypeConfigEntity promo = new TicketTypeConfigEntity()
+                .setId(UUID.randomUUID())
+                .setName("Promo")
+                .setDescription("Test Type Desc")
+                .setEventEntity(eventEntity)
+                .setAuthorizedAmount(10)
+                .setPrice(new BigDecimal("5.00"))
+                .setCurrency("USD");
+        promo.setStatus(TicketTypeConfigEntity.Status.ACTIVE);
+        promo.setType(TicketTypeConfigEntity.Type.PROMO);
+
+        eventEntity.setTicketTypeConfigEntity(new HashSet<>(Arrays.asList(generalAdmission, promo)));
+        eventEntity.setTicketFeeConfig(new HashSet<TicketFeeConfigEntity>());
+
+        CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo = new CalculationServiceImpl.PriceCalculationInfo();
+        priceCalculationInfo.ticketSubtotal = new BigDecimal("25.00");
+        priceCalculationInfo.feeSubtotal = new BigDecimal("1.00");
+        priceCalculationInfo.paymentFeeSubtotal = new BigDecimal("1.10");
+        priceCalculationInfo.grandTotal = new BigDecimal("27.10");
+        priceCalculationInfo.currencyCode = "USD";
+
+        when(eventRepository.findAllListedEvents(any())).thenReturn(Collections.singletonList(eventEntity));
+        when(calculationService.calculateEventFees(anyInt(), any(), any(), any())).thenReturn(priceCalculationInfo);
+        when(inventoryService.getTicketsRemaining(any())).thenReturn(Collections.singletonMap(generalAdmission.getId(), 50));
+    }
+
+    @Test
+    public void getCatalogue() throws Exception {
+
+        EventCatalogueService eventCatalogueService = createService(60000L);
+
+        EventCatalogueService.Catalogue actual = eventCatalogueService.getCatalogue();
+        EventCatalogueService.Catalogue cached = eventCatalogueService.getCatalogue();
+
+        assertSame(actual, cached);
+        assertTrue(actual.getETag().startsWith("\"") && actual.getETag().endsWith("\""));
+        verify(eventRepository, times(1)).findAllListedEvents(any());
+        verify(inventoryService, times(1)).getTicketsRemaining(any());
+
+        JsonNode events = objectMapper.readTree(actual.getBody());
+        assertEquals(1, events.size());
+        assertEquals("Test Event", events.get(0).get("name").asText());
+
+        //Promo tier is not listed and availability is capped at the per order max.
+        JsonNode ticketTypes = events.get(0).get("ticket_type_config");
+        assertEquals(1, ticketTypes.size());
+        assertEquals(generalAdmission.getId().toString(), ticketTypes.get(0).get("id").asText());
+        assertEquals(TicketServiceImpl.MAX_TICKETS_PER_ORDER, ticketTypes.get(0).get("amount_remaining").asInt());
+        assertEquals("2.10", ticketTypes.get(0).get("calculated_fee").asText());
+    }
+
+    @Test
+    public void getCatalogue_Invalidate() {
+
+        EventCatalogueService eventCatalogueService = createService(60000L);
+
+        eventCatalogueService.getCatalogue();
+        eventCatalogueService.invalidate();
+        eventCatalogueService.getCatalogue();
+
+        verify(eventRepository, times(2)).findAllListedEvents(any());
+    }
+
+    @Test
+    public void getCatalogue_AvailabilityRefresh() throws Exception {
+
+        EventCatalogueService eventCatalogueService = createService(0L);
+
+        EventCatalogueService.Catalogue first = eventCatalogueService.getCatalogue();
+
+        when(inventoryService.getTicketsRemaining(any())).thenReturn(Collections.singletonMap(generalAdmission.getId(), 3));
+        EventCatalogueService.Catalogue second = eventCatalogueService.getCatalogue();
+        EventCatalogueService.Catalogue third = eventCatalogueService.getCatalogue();
+
+        //Events are mapped once. Only availability is reloaded.
+        verify(eventRepository, times(1)).findAllListedEvents(any());
+        verify(inventoryService, times(3)).getTicketsRemaining(any());
+
+        assertNotEquals(first.getETag(), second.getETag());
+        assertSame(second, third);
+        assertEquals(3, objectMapper.readTree(second.getBody()).get(0).get("ticket_type_config").get(0).get("amount_remaining").asInt());
+    }
+
+    private EventCatalogueService createService(long availabilityTtlMs) {
+        return new EventCatalogueServiceImpl(calculationService, eventRepository, inventoryService, objectMapper, transactionManager, availabilityTtlMs, 300000L);
+    }
+}
@@ -2,8 +2,6 @@ package com.foriatickets.foriabackend.service;
 
 import com.foriatickets.foriabackend.config.BeanConfig;
 import com.foriatickets.foriabackend.entities.*;
-import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
-import com.foriatickets.foriabackend.gateway.FCMGateway;
 import com.foriatickets.foriabackend.repositories.*;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +12,7 @@ import org.modelmapper.ModelMapper;
 import org.modelmapper.PropertyMap;
 import org.modelmapper.internal.util.Assert;
 import org.openapitools.model.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -26,6 +25,8 @@ import java.util.*;
 import static com.foriatickets.foriabackend.entities.TicketEntity.Status.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -55,16 +56,19 @@ public class EventServiceImplTest {
     private TicketService ticketService;
 
     @Mock
-    private AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
+    private EventCancellationService eventCancellationService;
 
     @Mock
-    private FCMGateway fcmGateway;
+    private UserRepository userRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private VenueAccessRepository venueAccessRepository;
 
     @Mock
-    private OrderTicketEntryRepository orderTicketEntryRepository;
+    private InventoryService inventoryService;
+
+    @Mock
+    private EventCatalogueService eventCatalogueService;
 
     private EventService eventService;
 
@@ -204,8 +208,12 @@ public class EventServiceImplTest {
         ticketFeeConfigEntitySet.add(ticketFeeConfigEntityInactive);
         when(mockEvent1.getTicketFeeConfig()).thenReturn(ticketFeeConfigEntitySet);
 
-        when(ticketService.countTicketsRemaining(any())).thenReturn(5);
-        when(calculationService.calculateFees(eq(1), any(), eq(ticketFeeConfigEntitySet), eq(true))).thenReturn(priceCalculationInfo);
+        Map<UUID, Integer> ticketsRemainingMap = new HashMap<>();
+        for (TicketTypeConfigEntity ticketTypeConfigEntity : ticketTypeConfigEntitySet) {
+            ticketsRemainingMap.put(ticketTypeConfigEntity.getId(), 5);
+        }
+        when(ticketService.countTicketsRemainingForEvents(any())).thenReturn(ticketsRemainingMap);
+        when(calculationService.calculateEventFees(eq(1), any(), any(), eq(ticketFeeConfigEntitySet))).thenReturn(priceCalculationInfo);
 
         ModelMapper modelMapper = new ModelMapper();
         for (PropertyMap map : BeanConfig.getModelMappers()) {
@@ -227,18 +235,37 @@ public class EventServiceImplTest {
         when(authentication.getPrincipal()).thenReturn("test");
         SecurityContextHolder.getContext().setAuthentication(authentication);
         when(userRepository.findByAuth0Id(eq("test"))).thenReturn(authenticatedUser);
+        when(venueAccessRepository.findAllByUserEntity_Id(userId)).thenReturn(new ArrayList<>(venueAccessEntitySet));
 
-        eventService = new EventServiceImpl(calculationService, eventRepository, promoCodeRepository, ticketFeeConfigRepository, ticketTypeConfigRepository, venueRepository, modelMapper, ticketService, orderTicketEntryRepository, awsSimpleEmailServiceGateway, fcmGateway, userRepository);
+        eventService = new EventServiceImpl(calculationService, eventRepository, promoCodeRepository, ticketFeeConfigRepository, ticketTypeConfigRepository, venueRepository, modelMapper, ticketService, eventCancellationService, new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 100, 60000, 60000), inventoryService, eventCatalogueService, venueAccessRepository);
     }
 
     @Test
-    public void getAllActiveEvents() {
+    public void getEventPage() {
 
-        when(eventRepository.findAllByOrderByEventStartTimeAsc()).thenReturn(mockEventList);
-        List<Event> actual = eventService.getAllActiveEvents();
+        when(eventRepository.findListedEventsPage(any(), any())).thenReturn(mockEventList.subList(0, 2));
+        EventPage actual = eventService.getEventPage(null, 1);
 
-        Assert.notNull(actual);
-        Assert.isTrue(mockEventList.size() - 3 == actual.size()); //Test private event
+        assertEquals(1, actual.getEvents().size());
+        assertEquals(mockEventList.get(0).getId(), actual.getEvents().get(0).getId());
+        assertNotNull(actual.getNextCursor());
+
+        when(eventRepository.findListedEventsPageAfter(any(), any(), any(), any())).thenReturn(mockEventList.subList(1, 2));
+        EventPage nextPage = eventService.getEventPage(actual.getNextCursor(), 1);
+
+        verify(eventRepository).findListedEventsPageAfter(any(), eq(OffsetDateTime.MIN), eq(mockEventList.get(0).getId()), any());
+        assertEquals(1, nextPage.getEvents().size());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getEventPage_MalformedCursor() {
+        eventService.getEventPage("not-a-cursor", 10);
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getEventPage_LimitTooLarge() {
+        eventService.getEventPage(null, 51);
     }
 
     @Test
@@ -291,90 +318,92 @@ public class EventServiceImplTest {
 
         final UUID eventId = UUID.randomUUID();
 
-        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
-        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
-        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(eventId);
+        when(eventEntity.getStatus()).thenReturn(EventEntity.Status.LIVE);
+        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
+        when(eventRepository.findById(eq(eventId))).thenReturn(Optional.of(eventEntity));
+        when(eventCancellationService.startCancellation(eventEntity, "This is a test.")).thenReturn(new EventCancellationJobEntity().setId(UUID.randomUUID()));
 
-        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
-        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
-        deviceTokenEntities.add(deviceTokenEntity);
-        deviceTokenEntities.add(deviceTokenEntity2);
+        eventService.cancelEvent(eventId, "This is a test.");
 
-        UserEntity purchaser = mock(UserEntity.class);
-        when(purchaser.getId()).thenReturn(UUID.randomUUID());
-        when(purchaser.getEmail()).thenReturn("test@test.com");
-        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
+        verify(eventEntity).setStatus(EventEntity.Status.CANCELED);
+        verify(eventRepository).save(eventEntity);
+        verify(eventCancellationService, times(1)).startCancellation(eventEntity, "This is a test.");
+        verify(eventCatalogueService, times(1)).invalidate();
+    }
 
-        UserEntity owner = mock(UserEntity.class);
-        when(owner.getId()).thenReturn(UUID.randomUUID());
-        when(owner.getEmail()).thenReturn("test2@test.com");
-        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
+    @Test
+    public void cancelEvent_AlreadyCanceled() {
+
+        final UUID eventId = UUID.randomUUID();
 
         EventEntity eventEntity = mock(EventEntity.class);
-        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
-        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
-        when(eventEntity.getName()).thenReturn("Test Event");
+        when(eventEntity.getStatus()).thenReturn(EventEntity.Status.CANCELED);
+        when(eventRepository.findById(eq(eventId))).thenReturn(Optional.of(eventEntity));
 
-        TicketEntity ticketEntity = mock(TicketEntity.class);
-        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
-        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity.getSecret()).thenReturn("secret");
-        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity.getOwnerEntity()).thenReturn(owner);
-        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+        eventService.cancelEvent(eventId, "This is a test.");
 
-        TicketEntity ticketEntity2 = mock(TicketEntity.class);
-        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
-        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity2.getSecret()).thenReturn("secret");
-        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
-        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
+        verify(eventRepository, never()).save(any());
+        verify(eventCancellationService, never()).startCancellation(any(), any());
+        verify(eventCancellationService, times(1)).resumeCancellation(eventId);
+        verify(eventCatalogueService, never()).invalidate();
+    }
 
-        Set<TicketEntity> ticketSet = new HashSet<>();
-        ticketSet.add(ticketEntity);
-        ticketSet.add(ticketEntity2);
-        when(eventEntity.getTickets()).thenReturn(ticketSet);
-        when(eventRepository.findById(eq(eventId))).thenReturn(Optional.of(eventEntity));
+    @Test
+    public void getCancellationStatus() {
+
+        final UUID eventId = UUID.randomUUID();
+        final EventCancellationJobEntity eventCancellationJobEntity = new EventCancellationJobEntity()
+                .setId(UUID.randomUUID())
+                .setEventId(eventId)
+                .setStatus(EventCancellationJobEntity.Status.RUNNING)
+                .setTotalOrders(10)
+                .setRefundedOrders(4)
+                .setFailedOrders(1)
+                .setCreatedDate(OffsetDateTime.now());
+        when(eventCancellationService.getLatestJob(eventId)).thenReturn(Optional.of(eventCancellationJobEntity));
 
-        OrderEntity orderEntity = mock(OrderEntity.class);
-        when(orderEntity.getId()).thenReturn(UUID.randomUUID());
-        when(orderEntity.getCurrency()).thenReturn("USD");
-        when(orderEntity.getTotal()).thenReturn(BigDecimal.ZERO);
-        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
-        when(orderEntity.getChargeReferenceId()).thenReturn(null);
-        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
-
-        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
-        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
-
-        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
-
-        orderTicketEntryEntities.add(orderTicketEntryEntity);
-        orderTicketEntryEntities.add(orderTicketEntryEntity2);
-        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
-
-        when(orderTicketEntryRepository.findByTicketEntity(ticketEntity)).thenReturn(orderTicketEntryEntity);
-        when(orderTicketEntryRepository.findByTicketEntity(ticketEntity2)).thenReturn(orderTicketEntryEntity2);
-        doNothing().when(ticketService).refundOrder(any());
-        doNothing().when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
-        doNothing().when(fcmGateway).sendPushNotification(any(), any());
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getVenueEntity()).thenReturn(venueEntityMock);
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+
+        EventCancellationStatus actual = eventService.getCancellationStatus(eventId);
+        assertEquals(eventCancellationJobEntity.getId(), actual.getJobId());
+        assertEquals(EventCancellationStatus.StatusEnum.RUNNING, actual.getStatus());
+        assertEquals(Integer.valueOf(10), actual.getTotalOrders());
+        assertEquals(Integer.valueOf(4), actual.getRefundedOrders());
+        assertEquals(Integer.valueOf(1), actual.getFailedOrders());
+    }
 
-        eventService.cancelEvent(eventId, "This is a test.");
+    @Test(expected = ResponseStatusException.class)
+    public void getCancellationStatus_NotCanceled() {
 
-        verify(eventRepository).save(any());
-        verify(awsSimpleEmailServiceGateway, times(1)).sendEmailFromTemplate(any(), any(), any());
-        verify(fcmGateway, times(1)).sendPushNotification(any(), any());
+        final UUID eventId = UUID.randomUUID();
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getVenueEntity()).thenReturn(venueEntityMock);
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+        when(eventCancellationService.getLatestJob(eventId)).thenReturn(Optional.empty());
+        eventService.getCancellationStatus(eventId);
+    }
+
+    @Test
+    public void getCancellationStatus_NotAuthorized() {
+
+        final UUID eventId = UUID.randomUUID();
+        VenueEntity otherVenue = mock(VenueEntity.class);
+        when(otherVenue.getId()).thenReturn(UUID.randomUUID());
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getVenueEntity()).thenReturn(otherVenue);
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+
+        try {
+            eventService.getCancellationStatus(eventId);
+            fail("Status must not be returned for another venue's event.");
+        } catch (ResponseStatusException ex) {
+            assertEquals(HttpStatus.UNAUTHORIZED, ex.getStatus());
+        }
+        verify(eventCancellationService, never()).getLatestJob(any());
     }
 
     @Test
@@ -421,7 +450,7 @@ public class EventServiceImplTest {
         ticketSet.add(ticketEntity2);
         ticketSet.add(ticketEntity3);
         when(eventEntity.getTickets()).thenReturn(ticketSet);
-        when(eventRepository.findById(eq(eventId))).thenReturn(Optional.of(eventEntity));
+        when(eventRepository.findAttendeesById(eq(eventId))).thenReturn(Optional.of(eventEntity));
 
         List<Attendee> actual = eventService.getAttendees(eventId);
         assertEquals(2, actual.size());
@@ -452,6 +481,8 @@ public class EventServiceImplTest {
 
         assertNotNull(actual);
         verify(ticketFeeConfigRepository, times(1)).save(captor.capture());
+        verify(calculationService, times(1)).invalidateFeeSchedule(eventId);
+        verify(eventCatalogueService, times(1)).invalidate();
 
         TicketFeeConfigEntity mock = captor.getValue();
         assertEquals(ticketFeeConfig.getCurrency(), mock.getCurrency());
@@ -486,6 +517,8 @@ public class EventServiceImplTest {
 
         assertNotNull(actual);
         verify(ticketTypeConfigRepository, times(1)).save(captor.capture());
+        verify(inventoryService, times(1)).initialize(any());
+        verify(eventCatalogueService, times(1)).invalidate();
 
         TicketTypeConfigEntity mock = captor.getValue();
         assertEquals(ticketTypeConfig.getCurrency(), mock.getCurrency());
@@ -519,6 +552,8 @@ public class EventServiceImplTest {
 
         assertNotNull(actual);
         verify(ticketFeeConfigRepository, times(1)).save(captor.capture());
+        verify(calculationService, times(1)).invalidateFeeSchedule(eventId);
+        verify(eventCatalogueService, times(1)).invalidate();
 
         TicketFeeConfigEntity mock = captor.getValue();
         assertEquals(TicketFeeConfigEntity.Status.INACTIVE, mock.getStatus());
@@ -551,6 +586,7 @@ public class EventServiceImplTest {
 
         TicketTypeConfigEntity mock = captor.getValue();
         assertEquals(TicketTypeConfigEntity.Status.INACTIVE, mock.getStatus());
+        verify(eventCatalogueService, times(1)).invalidate();
     }
 
     @Test
@@ -601,7 +637,7 @@ public class EventServiceImplTest {
 
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
         when(promoCodeRepository.findByTicketTypeConfigEntity_EventEntity_IdAndCode(eventId, promoCode)).thenReturn(promoCodeEntityMock);
-        when(calculationService.calculateFees(eq(1), any(), eq(ticketFeeConfigEntitySet), eq(true))).thenReturn(priceCalculationInfo);
+        when(calculationService.calculateEventFees(eq(1), any(), any(), eq(ticketFeeConfigEntitySet))).thenReturn(priceCalculationInfo);
 
         List<TicketTypeConfig> actual = eventService.applyPromotionCode(eventId, promoCode);
         assertNotNull(actual);
@@ -659,7 +695,7 @@ public class EventServiceImplTest {
 
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
         when(promoCodeRepository.findByTicketTypeConfigEntity_EventEntity_IdAndCode(eventId, promoCode)).thenReturn(promoCodeEntityMock);
-        when(calculationService.calculateFees(eq(1), any(), eq(ticketFeeConfigEntitySet), eq(true))).thenReturn(priceCalculationInfo);
+        when(calculationService.calculateEventFees(eq(1), any(), any(), eq(ticketFeeConfigEntitySet))).thenReturn(priceCalculationInfo);
 
         eventService.applyPromotionCode(eventId, promoCode);
         verify(promoCodeRepository).findByTicketTypeConfigEntity_EventEntity_IdAndCode(eventId, promoCode);
@@ -743,7 +779,7 @@ public class EventServiceImplTest {
         priceCalculationInfo.paymentFeeSubtotal = new BigDecimal("123.12");
         priceCalculationInfo.grandTotal = new BigDecimal("500.00");
 
-        when(calculationService.calculateFees(eq(1), any(), eq(ticketFeeConfigEntitySet), eq(true))).thenReturn(priceCalculationInfo);
+        when(calculationService.calculateEventFees(eq(1), any(), any(), eq(ticketFeeConfigEntitySet))).thenReturn(priceCalculationInfo);
         when(eventEntityMock.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntitySet);
         when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
         when(promoCodeRepository.findByTicketTypeConfigEntity_EventEntity_IdAndCode(eventId, promoCode)).thenReturn(promoCodeEntityMock);
@@ -0,0 +1,214 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.TicketEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.UserEntity;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeConfigRepository;
+import com.foriatickets.foriabackend.repositories.UserRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openapitools.model.TicketLineItem;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counts the statements each read path issues against the seeded event in H2. Every path must load its graph in
+ * a fixed number of statements, so adding tickets to the event or the user must not change the count.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "notificationOutboxPollMs=3600000",
+        "eventCancellationResumePollMs=3600000"
+})
+@ActiveProfiles({"local", "mock"})
+public class FetchPlanIT {
+
+    private static final String AUTH0_ID = "test";
+
+    private static final UUID EVENT_ID = UUID.fromString("40c6a84f-9505-40b9-a9ea-817074aac2f1");
+
+    private static final UUID TICKET_TYPE_CONFIG_ID = UUID.fromString("9c0f3a04-a4f6-4229-9e8b-2ee9c3ec5f18");
+
+    private static final UUID USER_ID = UUID.fromString("3f4bc13d-3bc3-4c41-84ed-c92193bac935");
+
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Autowired
+    private CalculationService calculationService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketTypeConfigRepository ticketTypeConfigRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<TicketEntity> createdTickets = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(AUTH0_ID, null));
+        addTickets(2);
+    }
+
+    @After
+    public void tearDown() {
+
+        ticketRepository.deleteAll(createdTickets);
+        createdTickets.clear();
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void checkout_ConstantStatements() {
+
+        final TicketLineItem ticketLineItem = new TicketLineItem();
+        ticketLineItem.setTicketTypeId(TICKET_TYPE_CONFIG_ID);
+        ticketLineItem.setAmount(2);
+
+        final Runnable checkout = () -> transactionTemplate.execute(status ->
+                calculationService.calculateTotalPrice(EVENT_ID, Collections.singletonList(ticketLineItem)));
+
+        //Event with venue and fees, then the tier.
+        assertConstantStatements(checkout, 2);
+    }
+
+    @Test
+    public void myTickets_ConstantStatements() {
+
+        final Runnable myTickets = () -> requestScoped(TicketService.class).getUsersTickets();
+
+        //User, then tickets with their event and tier.
+        assertConstantStatements(myTickets, 2);
+    }
+
+    @Test
+    public void attendees_ConstantStatements() {
+
+        final Runnable attendees = () -> requestScoped(EventService.class).getAttendees(EVENT_ID);
+
+        //Event with venue, tickets, owners and tiers. The caller is already cached.
+        assertConstantStatements(attendees, 1);
+    }
+
+    @Test
+    public void reminder_ConstantStatements() {
+
+        final OffsetDateTime startTime = OffsetDateTime.parse("2019-12-22T00:00:00Z");
+        final OffsetDateTime endTime = OffsetDateTime.parse("2019-12-22T23:59:59Z");
+
+        final Runnable reminder = () -> transactionTemplate.execute(status -> {
+
+            final List<EventEntity> eventEntities = eventRepository.findAllByEventStartTimeGreaterThanEqualAndEventStartTimeLessThanEqual(startTime, endTime);
+            assertEquals(1, eventEntities.size());
+
+            final Set<String> emails = new HashSet<>();
+            for (EventEntity eventEntity : eventEntities) {
+                assertNotNull(eventEntity.getVenueEntity().getName());
+                for (TicketEntity ticketEntity : eventEntity.getTickets()) {
+                    emails.add(ticketEntity.getOwnerEntity().getEmail());
+                }
+            }
+            return emails;
+        });
+
+        //Events with venue, tickets and owners.
+        assertConstantStatements(reminder, 1);
+    }
+
+    /**
+     * Measures the path, adds tickets and measures again. Each measurement runs the path once to warm the
+     * user cache and fee schedule so only the entity loads are counted.
+     */
+    private void assertConstantStatements(Runnable path, long maxStatements) {
+
+        final long before = countStatements(path);
+        addTickets(20);
+        final long after = countStatements(path);
+
+        assertEquals("Statements grew with the number of tickets.", before, after);
+        assertTrue("Expected at most " + maxStatements + " statements but was " + after, after <= maxStatements);
+    }
+
+    private long countStatements(Runnable path) {
+
+        path.run();
+        statistics.clear();
+        path.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Request scoped services cache the caller's entity, so each call gets a new request.
+     */
+    private <T> T requestScoped(Class<T> serviceClass) {
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        return beanFactory.getBean(serviceClass);
+    }
+
+    private void addTickets(int numTickets) {
+
+        final EventEntity eventEntity = eventRepository.findById(EVENT_ID).orElseThrow(IllegalStateException::new);
+        final TicketTypeConfigEntity ticketTypeConfigEntity = ticketTypeConfigRepository.findById(TICKET_TYPE_CONFIG_ID).orElseThrow(IllegalStateException::new);
+        final UserEntity userEntity = userRepository.findById(USER_ID).orElseThrow(IllegalStateException::new);
+
+        final List<TicketEntity> ticketEntities = new ArrayList<>();
+        for (int i = 0; i < numTickets; i++) {
+            ticketEntities.add(new TicketEntity()
+                    .setEventEntity(eventEntity)
+                    .setOwnerEntity(userEntity)
+                    .setPurchaserEntity(userEntity)
+                    .setTicketTypeConfigEntity(ticketTypeConfigEntity)
+                    .setSecret(UUID.randomUUID().toString())
+                    .setStatus(TicketEntity.Status.ACTIVE)
+                    .setIssuedDate(OffsetDateTime.now()));
+        }
+
+        ticketRepository.saveAll(ticketEntities).forEach(createdTickets::add);
+    }
+}
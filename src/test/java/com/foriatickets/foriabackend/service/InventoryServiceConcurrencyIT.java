@@ -0,0 +1,169 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeInventoryEntity;
+import com.foriatickets.foriabackend.repositories.TicketTypeInventoryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs hundreds of concurrent buyers against a single tier in H2 and checks that it never oversells.
+ * Holds expire quickly so the sweeper races checkouts that are still confirming.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "inventoryHoldTtlMs=" + InventoryServiceConcurrencyIT.HOLD_TTL_MS)
+@ActiveProfiles({"local", "mock"})
+public class InventoryServiceConcurrencyIT {
+
+    static final long HOLD_TTL_MS = 50;
+
+    private static final int AUTHORIZED_AMOUNT = 50;
+
+    private static final int NUM_BUYERS = 400;
+
+    private static final int NUM_THREADS = 64;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private TicketTypeInventoryRepository ticketTypeInventoryRepository;
+
+    private TicketTypeConfigEntity ticketTypeConfigEntity;
+
+    @Before
+    public void setUp() {
+
+        final UUID ticketTypeConfigId = UUID.randomUUID();
+        ticketTypeConfigEntity = new TicketTypeConfigEntity()
+                .setId(ticketTypeConfigId)
+                .setAuthorizedAmount(AUTHORIZED_AMOUNT);
+
+        ticketTypeInventoryRepository.save(new TicketTypeInventoryEntity()
+                .setId(ticketTypeConfigId)
+                .setAuthorizedAmount(AUTHORIZED_AMOUNT)
+                .setReconciledDate(OffsetDateTime.now()));
+    }
+
+    @Test
+    public void hold_NoOversell() throws Exception {
+
+        final AtomicInteger numHeld = new AtomicInteger();
+        final AtomicInteger numFailed = new AtomicInteger();
+
+        runBuyers(() -> {
+            try {
+                if (inventoryService.hold(ticketTypeConfigEntity, 1).isPresent()) {
+                    numHeld.incrementAndGet();
+                }
+            } catch (RuntimeException ex) {
+                numFailed.incrementAndGet();
+            }
+        });
+
+        final TicketTypeInventoryEntity actual = loadInventory();
+        assertEquals(AUTHORIZED_AMOUNT, numHeld.get());
+        assertEquals(AUTHORIZED_AMOUNT, actual.getTicketsHeld());
+        assertEquals(0, actual.getTicketsIssued());
+        assertTrue("Buyers failed with errors: " + numFailed.get(), numFailed.get() < NUM_BUYERS - AUTHORIZED_AMOUNT);
+    }
+
+    @Test
+    public void checkout_NoOversell() throws Exception {
+
+        final AtomicInteger numConfirmed = new AtomicInteger();
+        final AtomicBoolean oversold = new AtomicBoolean(false);
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        //Samples the counter while buyers race. Issued plus held must never exceed the authorized amount.
+        Thread monitor = new Thread(() -> {
+            while (running.get()) {
+                TicketTypeInventoryEntity sample = loadInventory();
+                if (sample.getTicketsIssued() + sample.getTicketsHeld() > AUTHORIZED_AMOUNT) {
+                    oversold.set(true);
+                }
+            }
+        });
+        monitor.start();
+
+        final AtomicInteger buyerNumber = new AtomicInteger();
+        runBuyers(() -> {
+
+            final int buyer = buyerNumber.incrementAndGet();
+            try {
+                Optional<UUID> holdId = inventoryService.hold(ticketTypeConfigEntity, 1);
+                if (!holdId.isPresent()) {
+                    return;
+                }
+
+                //Every third buyer abandons checkout. Their tickets return to the pool for later buyers.
+                if (buyer % 3 == 0) {
+                    inventoryService.releaseHold(holdId.get());
+                } else if (inventoryService.confirmHolds(Collections.singletonList(holdId.get()))) {
+                    numConfirmed.incrementAndGet();
+                }
+
+                if (buyer % 50 == 0) {
+                    inventoryService.expireHolds();
+                }
+            } catch (RuntimeException ex) {
+                //Lock timeouts only lose the attempt. Abandoned holds are swept below.
+            }
+        });
+
+        running.set(false);
+        monitor.join();
+
+        Thread.sleep(HOLD_TTL_MS * 2);
+        inventoryService.expireHolds();
+
+        final TicketTypeInventoryEntity actual = loadInventory();
+        assertFalse(oversold.get());
+        assertEquals(numConfirmed.get(), actual.getTicketsIssued());
+        assertEquals(0, actual.getTicketsHeld());
+        assertTrue(actual.getTicketsIssued() <= AUTHORIZED_AMOUNT);
+    }
+
+    private void runBuyers(Runnable buyer) throws InterruptedException {
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch doneLatch = new CountDownLatch(NUM_BUYERS);
+
+        for (int i = 0; i < NUM_BUYERS; i++) {
+            executorService.submit(() -> {
+                try {
+                    startLatch.await();
+                    buyer.run();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    doneLatch.countDown();
+                }
+            });
+        }
+
+        startLatch.countDown();
+        assertTrue(doneLatch.await(2, TimeUnit.MINUTES));
+        executorService.shutdown();
+    }
+
+    private TicketTypeInventoryEntity loadInventory() {
+        Optional<TicketTypeInventoryEntity> ticketTypeInventoryEntity = ticketTypeInventoryRepository.findById(ticketTypeConfigEntity.getId());
+        assertTrue(ticketTypeInventoryEntity.isPresent());
+        return ticketTypeInventoryEntity.get();
+    }
+}
@@ -0,0 +1,249 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.EventEntity;
+import com.foriatickets.foriabackend.entities.InventoryHoldEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeConfigEntity;
+import com.foriatickets.foriabackend.entities.TicketTypeInventoryEntity;
+import com.foriatickets.foriabackend.repositories.InventoryHoldRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeConfigRepository;
+import com.foriatickets.foriabackend.repositories.TicketTypeInventoryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class InventoryServiceImplTest {
+
+    @Mock
+    private InventoryHoldRepository inventoryHoldRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private TicketTypeConfigRepository ticketTypeConfigRepository;
+
+    @Mock
+    private TicketTypeInventoryRepository ticketTypeInventoryRepository;
+
+    private InventoryServiceImpl inventoryService;
+
+    private UUID eventId;
+
+    private UUID ticketTypeConfigId;
+
+    private TicketTypeConfigEntity ticketTypeConfigEntity;
+
+    @Before
+    public void setUp() {
+
+        eventId = UUID.randomUUID();
+        ticketTypeConfigId = UUID.randomUUID();
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(eventId);
+
+        ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntity.getId()).thenReturn(ticketTypeConfigId);
+        when(ticketTypeConfigEntity.getAuthorizedAmount()).thenReturn(10);
+        when(ticketTypeConfigEntity.getEventEntity()).thenReturn(eventEntity);
+
+        inventoryService = new InventoryServiceImpl(inventoryHoldRepository, ticketRepository, ticketTypeConfigRepository, ticketTypeInventoryRepository, 60000);
+    }
+
+    @Test
+    public void reserve() {
+
+        when(ticketTypeInventoryRepository.reserve(ticketTypeConfigId, 2)).thenReturn(1);
+
+        assertTrue(inventoryService.reserve(ticketTypeConfigEntity, 2));
+        verify(ticketTypeInventoryRepository, never()).save(any());
+    }
+
+    @Test
+    public void reserve_SoldOut() {
+
+        when(ticketTypeInventoryRepository.reserve(ticketTypeConfigId, 2)).thenReturn(0);
+        when(ticketTypeInventoryRepository.existsById(ticketTypeConfigId)).thenReturn(true);
+
+        assertFalse(inventoryService.reserve(ticketTypeConfigEntity, 2));
+        verify(ticketTypeInventoryRepository, times(1)).reserve(ticketTypeConfigId, 2);
+    }
+
+    @Test
+    public void reserve_InitializesMissingCounter() {
+
+        when(ticketTypeInventoryRepository.reserve(ticketTypeConfigId, 2)).thenReturn(0, 1);
+        when(ticketTypeInventoryRepository.existsById(ticketTypeConfigId)).thenReturn(false);
+        when(ticketRepository.countActiveTicketsIssuedByType(ticketTypeConfigId, eventId)).thenReturn(3);
+
+        assertTrue(inventoryService.reserve(ticketTypeConfigEntity, 2));
+
+        ArgumentCaptor<TicketTypeInventoryEntity> captor = ArgumentCaptor.forClass(TicketTypeInventoryEntity.class);
+        verify(ticketTypeInventoryRepository).save(captor.capture());
+        assertEquals(ticketTypeConfigId, captor.getValue().getId());
+        assertEquals(3, captor.getValue().getTicketsIssued());
+        assertEquals(10, captor.getValue().getAuthorizedAmount());
+        verify(ticketTypeInventoryRepository, times(2)).reserve(ticketTypeConfigId, 2);
+    }
+
+    @Test
+    public void hold() {
+
+        final UUID holdId = UUID.randomUUID();
+        when(ticketTypeInventoryRepository.hold(ticketTypeConfigId, 2)).thenReturn(1);
+        when(inventoryHoldRepository.save(any())).thenAnswer(invocation -> ((InventoryHoldEntity) invocation.getArgument(0)).setId(holdId));
+
+        Optional<UUID> actual = inventoryService.hold(ticketTypeConfigEntity, 2);
+
+        assertEquals(Optional.of(holdId), actual);
+        ArgumentCaptor<InventoryHoldEntity> captor = ArgumentCaptor.forClass(InventoryHoldEntity.class);
+        verify(inventoryHoldRepository).save(captor.capture());
+        assertEquals(ticketTypeConfigId, captor.getValue().getTicketTypeConfigId());
+        assertEquals(2, captor.getValue().getQuantity());
+        assertEquals(InventoryHoldEntity.Status.HELD, captor.getValue().getStatus());
+        assertTrue(captor.getValue().getExpiresDate().isAfter(captor.getValue().getCreatedDate()));
+    }
+
+    @Test
+    public void hold_SoldOut() {
+
+        when(ticketTypeInventoryRepository.hold(ticketTypeConfigId, 2)).thenReturn(0);
+        when(ticketTypeInventoryRepository.existsById(ticketTypeConfigId)).thenReturn(true);
+
+        assertFalse(inventoryService.hold(ticketTypeConfigEntity, 2).isPresent());
+        verify(inventoryHoldRepository, never()).save(any());
+    }
+
+    @Test
+    public void confirmHolds() {
+
+        InventoryHoldEntity inventoryHoldEntity = mockHold(InventoryHoldEntity.Status.HELD);
+        when(inventoryHoldRepository.transitionStatus(inventoryHoldEntity.getId(), InventoryHoldEntity.Status.HELD, InventoryHoldEntity.Status.CONFIRMED)).thenReturn(1);
+        when(ticketTypeInventoryRepository.convertHold(ticketTypeConfigId, 2)).thenReturn(1);
+
+        assertTrue(inventoryService.confirmHolds(Collections.singletonList(inventoryHoldEntity.getId())));
+        verify(ticketTypeInventoryRepository, never()).reserve(any(), anyInt());
+    }
+
+    @Test
+    public void confirmHolds_ExpiredAndSoldOut() {
+
+        InventoryHoldEntity inventoryHoldEntity = mockHold(InventoryHoldEntity.Status.EXPIRED);
+        when(inventoryHoldRepository.transitionStatus(any(), any(), any())).thenReturn(0);
+        when(ticketTypeInventoryRepository.reserve(ticketTypeConfigId, 2)).thenReturn(0);
+
+        assertFalse(inventoryService.confirmHolds(Collections.singletonList(inventoryHoldEntity.getId())));
+        verify(ticketTypeInventoryRepository, never()).convertHold(any(), anyInt());
+    }
+
+    @Test
+    public void releaseHold_AlreadyConfirmed() {
+
+        InventoryHoldEntity inventoryHoldEntity = mockHold(InventoryHoldEntity.Status.CONFIRMED);
+        when(inventoryHoldRepository.findById(inventoryHoldEntity.getId())).thenReturn(Optional.of(inventoryHoldEntity));
+        when(inventoryHoldRepository.transitionStatus(any(), any(), any())).thenReturn(0);
+
+        inventoryService.releaseHold(inventoryHoldEntity.getId());
+
+        verify(ticketTypeInventoryRepository, never()).releaseHold(any(), anyInt());
+    }
+
+    @Test
+    public void expireHolds() {
+
+        InventoryHoldEntity inventoryHoldEntity = mockHold(InventoryHoldEntity.Status.HELD);
+        when(inventoryHoldRepository.findTop500ByStatusAndExpiresDateBeforeOrderByExpiresDateAsc(eq(InventoryHoldEntity.Status.HELD), any()))
+                .thenReturn(Collections.singletonList(inventoryHoldEntity));
+        when(inventoryHoldRepository.transitionStatus(inventoryHoldEntity.getId(), InventoryHoldEntity.Status.HELD, InventoryHoldEntity.Status.EXPIRED)).thenReturn(1);
+        when(ticketTypeInventoryRepository.releaseHold(ticketTypeConfigId, 2)).thenReturn(1);
+
+        inventoryService.expireHolds();
+
+        verify(ticketTypeInventoryRepository, times(1)).releaseHold(ticketTypeConfigId, 2);
+    }
+
+    private InventoryHoldEntity mockHold(InventoryHoldEntity.Status status) {
+
+        InventoryHoldEntity inventoryHoldEntity = new InventoryHoldEntity()
+                .setId(UUID.randomUUID())
+                .setTicketTypeConfigId(ticketTypeConfigId)
+                .setQuantity(2)
+                .setStatus(status)
+                .setCreatedDate(OffsetDateTime.now().minusMinutes(20))
+                .setExpiresDate(OffsetDateTime.now().minusMinutes(10));
+
+        when(inventoryHoldRepository.findAllById(Collections.singletonList(inventoryHoldEntity.getId()))).thenReturn(Collections.singletonList(inventoryHoldEntity));
+        return inventoryHoldEntity;
+    }
+
+    @Test
+    public void getTicketsRemaining() {
+
+        UUID uncountedTierId = UUID.randomUUID();
+        TicketTypeConfigEntity uncountedTier = mock(TicketTypeConfigEntity.class);
+        when(uncountedTier.getId()).thenReturn(uncountedTierId);
+        when(uncountedTier.getAuthorizedAmount()).thenReturn(50);
+        when(uncountedTier.getEventEntity()).thenReturn(ticketTypeConfigEntity.getEventEntity());
+
+        TicketTypeInventoryEntity inventoryEntity = new TicketTypeInventoryEntity()
+                .setId(ticketTypeConfigId)
+                .setAuthorizedAmount(10)
+                .setTicketsIssued(3)
+                .setTicketsHeld(1);
+        when(ticketTypeInventoryRepository.findAllById(any())).thenReturn(Collections.singletonList(inventoryEntity));
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {uncountedTierId, 5L});
+        when(ticketRepository.countActiveTicketsIssuedByTypeForEvents(any())).thenReturn(rows);
+
+        Map<UUID, Integer> actual = inventoryService.getTicketsRemaining(Arrays.asList(ticketTypeConfigEntity, uncountedTier));
+
+        assertEquals(Integer.valueOf(6), actual.get(ticketTypeConfigId));
+        assertEquals(Integer.valueOf(45), actual.get(uncountedTierId));
+        verify(ticketRepository).countActiveTicketsIssuedByTypeForEvents(Collections.singleton(eventId));
+        verify(ticketTypeInventoryRepository, never()).save(any());
+    }
+
+    @Test
+    public void reconcileInventory() {
+
+        UUID missingTierId = UUID.randomUUID();
+        TicketTypeConfigEntity missingTier = mock(TicketTypeConfigEntity.class);
+        when(missingTier.getId()).thenReturn(missingTierId);
+        when(missingTier.getAuthorizedAmount()).thenReturn(20);
+
+        when(ticketTypeConfigRepository.findAll()).thenReturn(Arrays.asList(ticketTypeConfigEntity, missingTier));
+        when(ticketTypeInventoryRepository.findAll()).thenReturn(Collections.singletonList(
+                new TicketTypeInventoryEntity().setId(ticketTypeConfigId).setAuthorizedAmount(10).setTicketsIssued(7).setVersion(3)));
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {ticketTypeConfigId, 6L});
+        rows.add(new Object[] {missingTierId, 2L});
+        when(ticketRepository.countActiveTicketsIssuedGroupedByType()).thenReturn(rows);
+
+        inventoryService.reconcileInventory();
+
+        //Versions must be read before counting or a concurrent checkout could be overwritten with a stale count.
+        InOrder inOrder = inOrder(ticketTypeInventoryRepository, ticketRepository);
+        inOrder.verify(ticketTypeInventoryRepository).findAll();
+        inOrder.verify(ticketRepository).countActiveTicketsIssuedGroupedByType();
+        inOrder.verify(ticketTypeInventoryRepository).compareAndSetTicketsIssued(eq(ticketTypeConfigId), eq(3L), eq(6), any());
+        ArgumentCaptor<TicketTypeInventoryEntity> captor = ArgumentCaptor.forClass(TicketTypeInventoryEntity.class);
+        verify(ticketTypeInventoryRepository).save(captor.capture());
+        assertEquals(missingTierId, captor.getValue().getId());
+        assertEquals(2, captor.getValue().getTicketsIssued());
+    }
+}
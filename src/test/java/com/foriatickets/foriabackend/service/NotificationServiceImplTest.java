@@ -0,0 +1,273 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.NotificationOutboxEntity;
+import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
+import com.foriatickets.foriabackend.gateway.FCMGateway;
+import com.foriatickets.foriabackend.repositories.NotificationOutboxRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class NotificationServiceImplTest {
+
+    @Mock
+    private AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
+
+    @Mock
+    private FCMGateway fcmGateway;
+
+    @Mock
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    private NotificationServiceImpl notificationService;
+
+    private UUID notificationId;
+
+    @Before
+    public void setUp() {
+        notificationId = UUID.randomUUID();
+        notificationService = new NotificationServiceImpl(awsSimpleEmailServiceGateway, fcmGateway, notificationOutboxRepository, 1, 10, 3, 1000, 60000, 300000);
+    }
+
+    @After
+    public void tearDown() {
+        notificationService.shutdown();
+    }
+
+    @Test
+    public void enqueueEmail() {
+
+        when(notificationOutboxRepository.insertIfAbsent(any())).thenAnswer(invocation -> {
+            ((NotificationOutboxEntity) invocation.getArgument(0)).setId(notificationId);
+            return true;
+        });
+
+        notificationService.enqueueEmail("order:1:purchase-email", "test@test.com", "template", Collections.singletonMap("eventName", "Test"));
+
+        ArgumentCaptor<NotificationOutboxEntity> captor = ArgumentCaptor.forClass(NotificationOutboxEntity.class);
+        verify(notificationOutboxRepository).insertIfAbsent(captor.capture());
+        assertEquals("order:1:purchase-email", captor.getValue().getIdempotencyKey());
+        assertEquals(NotificationOutboxEntity.Channel.EMAIL, captor.getValue().getChannel());
+        assertEquals(NotificationOutboxEntity.Status.PENDING, captor.getValue().getStatus());
+        assertEquals("{\"eventName\":\"Test\"}", captor.getValue().getTemplateData());
+        verify(awsSimpleEmailServiceGateway, never()).sendEmailFromTemplate(any(), any(), any());
+    }
+
+    @Test
+    public void enqueuePush_Duplicate() {
+
+        when(notificationOutboxRepository.existsByIdempotencyKey("order:1:push")).thenReturn(true);
+
+        notificationService.enqueuePush("order:1:push", "token", "title", "body");
+
+        verify(notificationOutboxRepository, never()).save(any());
+        verify(notificationOutboxRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    public void enqueuePush_DuplicateRace() {
+
+        when(notificationOutboxRepository.existsByIdempotencyKey("order:1:push")).thenReturn(false);
+        when(notificationOutboxRepository.insertIfAbsent(any())).thenReturn(false);
+
+        notificationService.enqueuePush("order:1:push", "token", "title", "body");
+
+        verify(notificationOutboxRepository).insertIfAbsent(any());
+        verify(notificationOutboxRepository, never()).claim(any(), any(), any());
+        verify(fcmGateway, never()).sendMulticast(any(), any());
+    }
+
+    @Test
+    public void dispatch() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(1);
+        when(awsSimpleEmailServiceGateway.sendEmailFromTemplate(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        notificationService.dispatch(notificationId);
+
+        verify(awsSimpleEmailServiceGateway).sendEmailFromTemplate("test@test.com", "template", Collections.singletonMap("eventName", "Test"));
+        verify(notificationOutboxRepository).save(notificationOutboxEntity);
+        assertEquals(NotificationOutboxEntity.Status.SENT, notificationOutboxEntity.getStatus());
+        assertNotNull(notificationOutboxEntity.getSentDate());
+    }
+
+    @Test
+    public void dispatch_AwaitsSes() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(1);
+        CompletableFuture<Void> sendFuture = new CompletableFuture<>();
+        when(awsSimpleEmailServiceGateway.sendEmailFromTemplate(any(), any(), any())).thenReturn(sendFuture);
+
+        notificationService.dispatch(notificationId);
+
+        //Nothing is recorded until SES answers.
+        assertEquals(NotificationOutboxEntity.Status.SENDING, notificationOutboxEntity.getStatus());
+        verify(notificationOutboxRepository, never()).save(any());
+
+        sendFuture.complete(null);
+        assertEquals(NotificationOutboxEntity.Status.SENT, notificationOutboxEntity.getStatus());
+        verify(notificationOutboxRepository).save(notificationOutboxEntity);
+    }
+
+    @Test
+    public void dispatch_Rejected() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(1);
+        CompletableFuture<Void> sendFuture = new CompletableFuture<>();
+        sendFuture.completeExceptionally(new RuntimeException("SES rejected"));
+        when(awsSimpleEmailServiceGateway.sendEmailFromTemplate(any(), any(), any())).thenReturn(sendFuture);
+
+        notificationService.dispatch(notificationId);
+
+        assertEquals(NotificationOutboxEntity.Status.PENDING, notificationOutboxEntity.getStatus());
+        assertEquals("SES rejected", notificationOutboxEntity.getLastError());
+        assertNull(notificationOutboxEntity.getSentDate());
+        verify(notificationOutboxRepository).save(notificationOutboxEntity);
+    }
+
+    @Test
+    public void dispatch_PushFailed() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(1)
+                .setChannel(NotificationOutboxEntity.Channel.PUSH)
+                .setRecipient("token1")
+                .setTitle("Title")
+                .setBody("body");
+        when(fcmGateway.sendMulticast(eq(Collections.singletonList("token1")), any())).thenReturn(CompletableFuture.completedFuture(
+                new FCMGateway.MulticastResult(0, Collections.singleton("token1"), Collections.emptySet())));
+
+        notificationService.dispatch(notificationId);
+
+        verify(fcmGateway, never()).sendPushNotification(any(), any());
+        assertEquals(NotificationOutboxEntity.Status.PENDING, notificationOutboxEntity.getStatus());
+        verify(notificationOutboxRepository).saveAll(Collections.singletonList(notificationOutboxEntity));
+    }
+
+    @Test
+    public void dispatch_NotClaimed() {
+
+        when(notificationOutboxRepository.claim(eq(notificationId), any(), any())).thenReturn(0);
+
+        notificationService.dispatch(notificationId);
+
+        verify(notificationOutboxRepository, never()).findById(any());
+        verify(awsSimpleEmailServiceGateway, never()).sendEmailFromTemplate(any(), any(), any());
+    }
+
+    @Test
+    public void dispatch_Retry() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(2);
+        doThrow(new RuntimeException("SES unavailable")).when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
+
+        final OffsetDateTime before = OffsetDateTime.now();
+        notificationService.dispatch(notificationId);
+
+        assertEquals(NotificationOutboxEntity.Status.PENDING, notificationOutboxEntity.getStatus());
+        assertEquals("SES unavailable", notificationOutboxEntity.getLastError());
+        assertTrue(notificationOutboxEntity.getNextAttemptDate().isAfter(before.plusNanos(1_900_000_000L)));
+        verify(notificationOutboxRepository).save(notificationOutboxEntity);
+    }
+
+    @Test
+    public void dispatch_Failed() {
+
+        NotificationOutboxEntity notificationOutboxEntity = mockNotification(3);
+        doThrow(new RuntimeException("SES unavailable")).when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
+
+        notificationService.dispatch(notificationId);
+
+        assertEquals(NotificationOutboxEntity.Status.FAILED, notificationOutboxEntity.getStatus());
+        verify(notificationOutboxRepository).save(notificationOutboxEntity);
+    }
+
+    @Test
+    public void dispatchPending_PushMulticast() {
+
+        NotificationOutboxEntity delivered = mockPush("token1", "Title");
+        NotificationOutboxEntity retried = mockPush("token2", "Title");
+        NotificationOutboxEntity deactivated = mockPush("token3", "Title");
+        NotificationOutboxEntity otherPayload = mockPush("token4", "Other Title");
+        when(notificationOutboxRepository.findTop100ByStatusInAndNextAttemptDateBeforeOrderByNextAttemptDateAsc(any(), any()))
+                .thenReturn(Arrays.asList(delivered, retried, deactivated, otherPayload));
+
+        when(fcmGateway.sendMulticast(eq(Arrays.asList("token1", "token2", "token3")), any())).thenReturn(CompletableFuture.completedFuture(
+                new FCMGateway.MulticastResult(1, new HashSet<>(Arrays.asList("token2", "token3")), Collections.singleton("token3"))));
+        when(fcmGateway.sendMulticast(eq(Collections.singletonList("token4")), any())).thenReturn(CompletableFuture.completedFuture(
+                new FCMGateway.MulticastResult(1, Collections.emptySet(), Collections.emptySet())));
+
+        notificationService.dispatchPending();
+
+        verify(fcmGateway, times(2)).sendMulticast(any(), any());
+        verify(fcmGateway, never()).sendPushNotification(any(), any());
+        assertEquals(NotificationOutboxEntity.Status.SENT, delivered.getStatus());
+        assertEquals(NotificationOutboxEntity.Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertEquals(NotificationOutboxEntity.Status.FAILED, deactivated.getStatus());
+        assertEquals(NotificationOutboxEntity.Status.SENT, otherPayload.getStatus());
+        verify(notificationOutboxRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    public void dispatchPending_PushNotClaimed() {
+
+        NotificationOutboxEntity push = mockPush("token1", "Title");
+        when(notificationOutboxRepository.claim(eq(push.getId()), any(), any())).thenReturn(0);
+        when(notificationOutboxRepository.findTop100ByStatusInAndNextAttemptDateBeforeOrderByNextAttemptDateAsc(any(), any()))
+                .thenReturn(Collections.singletonList(push));
+
+        notificationService.dispatchPending();
+
+        verify(fcmGateway, never()).sendMulticast(any(), any());
+    }
+
+    private NotificationOutboxEntity mockPush(String token, String title) {
+
+        NotificationOutboxEntity notificationOutboxEntity = new NotificationOutboxEntity()
+                .setId(UUID.randomUUID())
+                .setIdempotencyKey("order:1:push:" + token)
+                .setChannel(NotificationOutboxEntity.Channel.PUSH)
+                .setRecipient(token)
+                .setTitle(title)
+                .setBody("body")
+                .setStatus(NotificationOutboxEntity.Status.PENDING)
+                .setAttempts(0)
+                .setCreatedDate(OffsetDateTime.now())
+                .setNextAttemptDate(OffsetDateTime.now());
+
+        when(notificationOutboxRepository.claim(eq(notificationOutboxEntity.getId()), any(), any())).thenReturn(1);
+        return notificationOutboxEntity;
+    }
+
+    private NotificationOutboxEntity mockNotification(int attempts) {
+
+        NotificationOutboxEntity notificationOutboxEntity = new NotificationOutboxEntity()
+                .setId(notificationId)
+                .setIdempotencyKey("order:1:purchase-email")
+                .setChannel(NotificationOutboxEntity.Channel.EMAIL)
+                .setRecipient("test@test.com")
+                .setTemplateName("template")
+                .setTemplateData("{\"eventName\":\"Test\"}")
+                .setStatus(NotificationOutboxEntity.Status.SENDING)
+                .setAttempts(attempts)
+                .setCreatedDate(OffsetDateTime.now())
+                .setNextAttemptDate(OffsetDateTime.now());
+
+        when(notificationOutboxRepository.claim(eq(notificationId), any(), any())).thenReturn(1);
+        when(notificationOutboxRepository.findById(notificationId)).thenReturn(Optional.of(notificationOutboxEntity));
+        return notificationOutboxEntity;
+    }
+}
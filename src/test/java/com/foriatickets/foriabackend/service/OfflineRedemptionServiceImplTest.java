@@ -0,0 +1,305 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.gateway.AWSSecretsManagerGateway;
+import com.foriatickets.foriabackend.repositories.EventRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.foriatickets.foriabackend.repositories.UserRepository;
+import com.foriatickets.foriabackend.repositories.VenueAccessRepository;
+import com.foriatickets.foriabackend.security.OfflinePackSigner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.openapitools.model.OfflineRedemption;
+import org.openapitools.model.OfflineRedemptionResult;
+import org.openapitools.model.OfflineRedemptionUploadResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Signature;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class OfflineRedemptionServiceImplTest {
+
+    @Mock
+    private AWSSecretsManagerGateway awsSecretsManagerGateway;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private VenueAccessRepository venueAccessRepository;
+
+    private OfflinePackSigner offlinePackSigner;
+
+    private OfflineRedemptionServiceImpl offlineRedemptionService;
+
+    private UUID eventId;
+
+    private UUID venueId;
+
+    private UUID userId;
+
+    @Before
+    public void setUp() {
+
+        eventId = UUID.randomUUID();
+        venueId = UUID.randomUUID();
+
+        VenueEntity venueEntity = mock(VenueEntity.class);
+        when(venueEntity.getId()).thenReturn(venueId);
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(eventId);
+        when(eventEntity.getVenueEntity()).thenReturn(venueEntity);
+        when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntity));
+
+        VenueAccessEntity venueAccessEntity = mock(VenueAccessEntity.class);
+        when(venueAccessEntity.getVenueEntity()).thenReturn(venueEntity);
+        userId = UUID.randomUUID();
+        UserEntity authenticatedUser = mock(UserEntity.class);
+        when(authenticatedUser.getId()).thenReturn(userId);
+        when(authenticatedUser.getVenueAccessEntities()).thenReturn(new HashSet<>(Collections.singletonList(venueAccessEntity)));
+        when(venueAccessRepository.findAllByUserEntity_Id(userId)).thenReturn(Collections.singletonList(venueAccessEntity));
+
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal()).thenReturn("test");
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        when(userRepository.findByAuth0Id("test")).thenReturn(authenticatedUser);
+
+        offlinePackSigner = new OfflinePackSigner(awsSecretsManagerGateway, null);
+        offlinePackSigner.init();
+
+        offlineRedemptionService = new OfflineRedemptionServiceImpl(new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 100, 60000, 60000),
+                eventRepository, ticketRepository, venueAccessRepository, offlinePackSigner, 60000L, 10);
+    }
+
+    @Test
+    public void getOfflinePack() throws Exception {
+
+        final UUID activeId = UUID.randomUUID();
+        final UUID redeemedId = UUID.randomUUID();
+        when(ticketRepository.findOfflinePackRows(eventId)).thenReturn(Arrays.asList(
+                new Object[] {activeId, TicketEntity.Status.ACTIVE, "ACTIVESECRET1234"},
+                new Object[] {redeemedId, TicketEntity.Status.REDEEMED, "REDEEMEDSECRET12"}));
+
+        final long before = System.currentTimeMillis();
+        final byte[] pack = offlineRedemptionService.getOfflinePack(eventId);
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(pack));
+        final byte[] magic = new byte[4];
+        in.readFully(magic);
+        assertArrayEquals(OfflineRedemptionServiceImpl.PACK_MAGIC, magic);
+        assertEquals(OfflineRedemptionServiceImpl.PACK_FORMAT, in.readByte());
+        assertEquals(OfflineRedemptionServiceImpl.PACK_KIND_FULL, in.readByte());
+        assertEquals(eventId, readUuid(in));
+        assertTrue(in.readLong() >= before);
+        assertEquals(0L, in.readLong());
+        assertEquals(2, in.readInt());
+
+        assertEquals(activeId, readUuid(in));
+        assertEquals(1, in.readByte());
+        final byte[] secret = new byte[in.readByte()];
+        in.readFully(secret);
+        assertEquals("ACTIVESECRET1234", new String(secret, StandardCharsets.US_ASCII));
+
+        //Secrets are withheld from tickets that cannot be admitted.
+        assertEquals(redeemedId, readUuid(in));
+        assertEquals(3, in.readByte());
+        assertEquals(0, in.readByte());
+
+        assertSignature(pack, in);
+    }
+
+    @Test
+    public void getOfflinePackDelta() throws Exception {
+
+        final long sinceVersion = System.currentTimeMillis() - 300000L;
+        final UUID canceledId = UUID.randomUUID();
+        when(ticketRepository.findOfflinePackRowsUpdatedAfter(eq(eventId), any())).thenReturn(Collections.singletonList(
+                new Object[] {canceledId, TicketEntity.Status.CANCELED, "CANCELEDSECRET12"}));
+
+        final byte[] pack = offlineRedemptionService.getOfflinePackDelta(eventId, sinceVersion);
+
+        final ArgumentCaptor<OffsetDateTime> updatedAfter = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(ticketRepository).findOfflinePackRowsUpdatedAfter(eq(eventId), updatedAfter.capture());
+        assertEquals(sinceVersion - 60000L, updatedAfter.getValue().toInstant().toEpochMilli());
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(pack));
+        in.skipBytes(5);
+        assertEquals(OfflineRedemptionServiceImpl.PACK_KIND_DELTA, in.readByte());
+        assertEquals(eventId, readUuid(in));
+        assertTrue(in.readLong() > sinceVersion);
+        assertEquals(sinceVersion, in.readLong());
+        assertEquals(1, in.readInt());
+        assertEquals(canceledId, readUuid(in));
+        assertEquals(4, in.readByte());
+        assertEquals(0, in.readByte());
+
+        assertSignature(pack, in);
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getOfflinePackDelta_FutureVersion() {
+        offlineRedemptionService.getOfflinePackDelta(eventId, System.currentTimeMillis() + 60000L);
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getOfflinePack_BadAccess() {
+
+        VenueEntity otherVenue = mock(VenueEntity.class);
+        when(otherVenue.getId()).thenReturn(UUID.randomUUID());
+        EventEntity otherEvent = mock(EventEntity.class);
+        when(otherEvent.getVenueEntity()).thenReturn(otherVenue);
+        UUID otherEventId = UUID.randomUUID();
+        when(eventRepository.findById(otherEventId)).thenReturn(Optional.of(otherEvent));
+
+        offlineRedemptionService.getOfflinePack(otherEventId);
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getOfflinePackDelta_AccessRevoked() {
+
+        //Snapshot still lists the venue. Stored membership is gone.
+        when(venueAccessRepository.findAllByUserEntity_Id(userId)).thenReturn(Collections.emptyList());
+
+        offlineRedemptionService.getOfflinePackDelta(eventId, System.currentTimeMillis() - 60000L);
+    }
+
+    @Test
+    public void uploadOfflineRedemptions() {
+
+        final UUID activeId = UUID.randomUUID();
+        final UUID redeemedId = UUID.randomUUID();
+        final UUID canceledId = UUID.randomUUID();
+        final UUID unknownId = UUID.randomUUID();
+        final OffsetDateTime scannedAt = OffsetDateTime.now().minusHours(1L);
+
+        when(ticketRepository.findStatusesForEvent(eq(eventId), any())).thenReturn(Arrays.asList(
+                new Object[] {activeId, TicketEntity.Status.ACTIVE},
+                new Object[] {redeemedId, TicketEntity.Status.REDEEMED},
+                new Object[] {canceledId, TicketEntity.Status.CANCELED}));
+        when(ticketRepository.markRedeemed(eq(activeId), eq(scannedAt), any())).thenReturn(1);
+        when(ticketRepository.claimEarlierRedemption(eq(redeemedId), any(), any())).thenReturn(0);
+
+        final OfflineRedemptionUploadResult actual = offlineRedemptionService.uploadOfflineRedemptions(eventId, Arrays.asList(
+                redemption(activeId, scannedAt),
+                redemption(redeemedId, scannedAt),
+                redemption(canceledId, scannedAt),
+                redemption(unknownId, scannedAt),
+                redemption(activeId, scannedAt.plusMinutes(5L))));
+
+        final List<OfflineRedemptionResult> results = actual.getResults();
+        assertEquals(5, results.size());
+        assertResult(results.get(0), activeId, OfflineRedemptionResult.StatusEnum.ACCEPTED, null);
+        assertResult(results.get(1), redeemedId, OfflineRedemptionResult.StatusEnum.DUPLICATE, null);
+        assertResult(results.get(2), canceledId, OfflineRedemptionResult.StatusEnum.REJECTED, OfflineRedemptionResult.ReasonEnum.INVALID_STATUS);
+        assertResult(results.get(3), unknownId, OfflineRedemptionResult.StatusEnum.REJECTED, OfflineRedemptionResult.ReasonEnum.NOT_FOUND);
+        assertResult(results.get(4), activeId, OfflineRedemptionResult.StatusEnum.DUPLICATE, null);
+
+        //Tickets are loaded in one query and each is written at most once.
+        verify(ticketRepository, times(1)).findStatusesForEvent(eq(eventId), any());
+        verify(ticketRepository, times(1)).markRedeemed(any(), any(), any());
+        verify(ticketRepository, never()).claimEarlierRedemption(eq(activeId), any(), any());
+    }
+
+    @Test
+    public void uploadOfflineRedemptions_EarlierScanWins() {
+
+        final UUID ticketId = UUID.randomUUID();
+        final OffsetDateTime earlierScan = OffsetDateTime.now().minusHours(2L);
+
+        when(ticketRepository.findStatusesForEvent(eq(eventId), any())).thenReturn(Collections.singletonList(
+                new Object[] {ticketId, TicketEntity.Status.REDEEMED}));
+        when(ticketRepository.claimEarlierRedemption(eq(ticketId), eq(earlierScan), any())).thenReturn(1);
+
+        final OfflineRedemptionUploadResult actual = offlineRedemptionService.uploadOfflineRedemptions(eventId,
+                Collections.singletonList(redemption(ticketId, earlierScan)));
+
+        assertResult(actual.getResults().get(0), ticketId, OfflineRedemptionResult.StatusEnum.ACCEPTED, null);
+        verify(ticketRepository, never()).markRedeemed(any(), any(), any());
+    }
+
+    @Test
+    public void uploadOfflineRedemptions_FutureScanClamped() {
+
+        final UUID ticketId = UUID.randomUUID();
+        when(ticketRepository.findStatusesForEvent(eq(eventId), any())).thenReturn(Collections.singletonList(
+                new Object[] {ticketId, TicketEntity.Status.ACTIVE}));
+        when(ticketRepository.markRedeemed(eq(ticketId), any(), any())).thenReturn(1);
+
+        offlineRedemptionService.uploadOfflineRedemptions(eventId,
+                Collections.singletonList(redemption(ticketId, OffsetDateTime.now().plusDays(1L))));
+
+        final ArgumentCaptor<OffsetDateTime> redeemedDate = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(ticketRepository).markRedeemed(eq(ticketId), redeemedDate.capture(), any());
+        assertFalse(redeemedDate.getValue().isAfter(OffsetDateTime.now()));
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void uploadOfflineRedemptions_TooLarge() {
+
+        final List<OfflineRedemption> redemptions = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            redemptions.add(redemption(UUID.randomUUID(), OffsetDateTime.now()));
+        }
+
+        offlineRedemptionService.uploadOfflineRedemptions(eventId, redemptions);
+    }
+
+    private static OfflineRedemption redemption(UUID ticketId, OffsetDateTime scannedAt) {
+
+        OfflineRedemption redemption = new OfflineRedemption();
+        redemption.setTicketId(ticketId);
+        redemption.setScannedAt(scannedAt);
+        return redemption;
+    }
+
+    private static void assertResult(OfflineRedemptionResult result, UUID ticketId, OfflineRedemptionResult.StatusEnum status, OfflineRedemptionResult.ReasonEnum reason) {
+        assertEquals(ticketId, result.getTicketId());
+        assertEquals(status, result.getStatus());
+        assertEquals(reason, result.getReason());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private void assertSignature(byte[] pack, DataInputStream in) throws Exception {
+
+        final int signedLength = pack.length - in.available();
+        final byte[] signatureBytes = new byte[in.readShort()];
+        in.readFully(signatureBytes);
+        assertEquals(0, in.available());
+
+        final Signature signature = Signature.getInstance("SHA256withECDSA");
+        signature.initVerify(offlinePackSigner.getPublicKey());
+        signature.update(pack, 0, signedLength);
+        assertTrue(signature.verify(signatureBytes));
+
+        //Any change to the body breaks the signature.
+        pack[10] ^= 1;
+        signature.initVerify(offlinePackSigner.getPublicKey());
+        signature.update(pack, 0, signedLength);
+        assertFalse(signature.verify(signatureBytes));
+    }
+}
@@ -0,0 +1,417 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.gateway.StripeGateway;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import com.stripe.model.Refund;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.foriatickets.foriabackend.entities.TicketEntity.Status.ACTIVE;
+import static com.foriatickets.foriabackend.entities.TicketEntity.Status.ISSUED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class OrderRefundServiceImplTest {
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private SalesLedgerService salesLedgerService;
+
+    @Mock
+    private StripeGateway stripeGateway;
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    private OrderRefundService orderRefundService;
+
+    @Before
+    public void setUp() {
+        orderRefundService = new OrderRefundServiceImpl(inventoryService, notificationService, orderRepository, salesLedgerService, stripeGateway, ticketRepository);
+    }
+
+    @Test
+    public void refundOrder() {
+
+        final UUID orderId = UUID.randomUUID();
+        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
+
+        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
+        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
+        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
+
+        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
+        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
+        deviceTokenEntities.add(deviceTokenEntity);
+        deviceTokenEntities.add(deviceTokenEntity2);
+
+        UserEntity purchaser = mock(UserEntity.class);
+        when(purchaser.getId()).thenReturn(UUID.randomUUID());
+        when(purchaser.getEmail()).thenReturn("test@test.com");
+        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        UserEntity owner = mock(UserEntity.class);
+        when(owner.getId()).thenReturn(UUID.randomUUID());
+        when(owner.getEmail()).thenReturn("test2@test.com");
+        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
+        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
+        when(eventEntity.getName()).thenReturn("Test Event");
+
+        final UUID ticketTypeConfigId = UUID.randomUUID();
+        TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntity.getId()).thenReturn(ticketTypeConfigId);
+
+        TicketEntity ticketEntity = mock(TicketEntity.class);
+        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
+        when(ticketEntity.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity.getSecret()).thenReturn("secret");
+        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
+        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+
+        TicketEntity ticketEntity2 = mock(TicketEntity.class);
+        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
+        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity2.getSecret()).thenReturn("secret");
+        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
+        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
+        when(ticketEntity2.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(orderId);
+        when(orderEntity.getCurrency()).thenReturn("USD");
+        when(orderEntity.getTotal()).thenReturn(refundAmount);
+        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
+        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
+
+        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
+        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
+
+        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
+
+        orderTicketEntryEntities.add(orderTicketEntryEntity);
+        orderTicketEntryEntities.add(orderTicketEntryEntity2);
+        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
+
+        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+
+        orderRefundService.refundOrder(orderId, true);
+
+        verify(ticketRepository, times(2)).save(any());
+        verify(orderRepository).save(any());
+        verify(notificationService, times(2)).enqueueEmail(any(), any(), any(), any());
+        verify(notificationService, times(2)).enqueuePush(any(), any(), any(), any());
+        InOrder inOrder = inOrder(stripeGateway, inventoryService);
+        inOrder.verify(stripeGateway).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        inOrder.verify(inventoryService).release(ticketTypeConfigId, 2);
+        verify(salesLedgerService).recordRefund(orderEntity);
+    }
+
+    @Test
+    public void refundOrder_StripeFails() {
+
+        final UUID orderId = UUID.randomUUID();
+
+        UserEntity purchaser = mock(UserEntity.class);
+        when(purchaser.getId()).thenReturn(UUID.randomUUID());
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
+        when(eventEntity.getName()).thenReturn("Test Event");
+
+        TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntity.getId()).thenReturn(UUID.randomUUID());
+
+        TicketEntity ticketEntity = mock(TicketEntity.class);
+        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
+        when(ticketEntity.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
+        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+
+        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(orderId);
+        when(orderEntity.getTotal()).thenReturn(BigDecimal.valueOf(123L));
+        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
+        when(orderEntity.getTickets()).thenReturn(Collections.singleton(orderTicketEntryEntity));
+
+        when(stripeGateway.refundStripeCharge(any(), any())).thenThrow(new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR));
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+
+        try {
+            orderRefundService.refundOrder(orderId, true);
+            fail("Refund must fail when Stripe fails.");
+        } catch (ResponseStatusException ex) {
+            assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, ex.getStatus());
+        }
+
+        //Seats stay sold until the charge is actually refunded.
+        verify(inventoryService, never()).release(any(), anyInt());
+        verify(orderRepository, never()).save(any());
+        verify(salesLedgerService, never()).recordRefund(any());
+    }
+
+    @Test
+    public void refundOrder_freeOrder() {
+
+        final UUID orderId = UUID.randomUUID();
+        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
+
+        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
+        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
+        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
+
+        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
+        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
+        deviceTokenEntities.add(deviceTokenEntity);
+        deviceTokenEntities.add(deviceTokenEntity2);
+
+        UserEntity purchaser = mock(UserEntity.class);
+        when(purchaser.getId()).thenReturn(UUID.randomUUID());
+        when(purchaser.getEmail()).thenReturn("test@test.com");
+        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        UserEntity owner = mock(UserEntity.class);
+        when(owner.getId()).thenReturn(UUID.randomUUID());
+        when(owner.getEmail()).thenReturn("test2@test.com");
+        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
+        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
+        when(eventEntity.getName()).thenReturn("Test Event");
+
+        final UUID ticketTypeConfigId = UUID.randomUUID();
+        TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntity.getId()).thenReturn(ticketTypeConfigId);
+
+        TicketEntity ticketEntity = mock(TicketEntity.class);
+        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
+        when(ticketEntity.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity.getSecret()).thenReturn("secret");
+        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
+        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+
+        TicketEntity ticketEntity2 = mock(TicketEntity.class);
+        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
+        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity2.getSecret()).thenReturn("secret");
+        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
+        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
+        when(ticketEntity2.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(orderId);
+        when(orderEntity.getCurrency()).thenReturn("USD");
+        when(orderEntity.getTotal()).thenReturn(refundAmount);
+        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
+        when(orderEntity.getChargeReferenceId()).thenReturn(null);
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
+
+        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
+        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
+
+        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
+
+        orderTicketEntryEntities.add(orderTicketEntryEntity);
+        orderTicketEntryEntities.add(orderTicketEntryEntity2);
+        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
+
+        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+
+        orderRefundService.refundOrder(orderId, true);
+
+        verify(ticketRepository, times(2)).save(any());
+        verify(orderRepository).save(any());
+        verify(notificationService, times(2)).enqueueEmail(any(), any(), any(), any());
+        verify(notificationService, times(2)).enqueuePush(any(), any(), any(), any());
+        verify(stripeGateway, times(0)).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        verify(inventoryService).release(ticketTypeConfigId, 2);
+    }
+
+    @Test
+    public void refundOrder_alreadyCanceled() {
+
+        final UUID orderId = UUID.randomUUID();
+        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(orderId);
+        when(orderEntity.getCurrency()).thenReturn("USD");
+        when(orderEntity.getTotal()).thenReturn(refundAmount);
+        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
+        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.CANCELED);
+
+        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+
+        orderRefundService.refundOrder(orderId, true);
+
+        verify(ticketRepository, times(0)).save(any());
+        verify(orderRepository, times(0)).save(any());
+        verify(notificationService, times(0)).enqueueEmail(any(), any(), any(), any());
+        verify(notificationService, times(0)).enqueuePush(any(), any(), any(), any());
+        verify(stripeGateway, times(0)).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        verify(salesLedgerService, never()).recordRefund(any());
+    }
+
+    @Test
+    public void refundOrder_withoutNotifications() {
+
+        final UUID orderId = UUID.randomUUID();
+        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
+
+        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
+        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
+        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
+
+        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
+        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
+        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
+        deviceTokenEntities.add(deviceTokenEntity);
+        deviceTokenEntities.add(deviceTokenEntity2);
+
+        UserEntity purchaser = mock(UserEntity.class);
+        when(purchaser.getId()).thenReturn(UUID.randomUUID());
+        when(purchaser.getEmail()).thenReturn("test@test.com");
+        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        UserEntity owner = mock(UserEntity.class);
+        when(owner.getId()).thenReturn(UUID.randomUUID());
+        when(owner.getEmail()).thenReturn("test2@test.com");
+        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
+        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
+        when(eventEntity.getName()).thenReturn("Test Event");
+
+        final UUID ticketTypeConfigId = UUID.randomUUID();
+        TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
+        when(ticketTypeConfigEntity.getId()).thenReturn(ticketTypeConfigId);
+
+        TicketEntity ticketEntity = mock(TicketEntity.class);
+        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
+        when(ticketEntity.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity.getSecret()).thenReturn("secret");
+        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
+        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+
+        TicketEntity ticketEntity2 = mock(TicketEntity.class);
+        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
+        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
+        when(ticketEntity2.getSecret()).thenReturn("secret");
+        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
+        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
+        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
+        when(ticketEntity2.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(orderId);
+        when(orderEntity.getCurrency()).thenReturn("USD");
+        when(orderEntity.getTotal()).thenReturn(refundAmount);
+        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
+        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
+
+        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
+        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
+
+        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
+        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
+        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
+        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
+
+        orderTicketEntryEntities.add(orderTicketEntryEntity);
+        orderTicketEntryEntities.add(orderTicketEntryEntity2);
+        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
+
+        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
+
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+
+        orderRefundService.refundOrder(orderId, false);
+
+        verify(ticketRepository, times(2)).save(any());
+        verify(orderRepository).save(any());
+        verify(notificationService, times(0)).enqueueEmail(any(), any(), any(), any());
+        verify(notificationService, times(0)).enqueuePush(any(), any(), any(), any());
+        verify(stripeGateway).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        verify(inventoryService).release(ticketTypeConfigId, 2);
+    }
+}
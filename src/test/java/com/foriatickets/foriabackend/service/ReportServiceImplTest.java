@@ -11,13 +11,23 @@ import com.stripe.model.Payout;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -37,7 +47,10 @@ public class ReportServiceImplTest {
     private StripeGateway stripeGateway;
 
     @Mock
-    private CalculationService calculationService;
+    private SalesLedgerService salesLedgerService;
+
+    @Mock
+    private SettlementReconciliationService settlementReconciliationService;
 
     private ReportService reportService;
 
@@ -47,43 +60,60 @@ public class ReportServiceImplTest {
     public void setUp() {
 
         mockOrderInfo();
-        reportService = new ReportServiceImpl(awsSimpleEmailServiceGateway, eventRepository, orderRepository, stripeGateway, calculationService);
+        reportService = new ReportServiceImpl(awsSimpleEmailServiceGateway, eventRepository, orderRepository, stripeGateway, salesLedgerService, settlementReconciliationService);
     }
 
     @Test
+    @SuppressWarnings("unchecked")
     public void generateAndSendDailyTicketPurchaseReport() {
 
-        when(orderRepository.findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any())).thenReturn(orders);
-        doNothing().when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
+        final List<Object[]> rows = ticketReportRows();
+        when(orderRepository.streamTicketReportRows(any(), any())).thenReturn(rows.stream());
+        doAnswer(invocation -> {
+            List<AWSSimpleEmailServiceGateway.ReportAttachment> attachments = invocation.getArgument(2);
+            assertEquals(1, attachments.size());
+            assertEquals("TicketPurchaseReport.csv.gz", attachments.get(0).reportFilename);
+
+            //Attachment is read from the compressed temp file while it is sent.
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(attachments.get(0).reportFile)), StandardCharsets.UTF_8))) {
+                assertTrue(reader.readLine().contains("Ticket Id"));
+                assertTrue(reader.readLine().contains("Test Event Name"));
+            }
+            return null;
+        }).when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
 
         reportService.generateAndSendDailyTicketPurchaseReport();
 
-        verify(orderRepository).findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any());
-        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
+        verify(orderRepository).streamTicketReportRows(any(), any());
+        ArgumentCaptor<List<AWSSimpleEmailServiceGateway.ReportAttachment>> captor = ArgumentCaptor.forClass(List.class);
+        verify(awsSimpleEmailServiceGateway).sendInternalReport(eq("Ticket Purchase Report"), any(), captor.capture());
+        assertFalse(captor.getValue().get(0).reportFile.exists());
     }
 
     @Test
     public void generateAndSendRollingTicketPurchaseReport() {
 
-        when(orderRepository.findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any())).thenReturn(orders);
+        final List<Object[]> rows = ticketReportRows();
+        when(orderRepository.streamTicketReportRows(any(), any())).thenReturn(rows.stream());
         doNothing().when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
 
         reportService.generateAndSendRollingTicketPurchaseReport();
 
-        verify(orderRepository).findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any());
+        verify(orderRepository).streamTicketReportRows(any(), any());
         verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
     }
 
     @Test
     public void generateAndSendDailyTicketPurchaseReport_noOrders() {
 
-        when(orderRepository.findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any())).thenReturn(new ArrayList<>());
+        when(orderRepository.streamTicketReportRows(any(), any())).thenReturn(Stream.empty());
         doNothing().when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
 
         reportService.generateAndSendDailyTicketPurchaseReport();
 
-        verify(orderRepository).findOrderEntitiesByOrderTimestampAfterAndOrderTimestampBeforeOrderByOrderTimestampAsc(any(), any());
-        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
+        verify(orderRepository).streamTicketReportRows(any(), any());
+        verify(awsSimpleEmailServiceGateway).sendInternalReport(eq("DailyTicketPurchaseReport"), any(), isNull());
     }
 
     @Test
@@ -107,25 +137,29 @@ public class ReportServiceImplTest {
         when(settlementInfo.getChargeTransactions()).thenReturn(transactions);
         when(settlementInfo.getStripePayout()).thenReturn(payoutMock);
 
-        CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo = new CalculationServiceImpl.PriceCalculationInfo();
-        priceCalculationInfo.grandTotal = BigDecimal.valueOf(10L);
-        priceCalculationInfo.feeSubtotal = BigDecimal.valueOf(5L);
-        priceCalculationInfo.venueFeeSubtotal = BigDecimal.valueOf(2L);
-        priceCalculationInfo.issuerFeeSubtotal = BigDecimal.valueOf(3L);
-        priceCalculationInfo.paymentFeeSubtotal = BigDecimal.ZERO;
-        priceCalculationInfo.ticketSubtotal = BigDecimal.valueOf(5L);
-        priceCalculationInfo.currencyCode = "USD";
-
-        when(calculationService.calculateFees(anyInt(), any(), any(), anyBoolean())).thenReturn(priceCalculationInfo);
+        final OrderLedgerEntity orderLedgerEntity = new OrderLedgerEntity()
+                .setId(orders.get(0).getId())
+                .setStatus(OrderLedgerEntity.Status.SOLD)
+                .setCurrency("USD")
+                .setNumPaidTickets(1)
+                .setTicketSubtotal(BigDecimal.valueOf(5L))
+                .setIssuerFee(BigDecimal.valueOf(3L))
+                .setVenueFee(BigDecimal.valueOf(2L))
+                .setPaymentFee(BigDecimal.ZERO);
+        when(salesLedgerService.getLedgerEntries(any())).thenReturn(Collections.singletonMap(orderLedgerEntity.getId(), orderLedgerEntity));
 
         when(stripeGateway.getSettlementInfo()).thenReturn(settlementInfo);
-        when(orderRepository.findByChargeReferenceId(any())).thenReturn(orders.get(0));
+        when(settlementReconciliationService.reconcile(transactions, Collections.emptyList())).thenReturn(new SettlementReconciliationService.ReconciliationResult(
+                Collections.singletonList(new SettlementReconciliationService.Match(balanceTransactionMock, orders.get(0))),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
         doNothing().when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
 
         reportService.generateAndSendWeeklySettlementReport();
 
-        verify(orderRepository).findByChargeReferenceId(any());
-        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
+        verify(settlementReconciliationService).reconcile(transactions, Collections.emptyList());
+        verify(orderRepository, never()).findByChargeReferenceId(any());
+        verify(salesLedgerService).getLedgerEntries(orders);
+        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), contains("Foria Revenue Amount (Foria Fees Collected On Tickets - Transfer/Keep this to Foria Operating Account): 3 usd"), any());
     }
 
     @Test
@@ -170,8 +204,13 @@ public class ReportServiceImplTest {
         events.add(eventMock);
         when(eventRepository.findAllByEventStartTimeGreaterThanEqualAndEventStartTimeLessThanEqual(any(), any())).thenReturn(events);
 
+        when(awsSimpleEmailServiceGateway.sendBulkEmailFromTemplate(any(), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new AWSSimpleEmailServiceGateway.BulkEmailResult(2, 0, 0)));
+
         reportService.generateAndSendGeneralEventReminder();
-        verify(awsSimpleEmailServiceGateway, times(2)).sendEmailFromTemplate(anyString(), eq("general_event_reminder"), any());
+        verify(awsSimpleEmailServiceGateway, times(1)).sendBulkEmailFromTemplate(
+                eq(new HashSet<>(Arrays.asList("john@test.com", "john2@test.com"))), eq("general_event_reminder"), any());
+        verify(awsSimpleEmailServiceGateway, never()).sendEmailFromTemplate(anyString(), any(), any());
     }
 
     private void mockOrderInfo() {
@@ -255,6 +294,24 @@ public class ReportServiceImplTest {
         orders.add(orderEntity1);
     }
 
+    /**
+     * Builds streamed report rows from the mocked order.
+     */
+    private List<Object[]> ticketReportRows() {
+
+        final OrderEntity orderEntity = orders.get(0);
+        final TicketEntity ticketEntity = orderEntity.getTickets().iterator().next().getTicketEntity();
+        final EventEntity eventEntity = ticketEntity.getEventEntity();
+        final TicketTypeConfigEntity ticketTypeConfigEntity = ticketEntity.getTicketTypeConfigEntity();
+
+        return Collections.singletonList(new Object[] {
+                ticketEntity.getId(), eventEntity.getId(), eventEntity.getName(), eventEntity.getVenueEntity().getId(),
+                ticketEntity.getPurchaserEntity().getId(), orderEntity.getId(), ticketEntity.getIssuedDate(),
+                ticketTypeConfigEntity.getId(), ticketTypeConfigEntity.getName(), ticketTypeConfigEntity.getPrice(),
+                ticketTypeConfigEntity.getCurrency(), ticketEntity.getStatus()
+        });
+    }
+
     @Test
     public void generateAndSendEventEndReport() {
 
@@ -263,11 +320,31 @@ public class ReportServiceImplTest {
         final ArrayList<EventEntity> eventEntities = new ArrayList<>();
         eventEntities.add(eventEntity);
         when(eventRepository.findAllByEventEndTimeGreaterThanEqualAndEventEndTimeLessThanEqual(any(), any())).thenReturn(eventEntities);
+        when(salesLedgerService.getEventSales(eventEntity.getId())).thenReturn(new EventSalesRollupEntity()
+                .setId(eventEntity.getId())
+                .setTicketsSold(3)
+                .setTicketsRefunded(1)
+                .setTicketSubtotal(BigDecimal.valueOf(30L))
+                .setIssuerFee(BigDecimal.valueOf(3L))
+                .setVenueFee(BigDecimal.valueOf(2L))
+                .setPaymentFee(BigDecimal.valueOf(1.50))
+                .setRefundedPaymentFee(BigDecimal.valueOf(0.50)));
         doNothing().when(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
 
         reportService.generateAndSendEventEndReport();
 
         verify(eventRepository).findAllByEventEndTimeGreaterThanEqualAndEventEndTimeLessThanEqual(any(), any());
-        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), any(), any());
+        verify(orderRepository, never()).findAllByEventId(any());
+
+        InOrder inOrder = inOrder(salesLedgerService);
+        inOrder.verify(salesLedgerService).rollupLedger();
+        inOrder.verify(salesLedgerService).getEventSales(eventEntity.getId());
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(awsSimpleEmailServiceGateway).sendInternalReport(any(), captor.capture(), any());
+        assertTrue(captor.getValue().contains("Number of Tickets Sold: 3"));
+        assertTrue(captor.getValue().contains("Number of Tickets Refunded: 1"));
+        assertTrue(captor.getValue().contains("Total Net Amount (Stripe Net Amount): 34.50 USD"));
+        assertTrue(captor.getValue().contains("Amount to remit to venue: 31.50 USD"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,348 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.*;
+import com.foriatickets.foriabackend.repositories.DailySalesRollupRepository;
+import com.foriatickets.foriabackend.repositories.EventSalesRollupRepository;
+import com.foriatickets.foriabackend.repositories.OrderLedgerRepository;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class SalesLedgerServiceImplTest {
+
+    private static final OffsetDateTime ORDER_TIMESTAMP = OffsetDateTime.of(2020, 1, 15, 20, 0, 0, 0, ZoneOffset.UTC);
+
+    private static final LocalDate ORDER_DATE = LocalDate.of(2020, 1, 15);
+
+    @Mock
+    private CalculationService calculationService;
+
+    @Mock
+    private DailySalesRollupRepository dailySalesRollupRepository;
+
+    @Mock
+    private EventSalesRollupRepository eventSalesRollupRepository;
+
+    @Mock
+    private OrderLedgerRepository orderLedgerRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SalesLedgerService salesLedgerService;
+
+    private UUID eventId;
+
+    private OrderEntity orderEntity;
+
+    @Before
+    public void setUp() {
+
+        salesLedgerService = new SalesLedgerServiceImpl(calculationService, dailySalesRollupRepository, eventSalesRollupRepository,
+                orderLedgerRepository, orderRepository, transactionManager);
+
+        eventId = UUID.randomUUID();
+        orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(UUID.randomUUID());
+        when(orderEntity.getCurrency()).thenReturn("USD");
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
+        when(orderEntity.getOrderTimestamp()).thenReturn(ORDER_TIMESTAMP);
+
+        when(eventSalesRollupRepository.existsById(any())).thenReturn(true);
+        when(dailySalesRollupRepository.existsById(any())).thenReturn(true);
+    }
+
+    @Test
+    public void recordOrder() {
+
+        salesLedgerService.recordOrder(orderEntity, eventId, 2, priceCalculationInfo("USD"));
+
+        ArgumentCaptor<OrderLedgerEntity> captor = ArgumentCaptor.forClass(OrderLedgerEntity.class);
+        verify(orderLedgerRepository).save(captor.capture());
+        assertEquals(orderEntity.getId(), captor.getValue().getId());
+        assertEquals(eventId, captor.getValue().getEventId());
+        assertEquals(OrderLedgerEntity.Status.SOLD, captor.getValue().getStatus());
+        assertEquals(2, captor.getValue().getNumPaidTickets());
+        assertEquals(BigDecimal.valueOf(3L), captor.getValue().getIssuerFee());
+        assertTrue(captor.getValue().isSaleRollupPending());
+        assertFalse(captor.getValue().isRefundRollupPending());
+
+        //Rollups are left to the rollup job so checkout never writes a shared row.
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    public void recordRefund() {
+
+        when(orderLedgerRepository.findById(orderEntity.getId())).thenReturn(Optional.of(ledgerEntry()));
+        when(orderLedgerRepository.markRefunded(eq(orderEntity.getId()), any())).thenReturn(1);
+
+        salesLedgerService.recordRefund(orderEntity);
+
+        verify(orderLedgerRepository).markRefunded(eq(orderEntity.getId()), any());
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void recordRefund_AlreadyRefunded() {
+
+        when(orderLedgerRepository.findById(orderEntity.getId())).thenReturn(Optional.of(ledgerEntry()));
+        when(orderLedgerRepository.markRefunded(eq(orderEntity.getId()), any())).thenReturn(0);
+
+        salesLedgerService.recordRefund(orderEntity);
+
+        verify(orderLedgerRepository, never()).save(any());
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void recordRefund_PredatesLedger() {
+
+        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.CANCELED);
+        mockOrderGraph();
+        when(orderLedgerRepository.findById(orderEntity.getId())).thenReturn(Optional.empty());
+
+        salesLedgerService.recordRefund(orderEntity);
+
+        ArgumentCaptor<OrderLedgerEntity> captor = ArgumentCaptor.forClass(OrderLedgerEntity.class);
+        verify(orderLedgerRepository).save(captor.capture());
+        assertEquals(OrderLedgerEntity.Status.REFUNDED, captor.getValue().getStatus());
+        assertEquals(ORDER_TIMESTAMP, captor.getValue().getRefundedTimestamp());
+        assertTrue(captor.getValue().isSaleRollupPending());
+        assertTrue(captor.getValue().isRefundRollupPending());
+        verify(orderLedgerRepository, never()).markRefunded(any(), any());
+    }
+
+    @Test
+    public void rollupLedger() {
+
+        final OrderLedgerEntity sale = ledgerEntry();
+        final OrderLedgerEntity refund = ledgerEntry()
+                .setStatus(OrderLedgerEntity.Status.REFUNDED)
+                .setRefundedTimestamp(ORDER_TIMESTAMP.plusDays(1L))
+                .setSaleRollupPending(false)
+                .setRefundRollupPending(true);
+
+        when(orderLedgerRepository.findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc()).thenReturn(Collections.singletonList(sale));
+        when(orderLedgerRepository.findTop500ByRefundRollupPendingTrueAndSaleRollupPendingFalseOrderByRefundedTimestampAsc()).thenReturn(Collections.singletonList(refund));
+        when(orderLedgerRepository.markSaleRolledUp(sale.getId())).thenReturn(1);
+        when(orderLedgerRepository.markRefundRolledUp(refund.getId())).thenReturn(1);
+
+        salesLedgerService.rollupLedger();
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(eventSalesRollupRepository).applyDelta(eventId, 2, 0, BigDecimal.valueOf(20L), BigDecimal.valueOf(3L),
+                BigDecimal.valueOf(2L), BigDecimal.ONE, BigDecimal.ZERO);
+        verify(dailySalesRollupRepository).applyDelta(ORDER_DATE, 2, 0, BigDecimal.valueOf(20L), BigDecimal.valueOf(3L),
+                BigDecimal.valueOf(2L), BigDecimal.ONE, BigDecimal.ZERO);
+
+        //Refund lands on the day it was refunded.
+        verify(eventSalesRollupRepository).applyDelta(eventId, -2, 2, BigDecimal.valueOf(-20L), BigDecimal.valueOf(-3L),
+                BigDecimal.valueOf(-2L), BigDecimal.ONE.negate(), BigDecimal.ONE);
+        verify(dailySalesRollupRepository).applyDelta(ORDER_DATE.plusDays(1L), -2, 2, BigDecimal.valueOf(-20L), BigDecimal.valueOf(-3L),
+                BigDecimal.valueOf(-2L), BigDecimal.ONE.negate(), BigDecimal.ONE);
+    }
+
+    @Test
+    public void rollupLedger_CreatesRollups() {
+
+        when(eventSalesRollupRepository.existsById(eventId)).thenReturn(false);
+        when(dailySalesRollupRepository.existsById(ORDER_DATE)).thenReturn(false);
+        when(orderLedgerRepository.findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc()).thenReturn(Collections.singletonList(ledgerEntry()));
+        when(orderLedgerRepository.markSaleRolledUp(orderEntity.getId())).thenReturn(1);
+
+        salesLedgerService.rollupLedger();
+
+        verify(eventSalesRollupRepository).save(eq(new EventSalesRollupEntity().setId(eventId)));
+        verify(dailySalesRollupRepository).save(eq(new DailySalesRollupEntity().setId(ORDER_DATE)));
+        verify(eventSalesRollupRepository).applyDelta(eq(eventId), eq(2), eq(0), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository).applyDelta(eq(ORDER_DATE), eq(2), eq(0), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void rollupLedger_AlreadyApplied() {
+
+        when(orderLedgerRepository.findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc()).thenReturn(Collections.singletonList(ledgerEntry()));
+        when(orderLedgerRepository.markSaleRolledUp(orderEntity.getId())).thenReturn(0);
+
+        salesLedgerService.rollupLedger();
+
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void rollupLedger_NotUSD() {
+
+        when(orderLedgerRepository.findTop500BySaleRollupPendingTrueOrderByOrderTimestampAsc()).thenReturn(Collections.singletonList(ledgerEntry().setCurrency("EUR")));
+        when(orderLedgerRepository.markSaleRolledUp(orderEntity.getId())).thenReturn(1);
+
+        salesLedgerService.rollupLedger();
+
+        verify(orderLedgerRepository).markSaleRolledUp(orderEntity.getId());
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+        verify(dailySalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void getEventSales_NothingSold() {
+
+        when(eventSalesRollupRepository.findById(eventId)).thenReturn(Optional.empty());
+
+        EventSalesRollupEntity actual = salesLedgerService.getEventSales(eventId);
+
+        assertEquals(eventId, actual.getId());
+        assertEquals(0, actual.getTicketsSold());
+        assertEquals(BigDecimal.ZERO, actual.getIssuerFee());
+    }
+
+    @Test
+    public void getLedgerEntries() {
+
+        final OrderLedgerEntity orderLedgerEntity = ledgerEntry();
+        when(orderLedgerRepository.findAllById(Collections.singletonList(orderEntity.getId()))).thenReturn(Collections.singletonList(orderLedgerEntity));
+
+        Map<UUID, OrderLedgerEntity> actual = salesLedgerService.getLedgerEntries(Collections.singletonList(orderEntity));
+
+        assertEquals(orderLedgerEntity, actual.get(orderEntity.getId()));
+        verify(calculationService, never()).calculateFees(anyInt(), any(), any(), anyBoolean());
+        verify(orderLedgerRepository, never()).save(any());
+    }
+
+    @Test
+    public void getLedgerEntries_LedgersMissing() {
+
+        mockOrderGraph();
+        when(orderLedgerRepository.findAllById(any())).thenReturn(Collections.emptyList());
+
+        Map<UUID, OrderLedgerEntity> actual = salesLedgerService.getLedgerEntries(Collections.singletonList(orderEntity));
+
+        assertTrue(actual.containsKey(orderEntity.getId()));
+        assertEquals(OrderLedgerEntity.Status.SOLD, actual.get(orderEntity.getId()).getStatus());
+        verify(calculationService).calculateFees(eq(2), eq(BigDecimal.valueOf(20L)), any(), eq(false));
+
+        //Reads never write. The backfill job ledgers the order.
+        verify(orderLedgerRepository, never()).save(any());
+        verify(eventSalesRollupRepository, never()).applyDelta(any(), anyInt(), anyInt(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void backfillLedger_SkipsOrdersWithoutTickets() {
+
+        mockOrderGraph();
+
+        //Sorts before the ledgerable order, so a page of only ticketless orders must not end the backfill.
+        final UUID ticketlessOrderId = new UUID(0L, 1L);
+        OrderEntity ticketlessOrder = mock(OrderEntity.class);
+        when(ticketlessOrder.getId()).thenReturn(ticketlessOrderId);
+        when(ticketlessOrder.getTickets()).thenReturn(Collections.emptySet());
+        when(ticketlessOrder.getFees()).thenReturn(Collections.emptySet());
+
+        when(orderLedgerRepository.findUnledgeredOrderIdsAfter(eq(new UUID(0L, 0L)), any())).thenReturn(Collections.singletonList(ticketlessOrderId));
+        when(orderLedgerRepository.findUnledgeredOrderIdsAfter(eq(ticketlessOrderId), any())).thenReturn(Collections.singletonList(orderEntity.getId()));
+        when(orderLedgerRepository.findUnledgeredOrderIdsAfter(eq(orderEntity.getId()), any())).thenReturn(Collections.emptyList());
+        when(orderRepository.findById(ticketlessOrderId)).thenReturn(Optional.of(ticketlessOrder));
+        when(orderRepository.findById(orderEntity.getId())).thenReturn(Optional.of(orderEntity));
+
+        salesLedgerService.backfillLedger();
+
+        ArgumentCaptor<OrderLedgerEntity> captor = ArgumentCaptor.forClass(OrderLedgerEntity.class);
+        verify(orderLedgerRepository, times(1)).save(captor.capture());
+        assertEquals(orderEntity.getId(), captor.getValue().getId());
+        verify(orderLedgerRepository, times(3)).findUnledgeredOrderIdsAfter(any(), any());
+    }
+
+    private CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo(String currencyCode) {
+
+        CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo = new CalculationServiceImpl.PriceCalculationInfo();
+        priceCalculationInfo.ticketSubtotal = BigDecimal.valueOf(20L);
+        priceCalculationInfo.feeSubtotal = BigDecimal.valueOf(5L);
+        priceCalculationInfo.issuerFeeSubtotal = BigDecimal.valueOf(3L);
+        priceCalculationInfo.venueFeeSubtotal = BigDecimal.valueOf(2L);
+        priceCalculationInfo.paymentFeeSubtotal = BigDecimal.ONE;
+        priceCalculationInfo.grandTotal = BigDecimal.valueOf(26L);
+        priceCalculationInfo.currencyCode = currencyCode;
+        return priceCalculationInfo;
+    }
+
+    private OrderLedgerEntity ledgerEntry() {
+
+        return new OrderLedgerEntity()
+                .setId(orderEntity.getId())
+                .setEventId(eventId)
+                .setStatus(OrderLedgerEntity.Status.SOLD)
+                .setCurrency("USD")
+                .setNumPaidTickets(2)
+                .setTicketSubtotal(BigDecimal.valueOf(20L))
+                .setIssuerFee(BigDecimal.valueOf(3L))
+                .setVenueFee(BigDecimal.valueOf(2L))
+                .setPaymentFee(BigDecimal.ONE)
+                .setOrderTimestamp(ORDER_TIMESTAMP);
+    }
+
+    /**
+     * Order with two paid tickets and one free ticket.
+     */
+    private void mockOrderGraph() {
+
+        EventEntity eventEntity = mock(EventEntity.class);
+        when(eventEntity.getId()).thenReturn(eventId);
+
+        TicketTypeConfigEntity paidType = mock(TicketTypeConfigEntity.class);
+        when(paidType.getPrice()).thenReturn(BigDecimal.TEN);
+        when(paidType.getCurrency()).thenReturn("USD");
+
+        TicketTypeConfigEntity freeType = mock(TicketTypeConfigEntity.class);
+        when(freeType.getPrice()).thenReturn(BigDecimal.ZERO);
+        when(freeType.getCurrency()).thenReturn("USD");
+
+        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
+        for (TicketTypeConfigEntity ticketTypeConfigEntity : Arrays.asList(paidType, paidType, freeType)) {
+
+            TicketEntity ticketEntity = mock(TicketEntity.class);
+            when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
+            when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
+            when(ticketEntity.getTicketTypeConfigEntity()).thenReturn(ticketTypeConfigEntity);
+
+            OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
+            when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
+            orderTicketEntryEntities.add(orderTicketEntryEntity);
+        }
+
+        TicketFeeConfigEntity ticketFeeConfigEntity = mock(TicketFeeConfigEntity.class);
+        OrderFeeEntryEntity orderFeeEntryEntity = mock(OrderFeeEntryEntity.class);
+        when(orderFeeEntryEntity.getTicketFeeConfigEntity()).thenReturn(ticketFeeConfigEntity);
+
+        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
+        when(orderEntity.getFees()).thenReturn(Collections.singleton(orderFeeEntryEntity));
+
+        final CalculationServiceImpl.PriceCalculationInfo priceCalculationInfo = priceCalculationInfo("USD");
+        when(calculationService.calculateFees(anyInt(), any(), any(), anyBoolean())).thenReturn(priceCalculationInfo);
+    }
+}
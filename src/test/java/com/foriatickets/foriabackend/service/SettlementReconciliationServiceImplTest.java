@@ -0,0 +1,114 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.entities.OrderEntity;
+import com.foriatickets.foriabackend.repositories.OrderRepository;
+import com.stripe.model.BalanceTransaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class SettlementReconciliationServiceImplTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SettlementReconciliationServiceImpl settlementReconciliationService;
+
+    @Before
+    public void setUp() {
+        settlementReconciliationService = new SettlementReconciliationServiceImpl(orderRepository, transactionManager, 2, 2);
+    }
+
+    @After
+    public void tearDown() {
+        settlementReconciliationService.shutdown();
+    }
+
+    @Test
+    public void reconcile() {
+
+        final BalanceTransaction charge1 = transaction("ch_1");
+        final BalanceTransaction charge2 = transaction("ch_2");
+        final BalanceTransaction charge3 = transaction("ch_3");
+        final BalanceTransaction unknownCharge = transaction("ch_unknown");
+        final BalanceTransaction refund1 = transaction("re_1");
+
+        final OrderEntity order1 = order("ch_1", null);
+        final OrderEntity order2 = order("ch_2", null);
+        final OrderEntity order3 = order("ch_3", "re_1");
+
+        when(orderRepository.findAllWithDetailsByChargeReferenceIds(any())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            List<OrderEntity> result = new ArrayList<>();
+            for (OrderEntity orderEntity : Arrays.asList(order1, order2, order3)) {
+                if (ids.contains(orderEntity.getChargeReferenceId())) {
+                    result.add(orderEntity);
+                }
+            }
+            return result;
+        });
+        when(orderRepository.findAllWithDetailsByRefundReferenceIds(any())).thenReturn(Collections.singletonList(order3));
+
+        SettlementReconciliationService.ReconciliationResult actual = settlementReconciliationService.reconcile(
+                Arrays.asList(charge3, unknownCharge, charge1, charge2), Collections.singletonList(refund1));
+
+        //Four distinct charge IDs in chunks of two.
+        verify(orderRepository, times(2)).findAllWithDetailsByChargeReferenceIds(any());
+        verify(orderRepository, times(1)).findAllWithDetailsByRefundReferenceIds(any());
+        verify(orderRepository, never()).findByChargeReferenceId(any());
+
+        assertEquals(3, actual.getCharges().size());
+        assertSame(order3, actual.getCharges().get(0).getOrderEntity());
+        assertSame(order1, actual.getCharges().get(1).getOrderEntity());
+        assertSame(order2, actual.getCharges().get(2).getOrderEntity());
+        assertEquals(Collections.singletonList(unknownCharge), actual.getUnmatchedCharges());
+
+        assertEquals(1, actual.getRefunds().size());
+        assertSame(refund1, actual.getRefunds().get(0).getTransaction());
+        assertSame(order3, actual.getRefunds().get(0).getOrderEntity());
+        assertTrue(actual.getUnmatchedRefunds().isEmpty());
+        assertTrue(actual.isTransactionMissing());
+    }
+
+    @Test
+    public void reconcile_NoTransactions() {
+
+        SettlementReconciliationService.ReconciliationResult actual = settlementReconciliationService.reconcile(Collections.emptyList(), Collections.emptyList());
+
+        verify(orderRepository, never()).findAllWithDetailsByChargeReferenceIds(any());
+        verify(orderRepository, never()).findAllWithDetailsByRefundReferenceIds(any());
+        assertTrue(actual.getCharges().isEmpty());
+        assertTrue(actual.getRefunds().isEmpty());
+        assertFalse(actual.isTransactionMissing());
+    }
+
+    private BalanceTransaction transaction(String sourceId) {
+
+        BalanceTransaction balanceTransaction = mock(BalanceTransaction.class);
+        when(balanceTransaction.getSource()).thenReturn(sourceId);
+        return balanceTransaction;
+    }
+
+    private OrderEntity order(String chargeReferenceId, String refundReferenceId) {
+
+        OrderEntity orderEntity = mock(OrderEntity.class);
+        when(orderEntity.getId()).thenReturn(UUID.randomUUID());
+        when(orderEntity.getChargeReferenceId()).thenReturn(chargeReferenceId);
+        when(orderEntity.getRefundReferenceId()).thenReturn(refundReferenceId);
+        return orderEntity;
+    }
+}
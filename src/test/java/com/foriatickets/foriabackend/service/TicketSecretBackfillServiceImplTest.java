@@ -0,0 +1,89 @@
+package com.foriatickets.foriabackend.service;
+
+import com.foriatickets.foriabackend.config.ApiModelMapper;
+import com.foriatickets.foriabackend.repositories.TicketRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(SpringRunner.class)
+public class TicketSecretBackfillServiceImplTest {
+
+    @Mock
+    private TicketRepository ticketRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TicketSecretBackfillServiceImpl ticketSecretBackfillService;
+
+    @Before
+    public void setUp() {
+        ticketSecretBackfillService = new TicketSecretBackfillServiceImpl(ticketRepository, transactionManager, 2, 2);
+    }
+
+    @After
+    public void tearDown() {
+        ticketSecretBackfillService.shutdown();
+    }
+
+    @Test
+    public void backfillSecretHashes() {
+
+        final List<Object[]> firstPage = rows(4);
+        final List<Object[]> secondPage = rows(1);
+        when(ticketRepository.findSecretsWithoutHash(any())).thenReturn(firstPage, secondPage, Collections.emptyList());
+        when(ticketRepository.updateSecretHash(any(), anyString(), anyString())).thenReturn(1);
+
+        final int actual = ticketSecretBackfillService.backfillSecretHashes();
+
+        //Pages of two chunks of two.
+        assertEquals(5, actual);
+        verify(ticketRepository, times(3)).findSecretsWithoutHash(any());
+        verify(ticketRepository, times(5)).updateSecretHash(any(), anyString(), anyString());
+
+        final Object[] row = secondPage.get(0);
+        verify(ticketRepository).updateSecretHash((UUID) row[0], (String) row[1], ApiModelMapper.hashSecret((String) row[1]));
+    }
+
+    @Test
+    public void backfillSecretHashes_SecretsReplaced() {
+
+        when(ticketRepository.findSecretsWithoutHash(any())).thenReturn(rows(3));
+        when(ticketRepository.updateSecretHash(any(), anyString(), anyString())).thenReturn(0);
+
+        final int actual = ticketSecretBackfillService.backfillSecretHashes();
+
+        assertEquals(0, actual);
+        verify(ticketRepository, times(1)).findSecretsWithoutHash(any());
+    }
+
+    @Test
+    public void backfillSecretHashes_NothingToDo() {
+
+        when(ticketRepository.findSecretsWithoutHash(any())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, ticketSecretBackfillService.backfillSecretHashes());
+        verify(ticketRepository, never()).updateSecretHash(any(), anyString(), anyString());
+    }
+
+    private static List<Object[]> rows(int numRows) {
+
+        final List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[] {UUID.randomUUID(), UUID.randomUUID().toString()});
+        }
+        return rows;
+    }
+}
@@ -1,29 +1,31 @@
 package com.foriatickets.foriabackend.service;
 
+import com.foriatickets.foriabackend.config.ApiModelMapper;
 import com.foriatickets.foriabackend.config.BeanConfig;
 import com.foriatickets.foriabackend.entities.*;
-import com.foriatickets.foriabackend.gateway.AWSSimpleEmailServiceGateway;
-import com.foriatickets.foriabackend.gateway.FCMGateway;
 import com.foriatickets.foriabackend.gateway.StripeGateway;
 import com.foriatickets.foriabackend.repositories.*;
-import com.stripe.model.Refund;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.modelmapper.ModelMapper;
 import org.modelmapper.PropertyMap;
 import org.modelmapper.internal.util.Assert;
 import org.openapitools.model.ActivationResult;
+import org.openapitools.model.RedemptionBatchItem;
 import org.openapitools.model.RedemptionResult;
+import org.openapitools.model.ScanResult;
 import org.openapitools.model.Ticket;
+import org.openapitools.model.TicketLineItem;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
@@ -33,6 +35,8 @@ import java.util.*;
 import static com.foriatickets.foriabackend.entities.TicketEntity.Status.*;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -48,6 +52,9 @@ public class TicketServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private VenueAccessRepository venueAccessRepository;
+
     @Mock
     private TicketTypeConfigRepository ticketTypeConfigRepository;
 
@@ -76,10 +83,19 @@ public class TicketServiceImplTest {
     private StripeGateway stripeGateway;
 
     @Mock
-    private FCMGateway fcmGateway;
+    private NotificationService notificationService;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private OrderRefundService orderRefundService;
+
+    @Mock
+    private SalesLedgerService salesLedgerService;
 
     @Mock
-    private AWSSimpleEmailServiceGateway awsSimpleEmailServiceGateway;
+    private PlatformTransactionManager transactionManager;
 
     private TicketServiceImpl ticketService;
 
@@ -103,7 +119,7 @@ public class TicketServiceImplTest {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         when(userRepository.findByAuth0Id(eq("test"))).thenReturn(authenticatedUser);
 
-        ticketService = new TicketServiceImpl(calculationService, modelMapper, eventRepository, orderRepository, promoCodeRepository, promoCodeRedemptionRepository, userRepository, ticketTypeConfigRepository, ticketRepository, stripeGateway, orderFeeEntryRepository, orderTicketEntryRepository, transferRequestRepository, fcmGateway, awsSimpleEmailServiceGateway);
+        ticketService = new TicketServiceImpl(new AuthenticatedUserServiceImpl(userRepository, venueAccessRepository, 100, 60000, 60000), calculationService, modelMapper, eventRepository, orderRepository, promoCodeRepository, promoCodeRedemptionRepository, userRepository, ticketTypeConfigRepository, ticketRepository, stripeGateway, orderFeeEntryRepository, orderTicketEntryRepository, transferRequestRepository, notificationService, inventoryService, orderRefundService, salesLedgerService, transactionManager);
     }
 
     @Test
@@ -150,212 +166,80 @@ public class TicketServiceImplTest {
     }
 
     @Test
-    public void refundOrder() {
-
-        final UUID orderId = UUID.randomUUID();
-        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
-
-        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
-        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
-        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
-
-        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
-        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
-        deviceTokenEntities.add(deviceTokenEntity);
-        deviceTokenEntities.add(deviceTokenEntity2);
-
-        UserEntity purchaser = mock(UserEntity.class);
-        when(purchaser.getId()).thenReturn(UUID.randomUUID());
-        when(purchaser.getEmail()).thenReturn("test@test.com");
-        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
-
-        UserEntity owner = mock(UserEntity.class);
-        when(owner.getId()).thenReturn(UUID.randomUUID());
-        when(owner.getEmail()).thenReturn("test2@test.com");
-        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
-
-        EventEntity eventEntity = mock(EventEntity.class);
-        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
-        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
-        when(eventEntity.getName()).thenReturn("Test Event");
-
-        TicketEntity ticketEntity = mock(TicketEntity.class);
-        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
-        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity.getSecret()).thenReturn("secret");
-        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
-        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
-
-        TicketEntity ticketEntity2 = mock(TicketEntity.class);
-        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
-        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity2.getSecret()).thenReturn("secret");
-        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
-        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
-
-        OrderEntity orderEntity = mock(OrderEntity.class);
-        when(orderEntity.getId()).thenReturn(orderId);
-        when(orderEntity.getCurrency()).thenReturn("USD");
-        when(orderEntity.getTotal()).thenReturn(refundAmount);
-        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
-        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
-        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
-
-        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
-        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
-
-        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
-
-        orderTicketEntryEntities.add(orderTicketEntryEntity);
-        orderTicketEntryEntities.add(orderTicketEntryEntity2);
-        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
-
-        doNothing().when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
-        doNothing().when(fcmGateway).sendPushNotification(any(), any());
-        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
-
-        ticketService.refundOrder(orderId);
+    public void checkoutOrder_SoldOutReleasesHolds() {
+
+        final UUID eventId = UUID.randomUUID();
+        final UUID holdId = UUID.randomUUID();
+        final TicketTypeConfigEntity availableTier = mock(TicketTypeConfigEntity.class);
+        final TicketTypeConfigEntity soldOutTier = mock(TicketTypeConfigEntity.class);
+        final TicketLineItem availableLineItem = new TicketLineItem();
+        availableLineItem.setTicketTypeId(UUID.randomUUID());
+        availableLineItem.setAmount(2);
+        final TicketLineItem soldOutLineItem = new TicketLineItem();
+        soldOutLineItem.setTicketTypeId(UUID.randomUUID());
+        soldOutLineItem.setAmount(1);
+
+        when(ticketTypeConfigRepository.findById(availableLineItem.getTicketTypeId())).thenReturn(Optional.of(availableTier));
+        when(ticketTypeConfigRepository.findById(soldOutLineItem.getTicketTypeId())).thenReturn(Optional.of(soldOutTier));
+        when(inventoryService.hold(availableTier, 2)).thenReturn(Optional.of(holdId));
+        when(inventoryService.hold(soldOutTier, 1)).thenReturn(Optional.empty());
+
+        try {
+            ticketService.checkoutOrder("token", eventId, Arrays.asList(availableLineItem, soldOutLineItem), null);
+            fail("Checkout of a sold out tier must fail.");
+        } catch (ResponseStatusException ex) {
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        }
 
-        verify(ticketRepository, times(2)).save(any());
-        verify(orderRepository).save(any());
-        verify(awsSimpleEmailServiceGateway, times(2)).sendEmailFromTemplate(any(), any(), any());
-        verify(fcmGateway, times(2)).sendPushNotification(any(), any());
-        verify(stripeGateway).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        //Holds are taken before the checkout transaction, so it is never opened.
+        verify(inventoryService).releaseHold(holdId);
+        verify(transactionManager, never()).getTransaction(any());
+        verify(orderRepository, never()).save(any());
     }
 
     @Test
-    public void refundOrder_freeOrder() {
+    public void refundOrder() {
 
         final UUID orderId = UUID.randomUUID();
-        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
-
-        Set<DeviceTokenEntity> deviceTokenEntities = new HashSet<>();
-        DeviceTokenEntity deviceTokenEntity = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.ACTIVE);
-        when(deviceTokenEntity.getDeviceToken()).thenReturn("fake_token");
-
-        DeviceTokenEntity deviceTokenEntity2 = mock(DeviceTokenEntity.class);
-        when(deviceTokenEntity2.getTokenStatus()).thenReturn(DeviceTokenEntity.TokenStatus.DEACTIVATED);
-        when(deviceTokenEntity2.getDeviceToken()).thenReturn("fake_token2");
-        deviceTokenEntities.add(deviceTokenEntity);
-        deviceTokenEntities.add(deviceTokenEntity2);
-
-        UserEntity purchaser = mock(UserEntity.class);
-        when(purchaser.getId()).thenReturn(UUID.randomUUID());
-        when(purchaser.getEmail()).thenReturn("test@test.com");
-        when(purchaser.getDeviceTokens()).thenReturn(deviceTokenEntities);
-
-        UserEntity owner = mock(UserEntity.class);
-        when(owner.getId()).thenReturn(UUID.randomUUID());
-        when(owner.getEmail()).thenReturn("test2@test.com");
-        when(owner.getDeviceTokens()).thenReturn(deviceTokenEntities);
-
-        EventEntity eventEntity = mock(EventEntity.class);
-        when(eventEntity.getId()).thenReturn(UUID.randomUUID());
-        when(eventEntity.getEventEndTime()).thenReturn(OffsetDateTime.MAX.minusYears(1L));
-        when(eventEntity.getName()).thenReturn("Test Event");
-
-        TicketEntity ticketEntity = mock(TicketEntity.class);
-        when(ticketEntity.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity.getStatus()).thenReturn(ACTIVE);
-        when(ticketEntity.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity.getSecret()).thenReturn("secret");
-        when(ticketEntity.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity.getOwnerEntity()).thenReturn(purchaser);
-        when(ticketEntity.getEventEntity()).thenReturn(eventEntity);
-
-        TicketEntity ticketEntity2 = mock(TicketEntity.class);
-        when(ticketEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(ticketEntity2.getStatus()).thenReturn(ISSUED);
-        when(ticketEntity2.getIssuedDate()).thenReturn(OffsetDateTime.now());
-        when(ticketEntity2.getSecret()).thenReturn("secret");
-        when(ticketEntity2.getPurchaserEntity()).thenReturn(purchaser);
-        when(ticketEntity2.getOwnerEntity()).thenReturn(owner);
-        when(ticketEntity2.getEventEntity()).thenReturn(eventEntity);
-
-        OrderEntity orderEntity = mock(OrderEntity.class);
-        when(orderEntity.getId()).thenReturn(orderId);
-        when(orderEntity.getCurrency()).thenReturn("USD");
-        when(orderEntity.getTotal()).thenReturn(refundAmount);
-        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
-        when(orderEntity.getChargeReferenceId()).thenReturn(null);
-        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.COMPLETED);
-
-        Set<OrderTicketEntryEntity> orderTicketEntryEntities = new HashSet<>();
-        OrderTicketEntryEntity orderTicketEntryEntity = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity.getTicketEntity()).thenReturn(ticketEntity);
-
-        OrderTicketEntryEntity orderTicketEntryEntity2 = mock(OrderTicketEntryEntity.class);
-        when(orderTicketEntryEntity2.getOrderEntity()).thenReturn(orderEntity);
-        when(orderTicketEntryEntity2.getId()).thenReturn(UUID.randomUUID());
-        when(orderTicketEntryEntity2.getTicketEntity()).thenReturn(ticketEntity2);
-
-        orderTicketEntryEntities.add(orderTicketEntryEntity);
-        orderTicketEntryEntities.add(orderTicketEntryEntity2);
-        when(orderEntity.getTickets()).thenReturn(orderTicketEntryEntities);
-
-        doNothing().when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
-        doNothing().when(fcmGateway).sendPushNotification(any(), any());
-        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
-
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
-
         ticketService.refundOrder(orderId);
-
-        verify(ticketRepository, times(2)).save(any());
-        verify(orderRepository).save(any());
-        verify(awsSimpleEmailServiceGateway, times(2)).sendEmailFromTemplate(any(), any(), any());
-        verify(fcmGateway, times(2)).sendPushNotification(any(), any());
-        verify(stripeGateway, times(0)).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        verify(orderRefundService).refundOrder(orderId, true);
     }
 
     @Test
-    public void refundOrder_alreadyCanceled() {
+    public void issueTicket() {
 
-        final UUID orderId = UUID.randomUUID();
-        final BigDecimal refundAmount = BigDecimal.valueOf(123L);
+        UUID purchaserId = UUID.randomUUID();
+        UUID eventId = UUID.randomUUID();
+        UUID ticketConfigId = UUID.randomUUID();
 
-        OrderEntity orderEntity = mock(OrderEntity.class);
-        when(orderEntity.getId()).thenReturn(orderId);
-        when(orderEntity.getCurrency()).thenReturn("USD");
-        when(orderEntity.getTotal()).thenReturn(refundAmount);
-        when(orderEntity.getOrderTimestamp()).thenReturn(OffsetDateTime.now());
-        when(orderEntity.getChargeReferenceId()).thenReturn("fake_stripe_charge");
-        when(orderEntity.getStatus()).thenReturn(OrderEntity.Status.CANCELED);
+        UserEntity userEntityMock = mock(UserEntity.class);
+        EventEntity eventEntityMock = mock(EventEntity.class);
+        TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
 
-        doNothing().when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
-        doNothing().when(fcmGateway).sendPushNotification(any(), any());
-        when(stripeGateway.refundStripeCharge(any(), any())).thenReturn(mock(Refund.class));
+        when(ticketTypeConfigEntity.getStatus()).thenReturn(TicketTypeConfigEntity.Status.ACTIVE);
 
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(orderEntity));
+        when(eventEntityMock.getStatus()).thenReturn(EventEntity.Status.LIVE);
+        when(eventEntityMock.getVisibility()).thenReturn(EventEntity.Visibility.PUBLIC);
+        when(eventEntityMock.getEventEndTime()).thenReturn(OffsetDateTime.MAX);
 
-        ticketService.refundOrder(orderId);
+        Mockito.when(userRepository.findById(purchaserId)).thenReturn(Optional.of(userEntityMock));
+        Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
+        Mockito.when(ticketTypeConfigRepository.findById(ticketConfigId)).thenReturn(Optional.of(ticketTypeConfigEntity));
+        Mockito.when(ticketRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        verify(ticketRepository, times(0)).save(any());
-        verify(orderRepository, times(0)).save(any());
-        verify(awsSimpleEmailServiceGateway, times(0)).sendEmailFromTemplate(any(), any(), any());
-        verify(fcmGateway, times(0)).sendPushNotification(any(), any());
-        verify(stripeGateway, times(0)).refundStripeCharge(orderEntity.getChargeReferenceId(), orderEntity.getTotal());
+        TicketEntity actual = ticketService.issueTicket(purchaserId, eventId, ticketConfigId);
+
+        Assert.notNull(actual);
+        assertEquals(userEntityMock, actual.getPurchaserEntity());
+        assertEquals(userEntityMock, actual.getOwnerEntity());
+        assertNotNull(actual.getSecret());
+        assertEquals(ApiModelMapper.hashSecret(actual.getSecret()), actual.getSecretHash());
+        assertEquals(ISSUED, actual.getStatus());
+        verify(ticketRepository, never()).save(any());
     }
 
     @Test
-    public void issueTicket() {
+    public void issueTickets() {
 
         UUID purchaserId = UUID.randomUUID();
         UUID eventId = UUID.randomUUID();
@@ -364,28 +248,24 @@ public class TicketServiceImplTest {
         UserEntity userEntityMock = mock(UserEntity.class);
         EventEntity eventEntityMock = mock(EventEntity.class);
         TicketTypeConfigEntity ticketTypeConfigEntity = mock(TicketTypeConfigEntity.class);
-        ArgumentCaptor<TicketEntity> argumentCaptor = ArgumentCaptor.forClass(TicketEntity.class);
 
         when(ticketTypeConfigEntity.getStatus()).thenReturn(TicketTypeConfigEntity.Status.ACTIVE);
-
         when(eventEntityMock.getStatus()).thenReturn(EventEntity.Status.LIVE);
-        when(eventEntityMock.getVisibility()).thenReturn(EventEntity.Visibility.PUBLIC);
         when(eventEntityMock.getEventEndTime()).thenReturn(OffsetDateTime.MAX);
 
         Mockito.when(userRepository.findById(purchaserId)).thenReturn(Optional.of(userEntityMock));
         Mockito.when(eventRepository.findById(eventId)).thenReturn(Optional.of(eventEntityMock));
         Mockito.when(ticketTypeConfigRepository.findById(ticketConfigId)).thenReturn(Optional.of(ticketTypeConfigEntity));
-        Mockito.when(ticketRepository.save(any())).thenReturn(mock(TicketEntity.class));
+        Mockito.when(ticketRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        TicketEntity actual = ticketService.issueTicket(purchaserId, eventId, ticketConfigId);
-        verify(ticketRepository).save(argumentCaptor.capture());
+        List<TicketEntity> actual = ticketService.issueTickets(purchaserId, eventId, ticketConfigId, 4);
 
-        Assert.notNull(actual);
-        TicketEntity ticketEntity = argumentCaptor.getValue();
-        assertEquals(userEntityMock, ticketEntity.getPurchaserEntity());
-        assertEquals(userEntityMock, ticketEntity.getOwnerEntity());
-        assertNotNull(ticketEntity.getSecret());
-        assertEquals(ISSUED, ticketEntity.getStatus());
+        assertEquals(4, actual.size());
+        assertEquals(4, actual.stream().map(TicketEntity::getSecret).distinct().count());
+        verify(eventRepository, times(1)).findById(eventId);
+        verify(userRepository, times(1)).findById(purchaserId);
+        verify(ticketTypeConfigRepository, times(1)).findById(ticketConfigId);
+        verify(ticketRepository, times(1)).saveAll(any());
     }
 
     @Test
@@ -404,12 +284,46 @@ public class TicketServiceImplTest {
         when(ticketTypeConfigEntityMock.getEventEntity()).thenReturn(eventEntityMock);
         when(ticketTypeConfigEntityMock.getId()).thenReturn(ticketTypeConfigId);
 
-        when(ticketRepository.countActiveTicketsIssuedByType(ticketTypeConfigId, eventId)).thenReturn(4);
+        when(inventoryService.getTicketsRemaining(any())).thenReturn(Collections.singletonMap(ticketTypeConfigId, 1));
 
         int actual = ticketService.obtainTicketsRemainingByType(ticketTypeConfigEntityMock);
 
         assertEquals(expected, actual);
-        verify(ticketRepository).countActiveTicketsIssuedByType(ticketTypeConfigId, eventId);
+        verify(inventoryService).getTicketsRemaining(Collections.singletonList(ticketTypeConfigEntityMock));
+        verify(ticketRepository, never()).countActiveTicketsIssuedByType(any(), any());
+    }
+
+    @Test
+    public void countTicketsRemainingForEvents() {
+
+        UUID eventId = UUID.randomUUID();
+        UUID soldTierId = UUID.randomUUID();
+        UUID unsoldTierId = UUID.randomUUID();
+
+        TicketTypeConfigEntity soldTierMock = mock(TicketTypeConfigEntity.class);
+        when(soldTierMock.getAuthorizedAmount()).thenReturn(5);
+        when(soldTierMock.getId()).thenReturn(soldTierId);
+
+        TicketTypeConfigEntity unsoldTierMock = mock(TicketTypeConfigEntity.class);
+        when(unsoldTierMock.getAuthorizedAmount()).thenReturn(100);
+        when(unsoldTierMock.getId()).thenReturn(unsoldTierId);
+
+        EventEntity eventEntityMock = mock(EventEntity.class);
+        when(eventEntityMock.getId()).thenReturn(eventId);
+        when(eventEntityMock.getTicketTypeConfigEntity()).thenReturn(new HashSet<>(Arrays.asList(soldTierMock, unsoldTierMock)));
+
+        Map<UUID, Integer> inventory = new HashMap<>();
+        inventory.put(soldTierId, 1);
+        inventory.put(unsoldTierId, 100);
+        when(inventoryService.getTicketsRemaining(any())).thenReturn(inventory);
+
+        Map<UUID, Integer> actual = ticketService.countTicketsRemainingForEvents(Collections.singletonList(eventEntityMock));
+
+        assertEquals(2, actual.size());
+        assertEquals(Integer.valueOf(1), actual.get(soldTierId));
+        assertEquals(Integer.valueOf(10), actual.get(unsoldTierId));
+        verify(inventoryService, times(1)).getTicketsRemaining(any());
+        verify(ticketRepository, never()).countActiveTicketsIssuedByType(any(), any());
     }
 
     @Test
@@ -434,6 +348,7 @@ public class TicketServiceImplTest {
 
         verify(ticketRepository, atLeastOnce()).save(ticketEntityMock);
         verify(ticketEntityMock).setSecret(anyString());
+        verify(ticketEntityMock).setSecretHash(anyString());
     }
 
     @Test
@@ -587,6 +502,243 @@ public class TicketServiceImplTest {
         verify(ticketRepository, times(0)).save(ticketEntityMock);
     }
 
+    @Test
+    public void scanTicket() {
+
+        final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        final GoogleAuthenticatorKey googleAuthenticatorKey = gAuth.createCredentials();
+
+        UUID ticketId = UUID.randomUUID();
+        UUID eventId = UUID.randomUUID();
+        UUID venueId = mockVenueAccess();
+
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.singletonList(
+                new Object[] {TicketEntity.Status.ACTIVE, googleAuthenticatorKey.getKey(), eventId, venueId, "General Admission"}));
+        when(ticketRepository.markRedeemed(eq(ticketId), any(), any())).thenReturn(1);
+
+        ScanResult actual = ticketService.scanTicket(ticketId, String.valueOf(gAuth.getTotpPassword(googleAuthenticatorKey.getKey())));
+        assertEquals(ScanResult.StatusEnum.ALLOW, actual.getStatus());
+        assertNull(actual.getReason());
+        assertEquals(ticketId, actual.getTicketId());
+        assertEquals(eventId, actual.getEventId());
+        assertEquals("General Admission", actual.getTicketTypeName());
+
+        verify(ticketRepository).markRedeemed(eq(ticketId), any(), any());
+        verify(ticketRepository, never()).findById(any());
+        verify(ticketRepository, never()).save(any());
+    }
+
+    @Test
+    public void scanTicket_ConcurrentScan() {
+
+        final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        final GoogleAuthenticatorKey googleAuthenticatorKey = gAuth.createCredentials();
+
+        UUID ticketId = UUID.randomUUID();
+        UUID venueId = mockVenueAccess();
+
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.singletonList(
+                new Object[] {TicketEntity.Status.ACTIVE, googleAuthenticatorKey.getKey(), UUID.randomUUID(), venueId, "General Admission"}));
+        when(ticketRepository.markRedeemed(eq(ticketId), any(), any())).thenReturn(0);
+
+        ScanResult actual = ticketService.scanTicket(ticketId, String.valueOf(gAuth.getTotpPassword(googleAuthenticatorKey.getKey())));
+        assertEquals(ScanResult.StatusEnum.DENY, actual.getStatus());
+        assertEquals(ScanResult.ReasonEnum.ALREADY_REDEEMED, actual.getReason());
+    }
+
+    @Test
+    public void scanTicket_AlreadyRedeemed() {
+
+        UUID ticketId = UUID.randomUUID();
+        UUID venueId = mockVenueAccess();
+
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.singletonList(
+                new Object[] {TicketEntity.Status.REDEEMED, "secret", UUID.randomUUID(), venueId, "General Admission"}));
+
+        ScanResult actual = ticketService.scanTicket(ticketId, "000000");
+        assertEquals(ScanResult.StatusEnum.DENY, actual.getStatus());
+        assertEquals(ScanResult.ReasonEnum.ALREADY_REDEEMED, actual.getReason());
+
+        verify(ticketRepository, never()).markRedeemed(any(), any(), any());
+    }
+
+    @Test
+    public void scanTicket_BadOtp() {
+
+        final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        final GoogleAuthenticatorKey googleAuthenticatorKey = gAuth.createCredentials();
+
+        UUID ticketId = UUID.randomUUID();
+        UUID venueId = mockVenueAccess();
+
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.singletonList(
+                new Object[] {TicketEntity.Status.ACTIVE, googleAuthenticatorKey.getKey(), UUID.randomUUID(), venueId, "General Admission"}));
+
+        int badOtp = (gAuth.getTotpPassword(googleAuthenticatorKey.getKey()) + 1) % 1000000;
+        ScanResult actual = ticketService.scanTicket(ticketId, String.valueOf(badOtp));
+        assertEquals(ScanResult.StatusEnum.DENY, actual.getStatus());
+        assertEquals(ScanResult.ReasonEnum.INVALID_OTP, actual.getReason());
+
+        verify(ticketRepository, never()).markRedeemed(any(), any(), any());
+    }
+
+    @Test
+    public void scanTicket_NotFound() {
+
+        UUID ticketId = UUID.randomUUID();
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.emptyList());
+
+        ScanResult actual = ticketService.scanTicket(ticketId, "000000");
+        assertEquals(ScanResult.StatusEnum.DENY, actual.getStatus());
+        assertEquals(ScanResult.ReasonEnum.NOT_FOUND, actual.getReason());
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void scanTicket_BadAccess() {
+
+        UUID ticketId = UUID.randomUUID();
+        mockVenueAccess();
+
+        when(ticketRepository.findScanInfo(ticketId)).thenReturn(Collections.singletonList(
+                new Object[] {TicketEntity.Status.ACTIVE, "secret", UUID.randomUUID(), UUID.randomUUID(), "General Admission"}));
+
+        ticketService.scanTicket(ticketId, "000000");
+    }
+
+    @Test
+    public void redeemTicketBatch() {
+
+        final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        final String firstSecret = gAuth.createCredentials().getKey();
+        final String secondSecret = gAuth.createCredentials().getKey();
+        final String lostSecret = gAuth.createCredentials().getKey();
+
+        UUID venueId = mockVenueAccess();
+        UUID eventId = UUID.randomUUID();
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        UUID lostId = UUID.randomUUID();
+        UUID redeemedId = UUID.randomUUID();
+        UUID unknownId = UUID.randomUUID();
+
+        when(ticketRepository.findScanInfoByIds(any())).thenReturn(Arrays.asList(
+                new Object[] {firstId, TicketEntity.Status.ACTIVE, firstSecret, eventId, venueId, "General Admission"},
+                new Object[] {secondId, TicketEntity.Status.ACTIVE, secondSecret, eventId, venueId, "VIP"},
+                new Object[] {lostId, TicketEntity.Status.ACTIVE, lostSecret, eventId, venueId, "General Admission"},
+                new Object[] {redeemedId, TicketEntity.Status.REDEEMED, firstSecret, eventId, venueId, "General Admission"}));
+        when(ticketRepository.markRedeemedBatch(any(), any(), any())).thenReturn(new int[] {1, 1, 0});
+
+        //Queued scans are checked at the time they were scanned.
+        final OffsetDateTime queuedAt = OffsetDateTime.now().minusMinutes(5L);
+        final int firstOtp = gAuth.getTotpPassword(firstSecret, queuedAt.toInstant().toEpochMilli());
+
+        List<ScanResult> actual = ticketService.redeemTicketBatch(Arrays.asList(
+                batchItem(firstId, firstOtp, queuedAt),
+                batchItem(secondId, gAuth.getTotpPassword(secondSecret), null),
+                batchItem(lostId, gAuth.getTotpPassword(lostSecret), null),
+                batchItem(redeemedId, 0, null),
+                batchItem(unknownId, 0, null),
+                batchItem(firstId, firstOtp, queuedAt.plusSeconds(1L))));
+
+        assertEquals(6, actual.size());
+        assertEquals(ScanResult.StatusEnum.ALLOW, actual.get(0).getStatus());
+        assertEquals(eventId, actual.get(0).getEventId());
+        assertEquals(ScanResult.StatusEnum.ALLOW, actual.get(1).getStatus());
+        assertEquals("VIP", actual.get(1).getTicketTypeName());
+        assertEquals(ScanResult.ReasonEnum.ALREADY_REDEEMED, actual.get(2).getReason());
+        assertEquals(ScanResult.ReasonEnum.ALREADY_REDEEMED, actual.get(3).getReason());
+        assertEquals(ScanResult.ReasonEnum.NOT_FOUND, actual.get(4).getReason());
+        assertEquals(ScanResult.ReasonEnum.ALREADY_REDEEMED, actual.get(5).getReason());
+        for (int i = 2; i < actual.size(); i++) {
+            assertEquals(ScanResult.StatusEnum.DENY, actual.get(i).getStatus());
+        }
+
+        //One read and one batched write for the whole batch.
+        verify(ticketRepository, times(1)).findScanInfoByIds(any());
+        verify(ticketRepository).markRedeemedBatch(eq(Arrays.asList(firstId, secondId, lostId)), any(), any());
+        verify(ticketRepository, never()).findById(any());
+        verify(ticketRepository, never()).markRedeemed(any(), any(), any());
+    }
+
+    @Test
+    public void redeemTicketBatch_Denied() {
+
+        final GoogleAuthenticator gAuth = new GoogleAuthenticator();
+        final String secret = gAuth.createCredentials().getKey();
+
+        UUID venueId = mockVenueAccess();
+        UUID eventId = UUID.randomUUID();
+        UUID otherEventId = UUID.randomUUID();
+        UUID expiredId = UUID.randomUUID();
+        UUID badOtpId = UUID.randomUUID();
+        UUID otherVenueId = UUID.randomUUID();
+        UUID issuedId = UUID.randomUUID();
+
+        when(ticketRepository.findScanInfoByIds(any())).thenReturn(Arrays.asList(
+                new Object[] {expiredId, TicketEntity.Status.ACTIVE, secret, eventId, venueId, "General Admission"},
+                new Object[] {badOtpId, TicketEntity.Status.ACTIVE, secret, eventId, venueId, "General Admission"},
+                new Object[] {otherVenueId, TicketEntity.Status.ACTIVE, secret, otherEventId, UUID.randomUUID(), "General Admission"},
+                new Object[] {issuedId, TicketEntity.Status.ISSUED, secret, eventId, venueId, "General Admission"}));
+
+        final OffsetDateTime expiredAt = OffsetDateTime.now().minusMinutes(TicketServiceImpl.MAX_QUEUED_SCAN_AGE_MINUTES + 1L);
+        final int badOtp = (gAuth.getTotpPassword(secret) + 1) % 1000000;
+
+        List<ScanResult> actual = ticketService.redeemTicketBatch(Arrays.asList(
+                batchItem(expiredId, gAuth.getTotpPassword(secret, expiredAt.toInstant().toEpochMilli()), expiredAt),
+                batchItem(badOtpId, badOtp, null),
+                batchItem(otherVenueId, gAuth.getTotpPassword(secret), null),
+                batchItem(issuedId, gAuth.getTotpPassword(secret), null)));
+
+        assertEquals(ScanResult.ReasonEnum.EXPIRED, actual.get(0).getReason());
+        assertEquals(ScanResult.ReasonEnum.INVALID_OTP, actual.get(1).getReason());
+        assertEquals(ScanResult.ReasonEnum.NOT_AUTHORIZED, actual.get(2).getReason());
+        assertEquals(ScanResult.ReasonEnum.INVALID_STATUS, actual.get(3).getReason());
+        for (ScanResult scanResult : actual) {
+            assertEquals(ScanResult.StatusEnum.DENY, scanResult.getStatus());
+        }
+
+        verify(ticketRepository, never()).markRedeemedBatch(any(), any(), any());
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void redeemTicketBatch_TooLarge() {
+
+        List<RedemptionBatchItem> redemptions = new ArrayList<>();
+        for (int i = 0; i <= TicketServiceImpl.MAX_REDEMPTIONS_PER_BATCH; i++) {
+            redemptions.add(batchItem(UUID.randomUUID(), 0, null));
+        }
+
+        ticketService.redeemTicketBatch(redemptions);
+    }
+
+    private static RedemptionBatchItem batchItem(UUID ticketId, int otp, OffsetDateTime scannedAt) {
+
+        RedemptionBatchItem redemptionBatchItem = new RedemptionBatchItem();
+        redemptionBatchItem.setTicketId(ticketId);
+        redemptionBatchItem.setTicketOtp(String.format("%06d", otp));
+        redemptionBatchItem.setScannedAt(scannedAt);
+        return redemptionBatchItem;
+    }
+
+    /**
+     * Grants the authenticated user access to a new venue.
+     *
+     * @return Venue ID.
+     */
+    private UUID mockVenueAccess() {
+
+        UUID venueId = UUID.randomUUID();
+        VenueEntity venueEntity = mock(VenueEntity.class);
+        when(venueEntity.getId()).thenReturn(venueId);
+
+        Set<VenueAccessEntity> venueAccessEntitySet = new HashSet<>();
+        VenueAccessEntity venueAccessEntity = mock(VenueAccessEntity.class);
+        when(venueAccessEntity.getVenueEntity()).thenReturn(venueEntity);
+        venueAccessEntitySet.add(venueAccessEntity);
+        when(authenticatedUser.getVenueAccessEntities()).thenReturn(venueAccessEntitySet);
+        return venueId;
+    }
+
     @Test
     public void checkAndConfirmPendingTicketTransfers() {
 
@@ -20,6 +20,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -109,7 +110,7 @@ public class UserCreationServiceImplTest {
         userMock.setAuth0Id("auth0|test");
 
         when(userRepository.findFirstByEmail(eq(userEntityMock.getEmail()))).thenReturn(userEntityMock);
-        doNothing().when(awsSimpleEmailServiceGateway).sendEmailFromTemplate(any(), any(), any());
+        when(awsSimpleEmailServiceGateway.sendEmailFromTemplate(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
 
         try {
             userCreationService.createUser(userMock);